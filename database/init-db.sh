@@ -16,4 +16,8 @@ psql -v ON_ERROR_STOP=1 --username postgres --dbname postgres <<-EOSQL
   ALTER ROLE dbjuddata WITH LOGIN;
 EOSQL
 
+psql -v ON_ERROR_STOP=1 --username postgres --dbname dbjuddata <<-EOSQL
+  CREATE EXTENSION IF NOT EXISTS pg_trgm;
+EOSQL
+
 echo "Done creating database dbjuddata."
@@ -166,10 +166,16 @@ public class JrdApiProviderTest {
         when(regionMappingRepository.findAllRegionMappingData()).thenReturn(List.of(regionMapping));
 
         Page<UserProfile> pagedUserProfiles = getPageUserProfiles();
-        when(userProfileRepository.fetchUserProfileByObjectIds(anyList(),any())).thenReturn(pagedUserProfiles);
-        when(userProfileRepository.fetchUserProfileByServiceNames(anySet(),anyList(),any()))
-                .thenReturn(pagedUserProfiles);
-        when(userProfileRepository.fetchUserProfileBySidamIds(anyList(),any())).thenReturn(pagedUserProfiles);
+        Page<String> pagedIds = pagedUserProfiles.map(UserProfile::getPerId);
+        when(userProfileRepository.findAllById(anyList())).thenReturn(pagedUserProfiles.getContent());
+        when(userProfileRepository.fetchPerIdsByObjectIds(anyList(),any())).thenReturn(pagedIds);
+        when(userProfileRepository.fetchPerIdsByServiceNames(anySet(),anyList(),any()))
+                .thenReturn(pagedIds);
+        when(userProfileRepository.fetchPerIdsBySidamIds(anyList(),any())).thenReturn(pagedIds);
+        when(userProfileRepository.countPerIdsByObjectIds(anyList())).thenReturn(pagedIds.getTotalElements());
+        when(userProfileRepository.countPerIdsByServiceNames(anySet(),anyList()))
+                .thenReturn(pagedIds.getTotalElements());
+        when(userProfileRepository.countPerIdsBySidamIds(anyList())).thenReturn(pagedIds.getTotalElements());
         when(userProfileRepository.fetchUserProfileByAll(any())).thenReturn(pagedUserProfiles);
 
     }
@@ -179,10 +179,16 @@ public class JrdApiProviderV2Test {
         when(regionMappingRepository.findAllRegionMappingData()).thenReturn(List.of(regionMapping));
 
         Page<UserProfile> pagedUserProfiles = getPageUserProfiles();
-        when(userProfileRepository.fetchUserProfileByObjectIds(anyList(),any())).thenReturn(pagedUserProfiles);
-        when(userProfileRepository.fetchUserProfileByServiceNames(anySet(),anyList(),any()))
-                .thenReturn(pagedUserProfiles);
-        when(userProfileRepository.fetchUserProfileBySidamIds(anyList(),any())).thenReturn(pagedUserProfiles);
+        Page<String> pagedIds = pagedUserProfiles.map(UserProfile::getPersonalCode);
+        when(userProfileRepository.findAllById(anyList())).thenReturn(pagedUserProfiles.getContent());
+        when(userProfileRepository.fetchPersonalCodesByObjectIds(anyList(),any())).thenReturn(pagedIds);
+        when(userProfileRepository.fetchPersonalCodesByServiceNames(anySet(),anyList(),any()))
+                .thenReturn(pagedIds);
+        when(userProfileRepository.fetchPersonalCodesBySidamIds(anyList(),any())).thenReturn(pagedIds);
+        when(userProfileRepository.countPersonalCodesByObjectIds(anyList())).thenReturn(pagedIds.getTotalElements());
+        when(userProfileRepository.countPersonalCodesByServiceNames(anySet(),anyList()))
+                .thenReturn(pagedIds.getTotalElements());
+        when(userProfileRepository.countPersonalCodesBySidamIds(anyList())).thenReturn(pagedIds.getTotalElements());
     }
 
     @NotNull
@@ -0,0 +1,104 @@
+package uk.gov.hmcts.reform.judicialapi;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.hmcts.reform.judicialapi.elinks.repository.ProfileRepository;
+import uk.gov.hmcts.reform.judicialapi.repository.UserProfileRepository;
+import uk.gov.hmcts.reform.judicialapi.util.AuthorizationEnabledIntegrationTest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "uk.gov.hmcts.reform.judicialapi.SearchUsersIndexIntegrationTest$CapturingStatementInspector")
+class SearchUsersIndexIntegrationTest extends AuthorizationEnabledIntegrationTest {
+
+    private static final Pattern NAMED_PARAMETER = Pattern.compile(":(\\w+)");
+
+    // one value per parameter of the searches, the lists with a single code so each one is a single placeholder
+    private static final Map<String, String> PARAMETERS = Map.of("searchString", "%test%", "serviceCode", "bfa1",
+            "locationCode", "20262", "ticketCode", "368", "searchServiceCode", "bfa1");
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    UserProfileRepository userProfileRepository;
+
+    @Autowired
+    ProfileRepository profileRepository;
+
+    @BeforeEach
+    void clearStatements() {
+        STATEMENTS.clear();
+    }
+
+    @Test
+    void searchStringReadsTheTrigramIndexes() throws NoSuchMethodException {
+        userProfileRepository.findBySearchString("test", "bfa1", "20262", List.of("368"), List.of("bfa1"));
+
+        assertThat(explain(UserProfileRepository.class.getMethod("findBySearchString", String.class,
+                String.class, String.class, List.class, List.class).getAnnotation(Query.class)))
+                .contains("judicial_user_profile_known_as_trgm_idx")
+                .contains("judicial_user_profile_surname_trgm_idx")
+                .contains("judicial_user_profile_full_name_trgm_idx");
+    }
+
+    @Test
+    void searchForStringReadsTheTrigramIndexes() throws NoSuchMethodException {
+        profileRepository.findBySearchForString("test", "bfa1", "20262", List.of("368"), List.of("bfa1"));
+
+        assertThat(explain(ProfileRepository.class.getMethod("findBySearchForString", String.class,
+                String.class, String.class, List.class, List.class).getAnnotation(Query.class)))
+                .contains("judicial_user_profile_known_as_trgm_idx")
+                .contains("judicial_user_profile_surname_trgm_idx")
+                .contains("judicial_user_profile_full_name_trgm_idx");
+    }
+
+    /**
+     * Explains the SQL Hibernate sent for the search, with the joins and subqueries of the repository. Hibernate
+     * binds the parameters in the order they appear in the query, so the values follow the named parameters of
+     * its {@code @Query}.
+     */
+    private String explain(Query query) {
+        String sql = STATEMENTS.stream().filter(statement -> statement.contains(" like "))
+                .reduce((first, last) -> last).orElseThrow();
+        Object[] values = NAMED_PARAMETER.matcher(query.value()).results()
+                .map(parameter -> PARAMETERS.get(parameter.group(1))).toArray();
+        assertThat(sql.chars().filter(character -> character == '?').count()).isEqualTo(values.length);
+
+        // the test tables are small enough for any scan to win, so the scans and nested loops that would read the
+        // profiles without a name index are ruled out to see whether the names can be read through the indexes
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("set local enable_seqscan = off");
+            jdbcTemplate.execute("set local enable_indexscan = off");
+            jdbcTemplate.execute("set local enable_indexonlyscan = off");
+            jdbcTemplate.execute("set local enable_nestloop = off");
+            return String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class, values));
+        });
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
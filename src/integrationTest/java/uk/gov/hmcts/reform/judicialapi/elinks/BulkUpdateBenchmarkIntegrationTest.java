@@ -0,0 +1,161 @@
+package uk.gov.hmcts.reform.judicialapi.elinks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksBulkUpdater;
+import uk.gov.hmcts.reform.judicialapi.util.AuthorizationEnabledIntegrationTest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.DELETEDAPI;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.IDAMSEARCH;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.LEAVERSAPI;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.BULK_UPDATE_DELETED;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.BULK_UPDATE_LEAVERS;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.BULK_UPDATE_SIDAM_IDS;
+
+/**
+ * Compares the UNNEST updates of the leavers, deleted and SIDAM id loads with the batches of ten single-row
+ * updates they replaced. The UNNEST updates also record the profile changes and change events the batches did
+ * not. The timings are logged rather than asserted, as they depend on the machine running the suite; only the
+ * rows the updates leave behind are checked.
+ */
+@Slf4j
+class BulkUpdateBenchmarkIntegrationTest extends AuthorizationEnabledIntegrationTest {
+
+    private static final String BATCH_UPDATE_LEAVERS = "UPDATE dbjudicialdata.judicial_user_profile SET "
+            + "last_working_date = Date(?) , active_flag = ?, last_loaded_date= NOW() AT TIME ZONE 'utc', "
+            + "content_hash = NULL WHERE personal_code = ?";
+
+    private static final String BATCH_UPDATE_DELETED = "UPDATE dbjudicialdata.judicial_user_profile SET "
+            + "date_of_deletion = Date(?) , deleted_flag = ?, content_hash = NULL WHERE personal_code = ?";
+
+    private static final String BATCH_UPDATE_SIDAM_IDS = "UPDATE dbjudicialdata.judicial_user_profile SET "
+            + "sidam_id = ? WHERE object_id = ? AND (sidam_id IS NULL OR sidam_id <> ' ')";
+
+    private static final int BATCH_SIZE = 10;
+
+    private static final String BULK = "bulk";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    ElinksBulkUpdater elinksBulkUpdater;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from dbjudicialdata.judicial_change_event where personal_code like ?",
+                BULK + "%");
+        jdbcTemplate.update("delete from dbjudicialdata.judicial_profile_change where personal_code like ?",
+                BULK + "%");
+        jdbcTemplate.update("delete from dbjudicialdata.judicial_user_profile where personal_code like ?",
+                BULK + "%");
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1_000, 10_000, 100_000})
+    void leavers(int judges) {
+        List<String> personalCodes = insertProfiles(judges);
+
+        long batchNanos = time(() -> jdbcTemplate.batchUpdate(BATCH_UPDATE_LEAVERS, personalCodes, BATCH_SIZE,
+            (ps, personalCode) -> {
+                ps.setString(1, "2023-01-01");
+                ps.setBoolean(2, false);
+                ps.setString(3, personalCode);
+            }));
+        long unnestNanos = time(() -> assertThat(elinksBulkUpdater.update(LEAVERSAPI, BULK_UPDATE_LEAVERS,
+            rows(personalCodes, personalCode -> new Object[] {"2024-01-01", false}), "text", "boolean"))
+            .isEmpty());
+
+        logTimings(LEAVERSAPI, judges, batchNanos, unnestNanos);
+        assertThat(countProfiles("last_working_date = '2024-01-01' and active_flag = false")).isEqualTo(judges);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1_000, 10_000, 100_000})
+    void deleted(int judges) {
+        List<String> personalCodes = insertProfiles(judges);
+
+        long batchNanos = time(() -> jdbcTemplate.batchUpdate(BATCH_UPDATE_DELETED, personalCodes, BATCH_SIZE,
+            (ps, personalCode) -> {
+                ps.setString(1, "2023-01-01");
+                ps.setBoolean(2, true);
+                ps.setString(3, personalCode);
+            }));
+        long unnestNanos = time(() -> assertThat(elinksBulkUpdater.update(DELETEDAPI, BULK_UPDATE_DELETED,
+            rows(personalCodes, personalCode -> new Object[] {"2024-01-01", true}), "text", "boolean"))
+            .isEmpty());
+
+        logTimings(DELETEDAPI, judges, batchNanos, unnestNanos);
+        assertThat(countProfiles("date_of_deletion = '2024-01-01' and deleted_flag = true")).isEqualTo(judges);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1_000, 10_000, 100_000})
+    void sidamIds(int judges) {
+        List<String> objectIds = insertProfiles(judges).stream().map(personalCode -> personalCode + "-object")
+                .toList();
+
+        long batchNanos = time(() -> jdbcTemplate.batchUpdate(BATCH_UPDATE_SIDAM_IDS, objectIds, BATCH_SIZE,
+            (ps, objectId) -> {
+                ps.setString(1, objectId + "-batch");
+                ps.setString(2, objectId);
+            }));
+        long unnestNanos = time(() -> assertThat(elinksBulkUpdater.update(IDAMSEARCH, BULK_UPDATE_SIDAM_IDS,
+            rows(objectIds, objectId -> new Object[] {objectId + "-unnest"}), "text")).isEmpty());
+
+        logTimings(IDAMSEARCH, judges, batchNanos, unnestNanos);
+        assertThat(countProfiles("sidam_id = object_id || '-unnest'")).isEqualTo(judges);
+    }
+
+    private List<String> insertProfiles(int judges) {
+        jdbcTemplate.update("insert into dbjudicialdata.judicial_user_profile (personal_code,known_as,surname,"
+                + "full_name,post_nominals,ejudiciary_email,active_flag,created_date,last_loaded_date,object_id,"
+                + "initials) select ? || n, 'Bulk', 'Bench', 'Bulk Bench', 'Mr', ? || n || '@bench.net', true, "
+                + "now(), now(), ? || n || '-object', 'B.J' from generate_series(1, ?) n",
+                BULK, BULK, BULK, judges);
+        List<String> personalCodes = new ArrayList<>(judges);
+        for (int judge = 1; judge <= judges; judge++) {
+            personalCodes.add(BULK + judge);
+        }
+        return personalCodes;
+    }
+
+    private static Map<String, Object[]> rows(List<String> keys, Function<String, Object[]> values) {
+        Map<String, Object[]> rows = new LinkedHashMap<>();
+        keys.forEach(key -> rows.put(key, values.apply(key)));
+        return rows;
+    }
+
+    private long countProfiles(String condition) {
+        return jdbcTemplate.queryForObject("select count(*) from dbjudicialdata.judicial_user_profile "
+                + "where personal_code like ? and " + condition, Long.class, BULK + "%");
+    }
+
+    // each path runs in one transaction, as the leavers and deleted loads do
+    private long time(Runnable update) {
+        long started = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> update.run());
+        return System.nanoTime() - started;
+    }
+
+    private static void logTimings(String name, int judges, long batchNanos, long unnestNanos) {
+        log.info("{} update of {} judges: batches of {} {} ms, unnest {} ms", name, judges, BATCH_SIZE,
+                TimeUnit.NANOSECONDS.toMillis(batchNanos), TimeUnit.NANOSECONDS.toMillis(unnestNanos));
+    }
+}
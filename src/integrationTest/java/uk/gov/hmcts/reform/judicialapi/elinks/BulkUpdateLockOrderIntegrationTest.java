@@ -0,0 +1,118 @@
+package uk.gov.hmcts.reform.judicialapi.elinks;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksBulkUpdater;
+import uk.gov.hmcts.reform.judicialapi.util.AuthorizationEnabledIntegrationTest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.DELETEDAPI;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.IDAMSEARCH;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.LEAVERSAPI;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.BULK_UPDATE_DELETED;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.BULK_UPDATE_LEAVERS;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.BULK_UPDATE_SIDAM_IDS;
+
+/**
+ * Runs leavers, deleted and SIDAM id updates of the same judges at the same time, each given the judges in a
+ * different order, as overlapping loads would. They must queue behind each other rather than deadlock.
+ */
+class BulkUpdateLockOrderIntegrationTest extends AuthorizationEnabledIntegrationTest {
+
+    private static final String LOCK = "lock";
+
+    private static final int JUDGES = 200;
+
+    private static final int ROUNDS = 10;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    ElinksBulkUpdater elinksBulkUpdater;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("insert into dbjudicialdata.judicial_user_profile (personal_code,known_as,surname,"
+                + "full_name,post_nominals,ejudiciary_email,active_flag,created_date,last_loaded_date,object_id,"
+                + "initials) select ? || n, 'Lock', 'Bench', 'Lock Bench', 'Mr', ? || n || '@bench.net', true, "
+                + "now(), now(), ? || n || '-object', 'B.J' from generate_series(1, ?) n",
+                LOCK, LOCK, LOCK, JUDGES);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from dbjudicialdata.judicial_change_event where personal_code like ?",
+                LOCK + "%");
+        jdbcTemplate.update("delete from dbjudicialdata.judicial_profile_change where personal_code like ?",
+                LOCK + "%");
+        jdbcTemplate.update("delete from dbjudicialdata.judicial_user_profile where personal_code like ?",
+                LOCK + "%");
+    }
+
+    @Test
+    void overlappingUpdatesOfTheSameJudgesDoNotDeadlock() {
+        List<String> personalCodes = new ArrayList<>();
+        for (int judge = 1; judge <= JUDGES; judge++) {
+            personalCodes.add(LOCK + judge);
+        }
+        List<String> reversed = new ArrayList<>(personalCodes);
+        Collections.reverse(reversed);
+        List<String> shuffled = new ArrayList<>(personalCodes);
+        Collections.shuffle(shuffled);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            String day = String.format("2024-01-%02d", round + 1);
+            CyclicBarrier start = new CyclicBarrier(3);
+            CompletableFuture<Void> leavers = CompletableFuture.runAsync(() -> inTransaction(start, () ->
+                assertThat(elinksBulkUpdater.update(LEAVERSAPI, BULK_UPDATE_LEAVERS,
+                    rows(personalCodes, personalCode -> new Object[] {day, false}), "text", "boolean")).isEmpty()));
+            CompletableFuture<Void> deleted = CompletableFuture.runAsync(() -> inTransaction(start, () ->
+                assertThat(elinksBulkUpdater.update(DELETEDAPI, BULK_UPDATE_DELETED,
+                    rows(reversed, personalCode -> new Object[] {day, true}), "text", "boolean")).isEmpty()));
+            CompletableFuture<Void> sidamIds = CompletableFuture.runAsync(() -> inTransaction(start, () ->
+                assertThat(elinksBulkUpdater.update(IDAMSEARCH, BULK_UPDATE_SIDAM_IDS,
+                    rows(shuffled.stream().map(personalCode -> personalCode + "-object").toList(),
+                        objectId -> new Object[] {objectId + day}), "text")).isEmpty()));
+
+            CompletableFuture.allOf(leavers, deleted, sidamIds).join();
+        }
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from dbjudicialdata.judicial_user_profile "
+                + "where personal_code like ? and active_flag = false and deleted_flag = true "
+                + "and sidam_id = object_id || '2024-01-10'", Long.class, LOCK + "%")).isEqualTo(JUDGES);
+    }
+
+    private void inTransaction(CyclicBarrier start, Runnable update) {
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                start.await();
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+            update.run();
+        });
+    }
+
+    private static Map<String, Object[]> rows(List<String> keys, Function<String, Object[]> values) {
+        Map<String, Object[]> rows = new LinkedHashMap<>();
+        keys.forEach(key -> rows.put(key, values.apply(key)));
+        return rows;
+    }
+}
@@ -28,7 +28,6 @@ import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkBaseLocationWrapperR
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkDeletedWrapperResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkLeaversWrapperResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkPeopleWrapperResponse;
-import uk.gov.hmcts.reform.judicialapi.elinks.response.IdamResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.scheduler.ElinksApiJobScheduler;
 import uk.gov.hmcts.reform.judicialapi.elinks.service.PublishSidamIdService;
 import uk.gov.hmcts.reform.judicialapi.elinks.servicebus.ElinkTopicPublisher;
@@ -36,7 +35,6 @@ import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksEnabledIntegrationTest;
 import uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants;
 import uk.gov.hmcts.reform.judicialapi.versions.V2;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -377,8 +375,8 @@ class ElinksAuthorisationsIntegrationTest extends ElinksEnabledIntegrationTest {
     private void validateElasticSearch(List<DataloadSchedulerJob> audits) {
         Map<String, Object> idamResponses = elinksReferenceDataClient.getIdamElasticSearch();
         assertEquals("200 OK",idamResponses.get("http_status"));
-        List<IdamResponse> idamResponseVal = (ArrayList<IdamResponse>) idamResponses.get("body");
-        assertEquals(2,idamResponseVal.size());
+        Map<String, Object> idamSummary = (Map<String, Object>) idamResponses.get("body");
+        assertEquals(2, idamSummary.get("users_seen"));
 
         List<UserProfile> userprofileAfterSidamresponse = profileRepository.findAll();
 
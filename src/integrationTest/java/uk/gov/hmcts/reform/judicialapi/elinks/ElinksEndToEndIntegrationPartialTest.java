@@ -32,7 +32,6 @@ import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkDeletedWrapperRespon
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkLeaversWrapperResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkLocationWrapperResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkPeopleWrapperResponse;
-import uk.gov.hmcts.reform.judicialapi.elinks.response.IdamResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.scheduler.ElinksApiJobScheduler;
 import uk.gov.hmcts.reform.judicialapi.elinks.service.PublishSidamIdService;
 import uk.gov.hmcts.reform.judicialapi.elinks.servicebus.ElinkTopicPublisher;
@@ -40,7 +39,6 @@ import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksEnabledIntegrationTest;
 import uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants;
 import uk.gov.hmcts.reform.judicialapi.versions.V2;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -300,8 +298,8 @@ class ElinksEndToEndIntegrationPartialTest extends ElinksEnabledIntegrationTest
     private void validateElasticSearch(List<DataloadSchedulerJob> audits) {
         Map<String, Object> idamResponses = elinksReferenceDataClient.getIdamElasticSearch();
         assertEquals("200 OK",idamResponses.get("http_status"));
-        List<IdamResponse> idamResponseVal = (ArrayList<IdamResponse>) idamResponses.get("body");
-        assertEquals(2,idamResponseVal.size());
+        Map<String, Object> idamSummary = (Map<String, Object>) idamResponses.get("body");
+        assertEquals(2, idamSummary.get("users_seen"));
 
         List<UserProfile> userprofileAfterSidamresponse = profileRepository.findAll();
         UserProfile sidamID = userprofileAfterSidamresponse.get(0);
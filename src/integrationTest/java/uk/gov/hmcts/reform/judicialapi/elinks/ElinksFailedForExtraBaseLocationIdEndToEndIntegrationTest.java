@@ -30,7 +30,6 @@ import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkDeletedWrapperRespon
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkLeaversWrapperResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkLocationWrapperResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkPeopleWrapperResponse;
-import uk.gov.hmcts.reform.judicialapi.elinks.response.IdamResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.scheduler.ElinksApiJobScheduler;
 import uk.gov.hmcts.reform.judicialapi.elinks.service.PublishSidamIdService;
 import uk.gov.hmcts.reform.judicialapi.elinks.servicebus.ElinkTopicPublisher;
@@ -39,7 +38,6 @@ import uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants;
 import uk.gov.hmcts.reform.judicialapi.versions.V2;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -205,8 +203,8 @@ class ElinksFailedForExtraBaseLocationIdEndToEndIntegrationTest extends ElinksEn
     private void validateSidamPublish() {
         Map<String, Object> idamResponses = elinksReferenceDataClient.getIdamElasticSearch();
         assertEquals("200 OK",idamResponses.get("http_status"));
-        List<IdamResponse> idamResponseVal = (ArrayList<IdamResponse>) idamResponses.get("body");
-        assertEquals(2,idamResponseVal.size());
+        Map<String, Object> idamSummary = (Map<String, Object>) idamResponses.get("body");
+        assertEquals(2, idamSummary.get("users_seen"));
 
         List<UserProfile> userprofileAfterSidamresponse = profileRepository.findAll();
         UserProfile sidamID = userprofileAfterSidamresponse.get(0);
@@ -287,8 +285,8 @@ class ElinksFailedForExtraBaseLocationIdEndToEndIntegrationTest extends ElinksEn
     private void validateElasticSearchApi(List<DataloadSchedulerJob> audits) {
         Map<String, Object> idamResponses = elinksReferenceDataClient.getIdamElasticSearch();
         assertEquals("200 OK",idamResponses.get("http_status"));
-        List<IdamResponse> idamResponseVal = (ArrayList<IdamResponse>) idamResponses.get("body");
-        assertEquals(2,idamResponseVal.size());
+        Map<String, Object> idamSummary = (Map<String, Object>) idamResponses.get("body");
+        assertEquals(2, idamSummary.get("users_seen"));
 
         List<UserProfile> userprofileAfterSidamresponse = profileRepository.findAll();
         UserProfile sidamID = userprofileAfterSidamresponse.get(0);
@@ -11,10 +11,8 @@ import uk.gov.hmcts.reform.judicialapi.elinks.repository.AppointmentsRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.repository.AuthorisationsRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.repository.ElinkSchedularAuditRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.repository.ProfileRepository;
-import uk.gov.hmcts.reform.judicialapi.elinks.response.IdamResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksEnabledIntegrationTest;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -79,8 +77,8 @@ class IdamElasticSearchIntegrationTest extends ElinksEnabledIntegrationTest {
 
         Map<String, Object> idamResponses = elinksReferenceDataClient.getIdamElasticSearch();
         assertEquals("200 OK",idamResponses.get("http_status"));
-        List<IdamResponse> idamResponse = (ArrayList<IdamResponse>) idamResponses.get("body");
-        assertEquals(2,idamResponse.size());
+        Map<String, Object> idamSummary = (Map<String, Object>) idamResponses.get("body");
+        assertEquals(2, idamSummary.get("users_seen"));
 
         List<UserProfile> userprofile = profileRepository.findAll();
         assertEquals(1, userprofile.size());
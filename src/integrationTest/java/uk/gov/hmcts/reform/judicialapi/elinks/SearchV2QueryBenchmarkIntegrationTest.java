@@ -0,0 +1,211 @@
+package uk.gov.hmcts.reform.judicialapi.elinks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import uk.gov.hmcts.reform.judicialapi.elinks.repository.ProfileRepository;
+import uk.gov.hmcts.reform.judicialapi.elinks.response.UserSearchResponseWrapper;
+import uk.gov.hmcts.reform.judicialapi.util.AuthorizationEnabledIntegrationTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the V2 search with the join and distinct query it replaced, on a senior judge whose appointments,
+ * authorisations and mapped services multiply into many joined rows.
+ */
+@Slf4j
+class SearchV2QueryBenchmarkIntegrationTest extends AuthorizationEnabledIntegrationTest {
+
+    private static final String JOIN_QUERY = "select distinct new "
+            + "uk.gov.hmcts.reform.judicialapi.elinks.response.UserSearchResponseWrapper"
+            + "(per.title,per.knownAs,per.surname,per.fullName"
+            + ",per.ejudiciaryEmailId,per.sidamId,per.initials"
+            + ",per.postNominals,per.personalCode)"
+            + "from judicialUserProfile per "
+            + "LEFT JOIN FETCH judicialOfficeAppointment appt "
+            + "on per.personalCode = appt.personalCode "
+            + "LEFT JOIN FETCH judicialOfficeAuthorisation auth "
+            + "on auth.appointmentId = appt.appointmentId "
+            + "LEFT JOIN FETCH judicialLocationMapping loc "
+            + "on loc.judicialBaseLocationId = appt.baseLocationId "
+            + "where (per.objectId != '' and per.objectId is not null) "
+            + "and (per.activeFlag = true) "
+            + "and ((appt.endDate >= CURRENT_DATE or appt.endDate is null) "
+            + "and (auth.endDate >= CURRENT_DATE or auth.endDate is null)) "
+            + "and ( (:serviceCode is not null and (lower(loc.serviceCode) = :serviceCode or "
+            + "auth.ticketCode in :ticketCode)) or :serviceCode is null ) "
+            + "and (( :serviceCode in :searchServiceCode) or ((:locationCode is not null "
+            + "and lower(appt.epimmsId) = :locationCode)"
+            + " or :locationCode is null)) "
+            + "and (lower(per.knownAs) like :searchString "
+            + "or lower(per.surname) like :searchString "
+            + "or lower(per.fullName)  like :searchString "
+            + ")";
+
+    private static final String JOINED_ROWS = "select count(*) from dbjudicialdata.judicial_user_profile per "
+            + "left join dbjudicialdata.judicial_office_appointment appt on per.personal_code = appt.personal_code "
+            + "left join dbjudicialdata.judicial_office_authorisation auth "
+            + "on auth.appointment_id = appt.appointment_id "
+            + "left join dbjudicialdata.judicial_location_mapping loc "
+            + "on loc.judicial_base_location_id = appt.base_location_id "
+            + "where per.personal_code like 'bench%'";
+
+    private static final String BENCH = "bench";
+
+    private static final int APPOINTMENTS = 30;
+
+    private static final int AUTHORISATIONS_PER_APPOINTMENT = 10;
+
+    private static final int SERVICES_PER_LOCATION = 5;
+
+    private static final int RUNS = 20;
+
+    private static final List<String> SEARCH_SERVICE_CODE = List.of("bfa1");
+
+    @Autowired
+    ProfileRepository profileRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("insert into dbjudicialdata.hmcts_region_type"
+                + "(hmcts_region_id,hmcts_region_desc_en,hmcts_region_desc_cy) values (?, 'Benchmark', '') "
+                + "on conflict do nothing", BENCH);
+        jdbcTemplate.update("insert into dbjudicialdata.location_type"
+                + "(base_location_id,\"name\",type_id,parent_id,jurisdiction_id,created_at,updated_at) "
+                + "values (?, 'Benchmark', '42', '1503', '27', now(), now()) on conflict do nothing", BENCH);
+        for (int service = 1; service <= SERVICES_PER_LOCATION; service++) {
+            jdbcTemplate.update("insert into dbjudicialdata.judicial_location_mapping"
+                    + "(epimms_id,judicial_base_location_id,service_code) values (?, ?, ?)",
+                    "99" + service, BENCH, "BEN" + service);
+        }
+
+        // a senior judge with many active appointments and authorisations, one ended appointment and a junior
+        // judge with a single appointment that ended
+        insertProfile("bench1", "Benchmarkone");
+        for (int appointment = 1; appointment <= APPOINTMENTS; appointment++) {
+            var appointmentId = "bench1-" + appointment;
+            insertAppointment("bench1", appointmentId, appointment == APPOINTMENTS ? "2020-01-01" : null);
+            for (int authorisation = 1; authorisation <= AUTHORISATIONS_PER_APPOINTMENT; authorisation++) {
+                insertAuthorisation("bench1", appointmentId, "90" + authorisation);
+            }
+        }
+        insertProfile("bench2", "Benchmarktwo");
+        insertAppointment("bench2", "bench2-1", "2020-01-01");
+        insertAuthorisation("bench2", "bench2-1", "901");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from dbjudicialdata.judicial_office_authorisation where personal_code like ?",
+                BENCH + "%");
+        jdbcTemplate.update("delete from dbjudicialdata.judicial_office_appointment where personal_code like ?",
+                BENCH + "%");
+        jdbcTemplate.update("delete from dbjudicialdata.judicial_user_profile where personal_code like ?",
+                BENCH + "%");
+        jdbcTemplate.update("delete from dbjudicialdata.judicial_location_mapping "
+                + "where judicial_base_location_id = ?", BENCH);
+    }
+
+    @ParameterizedTest
+    @CsvSource(value = {
+        "NIL,NIL,NIL",
+        "ben3,NIL,NIL",
+        "ben9,NIL,NIL",
+        "ben9,NIL,905",
+        "ben9,NIL,999",
+        "NIL,99,NIL",
+        "NIL,98,NIL",
+        "bfa1,98,NIL"}, nullValues = "NIL")
+    void searchReturnsTheProfilesOfTheJoinQuery(String serviceCode, String locationCode, String ticketCode) {
+        var ticketCodes = ticketCode == null ? List.of("") : List.of(ticketCode);
+
+        assertThat(profileRepository.findBySearchForString("benchmark", serviceCode, locationCode, ticketCodes,
+                SEARCH_SERVICE_CODE))
+                .extracting(UserSearchResponseWrapper::getPersonalCode)
+                .containsExactlyInAnyOrderElementsOf(joinQuery(serviceCode, locationCode, ticketCodes).stream()
+                        .map(UserSearchResponseWrapper::getPersonalCode)
+                        .toList());
+    }
+
+    @Test
+    void searchReadsOneRowPerJudgeWhereTheJoinQueryFansOut() {
+        var joinedRows = jdbcTemplate.queryForObject(JOINED_ROWS, Long.class);
+        var ticketCodes = List.of("905");
+
+        long joinNanos = time(() -> joinQuery("ben3", null, ticketCodes));
+        long semiJoinNanos = time(() -> profileRepository.findBySearchForString("benchmark", "ben3", null,
+                ticketCodes, SEARCH_SERVICE_CODE));
+
+        log.info("V2 search over {} joined rows: join and distinct {} ms, exists {} ms for {} runs", joinedRows,
+                TimeUnit.NANOSECONDS.toMillis(joinNanos), TimeUnit.NANOSECONDS.toMillis(semiJoinNanos), RUNS);
+        assertThat(joinedRows)
+                .isGreaterThanOrEqualTo((long) APPOINTMENTS * AUTHORISATIONS_PER_APPOINTMENT * SERVICES_PER_LOCATION);
+        assertThat(profileRepository.findBySearchForString("benchmark", "ben3", null, ticketCodes,
+                SEARCH_SERVICE_CODE)).hasSize(1);
+    }
+
+    private List<UserSearchResponseWrapper> joinQuery(String serviceCode, String locationCode,
+                                                      List<String> ticketCodes) {
+        return entityManager.createQuery(JOIN_QUERY, UserSearchResponseWrapper.class)
+                .setParameter("searchString", "%benchmark%")
+                .setParameter("serviceCode", serviceCode)
+                .setParameter("locationCode", locationCode)
+                .setParameter("ticketCode", ticketCodes)
+                .setParameter("searchServiceCode", SEARCH_SERVICE_CODE)
+                .getResultList();
+    }
+
+    private long time(Supplier<List<UserSearchResponseWrapper>> search) {
+        var results = new ArrayList<List<UserSearchResponseWrapper>>();
+        search.get();
+        long started = System.nanoTime();
+        for (int run = 0; run < RUNS; run++) {
+            results.add(search.get());
+        }
+        long elapsed = System.nanoTime() - started;
+        assertThat(results).allSatisfy(result -> assertThat(result).hasSize(1));
+        return elapsed;
+    }
+
+    private void insertProfile(String personalCode, String knownAs) {
+        jdbcTemplate.update("insert into dbjudicialdata.judicial_user_profile (personal_code,known_as,surname,"
+                + "full_name,post_nominals,ejudiciary_email,active_flag,created_date,last_loaded_date,object_id,"
+                + "sidam_id,initials) values (?, ?, 'Bench', ?, 'Mr', ?, true, now(), now(), ?, ?, 'B.J')",
+                personalCode, knownAs, knownAs + " Bench", personalCode + "@bench.net", personalCode + "-object",
+                personalCode + "-sidam");
+    }
+
+    private void insertAppointment(String personalCode, String appointmentId, String endDate) {
+        jdbcTemplate.update("insert into dbjudicialdata.judicial_office_appointment (personal_code,base_location_id,"
+                + "hmcts_region_id,is_prinicple_appointment,start_date,end_date,created_date,last_loaded_date,"
+                + "epimms_id,appointment,appointment_type,appointment_id,role_name_id,\"type\",contract_type_id,"
+                + "\"location\",jo_base_location_id) values (?, ?, ?, true, '1995-03-27', cast(? as date), now(), "
+                + "now(), '99', 'Magistrate', 'Voluntary', ?, '1', 'LJA', '2', 'South East', ?)",
+                personalCode, BENCH, BENCH, endDate, appointmentId, BENCH);
+    }
+
+    private void insertAuthorisation(String personalCode, String appointmentId, String ticketCode) {
+        jdbcTemplate.update("insert into dbjudicialdata.judicial_office_authorisation (jurisdiction,start_date,"
+                + "end_date,created_date,last_updated,lower_level,personal_code,ticket_code,authorisation_id,"
+                + "jurisdiction_id,appointment_id) values ('Authorisation Magistrate', '2002-09-09', null, now(), "
+                + "now(), 'Family Court', ?, ?, ?, 1, ?)",
+                personalCode, ticketCode, appointmentId + "-" + ticketCode, appointmentId);
+    }
+}
@@ -0,0 +1,3 @@
+--Extensions the migrations expect the database to have, created as the container's superuser as they are on
+--each environment before deploying
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
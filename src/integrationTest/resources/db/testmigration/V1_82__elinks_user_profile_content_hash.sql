@@ -0,0 +1,3 @@
+--Alter dbjudicialdata.judicial_user_profile
+--Hash of the eLinks people record last loaded for the judge, used to skip unchanged judges
+ALTER TABLE dbjudicialdata.judicial_user_profile ADD COLUMN IF NOT EXISTS content_hash varchar(64);
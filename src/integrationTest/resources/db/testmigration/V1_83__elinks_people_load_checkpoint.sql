@@ -0,0 +1,5 @@
+--Alter dbjudicialdata.dataload_schedular_audit
+--Checkpoint of the people load, so a failed run can be resumed after its last committed page
+ALTER TABLE dbjudicialdata.dataload_schedular_audit ADD COLUMN IF NOT EXISTS updated_since varchar(32);
+ALTER TABLE dbjudicialdata.dataload_schedular_audit ADD COLUMN IF NOT EXISTS per_page int;
+ALTER TABLE dbjudicialdata.dataload_schedular_audit ADD COLUMN IF NOT EXISTS last_committed_page int;
@@ -0,0 +1,11 @@
+--Create dbjudicialdata.judicial_change_event
+--Outbox of per-judge change events, written with the ingestion changes and drained to the change event topic.
+--The id is the data version of the event.
+CREATE TABLE IF NOT EXISTS dbjudicialdata.judicial_change_event(
+  id bigserial NOT NULL,
+  personal_code varchar(32) NOT NULL,
+  change_type varchar(32) NOT NULL,
+  created_time timestamp NOT NULL DEFAULT now(),
+  attempts int NOT NULL DEFAULT 0,
+  CONSTRAINT judicial_change_event_pk PRIMARY KEY (id)
+);
@@ -0,0 +1,6 @@
+--Index on the (objectId, id) order the cursor mode of the refresh endpoints seeks in
+CREATE INDEX IF NOT EXISTS judicial_user_profile_object_id_idx
+  ON dbjudicialdata.judicial_user_profile (object_id, personal_code);
+
+CREATE INDEX IF NOT EXISTS judicial_user_profile_object_id_idx
+  ON dbjuddata.judicial_user_profile (object_id, per_id);
@@ -0,0 +1,96 @@
+package uk.gov.hmcts.reform.judicialapi.configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.cache.interceptor.SimpleKeyGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Cache of the total_records of the refresh endpoints, keyed by the filter of the request. Each ingestion run
+ * clears it on the pod that ran it when it completes. Other pods keep their totals until they expire, so the
+ * expiry is kept short, and a client paging through a filter still counts the matching profiles once rather than
+ * on every page.
+ */
+@Configuration
+public class RefreshTotalsCacheConfiguration {
+
+    public static final String REFRESH_TOTALS = "refreshTotals";
+
+    public static final String REFRESH_TOTALS_KEY = "refreshTotalsKeyGenerator";
+
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> refreshTotalsCacheCustomizer(
+            @Value("${refresh.totals.expireAfterWrite:PT1M}") Duration expireAfterWrite,
+            @Value("${refresh.totals.maximumWeight:100000}") long maximumWeight) {
+        return cacheManager -> cacheManager.registerCustomCache(REFRESH_TOTALS, Caffeine.newBuilder()
+                .expireAfterWrite(expireAfterWrite)
+                .maximumWeight(maximumWeight)
+                .weigher((key, total) -> key instanceof RefreshTotalsKey totalsKey ? totalsKey.weight : 1)
+                .build());
+    }
+
+    /**
+     * The count queries take the same kind of arguments, a list of ids for example, so the method name is part of
+     * the key next to the arguments.
+     */
+    @Bean(REFRESH_TOTALS_KEY)
+    public KeyGenerator refreshTotalsKeyGenerator() {
+        return (target, method, params) -> new RefreshTotalsKey(method.getName(), params);
+    }
+
+    /**
+     * Drops every cached total. Called when an ingestion run completes, as the loaded profiles change what the
+     * refresh filters match. Inside a transaction the totals are dropped once it commits, so a count made before
+     * the commit is not cached again.
+     */
+    public static void clearRefreshTotals(CacheManager cacheManager) {
+        Runnable clear = () -> Optional.ofNullable(cacheManager.getCache(REFRESH_TOTALS)).ifPresent(Cache::clear);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            clear.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                clear.run();
+            }
+        });
+    }
+
+    /**
+     * Key of a cached total. It holds the whole filter, so its weight is the number of ids in the filter and the
+     * cache is bounded by the ids it holds rather than by its number of entries.
+     */
+    @EqualsAndHashCode
+    static final class RefreshTotalsKey implements Serializable {
+
+        private final SimpleKey key;
+
+        @EqualsAndHashCode.Exclude
+        private final int weight;
+
+        RefreshTotalsKey(String method, Object... params) {
+            this.key = new SimpleKey(method, SimpleKeyGenerator.generateKey(params));
+            this.weight = 1 + Arrays.stream(params)
+                    .filter(Collection.class::isInstance)
+                    .mapToInt(param -> ((Collection<?>) param).size())
+                    .sum();
+        }
+    }
+}
@@ -3,11 +3,15 @@ package uk.gov.hmcts.reform.judicialapi.elinks.configuration;
 
 import com.azure.core.amqp.AmqpRetryOptions;
 import com.azure.messaging.servicebus.ServiceBusClientBuilder;
-import com.azure.messaging.servicebus.ServiceBusSenderClient;
+import com.azure.messaging.servicebus.ServiceBusSenderAsyncClient;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
+import uk.gov.hmcts.reform.judicialapi.elinks.servicebus.AzureElinkMessageSender;
+import uk.gov.hmcts.reform.judicialapi.elinks.servicebus.ElinkMessageSender;
 
 @Service
 @Slf4j
@@ -16,6 +20,9 @@ public class ElinkMessagingConfig {
     @Value("${jrd.publisher.azure.service.bus.topic}")
     String topic;
 
+    @Value("${jrd.publisher.azure.service.bus.change-event-topic:rd-judicial-change-event-topic-sandbox}")
+    String changeEventTopic;
+
     @Value("${jrd.publisher.azure.service.bus.host}")
     String host;
 
@@ -28,9 +35,27 @@ public class ElinkMessagingConfig {
 
 
     @Bean
-    public ServiceBusSenderClient getServiceBusSenderClient() {
+    @Primary
+    public ServiceBusSenderAsyncClient getServiceBusSenderAsyncClient() {
+        return buildAsyncClient(topic);
+    }
 
+    @Bean
+    public ServiceBusSenderAsyncClient changeEventSenderAsyncClient() {
+        return buildAsyncClient(changeEventTopic);
+    }
+
+    /**
+     * Sender for the per-judge change events drained from the outbox, kept off the JRD topic so that its
+     * subscribers only ever receive lists of user ids.
+     */
+    @Bean
+    public ElinkMessageSender changeEventMessageSender(
+        @Qualifier("changeEventSenderAsyncClient") ServiceBusSenderAsyncClient changeEventSenderAsyncClient) {
+        return new AzureElinkMessageSender(changeEventSenderAsyncClient);
+    }
 
+    private ServiceBusSenderAsyncClient buildAsyncClient(String topicName) {
         String connectionString = "Endpoint=sb://"
             + host + ";SharedAccessKeyName=" + sharedAccessKeyName + ";SharedAccessKey=" + sharedAccessKeyValue;
 
@@ -38,7 +63,7 @@ public class ElinkMessagingConfig {
                 .connectionString(connectionString)
                 .retryOptions(new AmqpRetryOptions())
                 .sender()
-                .topicName(topic)
-                .buildClient();
+                .topicName(topicName)
+                .buildAsyncClient();
     }
 }
@@ -0,0 +1,30 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One change to a judge, as published to the change event topic. The data version increases with every
+ * event, so consumers can ignore an event older than the last one they applied for the judge.
+ */
+@Setter
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JudicialChangeEvent {
+    @JsonProperty
+    private long dataVersion;
+    @JsonProperty
+    private String personalCode;
+    @JsonProperty
+    private String sidamId;
+    @JsonProperty
+    private String changeType;
+    @JsonProperty
+    private String changedTime;
+}
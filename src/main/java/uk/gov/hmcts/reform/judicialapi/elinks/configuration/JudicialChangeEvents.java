@@ -0,0 +1,14 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.configuration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Setter
+@Getter
+public class JudicialChangeEvents {
+    @JsonProperty
+    private List<JudicialChangeEvent> events;
+}
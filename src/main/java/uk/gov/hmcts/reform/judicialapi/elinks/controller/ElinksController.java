@@ -10,6 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkBaseLocationWrapperResponse;
@@ -17,7 +18,7 @@ import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkDeletedWrapperRespon
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkLeaversWrapperResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkLocationWrapperResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkPeopleWrapperResponse;
-import uk.gov.hmcts.reform.judicialapi.elinks.response.IdamResponse;
+import uk.gov.hmcts.reform.judicialapi.elinks.response.IdamSyncSummaryResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.SchedulerJobStatusResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.service.ELinksService;
 import uk.gov.hmcts.reform.judicialapi.elinks.service.ElinksPeopleService;
@@ -124,9 +125,10 @@ public class ElinksController {
     @GetMapping (path = "/people",
         produces = V2.MediaType.SERVICE)
     @ResponseBody
-    public ResponseEntity<ElinkPeopleWrapperResponse> loadPeople() {
+    public ResponseEntity<ElinkPeopleWrapperResponse> loadPeople(
+        @RequestParam(value = "restart", required = false, defaultValue = "false") boolean restart) {
 
-        return elinksPeopleService.updatePeople();
+        return elinksPeopleService.updatePeople(restart);
 
     }
 
@@ -135,8 +137,8 @@ public class ElinksController {
     @ApiResponses({
             @ApiResponse(
                     code = 200,
-                    message = "Get list of idam users.",
-                    response = IdamResponse.class
+                    message = "Summary of the idam users synced.",
+                    response = IdamSyncSummaryResponse.class
             ),
             @ApiResponse(
                     code = 400,
@@ -157,9 +159,13 @@ public class ElinksController {
     })
     @GetMapping (path = "/idam/elastic/search",
         produces = V2.MediaType.SERVICE)
-    public ResponseEntity<Object> idamElasticSearch() {
+    public ResponseEntity<IdamSyncSummaryResponse> idamElasticSearch(
+        @RequestParam(value = "missingSidamIds", required = false, defaultValue = "false")
+        boolean missingSidamIds) {
 
-        ResponseEntity<Object> response =  idamElasticSearchService.getIdamElasticSearchSyncFeed();
+        ResponseEntity<IdamSyncSummaryResponse> response = missingSidamIds
+            ? idamElasticSearchService.getIdamMissingSidamIdSyncFeed()
+            : idamElasticSearchService.getIdamElasticSearchSyncFeed();
 
         return response;
     }
@@ -275,7 +281,8 @@ public class ElinksController {
     })
     @GetMapping(path = "/sidam/asb/publish",
         produces = V2.MediaType.SERVICE)
-    public ResponseEntity<SchedulerJobStatusResponse> publishSidamIdToAsb() {
-        return publishSidamIdService.publishSidamIdToAsb();
+    public ResponseEntity<SchedulerJobStatusResponse> publishSidamIdToAsb(
+        @RequestParam(value = "fullRepublish", required = false, defaultValue = "false") boolean fullRepublish) {
+        return publishSidamIdService.publishSidamIdToAsb(fullRepublish);
     }
 }
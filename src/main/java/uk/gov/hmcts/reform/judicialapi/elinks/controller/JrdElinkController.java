@@ -132,13 +132,15 @@ public class JrdElinkController {
             @RequestHeader(name = "page_size", required = false) Integer pageSize,
             @RequestHeader(name = "page_number", required = false) Integer pageNumber,
             @RequestHeader(name = "sort_direction", required = false) String sortDirection,
-            @RequestHeader(name = "sort_column", required = false) String sortColumn
+            @RequestHeader(name = "sort_column", required = false) String sortColumn,
+            @RequestHeader(name = "page_token", required = false) String pageToken,
+            @RequestHeader(name = "include_total", required = false) Boolean includeTotal
     ) {
         log.info("starting refreshUserProfile with RefreshRoleRequest {}, pageSize = {}, pageNumber = {}, "
-                        + "sortDirection = {}, sortColumn = {}", refreshRoleRequest,
-                pageSize, pageNumber,sortDirection,sortColumn);
+                        + "sortDirection = {}, sortColumn = {}, pageToken = {}, includeTotal = {}",
+                refreshRoleRequest, pageSize, pageNumber,sortDirection,sortColumn,pageToken,includeTotal);
 
         return elinkUserService.refreshUserProfile(refreshRoleRequest, pageSize, pageNumber,
-                sortDirection, sortColumn);
+                sortDirection, sortColumn, pageToken, includeTotal);
     }
 }
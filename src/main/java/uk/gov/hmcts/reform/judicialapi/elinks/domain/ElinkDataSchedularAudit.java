@@ -45,4 +45,13 @@ public class ElinkDataSchedularAudit implements Serializable {
     @Column(name = "api_name")
     private String apiName;
 
+    @Column(name = "updated_since")
+    private String updatedSince;
+
+    @Column(name = "per_page")
+    private Integer perPage;
+
+    @Column(name = "last_committed_page")
+    private Integer lastCommittedPage;
+
 }
@@ -96,6 +96,10 @@ public class UserProfile implements Serializable {
     @Column(name = "date_of_deletion")
     private LocalDateTime deletedOn;
 
+    @Column(name = "content_hash")
+    @Size(max = 64)
+    private String contentHash;
+
 
     @OneToMany(targetEntity = Appointment.class, mappedBy = "userProfile", cascade = ALL, fetch = FetchType.LAZY)
     @Fetch(FetchMode.SUBSELECT)
@@ -14,6 +14,11 @@ public interface DataloadSchedularAuditRepository extends JpaRepository<ElinkDat
             + " WHERE api_name = 'People'  AND status IN ('SUCCESS','PARTIAL_SUCCESS')", nativeQuery = true)
     LocalDateTime findLatestSchedularEndTime();
 
+    @Query(value = "SELECT * FROM dbjudicialdata.dataload_schedular_audit "
+        + " WHERE api_name = 'People' AND scheduler_start_time < ?1 "
+        + " ORDER BY scheduler_start_time DESC LIMIT 1", nativeQuery = true)
+    ElinkDataSchedularAudit findLatestPeopleRunBefore(LocalDateTime schedulerStartTime);
+
     @Query(value = "SELECT MAX(scheduler_end_time) FROM dbjudicialdata.dataload_schedular_audit "
         + " WHERE api_name = 'Leavers'  AND status IN ('SUCCESS','PARTIAL_SUCCESS')", nativeQuery = true)
     LocalDateTime findLatestSchedularEndTimeForLeavers();
@@ -1,7 +1,8 @@
 package uk.gov.hmcts.reform.judicialapi.elinks.repository;
 
-import org.springframework.data.domain.Page;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -11,89 +12,191 @@ import uk.gov.hmcts.reform.judicialapi.elinks.response.UserSearchResponseWrapper
 import java.util.List;
 import java.util.Set;
 
+import static uk.gov.hmcts.reform.judicialapi.configuration.RefreshTotalsCacheConfiguration.REFRESH_TOTALS;
+import static uk.gov.hmcts.reform.judicialapi.configuration.RefreshTotalsCacheConfiguration.REFRESH_TOTALS_KEY;
+
 @Repository
 public interface ProfileRepository extends JpaRepository<UserProfile, String> {
 
+    // seek condition of the cursor mode of the refresh queries, the profiles after the last one of the previous page
+    String AFTER_PAGE_TOKEN = "and (per.objectId > :lastObjectId "
+            + "or (per.objectId = :lastObjectId and per.personalCode > :lastPersonalCode)) ";
+
 
-    @Query(value = "select distinct new uk.gov.hmcts.reform.judicialapi.elinks.response.UserSearchResponseWrapper"
+    // The names are matched as lower(column) like '%...%', the expressions of the trigram indexes on the profile
+    // names, so the search reads the profiles whose names match rather than the whole table. The appointment,
+    // authorisation and location filters are exists subqueries, so a judge with many appointments is still one row
+    // and is kept as soon as one active appointment matches. As with the joins they replace, an appointment counts
+    // only when it has an active authorisation or none at all, and a judge without appointments is found only when
+    // neither a service nor a location is searched for.
+    @Query(value = "select new uk.gov.hmcts.reform.judicialapi.elinks.response.UserSearchResponseWrapper"
         + "(per.title,per.knownAs,per.surname,per.fullName"
         + ",per.ejudiciaryEmailId,per.sidamId,per.initials"
-        + ",per.postNominals,per.personalCode)"
+        + ",per.postNominals,per.personalCode) "
         + "from judicialUserProfile per "
-        + "LEFT JOIN FETCH judicialOfficeAppointment appt "
-        + "on per.personalCode = appt.personalCode "
-        + "LEFT JOIN FETCH judicialOfficeAuthorisation auth "
-        + "on auth.appointmentId = appt.appointmentId "
-        + "LEFT JOIN FETCH judicialLocationMapping loc "
-        + "on loc.judicialBaseLocationId = appt.baseLocationId "
         + "where (per.objectId != '' and per.objectId is not null) "
         + "and (per.activeFlag = true) "
-        + "and ((appt.endDate >= CURRENT_DATE or appt.endDate is null) "
-        + "and (auth.endDate >= CURRENT_DATE or auth.endDate is null)) "
-        + "and ( (:serviceCode is not null and (lower(loc.serviceCode) = :serviceCode or "
-        + "auth.ticketCode in :ticketCode)) or :serviceCode is null ) "
-        + "and (( :serviceCode in :searchServiceCode) or ((:locationCode is not null "
-        + "and lower(appt.epimmsId) = :locationCode)"
-        + " or :locationCode is null)) "
         + "and (lower(per.knownAs) like %:searchString% "
         + "or lower(per.surname) like %:searchString% "
-        + "or lower(per.fullName)  like %:searchString% "
-        + ")")
+        + "or lower(per.fullName) like %:searchString%) "
+        + "and ((:serviceCode is null and :locationCode is null "
+        + "and not exists (select anyAppt.appointmentId from judicialOfficeAppointment anyAppt "
+        + "where anyAppt.personalCode = per.personalCode)) "
+        + "or exists (select appt.appointmentId from judicialOfficeAppointment appt "
+        + "where appt.personalCode = per.personalCode "
+        + "and (appt.endDate >= CURRENT_DATE or appt.endDate is null) "
+        + "and (( :serviceCode in :searchServiceCode) or ((:locationCode is not null "
+        + "and lower(appt.epimmsId) = :locationCode) or :locationCode is null)) "
+        + "and (exists (select auth.appointmentId from judicialOfficeAuthorisation auth "
+        + "where auth.appointmentId = appt.appointmentId "
+        + "and (auth.endDate >= CURRENT_DATE or auth.endDate is null)) "
+        + "or not exists (select anyAuth.appointmentId from judicialOfficeAuthorisation anyAuth "
+        + "where anyAuth.appointmentId = appt.appointmentId)) "
+        + "and (:serviceCode is null "
+        + "or exists (select loc.judicialBaseLocationId from judicialLocationMapping loc "
+        + "where loc.judicialBaseLocationId = appt.baseLocationId and lower(loc.serviceCode) = :serviceCode) "
+        + "or exists (select ticketAuth.appointmentId from judicialOfficeAuthorisation ticketAuth "
+        + "where ticketAuth.appointmentId = appt.appointmentId "
+        + "and (ticketAuth.endDate >= CURRENT_DATE or ticketAuth.endDate is null) "
+        + "and ticketAuth.ticketCode in :ticketCode)))) "
+        + "order by per.title, per.knownAs, per.surname, per.fullName, per.ejudiciaryEmailId, per.personalCode")
     List<UserSearchResponseWrapper> findBySearchForString(String searchString, String serviceCode,
                                                           String locationCode, List<String> ticketCode,
                                                           List<String> searchServiceCode);
 
 
-    @Query(value = "select distinct per "
+    // The refresh queries read a slice of personal codes only, without counting; the profiles of a slice are then
+    // loaded with findAllById, and their appointments, authorisations and roles each come in one subselect for the
+    // whole slice. The totals are counted separately and cached per filter.
+    @Query(value = "select per.personalCode "
             + "from judicialUserProfile per "
-            + "LEFT JOIN FETCH judicialOfficeAppointment appt "
-            + "on per.personalCode = appt.personalCode "
-            + "LEFT JOIN FETCH judicialOfficeAuthorisation auth "
-            + "on appt.appointmentId = auth.appointmentId "
-            + "LEFT JOIN FETCH judicial_additional_roles jrt "
-            + "ON per.personalCode = jrt.personalCode "
             + "where (per.objectId != '' and per.objectId is not null) "
             + "and (per.objectId IN :objectIds)")
-    Page<UserProfile> fetchUserProfileByObjectIds(List<String> objectIds, Pageable pageable);
+    Slice<String> fetchPersonalCodesByObjectIds(List<String> objectIds, Pageable pageable);
 
+    @Cacheable(value = REFRESH_TOTALS, keyGenerator = REFRESH_TOTALS_KEY)
+    @Query(value = "select count(per.personalCode) "
+            + "from judicialUserProfile per "
+            + "where (per.objectId != '' and per.objectId is not null) "
+            + "and (per.objectId IN :objectIds)")
+    long countPersonalCodesByObjectIds(List<String> objectIds);
 
-    @Query(value = "select distinct per "
+    @Query(value = "select per.personalCode "
             + "from judicialUserProfile per "
-            + "LEFT JOIN FETCH judicialOfficeAppointment appt "
-            + "on per.personalCode = appt.personalCode "
-            + "LEFT JOIN FETCH judicialOfficeAuthorisation auth "
-            + "on appt.appointmentId = auth.appointmentId "
-            + "LEFT JOIN FETCH judicial_additional_roles jrt "
-            + "ON per.personalCode = jrt.personalCode "
             + "where (per.objectId != '' and per.objectId is not null) "
             + "and (per.sidamId IN :sidamIds)")
-    Page<UserProfile> fetchUserProfileBySidamIds(List<String> sidamIds, Pageable pageable);
+    Slice<String> fetchPersonalCodesBySidamIds(List<String> sidamIds, Pageable pageable);
 
-    @Query(value = "select distinct per "
+    @Cacheable(value = REFRESH_TOTALS, keyGenerator = REFRESH_TOTALS_KEY)
+    @Query(value = "select count(per.personalCode) "
             + "from judicialUserProfile per "
-            + "LEFT JOIN FETCH judicialOfficeAppointment appt "
+            + "where (per.objectId != '' and per.objectId is not null) "
+            + "and (per.sidamId IN :sidamIds)")
+    long countPersonalCodesBySidamIds(List<String> sidamIds);
+
+    @Query(value = "select per.personalCode "
+            + "from judicialUserProfile per "
+            + "where (per.objectId != '' and per.objectId is not null) "
+            + "and (per.personalCode IN :personalCodes)")
+    Slice<String> fetchPersonalCodesByPersonalCodes(List<String> personalCodes, Pageable pageable);
+
+    @Cacheable(value = REFRESH_TOTALS, keyGenerator = REFRESH_TOTALS_KEY)
+    @Query(value = "select count(per.personalCode) "
+            + "from judicialUserProfile per "
+            + "where (per.objectId != '' and per.objectId is not null) "
+            + "and (per.personalCode IN :personalCodes)")
+    long countPersonalCodesByPersonalCodes(List<String> personalCodes);
+
+    // grouped by the primary key, not distinct, so the slice can be sorted by any column of the profile
+    @Query(value = "select per.personalCode "
+            + "from judicialUserProfile per "
+            + "LEFT JOIN judicialOfficeAppointment appt "
             + "on per.personalCode = appt.personalCode "
-            + "LEFT JOIN FETCH judicialOfficeAuthorisation auth "
+            + "LEFT JOIN judicialOfficeAuthorisation auth "
             + "on appt.appointmentId = auth.appointmentId "
-            + "LEFT JOIN FETCH judicial_additional_roles jrt "
-            + "ON per.personalCode = jrt.personalCode "
+            + "LEFT JOIN judicialLocationMapping jlm "
+            + "ON appt.baseLocationId = jlm.judicialBaseLocationId "
             + "where (per.objectId != '' and per.objectId is not null) "
-            + "and (per.personalCode IN :personalCodes)")
-    Page<UserProfile> fetchUserProfileByPersonalCodes(List<String> personalCodes, Pageable pageable);
+            + "and (jlm.serviceCode IN :ccdServiceCode or auth.ticketCode IN :ticketCode ) "
+            + "group by per.personalCode")
+    Slice<String> fetchPersonalCodesByServiceNames(Set<String> ccdServiceCode,
+                                                   List<String> ticketCode, Pageable pageable);
 
-    @Query(value = "select distinct per "
+    @Cacheable(value = REFRESH_TOTALS, keyGenerator = REFRESH_TOTALS_KEY)
+    @Query(value = "select count(distinct per.personalCode) "
             + "from judicialUserProfile per "
-            + "LEFT JOIN FETCH judicialOfficeAppointment appt "
+            + "LEFT JOIN judicialOfficeAppointment appt "
             + "on per.personalCode = appt.personalCode "
-            + "LEFT JOIN FETCH judicialOfficeAuthorisation auth "
+            + "LEFT JOIN judicialOfficeAuthorisation auth "
             + "on appt.appointmentId = auth.appointmentId "
-            + "LEFT JOIN FETCH judicial_additional_roles jrt "
-            + "ON per.personalCode = jrt.personalCode "
-            + "LEFT JOIN FETCH judicialLocationMapping jlm "
+            + "LEFT JOIN judicialLocationMapping jlm "
             + "ON appt.baseLocationId = jlm.judicialBaseLocationId "
             + "where (per.objectId != '' and per.objectId is not null) "
             + "and (jlm.serviceCode IN :ccdServiceCode or auth.ticketCode IN :ticketCode )")
-    Page<UserProfile> fetchUserProfileByServiceNames(Set<String> ccdServiceCode,
-                                                     List<String> ticketCode, Pageable pageable);
+    long countPersonalCodesByServiceNames(Set<String> ccdServiceCode, List<String> ticketCode);
+
+    @Query(value = "select per.personalCode "
+            + "from judicialUserProfile per "
+            + "where (per.objectId != '' and per.objectId is not null) "
+            + "and (per.objectId IN :objectIds) "
+            + AFTER_PAGE_TOKEN)
+    Slice<String> fetchPersonalCodesByObjectIdsAfter(List<String> objectIds, String lastObjectId,
+                                                     String lastPersonalCode, Pageable pageable);
+
+    @Query(value = "select per.personalCode "
+            + "from judicialUserProfile per "
+            + "where (per.objectId != '' and per.objectId is not null) "
+            + "and (per.sidamId IN :sidamIds) "
+            + AFTER_PAGE_TOKEN)
+    Slice<String> fetchPersonalCodesBySidamIdsAfter(List<String> sidamIds, String lastObjectId,
+                                                    String lastPersonalCode, Pageable pageable);
+
+    @Query(value = "select per.personalCode "
+            + "from judicialUserProfile per "
+            + "where (per.objectId != '' and per.objectId is not null) "
+            + "and (per.personalCode IN :personalCodes) "
+            + AFTER_PAGE_TOKEN)
+    Slice<String> fetchPersonalCodesByPersonalCodesAfter(List<String> personalCodes, String lastObjectId,
+                                                         String lastPersonalCode, Pageable pageable);
+
+    @Query(value = "select per.personalCode "
+            + "from judicialUserProfile per "
+            + "LEFT JOIN judicialOfficeAppointment appt "
+            + "on per.personalCode = appt.personalCode "
+            + "LEFT JOIN judicialOfficeAuthorisation auth "
+            + "on appt.appointmentId = auth.appointmentId "
+            + "LEFT JOIN judicialLocationMapping jlm "
+            + "ON appt.baseLocationId = jlm.judicialBaseLocationId "
+            + "where (per.objectId != '' and per.objectId is not null) "
+            + "and (jlm.serviceCode IN :ccdServiceCode or auth.ticketCode IN :ticketCode ) "
+            + AFTER_PAGE_TOKEN
+            + "group by per.personalCode")
+    Slice<String> fetchPersonalCodesByServiceNamesAfter(Set<String> ccdServiceCode, List<String> ticketCode,
+                                                        String lastObjectId, String lastPersonalCode,
+                                                        Pageable pageable);
+
+    @Query(value = "select per.objectId as objectId, per.personalCode as personalCode "
+            + "from judicialUserProfile per "
+            + "where (per.objectId != '' and per.objectId is not null)")
+    List<ObjectIdPersonalCode> fetchObjectIdPersonalCodes();
+
+    @Query(value = "select per.personalCode as personalCode, per.contentHash as contentHash "
+            + "from judicialUserProfile per "
+            + "where per.contentHash is not null")
+    List<PersonalCodeContentHash> fetchContentHashes();
+
+    interface ObjectIdPersonalCode {
+
+        String getObjectId();
+
+        String getPersonalCode();
+    }
+
+    interface PersonalCodeContentHash {
+
+        String getPersonalCode();
+
+        String getContentHash();
+    }
 
 }
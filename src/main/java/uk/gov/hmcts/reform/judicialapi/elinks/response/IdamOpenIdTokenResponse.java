@@ -12,6 +12,9 @@ public class IdamOpenIdTokenResponse {
     @JsonProperty("access_token")
     private String accessToken;
 
+    @JsonProperty("expires_in")
+    private Long expiresIn;
+
     @JsonCreator
     public IdamOpenIdTokenResponse(String accessToken) {
         this.accessToken = accessToken;
@@ -20,4 +23,8 @@ public class IdamOpenIdTokenResponse {
     public String getAccessToken() {
         return accessToken;
     }
-}
\ No newline at end of file
+
+    public Long getExpiresIn() {
+        return expiresIn;
+    }
+}
@@ -0,0 +1,27 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.response;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class IdamSyncSummaryResponse {
+
+    private int pages;
+
+    private int usersSeen;
+
+    private int sidamIdsUpdated;
+
+    // users whose object id matched no judicial user profile
+    private int unmatchedObjectIds;
+}
@@ -5,31 +5,28 @@ import lombok.extern.slf4j.Slf4j;
 import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 import uk.gov.hmcts.reform.judicialapi.elinks.domain.DataloadSchedulerJob;
 import uk.gov.hmcts.reform.judicialapi.elinks.repository.DataloadSchedulerJobRepository;
-import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkDeletedWrapperResponse;
-import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkLeaversWrapperResponse;
-import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkLocationWrapperResponse;
-import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkPeopleWrapperResponse;
-import uk.gov.hmcts.reform.judicialapi.elinks.response.SchedulerJobStatusResponse;
+import uk.gov.hmcts.reform.judicialapi.elinks.service.ELinksService;
+import uk.gov.hmcts.reform.judicialapi.elinks.service.ElinksPeopleService;
+import uk.gov.hmcts.reform.judicialapi.elinks.service.IdamElasticSearchService;
+import uk.gov.hmcts.reform.judicialapi.elinks.service.PublishSidamIdService;
 import uk.gov.hmcts.reform.judicialapi.elinks.util.DataloadSchedulerJobAudit;
 import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkDataExceptionHelper;
-import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkDataIngestionSchedularAudit;
 import uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import static java.time.LocalDateTime.now;
-import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.DELETEDAPI;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.IDAMSEARCH;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.JUDICIAL_REF_DATA_ELINKS;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.LEAVERSAPI;
@@ -44,21 +41,32 @@ import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants
 public class ElinksApiJobScheduler {
 
 
-    @Value("${elinks.scheduler.wrapperApiUrl}")
-    private String eLinksWrapperBaseUrl;
-
     @Autowired
     private DataloadSchedulerJobAudit dataloadSchedulerJobAudit;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private ElinksJobStageExecutor elinksJobStageExecutor;
 
-    @Value("${elinks.scheduler.enabled:false}")
-    private boolean isSchedulerEnabled;
+    @Autowired
+    ELinksService eLinksService;
 
     @Autowired
-    ElinkDataIngestionSchedularAudit elinkDataIngestionSchedularAudit;
+    ElinksPeopleService elinksPeopleService;
 
+    @Autowired
+    IdamElasticSearchService idamElasticSearchService;
+
+    @Autowired
+    PublishSidamIdService publishSidamIdService;
+
+    @Value("${elinks.scheduler.stageMaxAttempts:2}")
+    private int stageMaxAttempts;
+
+    @Value("${elastic.search.missingSidamIdLookup:true}")
+    private boolean missingSidamIdLookup;
+
+    @Value("${elinks.scheduler.enabled:false}")
+    private boolean isSchedulerEnabled;
 
     @Autowired
     ElinkDataExceptionHelper elinkDataExceptionHelper;
@@ -66,9 +74,6 @@ public class ElinksApiJobScheduler {
     @Autowired
     DataloadSchedulerJobRepository dataloadSchedulerJobRepository;
 
-
-    public static final String ELINKS_CONTROLLER_BASE_URL = "/refdata/internal/elink";
-
     @Scheduled(cron = "${elinks.scheduler.cronExpression}")
     @SchedulerLock(name = "lockedTask", lockAtMostFor = "${elinks.scheduler.lockAtMostFor}",
             lockAtLeastFor = "${elinks.scheduler.lockAtLeastFor}")
@@ -97,7 +102,7 @@ public class ElinksApiJobScheduler {
                     return;
                 }
             }
-            log.info("ElinksApiJobScheduler.loadElinksData{} Job execution Start " + eLinksWrapperBaseUrl);
+            log.info("ElinksApiJobScheduler.loadElinksData Job execution Start");
 
             DataloadSchedulerJob audit = new DataloadSchedulerJob();
             audit.setJobStartTime(jobStartTime);
@@ -114,158 +119,48 @@ public class ElinksApiJobScheduler {
 
     public void loadElinksData() {
 
-        try{
-            ResponseEntity<ElinkLocationWrapperResponse> locationResponse
-                = retrieveLocationDetails();
-        } catch(Exception ex) {
-            log.info("ElinksApiJobScheduler.loadElinksData Job execution completed failure for Location Response");
-            elinkDataIngestionSchedularAudit.auditSchedulerStatus(JUDICIAL_REF_DATA_ELINKS,
-                now(),
-                now(),RefDataElinksConstants.JobStatus.FAILED.getStatus(),LOCATIONAPI);
-        }
-        try{
-        ResponseEntity<ElinkPeopleWrapperResponse> peopleResponse
-                = retrievePeopleDetails();
-        } catch(Exception ex) {
-            elinkDataIngestionSchedularAudit.auditSchedulerStatus(JUDICIAL_REF_DATA_ELINKS,
-                now(),
-                now(),RefDataElinksConstants.JobStatus.FAILED.getStatus(),PEOPLEAPI);
-        }
-        try{
-        ResponseEntity<ElinkLeaversWrapperResponse> leaversResponse
-                = retrieveLeaversDetails();
-        } catch(Exception ex) {
-            log.info("ElinksApiJobScheduler.loadElinksData Job execution completed failure for Leavers Response");
-            elinkDataIngestionSchedularAudit.auditSchedulerStatus(JUDICIAL_REF_DATA_ELINKS,
-                now(),
-                now(),RefDataElinksConstants.JobStatus.FAILED.getStatus(),LEAVERSAPI);
-        }
-        try{
-            ResponseEntity<ElinkDeletedWrapperResponse> deletedResponse
-                = retrieveDeletedDetails();
-        } catch(Exception ex) {
-            log.info("ElinksApiJobScheduler.loadElinksData Job execution completed failure for Deleted Response");
-        }
-        try{
-        ResponseEntity<Object> idamSearchResponse
-                = retrieveIdamElasticSearchDetails();
-        } catch(Exception ex) {
-            log.info("ElinksApiJobScheduler.loadElinksData Job execution completed failure for idamSearch Response");
-            elinkDataIngestionSchedularAudit.auditSchedulerStatus(JUDICIAL_REF_DATA_ELINKS,
-                now(),
-                now(),RefDataElinksConstants.JobStatus.FAILED.getStatus(),IDAMSEARCH);
-        }
-        try{
-        ResponseEntity<SchedulerJobStatusResponse> schedulerResponse
-            = retrieveAsbPublishDetails();
-        } catch(Exception ex) {
-            log.info("ElinksApiJobScheduler.loadElinksData Job execution completed failure for Publish ASB Response");
-            elinkDataIngestionSchedularAudit.auditSchedulerStatus(JUDICIAL_REF_DATA_ELINKS,
-                now(),
-                now(),RefDataElinksConstants.JobStatus.FAILED.getStatus(),PUBLISHASB);
-        }
+        long started = System.nanoTime();
+        Map<String, Boolean> results = elinksJobStageExecutor.run(elinksJobStages());
+        log.info("ElinksApiJobScheduler.loadElinksData stages completed in {} ms : {}",
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), results);
     }
 
-    public ResponseEntity<ElinkLocationWrapperResponse> retrieveLocationDetails() {
-
-
-        String apiUrl = eLinksWrapperBaseUrl.concat(ELINKS_CONTROLLER_BASE_URL)
-                .concat("/reference_data/location");
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(APPLICATION_JSON);
-
-        HttpEntity<String> request =
-                new HttpEntity<>(headers);
-
-        return restTemplate.exchange(apiUrl,
-                HttpMethod.GET, request, ElinkLocationWrapperResponse.class);
-
+    /**
+     * Location first, then people, then leavers, then deleted, then the IDAM sync, then the ASB publish. Leavers
+     * and deleted each update their judges in one transaction a page at a time, so they run one after the other
+     * rather than lock the same judges in different orders. A retried people load resumes from its checkpoint;
+     * publishing is attempted once.
+     */
+    public List<ElinksJobStage> elinksJobStages() {
+        return List.of(
+            ElinksJobStage.builder().name(LOCATIONAPI).featureFlagKey("ElinksController.loadLocation")
+                .action(eLinksService::retrieveLocation).maxAttempts(stageMaxAttempts).build(),
+            ElinksJobStage.builder().name(PEOPLEAPI).featureFlagKey("ElinksController.loadPeople")
+                .action(elinksPeopleService::updatePeople).dependsOn(List.of(LOCATIONAPI))
+                .maxAttempts(stageMaxAttempts).build(),
+            ElinksJobStage.builder().name(LEAVERSAPI).featureFlagKey("ElinksController.loadLeavers")
+                .action(eLinksService::retrieveLeavers).dependsOn(List.of(PEOPLEAPI))
+                .maxAttempts(stageMaxAttempts).build(),
+            ElinksJobStage.builder().name(DELETEDAPI).featureFlagKey("ElinksController.loadDeleted")
+                .action(eLinksService::retrieveDeleted).dependsOn(List.of(LEAVERSAPI))
+                .maxAttempts(stageMaxAttempts).build(),
+            ElinksJobStage.builder().name(IDAMSEARCH).featureFlagKey("ElinksController.idamElasticSearch")
+                .action(this::syncSidamIds)
+                .dependsOn(List.of(LEAVERSAPI, DELETEDAPI)).maxAttempts(stageMaxAttempts).build(),
+            ElinksJobStage.builder().name(PUBLISHASB).featureFlagKey("ElinksController.publishSidamIdToAsb")
+                .action(publishSidamIdService::publishSidamIdToAsb).dependsOn(List.of(IDAMSEARCH)).build());
     }
 
-    public ResponseEntity<ElinkPeopleWrapperResponse> retrievePeopleDetails() {
-
-
-        String apiUrl = eLinksWrapperBaseUrl.concat(ELINKS_CONTROLLER_BASE_URL)
-                .concat("/people");
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(APPLICATION_JSON);
-
-        HttpEntity<String> request =
-                new HttpEntity<>(headers);
-
-        return restTemplate.exchange(apiUrl,
-                HttpMethod.GET, request, ElinkPeopleWrapperResponse.class);
-
-    }
-
-    public ResponseEntity<ElinkLeaversWrapperResponse> retrieveLeaversDetails() {
-
-
-        String apiUrl = eLinksWrapperBaseUrl.concat(ELINKS_CONTROLLER_BASE_URL)
-                .concat("/leavers");
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(APPLICATION_JSON);
-
-        HttpEntity<String> request =
-                new HttpEntity<>(headers);
-
-        return restTemplate.exchange(apiUrl,
-                HttpMethod.GET, request, ElinkLeaversWrapperResponse.class);
-
-    }
-
-    public ResponseEntity<ElinkDeletedWrapperResponse> retrieveDeletedDetails() {
-
-
-        String apiUrl = eLinksWrapperBaseUrl.concat(ELINKS_CONTROLLER_BASE_URL)
-            .concat("/deleted");
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(APPLICATION_JSON);
-
-        HttpEntity<String> request =
-            new HttpEntity<>(headers);
-
-        return restTemplate.exchange(apiUrl,
-            HttpMethod.GET, request, ElinkDeletedWrapperResponse.class);
-
-    }
-
-    public ResponseEntity<Object> retrieveIdamElasticSearchDetails() {
-
-
-
-        String apiUrl = eLinksWrapperBaseUrl.concat(ELINKS_CONTROLLER_BASE_URL)
-                .concat("/idam/elastic/search");
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(APPLICATION_JSON);
-
-        HttpEntity<String> request =
-                new HttpEntity<>(headers);
-
-        return restTemplate.exchange(apiUrl,
-                HttpMethod.GET, request, Object.class);
-
-    }
-
-    public ResponseEntity<SchedulerJobStatusResponse> retrieveAsbPublishDetails() {
-
-        String apiUrl = eLinksWrapperBaseUrl.concat(ELINKS_CONTROLLER_BASE_URL)
-            .concat("/sidam/asb/publish");
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(APPLICATION_JSON);
-
-        HttpEntity<String> request =
-            new HttpEntity<>(headers);
-
-        return restTemplate.exchange(apiUrl,
-            HttpMethod.GET, request, SchedulerJobStatusResponse.class);
-
+    /**
+     * Picks up IDAM accounts modified since the last successful job, then looks up by object id the judges
+     * that still have no sidam_id.
+     */
+    private ResponseEntity<?> syncSidamIds() {
+        ResponseEntity<?> response = idamElasticSearchService.getIdamElasticSearchSyncFeed();
+        if (!missingSidamIdLookup || !response.getStatusCode().is2xxSuccessful()) {
+            return response;
+        }
+        return idamElasticSearchService.getIdamMissingSidamIdSyncFeed();
     }
 
 }
@@ -0,0 +1,29 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.scheduler;
+
+import lombok.Builder;
+import lombok.Getter;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * One step of the nightly eLinks job: the load it runs, the stages that must have finished before it starts,
+ * how many times it is attempted and the LaunchDarkly key of the endpoint that exposes the same load.
+ */
+@Getter
+@Builder
+public class ElinksJobStage {
+
+    private final String name;
+
+    private final String featureFlagKey;
+
+    private final Supplier<ResponseEntity<?>> action;
+
+    @Builder.Default
+    private final List<String> dependsOn = List.of();
+
+    @Builder.Default
+    private final int maxAttempts = 1;
+}
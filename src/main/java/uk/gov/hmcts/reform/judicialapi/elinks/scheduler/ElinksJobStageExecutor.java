@@ -0,0 +1,131 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkDataIngestionSchedularAudit;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants;
+import uk.gov.hmcts.reform.judicialapi.service.FeatureToggleService;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.time.LocalDateTime.now;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.JUDICIAL_REF_DATA_ELINKS;
+
+/**
+ * Runs the stages of the eLinks job in process. A stage starts as soon as every stage it depends on has
+ * finished, so independent stages overlap and the job takes as long as its longest chain. A failed stage is
+ * retried up to its attempt limit and then audited as FAILED; it does not stop the stages after it, which run
+ * against whatever the earlier loads left in the database, as the sequential job did.
+ */
+@Slf4j
+@Component
+public class ElinksJobStageExecutor {
+
+    @Value("${loggingComponentName}")
+    private String loggingComponentName;
+
+    @Value("${elinks.scheduler.stageRetryPauseTime:60000}")
+    private long stageRetryPauseTime;
+
+    @Autowired
+    FeatureToggleService featureToggleService;
+
+    @Autowired
+    ElinkDataIngestionSchedularAudit elinkDataIngestionSchedularAudit;
+
+    /**
+     * Runs the stages and waits for all of them. Stages must be listed after the stages they depend on.
+     *
+     * @return whether each stage succeeded, by stage name
+     */
+    public Map<String, Boolean> run(List<ElinksJobStage> stages) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, stages.size()), runnable ->
+            new Thread(runnable, "elinks-job-stage"));
+        Map<String, CompletableFuture<Boolean>> outcomes = new LinkedHashMap<>();
+        try {
+            for (ElinksJobStage stage : stages) {
+                CompletableFuture<?>[] dependencies = stage.getDependsOn().stream()
+                    .map(dependency -> {
+                        CompletableFuture<Boolean> outcome = outcomes.get(dependency);
+                        if (outcome == null) {
+                            throw new IllegalArgumentException("Stage " + stage.getName()
+                                + " depends on " + dependency + ", which is not listed before it");
+                        }
+                        return outcome;
+                    })
+                    .toArray(CompletableFuture[]::new);
+                // a stage that threw rather than returning false still lets the stages after it run
+                outcomes.put(stage.getName(), CompletableFuture.allOf(dependencies)
+                    .handle((ignored, ex) -> ex)
+                    .thenApplyAsync(ignored -> runStage(stage), executor));
+            }
+            CompletableFuture.allOf(outcomes.values().toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException ex) {
+            log.error("{} : eLinks job stopped : {}", loggingComponentName, ex.getMessage());
+        } finally {
+            executor.shutdown();
+        }
+        Map<String, Boolean> results = new LinkedHashMap<>();
+        outcomes.forEach((name, outcome) -> results.put(name,
+            outcome.handle((succeeded, ex) -> ex == null && succeeded).getNow(false)));
+        return results;
+    }
+
+    private boolean runStage(ElinksJobStage stage) {
+        if (!isEnabled(stage)) {
+            log.info("{} : stage {} skipped, its feature flag is not released", loggingComponentName,
+                stage.getName());
+            return false;
+        }
+        long started = System.nanoTime();
+        for (int attempt = 1; ; attempt++) {
+            String failure;
+            try {
+                ResponseEntity<?> response = stage.getAction().get();
+                if (response == null || response.getStatusCode().is2xxSuccessful()) {
+                    log.info("{} : stage {} completed in {} ms after {} attempt(s)", loggingComponentName,
+                        stage.getName(), elapsedMillis(started), attempt);
+                    return true;
+                }
+                failure = "status " + response.getStatusCodeValue();
+            } catch (Exception ex) {
+                failure = ex.getMessage();
+            }
+            if (attempt >= stage.getMaxAttempts()) {
+                log.error("{} : stage {} failed after {} attempt(s) and {} ms : {}", loggingComponentName,
+                    stage.getName(), attempt, elapsedMillis(started), failure);
+                elinkDataIngestionSchedularAudit.auditSchedulerStatus(JUDICIAL_REF_DATA_ELINKS,
+                    now(), now(), RefDataElinksConstants.JobStatus.FAILED.getStatus(), stage.getName());
+                return false;
+            }
+            log.warn("{} : stage {} attempt {} failed, retrying in {} ms : {}", loggingComponentName,
+                stage.getName(), attempt, stageRetryPauseTime, failure);
+            try {
+                Thread.sleep(stageRetryPauseTime);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private boolean isEnabled(ElinksJobStage stage) {
+        Map<String, String> launchDarklyMap = featureToggleService.getLaunchDarklyMap();
+        String flagName = launchDarklyMap == null ? null : launchDarklyMap.get(stage.getFeatureFlagKey());
+        return flagName == null || featureToggleService.isFlagEnabled(flagName);
+    }
+
+    private static long elapsedMillis(long started) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+    }
+}
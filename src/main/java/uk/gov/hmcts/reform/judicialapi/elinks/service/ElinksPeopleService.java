@@ -5,5 +5,13 @@ import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkPeopleWrapperRespons
 
 public interface ElinksPeopleService {
 
-    ResponseEntity<ElinkPeopleWrapperResponse> updatePeople();
+    default ResponseEntity<ElinkPeopleWrapperResponse> updatePeople() {
+        return updatePeople(false);
+    }
+
+    /**
+     * Loads people from eLinks. Unless {@code restart} is set, a previous run that failed part way through is
+     * resumed after its last committed page, with the same updated_since watermark.
+     */
+    ResponseEntity<ElinkPeopleWrapperResponse> updatePeople(boolean restart);
 }
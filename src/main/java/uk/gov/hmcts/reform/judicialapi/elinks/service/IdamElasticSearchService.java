@@ -1,10 +1,13 @@
 package uk.gov.hmcts.reform.judicialapi.elinks.service;
 
 import org.springframework.http.ResponseEntity;
+import uk.gov.hmcts.reform.judicialapi.elinks.response.IdamSyncSummaryResponse;
 
 public interface IdamElasticSearchService {
 
     String getIdamBearerToken();
 
-    ResponseEntity<Object> getIdamElasticSearchSyncFeed();
+    ResponseEntity<IdamSyncSummaryResponse> getIdamElasticSearchSyncFeed();
+
+    ResponseEntity<IdamSyncSummaryResponse> getIdamMissingSidamIdSyncFeed();
 }
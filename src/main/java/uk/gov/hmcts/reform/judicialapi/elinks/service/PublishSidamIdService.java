@@ -6,6 +6,15 @@ import uk.gov.hmcts.reform.judicialapi.elinks.response.SchedulerJobStatusRespons
 
 public interface PublishSidamIdService {
 
-    ResponseEntity<SchedulerJobStatusResponse> publishSidamIdToAsb()throws JudicialDataLoadException;
+    default ResponseEntity<SchedulerJobStatusResponse> publishSidamIdToAsb() throws JudicialDataLoadException {
+        return publishSidamIdToAsb(false);
+    }
+
+    /**
+     * Publishes the SIDAM ids of the judges whose data changed since the last publish, or of every judge
+     * when fullRepublish is set.
+     */
+    ResponseEntity<SchedulerJobStatusResponse> publishSidamIdToAsb(boolean fullRepublish)
+        throws JudicialDataLoadException;
 
 }
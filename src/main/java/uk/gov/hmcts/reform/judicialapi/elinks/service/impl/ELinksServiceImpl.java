@@ -3,25 +3,21 @@ package uk.gov.hmcts.reform.judicialapi.elinks.service.impl;
 import feign.FeignException;
 import feign.Response;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.tuple.Triple;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.dao.DataAccessException;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import uk.gov.hmcts.reform.judicialapi.elinks.controller.request.LeaversRequest;
 import uk.gov.hmcts.reform.judicialapi.elinks.controller.request.LeaversResultsRequest;
 import uk.gov.hmcts.reform.judicialapi.elinks.controller.response.DeletedResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.controller.response.ElinksDeleteApiResponse;
-import uk.gov.hmcts.reform.judicialapi.elinks.domain.BaseLocation;
 import uk.gov.hmcts.reform.judicialapi.elinks.exception.ElinksException;
 import uk.gov.hmcts.reform.judicialapi.elinks.feign.ElinksFeignClient;
-import uk.gov.hmcts.reform.judicialapi.elinks.repository.BaseLocationRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.repository.DataloadSchedularAuditRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.repository.LocationRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.BaseLocationResponse;
@@ -31,19 +27,30 @@ import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkDeletedWrapperRespon
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkLeaversWrapperResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.service.ELinksService;
 import uk.gov.hmcts.reform.judicialapi.elinks.util.CommonUtil;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksBaseLocationWriter;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksBulkUpdater;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkDataExceptionSink;
 import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkDataIngestionSchedularAudit;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkNotificationDispatcher;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksPagePipeline;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksPagePipeline.ElinksPage;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksRateLimiter;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksRateLimiter.RunStats;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksReferenceDataSnapshot;
 import uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants;
 import uk.gov.hmcts.reform.judicialapi.util.JsonFeignResponseUtil;
 
-import java.sql.PreparedStatement;
-import java.sql.SQLException;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static java.time.LocalDateTime.now;
 import static java.util.Objects.nonNull;
+import static uk.gov.hmcts.reform.judicialapi.configuration.RefreshTotalsCacheConfiguration.clearRefreshTotals;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.AUDIT_DATA_ERROR;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.BASE_LOCATION_DATA_LOAD_SUCCESS;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.DATA_UPDATE_ERROR;
@@ -60,21 +67,18 @@ import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.LEAVERSAPI;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.LEAVERSSUCCESS;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.LOCATIONAPI;
-import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.THREAD_INVOCATION_EXCEPTION;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.PERSONALCODENOTAVAILABLE;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.USER_PROFILE;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.BULK_UPDATE_DELETED;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.BULK_UPDATE_LEAVERS;
 
 @Service
 @Slf4j
 public class ELinksServiceImpl implements ELinksService {
 
-    @Autowired
-    BaseLocationRepository baseLocationRepository;
-
     @Autowired
     LocationRepository locationRepository;
 
-    @Autowired
-    JdbcTemplate jdbcTemplate;
-
     @Autowired
     private DataloadSchedularAuditRepository dataloadSchedularAuditRepository;
 
@@ -87,9 +91,6 @@ public class ELinksServiceImpl implements ELinksService {
     @Autowired
     ElinksFeignClient elinksFeignClient;
 
-    @Value("${elinks.people.threadPauseTime}")
-    private String threadPauseTime;
-
     @Autowired
     CommonUtil commonUtil;
 
@@ -100,6 +101,30 @@ public class ELinksServiceImpl implements ELinksService {
     @Autowired
     ElinkDataIngestionSchedularAudit elinkDataIngestionSchedularAudit;
 
+    @Autowired
+    ElinksPagePipeline elinksPagePipeline;
+
+    @Autowired
+    ElinksBulkUpdater elinksBulkUpdater;
+
+    @Autowired
+    ElinkDataExceptionSink elinkDataExceptionSink;
+
+    @Autowired
+    ElinkNotificationDispatcher elinkNotificationDispatcher;
+
+    @Autowired
+    ElinksBaseLocationWriter elinksBaseLocationWriter;
+
+    @Autowired
+    ElinksRateLimiter elinksRateLimiter;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    ElinksReferenceDataSnapshot elinksReferenceDataSnapshot;
+
 
     @Override
     public ResponseEntity<ElinkBaseLocationWrapperResponse> retrieveLocation() {
@@ -119,9 +144,12 @@ public class ELinksServiceImpl implements ELinksService {
 
         try {
 
-            locationsResponse = elinksFeignClient.getLocationDetails();
-
-
+            RunStats requests = elinksRateLimiter.startRun(LOCATIONAPI);
+            try {
+                locationsResponse = elinksRateLimiter.execute(requests, elinksFeignClient::getLocationDetails);
+            } finally {
+                elinksRateLimiter.finishRun(requests);
+            }
 
             httpStatus = HttpStatus.valueOf(locationsResponse.status());
 
@@ -136,12 +164,7 @@ public class ELinksServiceImpl implements ELinksService {
 
                 if (nonNull(responseEntity.getBody())) {
                     if (nonNull(elinkBaseLocationResponse)) {
-                        List<BaseLocationResponse> baseLocationResponses = elinkBaseLocationResponse.getResults();
-
-                        List<BaseLocation> baselocations = baseLocationResponses.stream()
-                            .map(BaseLocationResponse::toBaseLocationEntity)
-                            .toList();
-                        result = loadBaseLocationData(baselocations);
+                        result = loadBaseLocationData(elinkBaseLocationResponse.getResults());
                     }
                 } else {
                     elinkDataIngestionSchedularAudit.auditSchedulerStatus(JUDICIAL_REF_DATA_ELINKS,
@@ -201,11 +224,14 @@ public class ELinksServiceImpl implements ELinksService {
         }
     }
 
-    private ResponseEntity<ElinkBaseLocationWrapperResponse> loadBaseLocationData(List<BaseLocation> baselocations) {
+    private ResponseEntity<ElinkBaseLocationWrapperResponse> loadBaseLocationData(
+        List<BaseLocationResponse> baseLocationResponses) {
         ResponseEntity<ElinkBaseLocationWrapperResponse> result;
         try {
 
-            baseLocationRepository.saveAll(baselocations);
+            if (elinksBaseLocationWriter.load(baseLocationResponses) > 0) {
+                elinksReferenceDataSnapshot.refresh();
+            }
 
             ElinkBaseLocationWrapperResponse elinkLocationWrapperResponse = new ElinkBaseLocationWrapperResponse();
             elinkLocationWrapperResponse.setMessage(BASE_LOCATION_DATA_LOAD_SUCCESS);
@@ -224,10 +250,10 @@ public class ELinksServiceImpl implements ELinksService {
     }
 
 
-    private Response getLeaversResponseFromElinks(int currentPage) {
-        String leftSince = getUpdateSince();
+    private Response getLeaversResponseFromElinks(int currentPage, String leftSince, RunStats requests) {
         try {
-            return elinksFeignClient.getLeaversDetails(leftSince, perPage, String.valueOf(currentPage));
+            return elinksRateLimiter.execute(requests, () ->
+                elinksFeignClient.getLeaversDetails(leftSince, perPage, String.valueOf(currentPage)));
         } catch (FeignException ex) {
             throw new ElinksException(HttpStatus.FORBIDDEN, ELINKS_ACCESS_ERROR, ELINKS_ACCESS_ERROR);
         }
@@ -254,8 +280,6 @@ public class ELinksServiceImpl implements ELinksService {
     @Override
     @Transactional("transactionManager")
     public ResponseEntity<ElinkLeaversWrapperResponse> retrieveLeavers() {
-        boolean isMorePagesAvailable = true;
-        HttpStatus httpStatus = null;
         LocalDateTime schedulerStartTime = now();
         ElinkLeaversWrapperResponse elinkLeaversWrapperResponse = new ElinkLeaversWrapperResponse();
 
@@ -264,100 +288,112 @@ public class ELinksServiceImpl implements ELinksService {
                 null,
                 RefDataElinksConstants.JobStatus.IN_PROGRESS.getStatus(), LEAVERSAPI);
 
-        int pageValue = Integer.parseInt(page);
-        do {
-            Response leaverApiResponse = getLeaversResponseFromElinks(pageValue++);
-            httpStatus = HttpStatus.valueOf(leaverApiResponse.status());
-            ResponseEntity<Object> responseEntity;
-
-            if (httpStatus.is2xxSuccessful()) {
-                responseEntity = JsonFeignResponseUtil.toResponseEntity(leaverApiResponse, LeaversRequest.class);
-                LeaversRequest elinkLeaverResponseRequest = (LeaversRequest) responseEntity.getBody();
-                log.info(":::: elinkPeopleResponseRequest " + elinkLeaverResponseRequest);
-                if (Optional.ofNullable(elinkLeaverResponseRequest).isPresent()
-                        && Optional.ofNullable(elinkLeaverResponseRequest.getPagination()).isPresent()
-                        && Optional.ofNullable(elinkLeaverResponseRequest.getLeaversResultsRequests()).isPresent()) {
-                    isMorePagesAvailable = elinkLeaverResponseRequest.getPagination().getMorePages();
-                    processLeaverResponse(elinkLeaverResponseRequest);
-
-                } else {
-                    elinkDataIngestionSchedularAudit.auditSchedulerStatus(JUDICIAL_REF_DATA_ELINKS,
-                            schedulerStartTime,
-                            now(),
-                            RefDataElinksConstants.JobStatus.FAILED.getStatus(), LEAVERSAPI);
-                    throw new ElinksException(HttpStatus.FORBIDDEN, ELINKS_ACCESS_ERROR, ELINKS_ACCESS_ERROR);
-                }
-            } else {
-                elinkDataIngestionSchedularAudit.auditSchedulerStatus(JUDICIAL_REF_DATA_ELINKS,
-                        schedulerStartTime,
-                        now(),
-                        RefDataElinksConstants.JobStatus.FAILED.getStatus(), LEAVERSAPI);
-                handleELinksErrorResponse(httpStatus);
-            }
-            pauseThread(Long.valueOf(threadPauseTime));
-        } while (isMorePagesAvailable);
+        String leftSince = getUpdateSince();
+        ElinkDataExceptionSink.Run exceptionRecords = new ElinkDataExceptionSink.Run(schedulerStartTime);
+        AtomicBoolean partialSuccess = new AtomicBoolean();
+        RunStats requests = elinksRateLimiter.startRun(LEAVERSAPI);
+        try {
+            elinksPagePipeline.run(Integer.parseInt(page),
+                pageValue -> fetchLeaversPage(pageValue, leftSince, schedulerStartTime, requests),
+                (pageValue, leaversRequest) -> processLeaverResponse(leaversRequest, exceptionRecords,
+                    partialSuccess));
+        } finally {
+            elinkDataExceptionSink.finishRun(exceptionRecords);
+            elinksRateLimiter.finishRun(requests);
+        }
 
         elinkLeaversWrapperResponse.setMessage(LEAVERSSUCCESS);
+        clearRefreshTotals(cacheManager);
 
         elinkDataIngestionSchedularAudit.auditSchedulerStatus(JUDICIAL_REF_DATA_ELINKS,
                 schedulerStartTime,
                 now(),
-                RefDataElinksConstants.JobStatus.SUCCESS.getStatus(), LEAVERSAPI);
+                finalStatus(partialSuccess), LEAVERSAPI);
+        if (partialSuccess.get()) {
+            elinkNotificationDispatcher.dispatchExceptionReport(schedulerStartTime);
+        }
 
         return ResponseEntity
-                .status(httpStatus)
+                .status(HttpStatus.OK)
                 .body(elinkLeaversWrapperResponse);
     }
 
-    private static void pauseThread(Long thredPauseTime) {
-        try {
-            Thread.sleep(thredPauseTime);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new ElinksException(HttpStatus.NOT_ACCEPTABLE, THREAD_INVOCATION_EXCEPTION,
-                    THREAD_INVOCATION_EXCEPTION);
+    private ElinksPage<LeaversRequest> fetchLeaversPage(int pageValue, String leftSince,
+                                                        LocalDateTime schedulerStartTime, RunStats requests) {
+        Response leaverApiResponse = getLeaversResponseFromElinks(pageValue, leftSince, requests);
+        HttpStatus httpStatus = HttpStatus.valueOf(leaverApiResponse.status());
+
+        if (httpStatus.is2xxSuccessful()) {
+            ResponseEntity<Object> responseEntity = JsonFeignResponseUtil
+                .toResponseEntity(leaverApiResponse, LeaversRequest.class);
+            LeaversRequest elinkLeaverResponseRequest = (LeaversRequest) responseEntity.getBody();
+            log.info(":::: elinkPeopleResponseRequest " + elinkLeaverResponseRequest);
+            if (Optional.ofNullable(elinkLeaverResponseRequest).isPresent()
+                    && Optional.ofNullable(elinkLeaverResponseRequest.getPagination()).isPresent()
+                    && Optional.ofNullable(elinkLeaverResponseRequest.getLeaversResultsRequests()).isPresent()) {
+                return new ElinksPage<>(elinkLeaverResponseRequest,
+                    elinkLeaverResponseRequest.getPagination().getMorePages());
+            }
+            elinkDataIngestionSchedularAudit.auditSchedulerStatus(JUDICIAL_REF_DATA_ELINKS,
+                    schedulerStartTime,
+                    now(),
+                    RefDataElinksConstants.JobStatus.FAILED.getStatus(), LEAVERSAPI);
+            throw new ElinksException(HttpStatus.FORBIDDEN, ELINKS_ACCESS_ERROR, ELINKS_ACCESS_ERROR);
         }
+        elinkDataIngestionSchedularAudit.auditSchedulerStatus(JUDICIAL_REF_DATA_ELINKS,
+                schedulerStartTime,
+                now(),
+                RefDataElinksConstants.JobStatus.FAILED.getStatus(), LEAVERSAPI);
+        handleELinksErrorResponse(httpStatus);
+        return null;
     }
 
-
-
-    private void processLeaverResponse(LeaversRequest elinkLeaverResponseRequest) {
+    private void processLeaverResponse(LeaversRequest elinkLeaverResponseRequest,
+                                       ElinkDataExceptionSink.Run exceptionRecords, AtomicBoolean partialSuccess) {
         try {
-            updateLeavers(elinkLeaverResponseRequest.getLeaversResultsRequests());
+            auditUnmatchedPersonalCodes(updateLeavers(elinkLeaverResponseRequest.getLeaversResultsRequests()),
+                exceptionRecords, partialSuccess);
         } catch (Exception ex) {
             throw new ElinksException(HttpStatus.NOT_ACCEPTABLE, DATA_UPDATE_ERROR, DATA_UPDATE_ERROR);
         }
 
     }
 
-    public void updateLeavers(List<LeaversResultsRequest> leaversResultsRequests) {
+    /**
+     * Returns the personal codes of the leavers that match no profile.
+     */
+    public Set<String> updateLeavers(List<LeaversResultsRequest> leaversResultsRequests) {
 
-        List<Triple<String, String,String>> leaversId = new ArrayList<>();
+        Map<String, Object[]> leavers = new LinkedHashMap<>();
+        leaversResultsRequests.stream().filter(request -> nonNull(request.getPersonalCode())).forEach(s ->
+                leavers.put(s.getPersonalCode(), new Object[] {s.getLeftOn(), !Boolean.valueOf(s.getLeaver())}));
+        return elinksBulkUpdater.update(LEAVERSAPI, BULK_UPDATE_LEAVERS, leavers, "text", "boolean");
+    }
 
-        String updateLeaversId = "UPDATE dbjudicialdata.judicial_user_profile SET last_working_date = Date(?) , "
-                + "active_flag = ?, last_loaded_date= NOW() AT TIME ZONE 'utc' WHERE personal_code = ?";
+    /**
+     * Records the personal codes eLinks reported that have no profile, so they are listed in the exception report
+     * of the run, and marks the run as a partial success.
+     */
+    private void auditUnmatchedPersonalCodes(Set<String> personalCodes, ElinkDataExceptionSink.Run exceptionRecords,
+                                             AtomicBoolean partialSuccess) {
+        if (personalCodes.isEmpty()) {
+            return;
+        }
+        partialSuccess.set(true);
+        personalCodes.forEach(personalCode -> elinkDataExceptionSink.auditException(exceptionRecords,
+            JUDICIAL_REF_DATA_ELINKS, exceptionRecords.getSchedulerStartTime(), personalCode, USER_PROFILE,
+            PERSONALCODENOTAVAILABLE, USER_PROFILE, personalCode));
+    }
 
-        leaversResultsRequests.stream().filter(request -> nonNull(request.getPersonalCode())).forEach(s ->
-                leaversId.add(Triple.of(s.getPersonalCode(), s.getLeaver(),s.getLeftOn())));
-        log.info("Insert Query batch Response from Leavers" + leaversId.size());
-        jdbcTemplate.batchUpdate(
-                updateLeaversId,
-                leaversId,
-                10,
-                new ParameterizedPreparedStatementSetter<Triple<String, String, String>>() {
-                    public void setValues(PreparedStatement ps, Triple<String, String, String> argument)
-                            throws SQLException {
-                        ps.setString(1, argument.getRight());
-                        ps.setBoolean(2, !(Boolean.valueOf(argument.getMiddle())));
-                        ps.setString(3, argument.getLeft());
-                    }
-                });
+    private static String finalStatus(AtomicBoolean partialSuccess) {
+        return partialSuccess.get() ? RefDataElinksConstants.JobStatus.PARTIAL_SUCCESS.getStatus()
+            : RefDataElinksConstants.JobStatus.SUCCESS.getStatus();
     }
 
-    private Response getDeletedResponseFromElinks(int currentPage) {
-        String leftSince = getDeletedSince();
+    private Response getDeletedResponseFromElinks(int currentPage, String deletedSince, RunStats requests) {
         try {
-            return elinksFeignClient.getDeletedDetails(leftSince, perPage, String.valueOf(currentPage));
+            return elinksRateLimiter.execute(requests, () ->
+                elinksFeignClient.getDeletedDetails(deletedSince, perPage, String.valueOf(currentPage)));
         } catch (FeignException ex) {
             throw new ElinksException(HttpStatus.FORBIDDEN, ELINKS_ACCESS_ERROR, ELINKS_ACCESS_ERROR);
         }
@@ -384,8 +420,6 @@ public class ELinksServiceImpl implements ELinksService {
     @Override
     @Transactional("transactionManager")
     public ResponseEntity<ElinkDeletedWrapperResponse> retrieveDeleted() {
-        boolean isMorePagesAvailable = true;
-        HttpStatus httpStatus = null;
         LocalDateTime schedulerStartTime = now();
         ElinkDeletedWrapperResponse elinkDeletedWrapperResponse = new ElinkDeletedWrapperResponse();
 
@@ -394,96 +428,88 @@ public class ELinksServiceImpl implements ELinksService {
             null,
             RefDataElinksConstants.JobStatus.IN_PROGRESS.getStatus(), DELETEDAPI);
 
-        int pageValue = Integer.parseInt(page);
-        do {
-            Response deletedApiResponse = getDeletedResponseFromElinks(pageValue++);
-            httpStatus = HttpStatus.valueOf(deletedApiResponse.status());
-            ResponseEntity<Object> responseEntity;
-
-            if (httpStatus.is2xxSuccessful()) {
-                responseEntity = JsonFeignResponseUtil
-                    .toResponseEntity(deletedApiResponse, ElinksDeleteApiResponse.class);
-                ElinksDeleteApiResponse elinkDeletedResponseRequest = (ElinksDeleteApiResponse)
-                    responseEntity.getBody();
-                if (Optional.ofNullable(elinkDeletedResponseRequest).isPresent()
-                    && Optional.ofNullable(elinkDeletedResponseRequest
-                    .getPagination()).isPresent()
-                    && Optional.ofNullable(elinkDeletedResponseRequest.getDeletedResponse()).isPresent()) {
-                    isMorePagesAvailable = elinkDeletedResponseRequest.getPagination().getMorePages();
-                    processDeletedResponse(elinkDeletedResponseRequest);
-
-                } else {
-                    elinkDataIngestionSchedularAudit.auditSchedulerStatus(JUDICIAL_REF_DATA_ELINKS,
-                        schedulerStartTime,
-                        now(),
-                        RefDataElinksConstants.JobStatus.FAILED.getStatus(), DELETEDAPI);
-                    throw new ElinksException(HttpStatus.FORBIDDEN, ELINKS_ACCESS_ERROR, ELINKS_ACCESS_ERROR);
-                }
-            } else {
-                elinkDataIngestionSchedularAudit.auditSchedulerStatus(JUDICIAL_REF_DATA_ELINKS,
-                    schedulerStartTime,
-                    now(),
-                    RefDataElinksConstants.JobStatus.FAILED.getStatus(), DELETEDAPI);
-                handleELinksErrorResponse(httpStatus);
-            }
-            pauseDeletedThread(Long.valueOf(threadPauseTime));
-        } while (isMorePagesAvailable);
+        String deletedSince = getDeletedSince();
+        ElinkDataExceptionSink.Run exceptionRecords = new ElinkDataExceptionSink.Run(schedulerStartTime);
+        AtomicBoolean partialSuccess = new AtomicBoolean();
+        RunStats requests = elinksRateLimiter.startRun(DELETEDAPI);
+        try {
+            elinksPagePipeline.run(Integer.parseInt(page),
+                pageValue -> fetchDeletedPage(pageValue, deletedSince, schedulerStartTime, requests),
+                (pageValue, deletedRequest) -> processDeletedResponse(deletedRequest, exceptionRecords,
+                    partialSuccess));
+        } finally {
+            elinkDataExceptionSink.finishRun(exceptionRecords);
+            elinksRateLimiter.finishRun(requests);
+        }
 
         elinkDeletedWrapperResponse.setMessage(DELETEDSUCCESS);
+        clearRefreshTotals(cacheManager);
 
         elinkDataIngestionSchedularAudit.auditSchedulerStatus(JUDICIAL_REF_DATA_ELINKS,
             schedulerStartTime,
             now(),
-            RefDataElinksConstants.JobStatus.SUCCESS.getStatus(), DELETEDAPI);
+            finalStatus(partialSuccess), DELETEDAPI);
+        if (partialSuccess.get()) {
+            elinkNotificationDispatcher.dispatchExceptionReport(schedulerStartTime);
+        }
 
         return ResponseEntity
-            .status(httpStatus)
+            .status(HttpStatus.OK)
             .body(elinkDeletedWrapperResponse);
     }
 
-    private static void pauseDeletedThread(Long thredPauseTime) {
-        try {
-            Thread.sleep(thredPauseTime);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new ElinksException(HttpStatus.NOT_ACCEPTABLE, THREAD_INVOCATION_EXCEPTION,
-                THREAD_INVOCATION_EXCEPTION);
+    private ElinksPage<ElinksDeleteApiResponse> fetchDeletedPage(int pageValue, String deletedSince,
+                                                                 LocalDateTime schedulerStartTime,
+                                                                 RunStats requests) {
+        Response deletedApiResponse = getDeletedResponseFromElinks(pageValue, deletedSince, requests);
+        HttpStatus httpStatus = HttpStatus.valueOf(deletedApiResponse.status());
+
+        if (httpStatus.is2xxSuccessful()) {
+            ResponseEntity<Object> responseEntity = JsonFeignResponseUtil
+                .toResponseEntity(deletedApiResponse, ElinksDeleteApiResponse.class);
+            ElinksDeleteApiResponse elinkDeletedResponseRequest = (ElinksDeleteApiResponse)
+                responseEntity.getBody();
+            if (Optional.ofNullable(elinkDeletedResponseRequest).isPresent()
+                && Optional.ofNullable(elinkDeletedResponseRequest
+                .getPagination()).isPresent()
+                && Optional.ofNullable(elinkDeletedResponseRequest.getDeletedResponse()).isPresent()) {
+                return new ElinksPage<>(elinkDeletedResponseRequest,
+                    elinkDeletedResponseRequest.getPagination().getMorePages());
+            }
+            elinkDataIngestionSchedularAudit.auditSchedulerStatus(JUDICIAL_REF_DATA_ELINKS,
+                schedulerStartTime,
+                now(),
+                RefDataElinksConstants.JobStatus.FAILED.getStatus(), DELETEDAPI);
+            throw new ElinksException(HttpStatus.FORBIDDEN, ELINKS_ACCESS_ERROR, ELINKS_ACCESS_ERROR);
         }
+        elinkDataIngestionSchedularAudit.auditSchedulerStatus(JUDICIAL_REF_DATA_ELINKS,
+            schedulerStartTime,
+            now(),
+            RefDataElinksConstants.JobStatus.FAILED.getStatus(), DELETEDAPI);
+        handleELinksErrorResponse(httpStatus);
+        return null;
     }
 
-
-
-    private void processDeletedResponse(ElinksDeleteApiResponse elinkDeletedResponseRequest) {
+    private void processDeletedResponse(ElinksDeleteApiResponse elinkDeletedResponseRequest,
+                                        ElinkDataExceptionSink.Run exceptionRecords, AtomicBoolean partialSuccess) {
         try {
-            updateDeleted(elinkDeletedResponseRequest.getDeletedResponse());
+            auditUnmatchedPersonalCodes(updateDeleted(elinkDeletedResponseRequest.getDeletedResponse()),
+                exceptionRecords, partialSuccess);
         } catch (Exception ex) {
             throw new ElinksException(HttpStatus.NOT_ACCEPTABLE, DATA_UPDATE_ERROR, DATA_UPDATE_ERROR);
         }
 
     }
 
-    public void updateDeleted(List<DeletedResponse> deletedResponse) {
-
-        List<Triple<String, String,String>> deletedId = new ArrayList<>();
-
-        String updateDeletedId = "UPDATE dbjudicialdata.judicial_user_profile SET date_of_deletion = Date(?) , "
-            + "deleted_flag = ? WHERE personal_code = ?";
+    /**
+     * Returns the personal codes of the deleted judges that match no profile.
+     */
+    public Set<String> updateDeleted(List<DeletedResponse> deletedResponse) {
 
+        Map<String, Object[]> deleted = new LinkedHashMap<>();
         deletedResponse.stream().filter(request -> nonNull(request.getPersonalCode())).forEach(s ->
-            deletedId.add(Triple.of(s.getPersonalCode(), s.getDeleted(),s.getDeletedOn())));
-        log.info("Insert Query batch Response from Deleted" + deletedId.size());
-        jdbcTemplate.batchUpdate(
-            updateDeletedId,
-            deletedId,
-            10,
-            new ParameterizedPreparedStatementSetter<Triple<String, String, String>>() {
-                public void setValues(PreparedStatement ps, Triple<String, String, String> argument)
-                    throws SQLException {
-                    ps.setString(1, argument.getRight());
-                    ps.setBoolean(2, Boolean.valueOf(argument.getMiddle()));
-                    ps.setString(3, argument.getLeft());
-                }
-            });
+            deleted.put(s.getPersonalCode(), new Object[] {s.getDeletedOn(), Boolean.valueOf(s.getDeleted())}));
+        return elinksBulkUpdater.update(DELETEDAPI, BULK_UPDATE_DELETED, deleted, "text", "boolean");
     }
 
 
@@ -8,7 +8,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -38,11 +41,15 @@ import uk.gov.hmcts.reform.judicialapi.elinks.util.RequestUtils;
 import uk.gov.hmcts.reform.judicialapi.elinks.validator.ElinksRefreshUserValidator;
 import uk.gov.hmcts.reform.judicialapi.feign.LocationReferenceDataFeignClient;
 import uk.gov.hmcts.reform.judicialapi.util.JsonFeignResponseUtil;
+import uk.gov.hmcts.reform.judicialapi.util.PageToken;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
 import static java.util.Objects.nonNull;
@@ -113,41 +120,53 @@ public class ElinkUserServiceImpl implements ElinkUserService {
     @Override
     @SuppressWarnings("unchecked")
     public ResponseEntity<Object> refreshUserProfile(RefreshRoleRequest refreshRoleRequest, Integer pageSize,
-                                                     Integer pageNumber, String sortDirection, String sortColumn) {
+                                                     Integer pageNumber, String sortDirection, String sortColumn,
+                                                     String pageToken, Boolean includeTotal) {
 
         log.info("{} : starting refreshUserProfile ", loggingComponentName);
         elinksRefreshUserValidator.shouldContainOnlyOneInputParameter(refreshRoleRequest);
         var pageRequest = RequestUtils.validateAndBuildPaginationObject(pageSize, pageNumber,
                 sortDirection, sortColumn, refreshDefaultPageSize, refreshDefaultSortColumn,
                 UserProfile.class);
+        // a page token, even a blank one, selects the cursor mode, which pages in (objectId, personalCode) order
+        var cursor = pageToken == null ? null : PageToken.decode(pageToken);
+        if (cursor != null) {
+            pageRequest = PageToken.pageRequest(pageRequest.getPageSize(), "personalCode");
+        }
+        // the cursor mode never counts, and in the offset mode the total can be left out to skip the count
+        var withTotal = cursor == null && !Boolean.FALSE.equals(includeTotal);
 
-        return getRefreshUserProfileBasedOnParam(refreshRoleRequest, pageRequest);
+        return getRefreshUserProfileBasedOnParam(refreshRoleRequest, pageRequest, cursor, withTotal);
 
     }
 
     private ResponseEntity<Object> getRefreshUserProfileBasedOnParam(RefreshRoleRequest refreshRoleRequest,
-                                                                     PageRequest pageRequest) {
+                                                                     PageRequest pageRequest, PageToken cursor,
+                                                                     boolean withTotal) {
         log.info("{} : starting getRefreshUserProfile Based On Param ", loggingComponentName);
         if (elinksRefreshUserValidator.isStringNotEmptyOrNotNull(refreshRoleRequest.getCcdServiceNames())) {
-            return refreshUserProfileBasedOnCcdServiceNames(refreshRoleRequest.getCcdServiceNames(), pageRequest);
+            return refreshUserProfileBasedOnCcdServiceNames(refreshRoleRequest.getCcdServiceNames(), pageRequest,
+                    cursor, withTotal);
         } else if (elinksRefreshUserValidator.isListNotEmptyOrNotNull(refreshRoleRequest.getSidamIds())) {
             return refreshUserProfileBasedOnSidamIds(
                     elinksRefreshUserValidator.removeEmptyOrNullFromList(refreshRoleRequest.getSidamIds()),
-                    pageRequest);
+                    pageRequest, cursor, withTotal);
         } else if (elinksRefreshUserValidator.isListNotEmptyOrNotNull(refreshRoleRequest.getObjectIds())) {
             return refreshUserProfileBasedOnObjectIds(
                     elinksRefreshUserValidator.removeEmptyOrNullFromList(refreshRoleRequest.getObjectIds()),
-                    pageRequest);
+                    pageRequest, cursor, withTotal);
         } else if (elinksRefreshUserValidator.isListNotEmptyOrNotNull(refreshRoleRequest.getPersonalCodes())) {
             return refreshUserProfileBasedOnPersonalCodes(elinksRefreshUserValidator.removeEmptyOrNullFromList(
-                 refreshRoleRequest.getPersonalCodes()), pageRequest);
+                 refreshRoleRequest.getPersonalCodes()), pageRequest, cursor, withTotal);
         }
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
     @SuppressWarnings("unchecked")
     private ResponseEntity<Object> refreshUserProfileBasedOnCcdServiceNames(String ccdServiceNames,
-                                                                            PageRequest pageRequest) {
+                                                                            PageRequest pageRequest,
+                                                                            PageToken cursor,
+                                                                            boolean withTotal) {
         log.info("{} : starting refreshUserProfile BasedOn CcdServiceNames ", loggingComponentName);
         var lrdOrgInfoServiceResponse =
                 locationReferenceDataFeignClient.getLocationRefServiceMapping(ccdServiceNames);
@@ -171,11 +190,16 @@ public class ElinkUserServiceImpl implements ElinkUserService {
                                         LrdOrgInfoServiceResponse::getCcdServiceName));
                 log.info("ccdServiceNameToCodeMapping keySet {}", ccdServiceNameToCodeMapping.keySet());
 
-                var ticketCode = fetchTicketCodeFromServiceCode(ccdServiceNameToCodeMapping.keySet());
+                var serviceCodes = ccdServiceNameToCodeMapping.keySet();
+                var ticketCode = fetchTicketCodeFromServiceCode(serviceCodes);
                 log.info("ticketCode {}", ticketCode);
 
-                var userProfilePage = userProfileRepository.fetchUserProfileByServiceNames(
-                        ccdServiceNameToCodeMapping.keySet(), ticketCode, pageRequest);
+                var userProfilePage = loadUserProfiles(cursor == null
+                        ? userProfileRepository.fetchPersonalCodesByServiceNames(serviceCodes, ticketCode, pageRequest)
+                        : userProfileRepository.fetchPersonalCodesByServiceNamesAfter(serviceCodes, ticketCode,
+                                cursor.getObjectId(), cursor.getId(), pageRequest),
+                        withTotal ? () -> userProfileRepository.countPersonalCodesByServiceNames(serviceCodes,
+                                ticketCode) : null);
 
                 if (userProfilePage == null || userProfilePage.isEmpty()) {
                     log.error("{}:: No data found in JRD for the ccdServiceNames {}",
@@ -183,7 +207,8 @@ public class ElinkUserServiceImpl implements ElinkUserService {
                     throw new ResourceNotFoundException(NO_DATA_FOUND);
                 }
 
-                return getRefreshRoleResponseEntity(userProfilePage, ccdServiceNames, "ccdServiceNames");
+                return getRefreshRoleResponseEntity(userProfilePage, ccdServiceNames, "ccdServiceNames",
+                        cursor != null);
             }
         }
 
@@ -210,10 +235,15 @@ public class ElinkUserServiceImpl implements ElinkUserService {
 
 
     private ResponseEntity<Object> refreshUserProfileBasedOnObjectIds(List<String> objectIds,
-                                                                      PageRequest pageRequest) {
+                                                                      PageRequest pageRequest,
+                                                                      PageToken cursor,
+                                                                      boolean withTotal) {
         log.info("{} : starting refreshUserProfile BasedOn ObjectIds ", loggingComponentName);
-        var userProfilePage = userProfileRepository.fetchUserProfileByObjectIds(
-                objectIds, pageRequest);
+        var userProfilePage = loadUserProfiles(cursor == null
+                ? userProfileRepository.fetchPersonalCodesByObjectIds(objectIds, pageRequest)
+                : userProfileRepository.fetchPersonalCodesByObjectIdsAfter(objectIds, cursor.getObjectId(),
+                        cursor.getId(), pageRequest),
+                withTotal ? () -> userProfileRepository.countPersonalCodesByObjectIds(objectIds) : null);
 
         if (userProfilePage == null || userProfilePage.isEmpty()) {
             log.error("{}:: No data found in JRD for the objectIds {}",
@@ -221,39 +251,71 @@ public class ElinkUserServiceImpl implements ElinkUserService {
             throw new ResourceNotFoundException(NO_DATA_FOUND);
         }
 
-        return getRefreshRoleResponseEntity(userProfilePage, objectIds, "objectIds");
+        return getRefreshRoleResponseEntity(userProfilePage, objectIds, "objectIds", cursor != null);
     }
 
     private ResponseEntity<Object> refreshUserProfileBasedOnPersonalCodes(List<String> personalCodes,
-                                                                          PageRequest pageRequest) {
+                                                                          PageRequest pageRequest,
+                                                                          PageToken cursor,
+                                                                          boolean withTotal) {
         log.info("{} : starting refreshUserProfile BasedOn personalCodes ", loggingComponentName);
-        var userProfilePage = userProfileRepository.fetchUserProfileByPersonalCodes(
-                personalCodes, pageRequest);
+        var userProfilePage = loadUserProfiles(cursor == null
+                ? userProfileRepository.fetchPersonalCodesByPersonalCodes(personalCodes, pageRequest)
+                : userProfileRepository.fetchPersonalCodesByPersonalCodesAfter(personalCodes, cursor.getObjectId(),
+                        cursor.getId(), pageRequest),
+                withTotal ? () -> userProfileRepository.countPersonalCodesByPersonalCodes(personalCodes) : null);
         if (userProfilePage == null || userProfilePage.isEmpty()) {
             log.error("{}:: No data found in JRD for the personalCodes {}",
                     loggingComponentName, personalCodes);
             throw new ResourceNotFoundException(NO_DATA_FOUND);
         }
-        return getRefreshRoleResponseEntity(userProfilePage, personalCodes, "personalCodes");
+        return getRefreshRoleResponseEntity(userProfilePage, personalCodes, "personalCodes", cursor != null);
     }
 
 
 
     private ResponseEntity<Object> refreshUserProfileBasedOnSidamIds(List<String> sidamIds,
-                                                                     PageRequest pageRequest) {
+                                                                     PageRequest pageRequest,
+                                                                     PageToken cursor,
+                                                                     boolean withTotal) {
         log.info("{} : starting refreshUserProfile BasedOn SidamIds ", loggingComponentName);
-        var userProfilePage = userProfileRepository.fetchUserProfileBySidamIds(
-                sidamIds, pageRequest);
+        var userProfilePage = loadUserProfiles(cursor == null
+                ? userProfileRepository.fetchPersonalCodesBySidamIds(sidamIds, pageRequest)
+                : userProfileRepository.fetchPersonalCodesBySidamIdsAfter(sidamIds, cursor.getObjectId(),
+                        cursor.getId(), pageRequest),
+                withTotal ? () -> userProfileRepository.countPersonalCodesBySidamIds(sidamIds) : null);
         if (userProfilePage == null || userProfilePage.isEmpty()) {
             log.error("{}:: No data found in JRD for the sidamIds {}",
                     loggingComponentName, sidamIds);
             throw new ResourceNotFoundException(NO_DATA_FOUND);
         }
-        return getRefreshRoleResponseEntity(userProfilePage, sidamIds, "sidamIds");
+        return getRefreshRoleResponseEntity(userProfilePage, sidamIds, "sidamIds", cursor != null);
+    }
+
+    /**
+     * Loads the profiles of a slice of personal codes in the order of the slice. With a total, which comes from the
+     * cached count of the filter, they are returned as a page, otherwise as a slice that only knows if more follow.
+     */
+    private Slice<UserProfile> loadUserProfiles(Slice<String> personalCodePage, LongSupplier total) {
+        if (personalCodePage == null || personalCodePage.isEmpty()) {
+            return Page.empty();
+        }
+        var userProfiles = userProfileRepository.findAllById(personalCodePage.getContent())
+                .stream()
+                .collect(Collectors.toMap(UserProfile::getPersonalCode, Function.identity()));
+        var pageContent = personalCodePage.getContent()
+                .stream()
+                .map(userProfiles::get)
+                .filter(Objects::nonNull)
+                .toList();
+        if (total != null) {
+            return new PageImpl<>(pageContent, personalCodePage.getPageable(), total.getAsLong());
+        }
+        return new SliceImpl<>(pageContent, personalCodePage.getPageable(), personalCodePage.hasNext());
     }
 
-    private ResponseEntity<Object> getRefreshRoleResponseEntity(Page<UserProfile> userProfilePage, Object collection,
-                                                                String collectionName) {
+    private ResponseEntity<Object> getRefreshRoleResponseEntity(Slice<UserProfile> userProfilePage, Object collection,
+                                                                String collectionName, boolean cursorMode) {
         log.info("{} : starting getRefresh Role Response Entity ", loggingComponentName);
         var userProfileList = new ArrayList<UserProfileRefreshResponse>();
 
@@ -296,10 +358,17 @@ public class ElinkUserServiceImpl implements ElinkUserService {
 
         log.info("{}:: Successfully fetched the User Profile details to refresh role assignment "
                 + "for " + collectionName + " {}", loggingComponentName, collection);
-        return ResponseEntity
-                .ok()
-                .header("total_records", String.valueOf(userProfilePage.getTotalElements()))
-                .body(refreshResponse);
+        var response = ResponseEntity.ok();
+        if (userProfilePage instanceof Page<UserProfile> page) {
+            response.header("total_records", String.valueOf(page.getTotalElements()));
+        } else {
+            response.header("has_next", String.valueOf(userProfilePage.hasNext()));
+        }
+        if (cursorMode && userProfilePage.hasNext()) {
+            var last = userProfilePage.getContent().get(userProfilePage.getNumberOfElements() - 1);
+            response.header("next_page_token", PageToken.encode(last.getObjectId(), last.getPersonalCode()));
+        }
+        return response.body(refreshResponse);
 
     }
 
@@ -1,25 +1,27 @@
 package uk.gov.hmcts.reform.judicialapi.elinks.service.impl;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.io.CountingInputStream;
 import feign.FeignException;
 import feign.Response;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import uk.gov.hmcts.reform.judicialapi.elinks.configuration.ElinkEmailConfiguration;
+import org.springframework.transaction.support.TransactionTemplate;
 import uk.gov.hmcts.reform.judicialapi.elinks.controller.request.AppointmentsRequest;
 import uk.gov.hmcts.reform.judicialapi.elinks.controller.request.AuthorisationsRequest;
-import uk.gov.hmcts.reform.judicialapi.elinks.controller.request.PeopleRequest;
+import uk.gov.hmcts.reform.judicialapi.elinks.controller.request.PaginationRequest;
 import uk.gov.hmcts.reform.judicialapi.elinks.controller.request.ResultsRequest;
 import uk.gov.hmcts.reform.judicialapi.elinks.controller.request.RoleRequest;
 import uk.gov.hmcts.reform.judicialapi.elinks.domain.Appointment;
-import uk.gov.hmcts.reform.judicialapi.elinks.domain.ElinkDataExceptionRecords;
+import uk.gov.hmcts.reform.judicialapi.elinks.domain.Authorisation;
+import uk.gov.hmcts.reform.judicialapi.elinks.domain.ElinkDataSchedularAudit;
 import uk.gov.hmcts.reform.judicialapi.elinks.domain.JudicialRoleType;
 import uk.gov.hmcts.reform.judicialapi.elinks.domain.Location;
 import uk.gov.hmcts.reform.judicialapi.elinks.domain.UserProfile;
@@ -27,39 +29,50 @@ import uk.gov.hmcts.reform.judicialapi.elinks.exception.ElinksException;
 import uk.gov.hmcts.reform.judicialapi.elinks.feign.ElinksFeignClient;
 import uk.gov.hmcts.reform.judicialapi.elinks.repository.AppointmentsRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.repository.AuthorisationsRepository;
-import uk.gov.hmcts.reform.judicialapi.elinks.repository.BaseLocationRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.repository.DataloadSchedularAuditRepository;
-import uk.gov.hmcts.reform.judicialapi.elinks.repository.ElinkDataExceptionRepository;
-import uk.gov.hmcts.reform.judicialapi.elinks.repository.JrdRegionMappingRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.repository.JudicialRoleTypeRepository;
-import uk.gov.hmcts.reform.judicialapi.elinks.repository.LocationMapppingRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.repository.LocationRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.repository.ProfileRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkPeopleWrapperResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.service.ElinksPeopleService;
-import uk.gov.hmcts.reform.judicialapi.elinks.service.IEmailService;
-import uk.gov.hmcts.reform.judicialapi.elinks.service.dto.Email;
 import uk.gov.hmcts.reform.judicialapi.elinks.util.CommonUtil;
-import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkDataExceptionHelper;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkDataExceptionSink;
 import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkDataIngestionSchedularAudit;
-import uk.gov.hmcts.reform.judicialapi.elinks.util.EmailTemplate;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkNotificationDispatcher;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksContentHash;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksMetrics;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksPagePipeline;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksPagePipeline.ElinksPage;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksPeopleBatchWriter;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksPeopleBatchWriter.PersonRecord;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksPeopleStreamReader;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksRateLimiter;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksRateLimiter.RunStats;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksReferenceDataSnapshot;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.JudicialChangeType;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ObjectIdIndex;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.PeopleLoadContext;
 import uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants;
-import uk.gov.hmcts.reform.judicialapi.util.JsonFeignResponseUtil;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 import static java.time.LocalDateTime.now;
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static uk.gov.hmcts.reform.judicialapi.configuration.RefreshTotalsCacheConfiguration.clearRefreshTotals;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.APPOINTMENTID;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.APPOINTMENTIDFAILURE;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.APPOINTMENTIDNOTAVAILABLE;
@@ -69,9 +82,7 @@ import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.BASE_LOCATION;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.BASE_LOCATION_ID;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.CFTREGIONIDFAILURE;
-import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.CONTENT_TYPE_HTML;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.DATA_UPDATE_ERROR;
-import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.DATE_PATTERN;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.ELINKS_ACCESS_ERROR;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.ELINKS_ERROR_RESPONSE_BAD_REQUEST;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.ELINKS_ERROR_RESPONSE_FORBIDDEN;
@@ -99,6 +110,8 @@ import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.USERPROFILEFAILURE;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.USERPROFILEISPRESENT;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.USER_PROFILE;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.RECORD_CHANGE_EVENT;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.RECORD_PROFILE_CHANGE;
 
 @Slf4j
 @Service
@@ -108,10 +121,7 @@ public class ElinksPeopleServiceImpl implements ElinksPeopleService {
     private ElinksFeignClient elinksFeignClient;
 
     @Autowired
-    private BaseLocationRepository baseLocationRepository;
-
-    @Autowired
-    ElinkDataExceptionHelper elinkDataExceptionHelper;
+    ElinkDataExceptionSink elinkDataExceptionSink;
 
     @Autowired
     private AppointmentsRepository appointmentsRepository;
@@ -119,24 +129,15 @@ public class ElinksPeopleServiceImpl implements ElinksPeopleService {
     @Autowired
     private AuthorisationsRepository authorisationsRepository;
 
-    @Autowired
-    ElinkEmailConfiguration emailConfiguration;
-
     @Autowired
     private ProfileRepository profileRepository;
 
     @Autowired
     private JudicialRoleTypeRepository judicialRoleTypeRepository;
 
-    @Autowired
-    private LocationMapppingRepository locationMappingRepository;
-
     @Autowired
     private LocationRepository locationRepository;
 
-    @Autowired
-    private JrdRegionMappingRepository regionMappingRepository;
-
     @Autowired
     private DataloadSchedularAuditRepository dataloadSchedularAuditRepository;
 
@@ -146,18 +147,28 @@ public class ElinksPeopleServiceImpl implements ElinksPeopleService {
     @Autowired ElinksPeopleDeleteServiceimpl elinksPeopleDeleteServiceimpl;
 
     @Autowired
-    JdbcTemplate jdbcTemplate;
+    ElinksPeopleBatchWriter elinksPeopleBatchWriter;
 
     @Autowired
-    CommonUtil commonUtil;
+    ElinksPagePipeline elinksPagePipeline;
 
-    private boolean partialSuccessFlag = false;
+    @Autowired
+    ElinksRateLimiter elinksRateLimiter;
 
-    private Map<String,UserProfile> userProfileCache = new HashMap<String,UserProfile>();
-    private List<UserProfile> userProfilesSnapshot = new ArrayList<>();
+    @Autowired
+    ElinksReferenceDataSnapshot elinksReferenceDataSnapshot;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
 
     @Autowired
-    ElinkDataExceptionRepository elinkDataExceptionRepository;
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    CommonUtil commonUtil;
 
     @Value("${logging-component-name}")
     private String logComponentName;
@@ -169,130 +180,176 @@ public class ElinksPeopleServiceImpl implements ElinksPeopleService {
     @Value("${elinks.people.perPage}")
     private String perPage;
 
-    @Value("${elinks.people.threadPauseTime}")
-    private String threadPauseTime;
-
-    @Value("${elinks.people.threadRetriggerPauseTime}")
-    private String threadRetriggerPauseTime;
-
     @Value("${elinks.people.page}")
     private String page;
 
     @Value("${elinks.people.includePreviousAppointments}")
     private String includePreviousAppointments;
 
-    @Autowired
-    EmailTemplate emailTemplate;
+    @Value("${elinks.people.skipUnchanged:true}")
+    private boolean skipUnchanged;
+
+    @Value("${elinks.people.writerThreads:4}")
+    private int writerThreads;
 
     @Autowired
-    IEmailService emailService;
+    ElinkNotificationDispatcher elinkNotificationDispatcher;
 
     private final Map<String, String> emailConfigMapping = Map.of(LOCATION_ID, REGION,
             BASE_LOCATION_ID, BASE_LOCATION);
 
     @Override
-    public ResponseEntity<ElinkPeopleWrapperResponse> updatePeople() {
+    public ResponseEntity<ElinkPeopleWrapperResponse> updatePeople(boolean restart) {
 
-        partialSuccessFlag = false;
-        userProfileCache.clear();
-        boolean isMorePagesAvailable = true;
-        HttpStatus httpStatus = null;
         LocalDateTime schedulerStartTime = now();
+        PeopleLoadContext context = new PeopleLoadContext(schedulerStartTime);
         String status = RefDataElinksConstants.JobStatus.SUCCESS.getStatus();
 
         elinkDataIngestionSchedularAudit.auditSchedulerStatus(JUDICIAL_REF_DATA_ELINKS,
                 schedulerStartTime,
                 null,
                 RefDataElinksConstants.JobStatus.IN_PROGRESS.getStatus(), PEOPLEAPI);
-        userProfilesSnapshot = profileRepository.findAll();
-        int pageValue = Integer.parseInt(page);
-        do {
-            Response peopleApiResponse = getPeopleResponseFromElinks(pageValue++, schedulerStartTime);
-            httpStatus = HttpStatus.valueOf(peopleApiResponse.status());
-            ResponseEntity<Object> responseEntity;
-
-            if (httpStatus.is2xxSuccessful()) {
-                responseEntity = JsonFeignResponseUtil.toResponseEntity(peopleApiResponse, PeopleRequest.class);
-                PeopleRequest elinkPeopleResponseRequest = (PeopleRequest) responseEntity.getBody();
-                if (Optional.ofNullable(elinkPeopleResponseRequest).isPresent()
-                        && Optional.ofNullable(elinkPeopleResponseRequest.getPagination()).isPresent()
-                        && Optional.ofNullable(elinkPeopleResponseRequest.getResultsRequests()).isPresent()) {
-                    isMorePagesAvailable = elinkPeopleResponseRequest.getPagination().getMorePages();
-                    processPeopleResponse(elinkPeopleResponseRequest, schedulerStartTime,pageValue);
-                } else {
-                    auditStatus(schedulerStartTime, RefDataElinksConstants.JobStatus.FAILED.getStatus());
-                    throw new ElinksException(HttpStatus.FORBIDDEN, ELINKS_ACCESS_ERROR, ELINKS_ACCESS_ERROR);
-                }
-            } else if (HttpStatus.TOO_MANY_REQUESTS.value() == httpStatus.value()) {
-                log.info(":::: Too Many Requests ");
-                pauseThread(Long.valueOf(threadRetriggerPauseTime),schedulerStartTime);
-                --pageValue;
-                continue;
-            } else {
-                auditStatus(schedulerStartTime, RefDataElinksConstants.JobStatus.FAILED.getStatus());
-                handleELinksErrorResponse(httpStatus);
-            }
-            pauseThread(Long.valueOf(threadPauseTime),schedulerStartTime);
-        } while (isMorePagesAvailable);
-
-        sendEmail(schedulerStartTime);
+        loadStoredObjectIds(context);
+        loadStoredContentHashes(context);
+        elinksReferenceDataSnapshot.refresh();
+        ElinkDataSchedularAudit resumedRun = restart ? null : findResumableRun(schedulerStartTime);
+        String updatedSince = resumedRun == null ? getUpdateSince() : resumedRun.getUpdatedSince();
+        Integer lastCommittedPage = resumedRun == null ? null : resumedRun.getLastCommittedPage();
+        int firstPage = lastCommittedPage == null ? Integer.parseInt(page) : lastCommittedPage + 1;
+        int pageSize = Integer.parseInt(perPage);
+        elinkDataIngestionSchedularAudit.auditCheckpoint(schedulerStartTime, updatedSince, pageSize,
+            lastCommittedPage);
+        RunStats requests = elinksRateLimiter.startRun(PEOPLEAPI);
+        ExecutorService writers = Executors.newFixedThreadPool(Math.max(1, writerThreads), runnable ->
+            new Thread(runnable, "elinks-people-writer"));
+        try {
+            elinksPagePipeline.run(firstPage,
+                pageValue -> fetchPeoplePage(pageValue, updatedSince, context, requests),
+                (pageValue, people) -> {
+                    processPeopleResponse(people, context, pageValue, writers);
+                    long auditStarted = System.nanoTime();
+                    elinkDataIngestionSchedularAudit.auditCheckpoint(schedulerStartTime, updatedSince, pageSize,
+                        pageValue);
+                    ElinksMetrics.recordSince(ElinksMetrics.AUDIT, PEOPLEAPI, auditStarted);
+                });
+        } finally {
+            writers.shutdownNow();
+            elinkDataExceptionSink.finishRun(context.getExceptionRecords());
+            elinksRateLimiter.finishRun(requests);
+        }
+        logUnchangedPeople(context);
 
-        if (partialSuccessFlag) {
+        if (context.isPartialSuccess()) {
             status = RefDataElinksConstants.JobStatus.PARTIAL_SUCCESS.getStatus();
         }
 
-        userProfileCache.clear();
-        userProfilesSnapshot = null;
         auditStatus(schedulerStartTime, status);
+        clearRefreshTotals(cacheManager);
+        elinkNotificationDispatcher.dispatchExceptionReport(schedulerStartTime);
         ElinkPeopleWrapperResponse response = new ElinkPeopleWrapperResponse();
         response.setMessage(PEOPLE_DATA_LOAD_SUCCESS);
 
         return ResponseEntity
-                .status(httpStatus)
+                .status(HttpStatus.OK)
                 .body(response);
     }
 
-    private void sendEmail(LocalDateTime schedulerStartTime) {
-        List<ElinkDataExceptionRecords> list = elinkDataExceptionRepository
-                .findBySchedulerStartTime(schedulerStartTime);
-
-        Map<String, List<ElinkDataExceptionRecords>> map = list
-                .stream()
-                .collect(Collectors.groupingBy(ElinkDataExceptionRecords::getFieldInError));
-
-        if (map.containsKey(BASE_LOCATION_ID)) {
-            sendEmail(new HashSet<>(map.get(BASE_LOCATION_ID)), "baselocation",
-                    LocalDate.now().format(DateTimeFormatter.ofPattern(DATE_PATTERN)));
+    /**
+     * The previous people run, when it failed after committing at least one page with the page size still in
+     * use. Pages up to its checkpoint are already in the database, so loading carries on from the next page with
+     * the same watermark. Any other outcome, including a run still in progress, starts from page one.
+     */
+    private ElinkDataSchedularAudit findResumableRun(LocalDateTime schedulerStartTime) {
+        ElinkDataSchedularAudit previousRun;
+        try {
+            previousRun = dataloadSchedularAuditRepository.findLatestPeopleRunBefore(schedulerStartTime);
+        } catch (Exception ex) {
+            throw new ElinksException(HttpStatus.NOT_ACCEPTABLE, DATA_UPDATE_ERROR, DATA_UPDATE_ERROR);
         }
-        if (map.containsKey(LOCATION)) {
-            sendEmail(new HashSet<>(map.get(LOCATION)), "location",
-                    LocalDate.now().format(DateTimeFormatter.ofPattern(DATE_PATTERN)));
+        if (previousRun == null
+            || !RefDataElinksConstants.JobStatus.FAILED.getStatus().equals(previousRun.getStatus())
+            || previousRun.getLastCommittedPage() == null || previousRun.getUpdatedSince() == null
+            || !String.valueOf(previousRun.getPerPage()).equals(perPage)) {
+            return null;
         }
-        if (map.containsKey(APPOINTMENTID)) {
-            sendEmail(new HashSet<>(map.get(APPOINTMENTID)), "appointment",
-                    LocalDate.now().format(DateTimeFormatter.ofPattern(DATE_PATTERN)));
+        log.info("{} : resuming people load of {} after page {}, updatedSince : {}", logComponentName,
+            previousRun.getSchedulerStartTime(), previousRun.getLastCommittedPage(), previousRun.getUpdatedSince());
+        return previousRun;
+    }
+
+    private void loadStoredObjectIds(PeopleLoadContext context) {
+        ObjectIdIndex storedObjectIds = context.getStoredObjectIds();
+        profileRepository.fetchObjectIdPersonalCodes().forEach(profile ->
+            storedObjectIds.put(profile.getObjectId(), profile.getPersonalCode()));
+        log.info("{} : indexed {} stored object ids", logComponentName, storedObjectIds.size());
+    }
+
+    private void loadStoredContentHashes(PeopleLoadContext context) {
+        Map<String, String> storedContentHashes = context.getStoredContentHashes();
+        if (skipUnchanged) {
+            profileRepository.fetchContentHashes().forEach(profile ->
+                storedContentHashes.put(profile.getPersonalCode(), profile.getContentHash()));
         }
-        if (map.containsKey(USER_PROFILE)) {
-            sendEmail(new HashSet<>(map.get(USER_PROFILE)), "userprofile",
-                LocalDate.now().format(DateTimeFormatter.ofPattern(DATE_PATTERN)));
+        log.info("{} : loaded {} stored content hashes", logComponentName, storedContentHashes.size());
+    }
+
+    private void logUnchangedPeople(PeopleLoadContext context) {
+        int received = context.getPeopleReceived().get();
+        int unchanged = context.getPeopleUnchanged().get();
+        log.info("{} : {} of {} people unchanged since their last load and skipped ({}%)", logComponentName,
+            unchanged, received, received == 0 ? 0 : unchanged * 100 / received);
+        ElinksMetrics.countRows(PEOPLEAPI, "unchanged", unchanged);
+    }
+
+    /**
+     * Runs on the pipeline's fetcher thread: each person is mapped as soon as it is decoded from the response,
+     * so the page travels to the save step as entities rather than as the eLinks request tree.
+     */
+    private ElinksPage<List<PersonRecord>> fetchPeoplePage(int pageValue, String updatedSince,
+                                                           PeopleLoadContext context, RunStats requests) {
+        LocalDateTime schedulerStartTime = context.getSchedulerStartTime();
+        Response peopleApiResponse = getPeopleResponseFromElinks(pageValue, updatedSince, schedulerStartTime,
+            requests);
+        HttpStatus httpStatus = HttpStatus.valueOf(peopleApiResponse.status());
+
+        if (httpStatus.is2xxSuccessful()) {
+            List<PersonRecord> people = new ArrayList<>();
+            // decoding and mapping interleave, so the parse time is the read time less the mapping time
+            long[] validateNanos = new long[1];
+            long readStarted = System.nanoTime();
+            PaginationRequest pagination = readPeoplePage(peopleApiResponse, resultsRequest -> {
+                long validateStarted = System.nanoTime();
+                buildPeopleDetails(resultsRequest, context, pageValue).ifPresent(people::add);
+                validateNanos[0] += System.nanoTime() - validateStarted;
+            }, schedulerStartTime);
+            ElinksMetrics.recordNanos(ElinksMetrics.PARSE, PEOPLEAPI,
+                System.nanoTime() - readStarted - validateNanos[0]);
+            ElinksMetrics.recordNanos(ElinksMetrics.VALIDATE, PEOPLEAPI, validateNanos[0]);
+            if (Optional.ofNullable(pagination).isPresent()) {
+                return new ElinksPage<>(people, pagination.getMorePages());
+            }
+            auditStatus(schedulerStartTime, RefDataElinksConstants.JobStatus.FAILED.getStatus());
+            throw new ElinksException(HttpStatus.FORBIDDEN, ELINKS_ACCESS_ERROR, ELINKS_ACCESS_ERROR);
         }
+        auditStatus(schedulerStartTime, RefDataElinksConstants.JobStatus.FAILED.getStatus());
+        handleELinksErrorResponse(httpStatus);
+        return null;
     }
 
-    public int sendEmail(Set<ElinkDataExceptionRecords> data, String type, Object... params) {
-        log.info("{} : send Email",logComponentName);
-        ElinkEmailConfiguration.MailTypeConfig config = emailConfiguration.getMailTypes()
-                .get(type);
-        if (config != null && config.isEnabled()) {
-            Email email = Email.builder()
-                    .contentType(CONTENT_TYPE_HTML)
-                    .from(config.getFrom())
-                    .to(config.getTo())
-                    .subject(String.format(config.getSubject(), params))
-                    .messageBody(emailTemplate.getEmailBody(config.getTemplate(), Map.of("resultsRequest", data)))
-                    .build();
-            return emailService.sendEmail(email);
+    private PaginationRequest readPeoplePage(Response peopleApiResponse, Consumer<ResultsRequest> personConsumer,
+                                             LocalDateTime schedulerStartTime) {
+        try (CountingInputStream body = new CountingInputStream(peopleApiResponse.body().asInputStream())) {
+            PaginationRequest pagination = ElinksPeopleStreamReader.read(body, personConsumer);
+            ElinksMetrics.recordPayloadBytes(PEOPLEAPI, body.getCount());
+            return pagination;
+        } catch (IOException ex) {
+            log.error("{} : unable to read eLinks people response : {}", logComponentName, ex.getMessage());
+            auditStatus(schedulerStartTime, RefDataElinksConstants.JobStatus.FAILED.getStatus());
+            throw new ElinksException(HttpStatus.FORBIDDEN, ELINKS_ACCESS_ERROR, ELINKS_ACCESS_ERROR);
+        } catch (Exception ex) {
+            auditStatus(schedulerStartTime, RefDataElinksConstants.JobStatus.FAILED.getStatus());
+            throw new ElinksException(HttpStatus.NOT_ACCEPTABLE, DATA_UPDATE_ERROR, DATA_UPDATE_ERROR);
         }
-        return -1;
     }
 
     private void auditStatus(LocalDateTime schedulerStartTime, String status) {
@@ -301,28 +358,17 @@ public class ElinksPeopleServiceImpl implements ElinksPeopleService {
                 now(),status,PEOPLEAPI);
     }
 
-    private Response getPeopleResponseFromElinks(int currentPage, LocalDateTime schedulerStartTime) {
-        String updatedSince = getUpdateSince();
+    private Response getPeopleResponseFromElinks(int currentPage, String updatedSince,
+                                                 LocalDateTime schedulerStartTime, RunStats requests) {
         try {
-            return elinksFeignClient.getPeopleDetails(updatedSince, perPage, String.valueOf(currentPage),
-                    Boolean.parseBoolean(includePreviousAppointments));
+            return elinksRateLimiter.execute(requests, () -> elinksFeignClient.getPeopleDetails(updatedSince,
+                    perPage, String.valueOf(currentPage), Boolean.parseBoolean(includePreviousAppointments)));
         } catch (FeignException ex) {
             auditStatus(schedulerStartTime, RefDataElinksConstants.JobStatus.FAILED.getStatus());
             throw new ElinksException(HttpStatus.FORBIDDEN, ELINKS_ACCESS_ERROR, ELINKS_ACCESS_ERROR);
         }
     }
 
-    private void pauseThread(Long thredPauseTime, LocalDateTime schedulerStartTime) {
-        try {
-            Thread.sleep(thredPauseTime);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            auditStatus(schedulerStartTime, RefDataElinksConstants.JobStatus.FAILED.getStatus());
-            throw new ElinksException(HttpStatus.NOT_ACCEPTABLE, THREAD_INVOCATION_EXCEPTION,
-                    THREAD_INVOCATION_EXCEPTION);
-        }
-    }
-
     private String getUpdateSince() {
         String updatedSince;
         LocalDateTime maxSchedulerEndTime;
@@ -341,49 +387,202 @@ public class ElinksPeopleServiceImpl implements ElinksPeopleService {
         return updatedSince;
     }
 
-    private void processPeopleResponse(PeopleRequest elinkPeopleResponseRequest, LocalDateTime schedulerStartTime,
-                                       int pageValue) {
+    private void processPeopleResponse(List<PersonRecord> people, PeopleLoadContext context,
+                                       int pageValue, ExecutorService writers) {
         try {
-            // filter the profiles that do have email address for leavers
-            elinkPeopleResponseRequest.getResultsRequests()
-                .forEach(resultsRequest -> savePeopleDetails(resultsRequest,schedulerStartTime,pageValue));
-
+            long persistStarted = System.nanoTime();
+            savePeopleDetails(people, context, pageValue, writers);
+            ElinksMetrics.recordSince(ElinksMetrics.PERSIST, PEOPLEAPI, persistStarted);
+            long auditStarted = System.nanoTime();
+            elinkDataExceptionSink.flush(context.getExceptionRecords());
+            ElinksMetrics.recordSince(ElinksMetrics.AUDIT, PEOPLEAPI, auditStarted);
+
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            auditStatus(context.getSchedulerStartTime(), RefDataElinksConstants.JobStatus.FAILED.getStatus());
+            throw new ElinksException(HttpStatus.NOT_ACCEPTABLE, THREAD_INVOCATION_EXCEPTION,
+                THREAD_INVOCATION_EXCEPTION);
         } catch (Exception ex) {
-            auditStatus(schedulerStartTime, RefDataElinksConstants.JobStatus.FAILED.getStatus());
+            auditStatus(context.getSchedulerStartTime(), RefDataElinksConstants.JobStatus.FAILED.getStatus());
             throw new ElinksException(HttpStatus.NOT_ACCEPTABLE, DATA_UPDATE_ERROR, DATA_UPDATE_ERROR);
         }
 
     }
 
-    private void savePeopleDetails(
-        ResultsRequest resultsRequest, LocalDateTime schedulerStartTime, int pageValue) {
+    /**
+     * Splits the page by personal code and writes the parts in parallel, each in its own transaction. All rows
+     * of a judge land in the same part, in page order, and the next page starts only when every part is written.
+     */
+    private void savePeopleDetails(List<PersonRecord> people, PeopleLoadContext context, int pageValue,
+                                   ExecutorService writers) throws InterruptedException, ExecutionException {
 
-        if (saveUserProfile(resultsRequest,schedulerStartTime,pageValue)) {
+        if (people.isEmpty()) {
+            return;
+        }
+        int partitionCount = Math.min(Math.max(1, writerThreads), people.size());
+        if (partitionCount == 1) {
+            savePartition(people, context, pageValue);
+            return;
+        }
+        List<List<PersonRecord>> partitions = new ArrayList<>();
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        people.forEach(person -> partitions.get(Math.floorMod(
+            Objects.hashCode(person.getUserProfile().getPersonalCode()), partitionCount)).add(person));
+        List<Future<?>> writes = new ArrayList<>();
+        partitions.stream().filter(partition -> !partition.isEmpty()).forEach(partition ->
+            writes.add(writers.submit(() -> savePartition(partition, context, pageValue))));
+        ExecutionException failure = null;
+        for (Future<?> write : writes) {
             try {
-                elinksPeopleDeleteServiceimpl.deleteAuth(resultsRequest);
-                saveAppointmentDetails(resultsRequest.getPersonalCode(), resultsRequest
-                    .getObjectId(), resultsRequest.getAppointmentsRequests(),schedulerStartTime,pageValue);
-                saveAuthorizationDetails(resultsRequest.getPersonalCode(), resultsRequest
-                    .getObjectId(), resultsRequest.getAuthorisationsRequests(),schedulerStartTime,pageValue);
-                saveRoleDetails(resultsRequest.getPersonalCode(), resultsRequest.getJudiciaryRoles());
-            } catch (Exception exception) {
-                log.warn("saveUserProfile is failed  " + resultsRequest.getPersonalCode());
-                partialSuccessFlag = true;
-                elinkDataExceptionHelper.auditException(JUDICIAL_REF_DATA_ELINKS,
-                    now(),
-                    resultsRequest.getPersonalCode(),
-                    PERSONALCODE, exception.getMessage(), USER_PROFILE,resultsRequest.getPersonalCode());
+                write.get();
+            } catch (ExecutionException e) {
+                failure = e;
             }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void savePartition(List<PersonRecord> people, PeopleLoadContext context, int pageValue) {
+        List<Authorisation> skippedAuthorisations;
+        try {
+            skippedAuthorisations = elinksPeopleBatchWriter.writePage(people);
+        } catch (Exception exception) {
+            // the page was rolled back, replay it one person at a time to report each failing row
+            log.warn("{} : batch write failed for page {}, saving people individually : {}",
+                logComponentName, pageValue, exception.getMessage());
+            people.forEach(person -> savePersonDetails(person, context, pageValue));
+            return;
+        }
+        skippedAuthorisations.forEach(authorisation ->
+            auditAuthorisationFailure(authorisation, context, pageValue));
+    }
+
+    private void savePersonDetails(PersonRecord person, PeopleLoadContext context, int pageValue) {
+
+        String personalCode = person.getUserProfile().getPersonalCode();
+        // the page failed as a batch, so load this judge in full again next run
+        person.getUserProfile().setContentHash(null);
+        try {
+            // the change event commits with the profile or not at all, as it does in the batch write
+            transactionTemplate.executeWithoutResult(status -> {
+                // the stored sidam id is read before the save clears it
+                Optional<UserProfile> stored = profileRepository.findById(personalCode);
+                JudicialChangeType changeType = stored.isPresent()
+                    ? JudicialChangeType.APPOINTMENT_CHANGED : JudicialChangeType.CREATED;
+                profileRepository.save(person.getUserProfile());
+                jdbcTemplate.update(RECORD_PROFILE_CHANGE, personalCode);
+                jdbcTemplate.update(RECORD_CHANGE_EVENT, personalCode, stored.map(UserProfile::getSidamId).orElse(null),
+                    changeType.name());
+            });
+        } catch (Exception e) {
+            log.warn("User Profile not loaded for " + personalCode);
+            context.markPartialSuccess();
+            String errorDescription = appendFieldWithErrorDescription(USERPROFILEFAILURE, personalCode, pageValue);
+            elinkDataExceptionSink.auditException(context.getExceptionRecords(), JUDICIAL_REF_DATA_ELINKS,
+                now(),
+                personalCode,
+                USER_PROFILE, errorDescription, USER_PROFILE,personalCode);
+            return;
+        }
+        try {
+            elinksPeopleDeleteServiceimpl.deleteAuth(ResultsRequest.builder().personalCode(personalCode).build());
+            person.getAppointments().forEach(appointment -> saveAppointment(appointment, context, pageValue));
+            person.getAuthorisations().forEach(authorisation ->
+                saveAuthorisation(authorisation, context, pageValue));
+            person.getRoles().forEach(role -> saveRole(role, context));
+        } catch (Exception exception) {
+            log.warn("saveUserProfile is failed  " + personalCode);
+            context.markPartialSuccess();
+            elinkDataExceptionSink.auditException(context.getExceptionRecords(), JUDICIAL_REF_DATA_ELINKS,
+                now(),
+                personalCode,
+                PERSONALCODE, exception.getMessage(), USER_PROFILE,personalCode);
+        }
+    }
+
+    private void saveAppointment(Appointment appointment, PeopleLoadContext context, int pageValue) {
+        try {
+            appointmentsRepository.save(appointment);
+        } catch (Exception e) {
+            auditAppointmentFailure(appointment.getAppointmentId(), appointment.getPersonalCode(), context,
+                pageValue);
+        }
+    }
 
+    private void saveAuthorisation(Authorisation authorisation, PeopleLoadContext context, int pageValue) {
+        try {
+            authorisationsRepository.save(authorisation);
+        } catch (Exception e) {
+            auditAuthorisationFailure(authorisation, context, pageValue);
+        }
+    }
+
+    private void saveRole(JudicialRoleType judicialRoleType, PeopleLoadContext context) {
+        try {
+            judicialRoleTypeRepository.save(judicialRoleType);
+        } catch (Exception e) {
+            auditRoleFailure(judicialRoleType.getPersonalCode(), context, e);
         }
     }
 
-    private void saveRoleDetails(String personalCode, List<RoleRequest> judiciaryRoles) {
+    private Optional<PersonRecord> buildPeopleDetails(
+        ResultsRequest resultsRequest, PeopleLoadContext context, int pageValue) {
 
+        context.getPeopleReceived().incrementAndGet();
+        UserProfile userProfile = buildUserProfile(resultsRequest, context, pageValue);
+        if (isNull(userProfile)) {
+            return Optional.empty();
+        }
+        String contentHash = ElinksContentHash.of(resultsRequest, elinksReferenceDataSnapshot.fingerprint());
+        if (nonNull(contentHash) && contentHash.equals(context.getStoredContentHashes()
+                .get(resultsRequest.getPersonalCode()))) {
+            context.getPeopleUnchanged().incrementAndGet();
+            return Optional.empty();
+        }
+        List<Appointment> appointments = new ArrayList<>();
+        List<Authorisation> authorisations = new ArrayList<>();
+        List<JudicialRoleType> roles = new ArrayList<>();
+        boolean complete = false;
+        try {
+            appointments.addAll(buildAppointmentDetails(resultsRequest.getPersonalCode(),
+                resultsRequest.getAppointmentsRequests(), context, pageValue));
+            authorisations.addAll(buildAuthorisationDetails(resultsRequest.getPersonalCode(),
+                resultsRequest.getAuthorisationsRequests(), context, pageValue));
+            roles.addAll(buildRoleDetails(resultsRequest.getPersonalCode(), resultsRequest.getJudiciaryRoles(),
+                context));
+            complete = appointments.size() == resultsRequest.getAppointmentsRequests().size()
+                && authorisations.size() == resultsRequest.getAuthorisationsRequests().size()
+                && roles.size() == resultsRequest.getJudiciaryRoles().size();
+        } catch (Exception exception) {
+            log.warn("saveUserProfile is failed  " + resultsRequest.getPersonalCode());
+            context.markPartialSuccess();
+            elinkDataExceptionSink.auditException(context.getExceptionRecords(), JUDICIAL_REF_DATA_ELINKS,
+                now(),
+                resultsRequest.getPersonalCode(),
+                PERSONALCODE, exception.getMessage(), USER_PROFILE,resultsRequest.getPersonalCode());
+        }
+        // only a judge loaded without rejected rows is remembered, so the rejected rows are retried next run
+        userProfile.setContentHash(complete ? contentHash : null);
+        return Optional.of(PersonRecord.builder()
+            .userProfile(userProfile)
+            .appointments(appointments)
+            .authorisations(authorisations)
+            .roles(roles)
+            .build());
+    }
+
+    private List<JudicialRoleType> buildRoleDetails(String personalCode, List<RoleRequest> judiciaryRoles,
+                                                    PeopleLoadContext context) {
+
+        List<JudicialRoleType> roles = new ArrayList<>();
         for (RoleRequest roleRequest: judiciaryRoles) {
 
             try {
-                judicialRoleTypeRepository.save(JudicialRoleType.builder()
+                roles.add(JudicialRoleType.builder()
                     .title(roleRequest.getName())
                     .startDate(convertToLocalDateTime(roleRequest.getStartDate()))
                     .endDate(convertToLocalDateTime(roleRequest.getEndDate()))
@@ -391,21 +590,26 @@ public class ElinksPeopleServiceImpl implements ElinksPeopleService {
                     .jurisdictionRoleId(roleRequest.getJudiciaryRoleId())
                     .build());
             } catch (Exception e) {
-                log.warn("Role type  not loaded for " + personalCode);
-                partialSuccessFlag = true;
-                elinkDataExceptionHelper.auditException(JUDICIAL_REF_DATA_ELINKS,
-                    now(),
-                    personalCode,
-                    JUDICIALROLETYPE, e.getMessage(), JUDICIALROLETYPE,personalCode);
+                auditRoleFailure(personalCode, context, e);
             }
         }
+        return roles;
+    }
 
+    private void auditRoleFailure(String personalCode, PeopleLoadContext context, Exception e) {
+        log.warn("Role type  not loaded for " + personalCode);
+        context.markPartialSuccess();
+        elinkDataExceptionSink.auditException(context.getExceptionRecords(), JUDICIAL_REF_DATA_ELINKS,
+            now(),
+            personalCode,
+            JUDICIALROLETYPE, e.getMessage(), JUDICIALROLETYPE,personalCode);
     }
 
 
-    private boolean saveUserProfile(ResultsRequest resultsRequest,LocalDateTime schedulerStartTime, int pageValue) {
+    private UserProfile buildUserProfile(ResultsRequest resultsRequest, PeopleLoadContext context,
+                                         int pageValue) {
 
-        if (validateUserProfile(resultsRequest, schedulerStartTime,pageValue)) {
+        if (validateUserProfile(resultsRequest, context, pageValue)) {
             try {
                 UserProfile userProfile = UserProfile.builder()
                     .personalCode(resultsRequest.getPersonalCode())
@@ -423,64 +627,64 @@ public class ElinksPeopleServiceImpl implements ElinksPeopleService {
                     .title(resultsRequest.getTitle())
                     .retirementDate(convertToLocalDate(resultsRequest.getRetirementDate()))
                     .build();
-                userProfileCache.put(resultsRequest.getPersonalCode(),userProfile);
-                profileRepository.save(userProfile);
-                return true;
+                context.profileLoaded(userProfile);
+                return userProfile;
             }   catch (Exception e) {
                 log.warn("User Profile not loaded for " + resultsRequest.getPersonalCode());
-                partialSuccessFlag = true;
+                context.markPartialSuccess();
                 String personalCode = resultsRequest.getPersonalCode();
                 String errorDescription = appendFieldWithErrorDescription(
                     USERPROFILEFAILURE, resultsRequest.getPersonalCode(),pageValue);
-                elinkDataExceptionHelper.auditException(JUDICIAL_REF_DATA_ELINKS,
+                elinkDataExceptionSink.auditException(context.getExceptionRecords(), JUDICIAL_REF_DATA_ELINKS,
                     now(),
                     resultsRequest.getPersonalCode(),
                     USER_PROFILE, errorDescription, USER_PROFILE,personalCode);
-                return false;
+                return null;
             }
         }
-        return false;
+        return null;
     }
 
-    private boolean validateUserProfile(ResultsRequest resultsRequest,LocalDateTime schedulerStartTime, int pageValue) {
+    private boolean validateUserProfile(ResultsRequest resultsRequest, PeopleLoadContext context, int pageValue) {
 
+        LocalDateTime schedulerStartTime = context.getSchedulerStartTime();
         if (StringUtils.isEmpty(resultsRequest.getEmail())) {
             log.warn("Mapped Base location not found in base table " + resultsRequest.getPersonalCode());
-            partialSuccessFlag = true;
+            context.markPartialSuccess();
             String errorField = resultsRequest.getPersonalCode();
             String errorDescription = appendFieldWithErrorDescription(USERPROFILEEMAILID, errorField, pageValue);
-            elinkDataExceptionHelper.auditException(JUDICIAL_REF_DATA_ELINKS,
+            elinkDataExceptionSink.auditException(context.getExceptionRecords(), JUDICIAL_REF_DATA_ELINKS,
                 now(),
                 resultsRequest.getPersonalCode(),
                 EMAILID, errorDescription, USER_PROFILE,resultsRequest.getPersonalCode());
             return false;
-        } else if (!isNull(userProfileCache.get(resultsRequest.getPersonalCode()))) {
+        } else if (context.isProfileLoaded(resultsRequest.getPersonalCode())) {
             log.warn("User Profile not loaded for " + resultsRequest.getPersonalCode());
-            partialSuccessFlag = true;
+            context.markPartialSuccess();
             String errorDescription = appendFieldWithErrorDescription(
                 USERPROFILEISPRESENT, resultsRequest.getPersonalCode(), pageValue);
             String personalCode = resultsRequest.getPersonalCode();
-            elinkDataExceptionHelper.auditException(JUDICIAL_REF_DATA_ELINKS,
+            elinkDataExceptionSink.auditException(context.getExceptionRecords(), JUDICIAL_REF_DATA_ELINKS,
                 schedulerStartTime,
                 resultsRequest.getPersonalCode(),
                 USER_PROFILE,errorDescription, USER_PROFILE,personalCode);
             return false;
         } else if (!isNull(resultsRequest.getObjectId())
-            && !resultsRequest.getObjectId().isEmpty() && !objectIdisPresent(resultsRequest).isEmpty()) {
+            && !resultsRequest.getObjectId().isEmpty() && objectIdisPresent(resultsRequest, context)) {
             log.warn("Duplicate Object id " + resultsRequest.getPersonalCode());
-            partialSuccessFlag = true;
+            context.markPartialSuccess();
             String personalCode = resultsRequest.getPersonalCode();
-            elinkDataExceptionHelper.auditException(JUDICIAL_REF_DATA_ELINKS,
+            elinkDataExceptionSink.auditException(context.getExceptionRecords(), JUDICIAL_REF_DATA_ELINKS,
                 schedulerStartTime,
                 resultsRequest.getObjectId(),
                 USER_PROFILE,OBJECTIDISDUPLICATED, USER_PROFILE,personalCode);
             return false;
         } else if (!isNull(resultsRequest.getObjectId())
-            && !resultsRequest.getObjectId().isEmpty() && objectIdisPresentInDb(resultsRequest)) {
+            && !resultsRequest.getObjectId().isEmpty() && objectIdisPresentInDb(resultsRequest, context)) {
             log.warn("Duplicate Object id " + resultsRequest.getPersonalCode());
-            partialSuccessFlag = true;
+            context.markPartialSuccess();
             String personalCode = resultsRequest.getPersonalCode();
-            elinkDataExceptionHelper.auditException(JUDICIAL_REF_DATA_ELINKS,
+            elinkDataExceptionSink.auditException(context.getExceptionRecords(), JUDICIAL_REF_DATA_ELINKS,
                 schedulerStartTime,
                 resultsRequest.getPersonalCode(),
                 USER_PROFILE,OBJECTIDISPRESENT, USER_PROFILE,personalCode);
@@ -489,38 +693,34 @@ public class ElinksPeopleServiceImpl implements ElinksPeopleService {
         return true;
     }
 
-    private boolean objectIdisPresentInDb(ResultsRequest resultsRequest) {
-        return userProfilesSnapshot.stream()
-            .anyMatch(userProfile -> resultsRequest.getObjectId().equals(userProfile.getObjectId())
-                && !resultsRequest.getPersonalCode().equals(userProfile.getPersonalCode()));
+    private boolean objectIdisPresentInDb(ResultsRequest resultsRequest, PeopleLoadContext context) {
+        return context.getStoredObjectIds()
+            .isHeldByAnother(resultsRequest.getObjectId(), resultsRequest.getPersonalCode());
     }
 
-    private List<String> objectIdisPresent(ResultsRequest resultsRequest) {
-        return userProfileCache.entrySet().stream().filter(userProfileEntry -> resultsRequest
-            .getObjectId().equals(userProfileEntry.getValue().getObjectId()))
-            .map(Map.Entry::getKey).toList();
+    private boolean objectIdisPresent(ResultsRequest resultsRequest, PeopleLoadContext context) {
+        return context.isObjectIdLoaded(resultsRequest.getObjectId());
     }
 
 
-    private void saveAppointmentDetails(String personalCode, String objectId,
-                                        List<AppointmentsRequest> appointmentsRequests,
-                                        LocalDateTime schedulerStartTime, int pageValue)
-            throws JsonProcessingException {
+    private List<Appointment> buildAppointmentDetails(String personalCode,
+                                                      List<AppointmentsRequest> appointmentsRequests,
+                                                      PeopleLoadContext context, int pageValue) {
 
         final List<AppointmentsRequest> validappointmentsRequests =
-            validateAppointmentRequests(appointmentsRequests,personalCode,schedulerStartTime,pageValue);
-        Appointment appointment;
+            validateAppointmentRequests(appointmentsRequests, personalCode, context, pageValue);
+        List<Appointment> appointments = new ArrayList<>();
         for (AppointmentsRequest appointmentsRequest: validappointmentsRequests) {
             String baseLocationId = fetchBaseLocationId(appointmentsRequest);
             try {
-                appointment = Appointment.builder()
+                appointments.add(Appointment.builder()
                     .baseLocationId(baseLocationId)
                     .regionId(fetchRegionId(appointmentsRequest.getLocation()))
                     .isPrincipleAppointment(appointmentsRequest.getIsPrincipleAppointment())
                     .startDate(convertToLocalDate(appointmentsRequest.getStartDate()))
                     .endDate(convertToLocalDate(appointmentsRequest.getEndDate()))
                     .personalCode(personalCode)
-                    .epimmsId(locationMappingRepository.fetchEpimmsIdfromLocationId(baseLocationId))
+                    .epimmsId(elinksReferenceDataSnapshot.fetchEpimmsId(baseLocationId))
                     .appointmentMapping(appointmentsRequest.getRoleName())
                     .appointmentType(appointmentsRequest
                         .getContractType())
@@ -533,29 +733,34 @@ public class ElinksPeopleServiceImpl implements ElinksPeopleService {
                         .getContractTypeId())
                     .location(appointmentsRequest.getLocation())
                     .joBaseLocationId(appointmentsRequest.getBaseLocationId())
-                    .build();
-                appointmentsRepository.save(appointment);
+                    .build());
             } catch (Exception e) {
-                log.warn("failed to load appointment details for " + appointmentsRequest.getAppointmentId());
-                partialSuccessFlag = true;
-                String errorDescription = appendFieldWithErrorDescription(
-                    APPOINTMENTIDFAILURE, appointmentsRequest.getAppointmentId(), pageValue);
-                elinkDataExceptionHelper.auditException(JUDICIAL_REF_DATA_ELINKS,
-                    now(),
-                    appointmentsRequest.getAppointmentId(),
-                    APPOINTMENT_TABLE, errorDescription, APPOINTMENT_TABLE,personalCode);
+                auditAppointmentFailure(appointmentsRequest.getAppointmentId(), personalCode, context, pageValue);
             }
         }
+        return appointments;
+    }
+
+    private void auditAppointmentFailure(String appointmentId, String personalCode, PeopleLoadContext context,
+                                         int pageValue) {
+        log.warn("failed to load appointment details for " + appointmentId);
+        context.markPartialSuccess();
+        String errorDescription = appendFieldWithErrorDescription(
+            APPOINTMENTIDFAILURE, appointmentId, pageValue);
+        elinkDataExceptionSink.auditException(context.getExceptionRecords(), JUDICIAL_REF_DATA_ELINKS,
+            now(),
+            appointmentId,
+            APPOINTMENT_TABLE, errorDescription, APPOINTMENT_TABLE,personalCode);
     }
 
-    private void saveAuthorizationDetails(String personalCode, String objectId,
-                                          List<AuthorisationsRequest> authorisationsRequests,
-                                          LocalDateTime schedulerStartTime,int pageValue) {
+    private List<Authorisation> buildAuthorisationDetails(String personalCode,
+                                                          List<AuthorisationsRequest> authorisationsRequests,
+                                                          PeopleLoadContext context, int pageValue) {
 
+        List<Authorisation> authorisations = new ArrayList<>();
         for (AuthorisationsRequest authorisationsRequest : authorisationsRequests) {
             try {
-                authorisationsRepository
-                    .save(uk.gov.hmcts.reform.judicialapi.elinks.domain.Authorisation.builder()
+                authorisations.add(Authorisation.builder()
                         .jurisdiction(authorisationsRequest.getJurisdiction())
                         .startDate(convertToLocalDate(authorisationsRequest.getStartDate()))
                         .endDate(convertToLocalDate(authorisationsRequest.getEndDate()))
@@ -564,67 +769,77 @@ public class ElinksPeopleServiceImpl implements ElinksPeopleService {
                         .lowerLevel(authorisationsRequest.getTicket())
                         .personalCode(personalCode)
                         .ticketCode(authorisationsRequest.getTicketCode())
-                        .ticketCode(authorisationsRequest.getTicketCode())
                         .appointmentId(authorisationsRequest.getAppointmentId())
                         .authorisationId(authorisationsRequest.getAuthorisationId())
                         .jurisdictionId(authorisationsRequest.getJurisdictionId())
                         .build());
             } catch (Exception e) {
-                log.warn("failed to load Authorisation details for " + authorisationsRequest.getAuthorisationId());
-                partialSuccessFlag = true;
-                String errorDescription;
-                if (isNull(authorisationsRequest.getAppointmentId())) {
-                    errorDescription = APPOINTMENTID_IS_NULL;
-                } else {
-                    errorDescription = appendFieldWithErrorDescription(
-                            APPOINTMENTIDNOTAVAILABLE, authorisationsRequest.getAppointmentId(), pageValue);
-                }
-                elinkDataExceptionHelper.auditException(JUDICIAL_REF_DATA_ELINKS,
-                        schedulerStartTime,
-                    authorisationsRequest.getAuthorisationId(),
-                    APPOINTMENTID, errorDescription, AUTHORISATION_TABLE,personalCode);
+                auditAuthorisationFailure(Authorisation.builder()
+                    .personalCode(personalCode)
+                    .appointmentId(authorisationsRequest.getAppointmentId())
+                    .authorisationId(authorisationsRequest.getAuthorisationId())
+                    .build(), context, pageValue);
             }
         }
+        return authorisations;
+    }
+
+    private void auditAuthorisationFailure(Authorisation authorisation, PeopleLoadContext context,
+                                           int pageValue) {
+        log.warn("failed to load Authorisation details for " + authorisation.getAuthorisationId());
+        context.markPartialSuccess();
+        String errorDescription;
+        if (isNull(authorisation.getAppointmentId())) {
+            errorDescription = APPOINTMENTID_IS_NULL;
+        } else {
+            errorDescription = appendFieldWithErrorDescription(
+                    APPOINTMENTIDNOTAVAILABLE, authorisation.getAppointmentId(), pageValue);
+        }
+        elinkDataExceptionSink.auditException(context.getExceptionRecords(), JUDICIAL_REF_DATA_ELINKS,
+                context.getSchedulerStartTime(),
+            authorisation.getAuthorisationId(),
+            APPOINTMENTID, errorDescription, AUTHORISATION_TABLE,authorisation.getPersonalCode());
     }
 
     private List<AppointmentsRequest> validateAppointmentRequests(List<AppointmentsRequest> appointmentsRequests,
                                                                   String personalCode,
-                                                                  LocalDateTime schedulerStartTime, int pageValue) {
+                                                                  PeopleLoadContext context, int pageValue) {
 
         return appointmentsRequests.stream().filter(appointmentsRequest ->
-            validAppointments(appointmentsRequest,personalCode,schedulerStartTime,pageValue)).toList();
+            validAppointments(appointmentsRequest, personalCode, context, pageValue)).toList();
     }
 
-    private boolean validAppointments(AppointmentsRequest appointmentsRequest, String personalCode, LocalDateTime
-        schedulerStartTime, int pageValue) {
+    private boolean validAppointments(AppointmentsRequest appointmentsRequest, String personalCode,
+                                      PeopleLoadContext context, int pageValue) {
 
+        LocalDateTime schedulerStartTime = context.getSchedulerStartTime();
         if (StringUtils.isEmpty(appointmentsRequest.getBaseLocationId())
             || StringUtils.isEmpty(fetchBaseLocationId(appointmentsRequest))) {
             log.warn("Mapped Base location not found in base table " + appointmentsRequest.getBaseLocationId());
-            partialSuccessFlag = true;
+            context.markPartialSuccess();
             String baseLocationId = appointmentsRequest.getBaseLocationId();
             String errorDescription = appendFieldWithErrorDescription(LOCATIONIDFAILURE, baseLocationId, pageValue);
-            elinkDataExceptionHelper.auditException(JUDICIAL_REF_DATA_ELINKS,
+            elinkDataExceptionSink.auditException(context.getExceptionRecords(), JUDICIAL_REF_DATA_ELINKS,
                     schedulerStartTime,
                 appointmentsRequest.getAppointmentId(),
                 BASE_LOCATION_ID, errorDescription, APPOINTMENT_TABLE,personalCode);
             return false;
         } else if (StringUtils.isEmpty(fetchRegionId(appointmentsRequest.getLocation()))) {
             log.warn("Mapped  location not found in jrd lrd mapping table " + appointmentsRequest.getLocation());
-            partialSuccessFlag = true;
+            context.markPartialSuccess();
             String location = appointmentsRequest.getLocation();
             String errorDescription = appendFieldWithErrorDescription(CFTREGIONIDFAILURE, location, pageValue);
-            elinkDataExceptionHelper.auditException(JUDICIAL_REF_DATA_ELINKS,
+            elinkDataExceptionSink.auditException(context.getExceptionRecords(), JUDICIAL_REF_DATA_ELINKS,
                     schedulerStartTime,
                 appointmentsRequest.getAppointmentId(),
                 LOCATION, errorDescription, APPOINTMENT_TABLE,personalCode);
             return false;
         } else if (INVALID_ROLES.contains(appointmentsRequest.getRoleName())) {
             log.warn("Role Name is Invalid " + appointmentsRequest.getRoleName());
-            partialSuccessFlag = true;
+            context.markPartialSuccess();
             String errorDescription = appendFieldWithErrorDescription(INVALIDROLENAMES,
                 appointmentsRequest.getRoleName(), pageValue);
-            elinkDataExceptionHelper.auditException(JUDICIAL_REF_DATA_ELINKS,
+            elinkDataExceptionSink.auditException(context.getExceptionRecords(), JUDICIAL_REF_DATA_ELINKS,
                 now(),
                 appointmentsRequest.getAppointmentId(),
                 ROLENAME, errorDescription, APPOINTMENT_TABLE,personalCode);
@@ -637,7 +852,7 @@ public class ElinksPeopleServiceImpl implements ElinksPeopleService {
 
         String baseLocationId = null;
         if ("Tribunals".equals(appointment.getType())) {
-            baseLocationId = baseLocationRepository.fetchParentId(appointment.getBaseLocationId());
+            baseLocationId = elinksReferenceDataSnapshot.fetchParentId(appointment.getBaseLocationId());
         } else if (!StringUtils.isEmpty(appointment.getType())) {
             baseLocationId = appointment.getBaseLocationId();
         }
@@ -651,7 +866,7 @@ public class ElinksPeopleServiceImpl implements ElinksPeopleService {
         if ("Unassigned".equals(location) || StringUtils.isEmpty(location) || "Unknown".equals(location)) {
             regionId = "0";
         } else {
-            regionId = regionMappingRepository.fetchRegionIdfromRegion(location);
+            regionId = elinksReferenceDataSnapshot.fetchRegionId(location);
         }
         return regionId;
 
@@ -4,13 +4,12 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.nimbusds.oauth2.sdk.util.CollectionUtils;
 import feign.Response;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 import uk.gov.hmcts.reform.judicialapi.elinks.configuration.IdamTokenConfigProperties;
@@ -18,26 +17,43 @@ import uk.gov.hmcts.reform.judicialapi.elinks.exception.ElinksException;
 import uk.gov.hmcts.reform.judicialapi.elinks.feign.IdamFeignClient;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.IdamOpenIdTokenResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.IdamResponse;
+import uk.gov.hmcts.reform.judicialapi.elinks.response.IdamSyncSummaryResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.service.IdamElasticSearchService;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkDataExceptionSink;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkNotificationDispatcher;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksBulkUpdater;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksMetrics;
 import uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants;
 import uk.gov.hmcts.reform.judicialapi.util.JsonFeignResponseUtil;
 
-import java.sql.PreparedStatement;
-import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static java.util.Objects.nonNull;
+import static uk.gov.hmcts.reform.judicialapi.configuration.RefreshTotalsCacheConfiguration.clearRefreshTotals;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.IDAMSEARCH;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.IDAM_ERROR_MESSAGE;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.IDAM_TOKEN_ERROR_MESSAGE;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.JUDICIAL_REF_DATA_ELINKS;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.OBJECTIDNOTAVAILABLE;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.USER_PROFILE;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.BULK_UPDATE_SIDAM_IDS;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.SELECT_OBJECT_IDS_WITHOUT_SIDAM_ID;
 
 @Slf4j
 @Component
@@ -49,9 +65,27 @@ public class IdamElasticSearchServiceImpl implements IdamElasticSearchService {
     @Value("${elastic.search.query}")
     String idamSearchQuery;
 
+    @Value("${elastic.search.watermarkQuery:(roles:judiciary) AND lastModified:>%s}")
+    String idamSearchWatermarkQuery;
+
+    @Value("${elastic.search.ssoIdQuery:(roles:judiciary) AND ssoid:(%s)}")
+    String idamSsoIdQuery;
+
+    @Value("${elastic.search.ssoIdBatchSize:50}")
+    int ssoIdBatchSize;
+
     @Value("${elastic.search.recordsPerPage}")
     int recordsPerPage;
 
+    @Value("${elastic.search.pageParallelism:4}")
+    int pageParallelism;
+
+    @Value("${elastic.search.tokenLifetimeSeconds:3600}")
+    long tokenLifetimeSeconds;
+
+    @Value("${elastic.search.tokenRefreshMarginSeconds:300}")
+    long tokenRefreshMarginSeconds;
+
     @Autowired
     IdamFeignClient idamFeignClient;
 
@@ -61,8 +95,28 @@ public class IdamElasticSearchServiceImpl implements IdamElasticSearchService {
     @Autowired
     JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    ElinksBulkUpdater elinksBulkUpdater;
+
+    @Autowired
+    ElinkDataExceptionSink elinkDataExceptionSink;
+
+    @Autowired
+    ElinkNotificationDispatcher elinkNotificationDispatcher;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    private String cachedToken;
+
+    private Instant cachedTokenRefreshAt;
+
     @Override
     public String getIdamBearerToken() {
+        return requestOpenIdToken().getAccessToken();
+    }
+
+    private IdamOpenIdTokenResponse requestOpenIdToken() {
         IdamOpenIdTokenResponse idamOpenIdTokenResponse = null;
         try {
 
@@ -89,63 +143,184 @@ public class IdamElasticSearchServiceImpl implements IdamElasticSearchService {
             throw new ElinksException(HttpStatus.FORBIDDEN, IDAM_TOKEN_ERROR_MESSAGE,
                     IDAM_TOKEN_ERROR_MESSAGE);
         }
-        return idamOpenIdTokenResponse.getAccessToken();
+        return idamOpenIdTokenResponse;
     }
 
-    @SuppressWarnings("unchecked")
     @Override
-    public ResponseEntity<Object> getIdamElasticSearchSyncFeed() {
+    public ResponseEntity<IdamSyncSummaryResponse> getIdamElasticSearchSyncFeed() {
         Map<String, String> params = new HashMap<>();
         params.put("size",String.valueOf(recordsPerPage));
-        params.put("query",String.format(idamSearchQuery,idamElasticSearchQueryHours()));
+        params.put("query",idamElasticSearchQuery());
         log.debug("{}:: search elk query {}", loggingComponentName, params.get("query"));
-        Set<IdamResponse> judicialUsers = new HashSet<>();
-        int count = 0;
-        int totalCount = 0;
-        ResponseEntity<Object> responseEntity = null;
-        Response response = null;
-
-        do {
-            params.put("page", String.valueOf(count));
-            String bearerToken = "Bearer ".concat(getIdamBearerToken());
-            response = idamFeignClient.getUserFeed(bearerToken, params);
-            logIdamResponses(response);
-            try {
-                responseEntity = JsonFeignResponseUtil.toResponseEntity(response,
-                    new TypeReference<Set<IdamResponse>>() {
-                    });
-                if (response.status() == 200) {
-
-                    Set<IdamResponse> users = (Set<IdamResponse>) responseEntity.getBody();
-                    judicialUsers.addAll(users);
-
-                    List<String> headerCount = responseEntity.getHeaders().get("X-Total-Count");
-                    if (headerCount != null && !headerCount.isEmpty()
-                            && !headerCount.get(0).isEmpty()) {
-
-                        totalCount = Integer.parseInt(headerCount.get(0));
-                        log.debug("{}:: Header Records count from Idam :: " + totalCount, loggingComponentName);
-                    }
-
-                } else {
-                    log.error("{}:: Idam Search Service Failed :: ", loggingComponentName);
-                    throw new ElinksException(responseEntity.getStatusCode(), IDAM_ERROR_MESSAGE,
-                        IDAM_ERROR_MESSAGE);
-                }
-            } catch (Exception ex) {
-                //There is No header.
-                log.error("{}:: X-Total-Count header not return Idam Search Service::{}", loggingComponentName, ex);
-                throw new ElinksException(HttpStatus.valueOf(response.status()), ex.getMessage(),
-                        IDAM_ERROR_MESSAGE);
+        SyncCounts counts = new SyncCounts(LocalDateTime.now());
+
+        int status;
+        try {
+            status = fetchAllPages(params, recordsPerPage, counts);
+        } finally {
+            elinkDataExceptionSink.finishRun(counts.exceptionRecords);
+        }
+        clearRefreshTotals(cacheManager);
+        dispatchExceptionReport(counts);
+
+        return ResponseEntity
+                .status(status)
+                .body(counts.summary());
+    }
+
+    /**
+     * Looks up only the judges still without a sidam_id, by object id, in batches of ssoIdBatchSize. This
+     * finds IDAM accounts modified before the search window without downloading every judiciary user.
+     */
+    @Override
+    public ResponseEntity<IdamSyncSummaryResponse> getIdamMissingSidamIdSyncFeed() {
+        List<String> objectIds = jdbcTemplate.queryForList(SELECT_OBJECT_IDS_WITHOUT_SIDAM_ID, String.class);
+        log.info("{}:: {} judicial user profiles without a sidam id", loggingComponentName, objectIds.size());
+        SyncCounts counts = new SyncCounts(LocalDateTime.now());
+        int batchSize = Math.max(1, ssoIdBatchSize);
+        try {
+            for (int from = 0; from < objectIds.size(); from += batchSize) {
+                List<String> batch = objectIds.subList(from, Math.min(objectIds.size(), from + batchSize));
+                Map<String, String> params = new HashMap<>();
+                params.put("size", String.valueOf(batch.size()));
+                params.put("query", String.format(idamSsoIdQuery, batch.stream()
+                    .map(objectId -> '"' + objectId + '"').collect(Collectors.joining(" OR "))));
+                fetchAllPages(params, batch.size(), counts);
             }
-            count++;
-            log.debug("{}:: batch count :: ", count);
-        } while (totalCount > 0 && recordsPerPage * count < totalCount);
-        updateSidamIds(judicialUsers);
+        } finally {
+            elinkDataExceptionSink.finishRun(counts.exceptionRecords);
+        }
+        log.info("{}:: {} sidam ids found for judicial user profiles without one", loggingComponentName,
+            counts.sidamIdsUpdated.get());
+        clearRefreshTotals(cacheManager);
+        dispatchExceptionReport(counts);
 
         return ResponseEntity
-                .status(response.status())
-                .body(judicialUsers);
+                .status(HttpStatus.OK)
+                .body(counts.summary());
+    }
+
+    private int fetchAllPages(Map<String, String> params, int pageSize, SyncCounts counts) {
+        Response response = fetchPage(params, 0, counts);
+        int totalCount = totalCount(response);
+        int pageCount = totalCount > 0 ? (totalCount + pageSize - 1) / pageSize : 1;
+        if (pageCount > 1) {
+            fetchRemainingPages(params, pageCount, counts);
+        }
+        return response.status();
+    }
+
+    /**
+     * Fetches pages 1 to pageCount - 1 with at most pageParallelism requests in flight. Each page's SIDAM ids
+     * are written as soon as the page arrives; the first failure stops the pages not yet started.
+     */
+    private void fetchRemainingPages(Map<String, String> params, int pageCount, SyncCounts counts) {
+        ExecutorService fetchers = Executors.newFixedThreadPool(Math.max(1, Math.min(pageParallelism,
+            pageCount - 1)), runnable -> new Thread(runnable, "idam-search-page"));
+        try {
+            List<Future<Response>> pages = new ArrayList<>();
+            for (int page = 1; page < pageCount; page++) {
+                Map<String, String> pageParams = new HashMap<>(params);
+                int pageNumber = page;
+                pages.add(fetchers.submit(() -> fetchPage(pageParams, pageNumber, counts)));
+            }
+            for (Future<Response> page : pages) {
+                page.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ElinksException(HttpStatus.INTERNAL_SERVER_ERROR, IDAM_ERROR_MESSAGE, IDAM_ERROR_MESSAGE);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof ElinksException) {
+                throw (ElinksException) ex.getCause();
+            }
+            throw new ElinksException(HttpStatus.INTERNAL_SERVER_ERROR, ex.getCause().getMessage(),
+                IDAM_ERROR_MESSAGE);
+        } finally {
+            fetchers.shutdownNow();
+        }
+        log.debug("{}:: fetched {} pages from Idam", loggingComponentName, pageCount);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Response fetchPage(Map<String, String> params, int page, SyncCounts counts) {
+        params.put("page", String.valueOf(page));
+        long fetchStarted = System.nanoTime();
+        Response response = getUserFeed(params);
+        ElinksMetrics.recordSince(ElinksMetrics.FETCH, IDAMSEARCH, fetchStarted);
+        logIdamResponses(response);
+        try {
+            long parseStarted = System.nanoTime();
+            ResponseEntity<Object> responseEntity = JsonFeignResponseUtil.toResponseEntity(response,
+                new TypeReference<Set<IdamResponse>>() {
+                });
+            ElinksMetrics.recordSince(ElinksMetrics.PARSE, IDAMSEARCH, parseStarted);
+            if (response.status() == 200) {
+
+                Set<IdamResponse> users = (Set<IdamResponse>) responseEntity.getBody();
+                updateSidamIds(users, counts);
+
+            } else {
+                log.error("{}:: Idam Search Service Failed :: ", loggingComponentName);
+                throw new ElinksException(responseEntity.getStatusCode(), IDAM_ERROR_MESSAGE,
+                    IDAM_ERROR_MESSAGE);
+            }
+        } catch (Exception ex) {
+            log.error("{}:: Idam Search Service failed for page {}::{}", loggingComponentName, page, ex);
+            throw new ElinksException(HttpStatus.valueOf(response.status()), ex.getMessage(),
+                    IDAM_ERROR_MESSAGE);
+        }
+        log.debug("{}:: batch count :: {}", loggingComponentName, page + 1);
+        return response;
+    }
+
+    /**
+     * Calls the user search with the cached token. A 401 means the token was revoked before it expired, so the
+     * page is tried once more with a fresh token.
+     */
+    private Response getUserFeed(Map<String, String> params) {
+        Response response = idamFeignClient.getUserFeed("Bearer ".concat(cachedBearerToken()), params);
+        if (response.status() == HttpStatus.UNAUTHORIZED.value()) {
+            invalidateBearerToken();
+            response = idamFeignClient.getUserFeed("Bearer ".concat(cachedBearerToken()), params);
+        }
+        return response;
+    }
+
+    private int totalCount(Response response) {
+        // Feign keeps headers in a case-insensitive map, unlike the ResponseEntity built from them
+        Collection<String> headerCount = response.headers().get("X-Total-Count");
+        if (headerCount == null || headerCount.isEmpty()) {
+            return 0;
+        }
+        String value = headerCount.iterator().next();
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        int totalCount = Integer.parseInt(value.trim());
+        log.debug("{}:: Header Records count from Idam :: {}", loggingComponentName, totalCount);
+        return totalCount;
+    }
+
+    /**
+     * Returns the password-grant token, fetching a new one only when none is held or the one held expires
+     * within tokenRefreshMarginSeconds. IDAM tokens last hours, so a sync normally costs no token call at all.
+     */
+    private synchronized String cachedBearerToken() {
+        if (cachedToken == null || !Instant.now().isBefore(cachedTokenRefreshAt)) {
+            IdamOpenIdTokenResponse tokenResponse = requestOpenIdToken();
+            long lifetime = tokenResponse.getExpiresIn() == null ? tokenLifetimeSeconds
+                : tokenResponse.getExpiresIn();
+            cachedToken = tokenResponse.getAccessToken();
+            // a token shorter-lived than the margin is still kept for half its life rather than refetched per page
+            cachedTokenRefreshAt = Instant.now().plusSeconds(Math.max(lifetime / 2,
+                lifetime - tokenRefreshMarginSeconds));
+        }
+        return cachedToken;
+    }
+
+    private synchronized void invalidateBearerToken() {
+        cachedToken = null;
     }
 
     private void logIdamResponses(Response response) {
@@ -158,36 +333,75 @@ public class IdamElasticSearchServiceImpl implements IdamElasticSearchService {
         }
     }
 
-    private Long idamElasticSearchQueryHours() {
+    /**
+     * Searches from the start of the last successful job, as epoch millis, so users modified while that job
+     * ran are picked up again but nothing older is. Without a successful job the last 72 hours are searched.
+     */
+    private String idamElasticSearchQuery() {
 
         RowMapper<Timestamp> rowMapper = (rs, i) -> rs.getTimestamp(1);
-        List<Timestamp> resultSet = jdbcTemplate.query(SqlConstants.SELECT_IDM_JOB_STATUS_SQL,rowMapper);
+        List<Timestamp> resultSet = jdbcTemplate.query(SqlConstants.SELECT_IDAM_SEARCH_WATERMARK_SQL,rowMapper);
 
-        Timestamp maxSchedulerEndTime = CollectionUtils.isNotEmpty(resultSet) ? resultSet.get(0) : null;
-        log.debug("idamElasticSearchQuery  date from audit table {}",maxSchedulerEndTime);
-        return maxSchedulerEndTime == null ? 72 : Math.addExact(ChronoUnit.HOURS.between(
-                maxSchedulerEndTime.toLocalDateTime(),LocalDateTime.now()), 1);
+        Timestamp watermark = CollectionUtils.isNotEmpty(resultSet) ? resultSet.get(0) : null;
+        log.debug("idamElasticSearchQuery  watermark from job table {}",watermark);
+        return watermark == null ? String.format(idamSearchQuery, 72)
+                : String.format(idamSearchWatermarkQuery, watermark.getTime());
     }
 
-    public void updateSidamIds(Set<IdamResponse> sidamUsers) {
-        List<Pair<String, String>> sidamObjectId = new ArrayList<>();
-
-        String updateSidamIds = "UPDATE dbjudicialdata.judicial_user_profile SET sidam_id = ? "
-                + "WHERE object_id = ? AND (sidam_id IS NULL OR sidam_id <> ' ')";
+    private void updateSidamIds(Set<IdamResponse> sidamUsers, SyncCounts counts) {
+        Map<String, Object[]> sidamIdsByObjectId = new LinkedHashMap<>();
         sidamUsers.stream().filter(user -> nonNull(user.getSsoId())).forEach(s ->
-                sidamObjectId.add(Pair.of(s.getId(), s.getSsoId())));
-        log.debug("Insert Query batch Response from IDAM " + sidamObjectId.size());
-        jdbcTemplate.batchUpdate(
-                updateSidamIds,
-                sidamObjectId,
-                10,
-                new ParameterizedPreparedStatementSetter<Pair<String, String>>() {
-                    public void setValues(PreparedStatement ps, Pair<String, String> argument) throws SQLException {
-                        ps.setString(1, argument.getLeft());
-                        ps.setString(2, argument.getRight());
-                    }
-                });
+                sidamIdsByObjectId.put(s.getSsoId(), new Object[] {s.getId()}));
+        Set<String> unmatched = elinksBulkUpdater.update(IDAMSEARCH, BULK_UPDATE_SIDAM_IDS, sidamIdsByObjectId,
+            "text");
+        counts.add(sidamUsers.size(), sidamIdsByObjectId.size() - unmatched.size(), unmatched.size());
+        // IDAM accounts of judges without a profile, listed in the exception report of the sync
+        unmatched.forEach(objectId -> elinkDataExceptionSink.auditException(counts.exceptionRecords,
+            JUDICIAL_REF_DATA_ELINKS, counts.exceptionRecords.getSchedulerStartTime(), objectId, USER_PROFILE,
+            OBJECTIDNOTAVAILABLE, USER_PROFILE, objectId));
+    }
+
+    private void dispatchExceptionReport(SyncCounts counts) {
+        if (counts.unmatchedObjectIds.get() > 0) {
+            elinkNotificationDispatcher.dispatchExceptionReport(counts.exceptionRecords.getSchedulerStartTime());
+        }
+    }
+
+    /**
+     * What a sync did, added to by the page fetchers as each page is written. Only the figures are kept, not the
+     * users, so memory does not grow with the IDAM result. The object ids matching no profile are recorded as
+     * exception records of the sync.
+     */
+    private static final class SyncCounts {
 
+        private final ElinkDataExceptionSink.Run exceptionRecords;
 
+        private final AtomicInteger pages = new AtomicInteger();
+
+        private final AtomicInteger usersSeen = new AtomicInteger();
+
+        private final AtomicInteger sidamIdsUpdated = new AtomicInteger();
+
+        private final AtomicInteger unmatchedObjectIds = new AtomicInteger();
+
+        SyncCounts(LocalDateTime startTime) {
+            exceptionRecords = new ElinkDataExceptionSink.Run(startTime);
+        }
+
+        void add(int users, int updated, int unmatched) {
+            pages.incrementAndGet();
+            usersSeen.addAndGet(users);
+            sidamIdsUpdated.addAndGet(updated);
+            unmatchedObjectIds.addAndGet(unmatched);
+        }
+
+        IdamSyncSummaryResponse summary() {
+            return IdamSyncSummaryResponse.builder()
+                .pages(pages.get())
+                .usersSeen(usersSeen.get())
+                .sidamIdsUpdated(sidamIdsUpdated.get())
+                .unmatchedObjectIds(unmatchedObjectIds.get())
+                .build();
+        }
     }
 }
\ No newline at end of file
@@ -8,28 +8,33 @@ import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 import uk.gov.hmcts.reform.judicialapi.elinks.configuration.ElinkEmailConfiguration;
 import uk.gov.hmcts.reform.judicialapi.elinks.exception.ElinksException;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.SchedulerJobStatusResponse;
-import uk.gov.hmcts.reform.judicialapi.elinks.service.IEmailService;
 import uk.gov.hmcts.reform.judicialapi.elinks.service.PublishSidamIdService;
 import uk.gov.hmcts.reform.judicialapi.elinks.service.dto.Email;
 import uk.gov.hmcts.reform.judicialapi.elinks.servicebus.ElinkTopicPublisher;
-import uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataConstants;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkNotificationDispatcher;
 
-import java.util.List;
+import java.sql.PreparedStatement;
 import java.util.Optional;
+import java.util.function.Consumer;
 
-import static org.apache.commons.lang3.ObjectUtils.isNotEmpty;
 import static org.apache.commons.lang3.StringUtils.EMPTY;
-import static org.springframework.util.CollectionUtils.isEmpty;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.JobStatus.FAILED;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.JobStatus.IN_PROGRESS;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.JobStatus.SUCCESS;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataConstants.CONTENT_TYPE_PLAIN;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.DATABASE_FETCH_ERROR;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.JOB_DETAILS_UPDATE_ERROR;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlContants.CAPTURE_PROFILE_CHANGES;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlContants.COUNT_CHANGED_SIDAM_ID;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlContants.COUNT_DISTINCT_SIDAM_ID;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlContants.DELETE_PUBLISHED_PROFILE_CHANGES;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlContants.GET_CHANGED_SIDAM_ID;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlContants.GET_DISTINCT_SIDAM_ID;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlContants.SELECT_JOB_STATUS_SQL;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlContants.UPDATE_JOB_SQL;
@@ -51,17 +56,24 @@ public class PublishSidamIdServiceImpl implements PublishSidamIdService {
     ElinkTopicPublisher elinkTopicPublisher;
 
     @Autowired
-    IEmailService emailService;
+    ElinkNotificationDispatcher elinkNotificationDispatcher;
 
     @Autowired
     ElinkEmailConfiguration emailConfiguration;
 
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
     @Value("${launchdarkly.sdk.environment}")
     String environment;
 
+    @Value("${jrd.publisher.sidam-id-fetch-size:1000}")
+    int sidamIdFetchSize;
+
     private int sidamIdcount;
 
-    public ResponseEntity<SchedulerJobStatusResponse> publishSidamIdToAsb() {
+    @Override
+    public ResponseEntity<SchedulerJobStatusResponse> publishSidamIdToAsb(boolean fullRepublish) {
 
         //Get the job details from dataload_schedular_job table
         Pair<String, String> jobDetails;
@@ -71,19 +83,19 @@ public class PublishSidamIdServiceImpl implements PublishSidamIdService {
             throw new ElinksException(HttpStatus.BAD_REQUEST, DATABASE_FETCH_ERROR, ex.getMessage());
         }
 
-        // Get all sidam id's from the judicial_user_profile table
-        List<String> sidamIds = jdbcTemplate.query(GET_DISTINCT_SIDAM_ID, RefDataConstants.ROW_MAPPER);
-
-        sidamIdcount = sidamIds.size();
+        // Stream the changed, or with fullRepublish all, sidam id's straight into the topic
+        sidamIdcount = IN_PROGRESS.getStatus().equals(jobDetails.getRight())
+            ? publishMessage(jobDetails.getLeft(), fullRepublish)
+            : countSidamIds(fullRepublish);
 
-        log.info("{}::Total SIDAM Id count from JUD_Database: {}", logComponentName, sidamIdcount);
-        if (isEmpty(sidamIds)) {
+        log.info("{}::Total {} SIDAM Id count from JUD_Database: {}", logComponentName,
+            fullRepublish ? "full" : "changed", sidamIdcount);
+        if (sidamIdcount == 0) {
             log.warn("{}:: No Sidam id exists in JRD for publishing in ASB for JOB id: {} ",
                 logComponentName, jobDetails.getLeft());
             updateAsbStatus(jobDetails.getLeft(), SUCCESS.getStatus());
         }
 
-        publishMessage(jobDetails.getRight(), sidamIds, jobDetails.getLeft());
         jobDetails = getJobDetails(SELECT_JOB_STATUS_SQL);
         log.info("{}:: completed Publish SidamId to ASB with JOB Id: {}  ",
             logComponentName, jobDetails.getLeft());
@@ -114,15 +126,30 @@ public class PublishSidamIdServiceImpl implements PublishSidamIdService {
     }
 
 
-    public void publishMessage(String status, List<String> sidamIds, String jobId) {
+    /**
+     * Publishes or retries the job's messages and returns the number of sidam id's sent. The ids are read
+     * through a cursor while messages are sent, so memory does not grow with the number of judges.
+     * The queued changes are captured first, and only those are cleared afterwards, in the same database
+     * transaction. It only commits after the topic transaction has, so a failed publish leaves them queued for the
+     * next run, and a change recorded while the ids are being sent is left for the next run either way.
+     */
+    public int publishMessage(String jobId, boolean fullRepublish) {
         try {
-            if ((IN_PROGRESS.getStatus().equals(status)) && isNotEmpty(sidamIds)) {
-                //Publish or retry Message in ASB
-                log.info("{}:: Publishing/Retrying JRD messages in ASB for Job Id {}", logComponentName, jobId);
-                elinkTopicPublisher.sendMessage(sidamIds, jobId);
+            //Publish or retry Message in ASB
+            log.info("{}:: Publishing/Retrying JRD messages in ASB for Job Id {}, full republish: {}",
+                logComponentName, jobId, fullRepublish);
+            String sidamIdQuery = fullRepublish ? GET_DISTINCT_SIDAM_ID : GET_CHANGED_SIDAM_ID;
+            int published = Optional.ofNullable(transactionTemplate.execute(status -> {
+                jdbcTemplate.execute(CAPTURE_PROFILE_CHANGES);
+                int sent = elinkTopicPublisher.publishIds(action -> streamSidamIds(sidamIdQuery, action), jobId);
+                jdbcTemplate.update(DELETE_PUBLISHED_PROFILE_CHANGES);
+                return sent;
+            })).orElse(0);
+            if (published > 0) {
                 updateAsbStatus(jobId, SUCCESS.getStatus());
-                log.info("{}:: Updated Total distinct Sidam Ids to ASB: {}", logComponentName, sidamIdcount);
+                log.info("{}:: Updated Total distinct Sidam Ids to ASB: {}", logComponentName, published);
             }
+            return published;
         } catch (Exception ex) {
             log.error("ASB Failure Root cause - {}", ex.getMessage());
             ElinkEmailConfiguration.MailTypeConfig mailTypeConfig = emailConfiguration.getMailTypes().get("asb");
@@ -137,12 +164,26 @@ public class PublishSidamIdServiceImpl implements PublishSidamIdService {
                     .messageBody(String.format(mailTypeConfig.getBody(), jobId))
                     .subject(String.format(mailTypeConfig.getSubject(), environment))
                     .build();
-                emailService.sendEmail(email);
+                elinkNotificationDispatcher.dispatch(email);
             }
             throw ex;
         }
     }
 
+    private int countSidamIds(boolean fullRepublish) {
+        String countQuery = fullRepublish ? COUNT_DISTINCT_SIDAM_ID : COUNT_CHANGED_SIDAM_ID;
+        return Optional.ofNullable(jdbcTemplate.queryForObject(countQuery, Integer.class)).orElse(0);
+    }
+
+    private void streamSidamIds(String sidamIdQuery, Consumer<String> action) {
+        // Postgres only honours the fetch size inside a transaction, which publishMessage holds open
+        jdbcTemplate.query(con -> {
+            PreparedStatement statement = con.prepareStatement(sidamIdQuery);
+            statement.setFetchSize(sidamIdFetchSize);
+            return statement;
+        }, (RowCallbackHandler) rs -> action.accept(rs.getString(1)));
+    }
+
     private void updateAsbStatus(String jobId,String jobStatus) {
         //Update elinks DB with Publishing Status
         try {
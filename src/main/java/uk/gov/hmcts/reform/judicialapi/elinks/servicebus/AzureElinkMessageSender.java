@@ -0,0 +1,58 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.servicebus;
+
+import com.azure.messaging.servicebus.ServiceBusMessage;
+import com.azure.messaging.servicebus.ServiceBusSenderAsyncClient;
+import com.azure.messaging.servicebus.ServiceBusTransactionContext;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends to the JRD topic; ElinkMessagingConfig creates further instances for other topics.
+ */
+@Primary
+@Component
+public class AzureElinkMessageSender implements ElinkMessageSender {
+
+    private final ServiceBusSenderAsyncClient elinkServiceBusSenderAsyncClient;
+
+    private volatile Long maxMessageSizeInBytes;
+
+    public AzureElinkMessageSender(ServiceBusSenderAsyncClient elinkServiceBusSenderAsyncClient) {
+        this.elinkServiceBusSenderAsyncClient = elinkServiceBusSenderAsyncClient;
+    }
+
+    /**
+     * The largest message the topic link accepts, read once from an empty batch.
+     */
+    @Override
+    public long getMaxMessageSizeInBytes() {
+        if (maxMessageSizeInBytes == null) {
+            maxMessageSizeInBytes = (long) elinkServiceBusSenderAsyncClient.createMessageBatch().block()
+                .getMaxSizeInBytes();
+        }
+        return maxMessageSizeInBytes;
+    }
+
+    @Override
+    public ServiceBusTransactionContext createTransaction() {
+        return elinkServiceBusSenderAsyncClient.createTransaction().block();
+    }
+
+    @Override
+    public CompletableFuture<Void> sendMessage(ServiceBusMessage message,
+                                               ServiceBusTransactionContext transactionContext) {
+        return elinkServiceBusSenderAsyncClient.sendMessage(message, transactionContext).toFuture();
+    }
+
+    @Override
+    public void commitTransaction(ServiceBusTransactionContext transactionContext) {
+        elinkServiceBusSenderAsyncClient.commitTransaction(transactionContext).block();
+    }
+
+    @Override
+    public void rollbackTransaction(ServiceBusTransactionContext transactionContext) {
+        elinkServiceBusSenderAsyncClient.rollbackTransaction(transactionContext).block();
+    }
+}
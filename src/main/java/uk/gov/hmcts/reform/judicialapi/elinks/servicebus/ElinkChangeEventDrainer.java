@@ -0,0 +1,171 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.servicebus;
+
+import com.azure.messaging.servicebus.ServiceBusMessage;
+import com.azure.messaging.servicebus.ServiceBusTransactionContext;
+import com.microsoft.applicationinsights.core.dependencies.google.gson.Gson;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.hmcts.reform.judicialapi.elinks.configuration.JudicialChangeEvent;
+import uk.gov.hmcts.reform.judicialapi.elinks.configuration.JudicialChangeEvents;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksMetrics;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlContants.CLAIM_CHANGE_EVENTS;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlContants.DELETE_CHANGE_EVENTS;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlContants.INCREMENT_CHANGE_EVENT_ATTEMPTS;
+
+/**
+ * Ships the change events of the outbox to the change event topic. Each batch is claimed, sent in one Service Bus
+ * transaction and deleted in one database transaction, so an event only leaves the outbox once the topic has it.
+ * A failed batch stays in the outbox with its attempts counted and is retried by the next drain; events that fail
+ * max-attempts times are left there for investigation.
+ */
+@Slf4j
+@Component
+public class ElinkChangeEventDrainer {
+
+    private static final Gson GSON = new Gson();
+
+    private static final String EMPTY_MESSAGE_JSON = GSON.toJson(changeEvents(List.of()));
+
+    @Value("${logging-component-name}")
+    String loggingComponentName;
+    @Value("${jrd.outbox.drain.enabled:false}")
+    boolean enabled;
+    @Value("${jrd.outbox.drain.batch-size:500}")
+    int batchSize;
+    @Value("${jrd.outbox.drain.max-attempts:10}")
+    int maxAttempts;
+    @Value("${jrd.publisher.max-message-size-bytes:0}")
+    long maxMessageSizeBytes;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("changeEventMessageSender")
+    private ElinkMessageSender changeEventMessageSender;
+
+    @Scheduled(fixedDelayString = "${jrd.outbox.drain.fixed-delay-millis:30000}")
+    public void drainOutbox() {
+        if (enabled) {
+            drain();
+        }
+    }
+
+    /**
+     * Ships batches until the outbox is empty or a batch fails and returns the number of events shipped.
+     */
+    public int drain() {
+        int limit = Math.max(1, batchSize);
+        int shipped = 0;
+        int batch;
+        do {
+            batch = drainBatch(limit);
+            shipped += batch;
+        } while (batch == limit);
+        if (shipped > 0) {
+            log.info("{}:: Shipped {} change events to the change event topic", loggingComponentName, shipped);
+        }
+        return shipped;
+    }
+
+    private int drainBatch(int limit) {
+        List<Long> claimed = new ArrayList<>();
+        try {
+            return Optional.ofNullable(transactionTemplate.execute(status -> {
+                List<JudicialChangeEvent> events = jdbcTemplate.query(CLAIM_CHANGE_EVENTS, this::toChangeEvent,
+                    maxAttempts, limit);
+                events.forEach(event -> claimed.add(event.getDataVersion()));
+                if (!events.isEmpty()) {
+                    long publishStarted = System.nanoTime();
+                    ship(events);
+                    ElinksMetrics.recordSince(ElinksMetrics.PUBLISH, ElinksMetrics.ASB_CHANGE_EVENTS, publishStarted);
+                    updateByIds(DELETE_CHANGE_EVENTS, claimed);
+                    ElinksMetrics.countRows(ElinksMetrics.ASB_CHANGE_EVENTS, "published", events.size());
+                }
+                return events.size();
+            })).orElse(0);
+        } catch (Exception exception) {
+            log.error("{}:: Shipping {} change events failed, they stay in the outbox: {}", loggingComponentName,
+                claimed.size(), exception.getMessage());
+            if (!claimed.isEmpty()) {
+                updateByIds(INCREMENT_CHANGE_EVENT_ATTEMPTS, claimed);
+            }
+            return 0;
+        }
+    }
+
+    private void ship(List<JudicialChangeEvent> events) {
+        ServiceBusTransactionContext transactionContext = changeEventMessageSender.createTransaction();
+        try {
+            ElinkMessagePacker<JudicialChangeEvent> packer = new ElinkMessagePacker<>(
+                ElinkMessagePacker.sizeLimit(maxMessageSizeBytes, changeEventMessageSender), EMPTY_MESSAGE_JSON,
+                GSON::toJson);
+            List<CompletableFuture<Void>> sends = new ArrayList<>();
+            for (JudicialChangeEvent event : events) {
+                if (packer.tryAdd(event)) {
+                    continue;
+                }
+                if (!packer.isEmpty()) {
+                    sends.add(send(packer.drain(), transactionContext));
+                }
+                if (!packer.tryAdd(event)) {
+                    log.error("{}:: Change event {} is too large for an empty message. Skipping. Max size: {}",
+                        loggingComponentName, event.getDataVersion(), packer.getLimit());
+                }
+            }
+            if (!packer.isEmpty()) {
+                sends.add(send(packer.drain(), transactionContext));
+            }
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+        } catch (RuntimeException exception) {
+            changeEventMessageSender.rollbackTransaction(transactionContext);
+            throw exception;
+        }
+        changeEventMessageSender.commitTransaction(transactionContext);
+    }
+
+    private CompletableFuture<Void> send(List<JudicialChangeEvent> events,
+                                         ServiceBusTransactionContext transactionContext) {
+        ServiceBusMessage message = new ServiceBusMessage(GSON.toJson(changeEvents(events)));
+        // with duplicate detection on the topic, a batch sent again after a lost commit outcome is dropped
+        message.setMessageId(events.get(0).getDataVersion() + "-" + events.get(events.size() - 1).getDataVersion());
+        return changeEventMessageSender.sendMessage(message, transactionContext);
+    }
+
+    private JudicialChangeEvent toChangeEvent(ResultSet rs, int rowNum) throws SQLException {
+        return JudicialChangeEvent.builder()
+            .dataVersion(rs.getLong("id"))
+            .personalCode(rs.getString("personal_code"))
+            .sidamId(rs.getString("sidam_id"))
+            .changeType(rs.getString("change_type"))
+            .changedTime(rs.getTimestamp("created_time").toLocalDateTime().toString())
+            .build();
+    }
+
+    private void updateByIds(String sql, List<Long> ids) {
+        jdbcTemplate.update(sql, ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids.toArray())));
+    }
+
+    private static JudicialChangeEvents changeEvents(List<JudicialChangeEvent> events) {
+        JudicialChangeEvents changeEvents = new JudicialChangeEvents();
+        changeEvents.setEvents(events);
+        return changeEvents;
+    }
+}
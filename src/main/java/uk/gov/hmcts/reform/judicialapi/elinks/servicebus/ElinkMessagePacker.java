@@ -0,0 +1,76 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.servicebus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Collects the items for one message, tracking the size of the JSON body they will produce, so that each
+ * message carries as many items as the topic accepts.
+ */
+final class ElinkMessagePacker<T> {
+
+    // Room left in every message for the AMQP header and properties
+    private static final long MESSAGE_OVERHEAD_BYTES = 1024;
+
+    private final long limit;
+
+    private final int emptyMessageBytes;
+
+    private final Function<T, String> toJson;
+
+    private List<T> items = new ArrayList<>();
+
+    private long size;
+
+    /**
+     * A packer for messages whose body is a JSON array of items inside an envelope.
+     *
+     * @param limit            the largest body a message may have
+     * @param emptyMessageJson the body of a message without items
+     * @param toJson           the JSON of one item in the array
+     */
+    ElinkMessagePacker(long limit, String emptyMessageJson, Function<T, String> toJson) {
+        this.limit = limit;
+        this.emptyMessageBytes = utf8Length(emptyMessageJson);
+        this.toJson = toJson;
+        this.size = emptyMessageBytes;
+    }
+
+    /**
+     * The configured body size limit, or when none is set the largest message the topic link accepts.
+     */
+    static long sizeLimit(long configuredBytes, ElinkMessageSender sender) {
+        return configuredBytes > 0 ? configuredBytes : sender.getMaxMessageSizeInBytes() - MESSAGE_OVERHEAD_BYTES;
+    }
+
+    boolean tryAdd(T item) {
+        long itemSize = utf8Length(toJson.apply(item)) + (items.isEmpty() ? 0 : 1);
+        if (size + itemSize > limit) {
+            return false;
+        }
+        items.add(item);
+        size += itemSize;
+        return true;
+    }
+
+    boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    List<T> drain() {
+        List<T> drained = items;
+        items = new ArrayList<>();
+        size = emptyMessageBytes;
+        return drained;
+    }
+
+    long getLimit() {
+        return limit;
+    }
+
+    private static int utf8Length(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
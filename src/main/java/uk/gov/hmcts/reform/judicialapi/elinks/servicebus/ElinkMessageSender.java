@@ -0,0 +1,23 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.servicebus;
+
+import com.azure.messaging.servicebus.ServiceBusMessage;
+import com.azure.messaging.servicebus.ServiceBusTransactionContext;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * What {@link ElinkTopicPublisher} needs from the topic. In service this is the Azure async sender client; a
+ * local stand-in can take its place to measure the publisher without a Service Bus namespace.
+ */
+public interface ElinkMessageSender {
+
+    long getMaxMessageSizeInBytes();
+
+    ServiceBusTransactionContext createTransaction();
+
+    CompletableFuture<Void> sendMessage(ServiceBusMessage message, ServiceBusTransactionContext transactionContext);
+
+    void commitTransaction(ServiceBusTransactionContext transactionContext);
+
+    void rollbackTransaction(ServiceBusTransactionContext transactionContext);
+}
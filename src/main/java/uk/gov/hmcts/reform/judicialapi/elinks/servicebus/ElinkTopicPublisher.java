@@ -1,8 +1,6 @@
 package uk.gov.hmcts.reform.judicialapi.elinks.servicebus;
 
 import com.azure.messaging.servicebus.ServiceBusMessage;
-import com.azure.messaging.servicebus.ServiceBusMessageBatch;
-import com.azure.messaging.servicebus.ServiceBusSenderClient;
 import com.azure.messaging.servicebus.ServiceBusTransactionContext;
 import com.microsoft.applicationinsights.core.dependencies.google.gson.Gson;
 import lombok.extern.slf4j.Slf4j;
@@ -12,94 +10,200 @@ import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import uk.gov.hmcts.reform.judicialapi.elinks.configuration.PublishingData;
 import uk.gov.hmcts.reform.judicialapi.elinks.exception.ElinksException;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksMetrics;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import javax.validation.constraints.NotNull;
 
-import static com.google.common.collect.Lists.partition;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.UNAUTHORIZED_ERROR;
 
+/**
+ * Publishes SIDAM ids to the JRD topic. Ids are packed into each message until the next one would take it past
+ * the maximum message size, and up to max-messages-in-flight messages are sent at once. Every message of a run
+ * is sent in one Service Bus transaction, so consumers see all of them or none.
+ */
 @Slf4j
 @Component
 public class ElinkTopicPublisher {
 
+    private static final Gson GSON = new Gson();
+
+    private static final String EMPTY_MESSAGE_JSON = GSON.toJson(publishingData(List.of()));
+
     @Value("${logging-component-name}")
     String loggingComponentName;
-    @Value("${jrd.publisher.jrd-message-batch-size}")
-    int jrdMessageBatchSize;
+    @Value("${jrd.publisher.max-message-size-bytes:0}")
+    long maxMessageSizeBytes;
+    @Value("${jrd.publisher.max-messages-in-flight:4}")
+    int maxMessagesInFlight;
     @Value("${jrd.publisher.azure.service.bus.topic}")
     String topic;
 
 
     @Autowired
-    private ServiceBusSenderClient elinkserviceBusSenderClient;
+    private ElinkMessageSender elinkMessageSender;
+
+    /**
+     * Source of the ids to publish, handing each one to the action so that callers can stream them from the
+     * database rather than hold them all.
+     */
+    @FunctionalInterface
+    public interface IdSource {
+        void forEachId(Consumer<String> action);
+    }
 
     public void sendMessage(@NotNull List<String> judicalIds, String jobId) {
+        publishIds(judicalIds::forEach, jobId);
+    }
+
+    /**
+     * Publishes every id the source yields and returns how many were published. An id too large for a message of
+     * its own is logged, counted as skipped and left out.
+     */
+    public int publishIds(IdSource source, String jobId) {
         ServiceBusTransactionContext elinktransactionContext = null;
+        MessagesInFlight inFlight = new MessagesInFlight(Math.max(1, maxMessagesInFlight));
+        int[] published = new int[1];
+        int[] skipped = new int[1];
+        long publishStarted = System.nanoTime();
         try {
-            elinktransactionContext = elinkserviceBusSenderClient.createTransaction();
-            publishMessageToTopic(judicalIds, elinkserviceBusSenderClient, elinktransactionContext, jobId);
+            elinktransactionContext = elinkMessageSender.createTransaction();
+            ServiceBusTransactionContext transactionContext = elinktransactionContext;
+            ElinkMessagePacker<String> packer = new ElinkMessagePacker<>(
+                ElinkMessagePacker.sizeLimit(maxMessageSizeBytes, elinkMessageSender), EMPTY_MESSAGE_JSON,
+                GSON::toJson);
+            source.forEachId(id -> {
+                if (packer.tryAdd(id)) {
+                    published[0]++;
+                    return;
+                }
+                // The message is full, so send it and start the next one with this id.
+                if (!packer.isEmpty()) {
+                    send(packer.drain(), transactionContext, inFlight, jobId);
+                }
+                if (packer.tryAdd(id)) {
+                    published[0]++;
+                } else {
+                    skipped[0]++;
+                    log.error("{}:: Id is too large for an empty message. Skipping. Max size: {}. Job id::{}",
+                        loggingComponentName, packer.getLimit(), jobId);
+                }
+            });
+            if (!packer.isEmpty()) {
+                send(packer.drain(), transactionContext, inFlight, jobId);
+            }
+            inFlight.awaitAll();
         } catch (Exception exception) {
             log.error("{}:: Publishing message to service bus topic failed with exception: {}:: Job Id {}",
                 loggingComponentName, exception.getMessage(), jobId);
-            if (Objects.nonNull(elinktransactionContext) && Objects.nonNull(elinkserviceBusSenderClient)) {
-                elinkserviceBusSenderClient.rollbackTransaction(elinktransactionContext);
+            inFlight.awaitQuietly();
+            if (Objects.nonNull(elinktransactionContext)) {
+                elinkMessageSender.rollbackTransaction(elinktransactionContext);
             }
             throw new ElinksException(HttpStatus.UNAUTHORIZED, UNAUTHORIZED_ERROR, UNAUTHORIZED_ERROR);
         }
-        elinkserviceBusSenderClient.commitTransaction(elinktransactionContext);
+        elinkMessageSender.commitTransaction(elinktransactionContext);
+        ElinksMetrics.recordSince(ElinksMetrics.PUBLISH, ElinksMetrics.ASB, publishStarted);
+        ElinksMetrics.countRows(ElinksMetrics.ASB, "published", published[0]);
+        ElinksMetrics.countRows(ElinksMetrics.ASB, "skipped", skipped[0]);
+        log.info("{}:: Published {} ids in {} messages to the topic: {} ::Job id::{}", loggingComponentName,
+            published[0], inFlight.sent, topic, jobId);
+        return published[0];
     }
 
-    private void publishMessageToTopic(List<String> judicalIds,
-                                       ServiceBusSenderClient serviceBusSenderClient,
-                                       ServiceBusTransactionContext transactionContext,
-                                       String jobId) {
+    private void send(List<String> ids, ServiceBusTransactionContext transactionContext,
+                      MessagesInFlight inFlight, String jobId) {
+        ServiceBusMessage message = new ServiceBusMessage(GSON.toJson(publishingData(ids)));
+        inFlight.acquire();
+        elinkMessageSender.sendMessage(message, transactionContext).whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                log.error("{}:: Sending a message of {} ids failed ::Job id::{}", loggingComponentName,
+                    ids.size(), jobId);
+            }
+            inFlight.release(failure);
+        });
+    }
 
-        ServiceBusMessageBatch elinkmessageBatch;
-        try {
-            elinkmessageBatch = serviceBusSenderClient.createMessageBatch();
-        } catch (Exception ex) {
-            throw new ElinksException(HttpStatus.UNAUTHORIZED, UNAUTHORIZED_ERROR, ex.getMessage());
-        }
-        List<ServiceBusMessage> serviceBusMessages = new ArrayList<>();
+    private static PublishingData publishingData(List<String> ids) {
+        PublishingData judicialDataChunk = new PublishingData();
+        judicialDataChunk.setUserIds(ids);
+        return judicialDataChunk;
+    }
 
-        partition(judicalIds, jrdMessageBatchSize)
-            .forEach(data -> {
-                PublishingData judicialDataChunk = new PublishingData();
-                judicialDataChunk.setUserIds(data);
-                serviceBusMessages.add(new ServiceBusMessage(new Gson().toJson(judicialDataChunk)));
-            });
+    /**
+     * Bounds the messages awaiting the topic and remembers the first send that failed.
+     */
+    private static final class MessagesInFlight {
+
+        private final int permits;
 
-        for (ServiceBusMessage message : serviceBusMessages) {
+        private final Semaphore semaphore;
 
-            if (elinkmessageBatch.tryAddMessage(message)) {
-                continue;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private int sent;
+
+        MessagesInFlight(int permits) {
+            this.permits = permits;
+            this.semaphore = new Semaphore(permits);
+        }
+
+        void acquire() {
+            throwIfFailed();
+            try {
+                semaphore.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting to send a message", e);
+            }
+            if (failure.get() != null) {
+                semaphore.release();
+                throwIfFailed();
+            }
+            sent++;
+        }
+
+        void release(Throwable sendFailure) {
+            if (sendFailure != null) {
+                failure.compareAndSet(null, sendFailure);
             }
+            semaphore.release();
+        }
 
-            // The batch is full, so we create a new batch and send the batch.
-            sendMessageToAsb(serviceBusSenderClient, transactionContext, elinkmessageBatch, jobId);
+        void awaitAll() {
+            acquireAll();
+            throwIfFailed();
+        }
 
-            // create a new batch
-            elinkmessageBatch = serviceBusSenderClient.createMessageBatch();
-            // Add that message that we couldn't before.
-            if (!elinkmessageBatch.tryAddMessage(message)) {
-                log.error("{}:: Message is too large for an empty batch. Skipping. Max size: {}. Job id::{}",
-                    loggingComponentName, elinkmessageBatch.getMaxSizeInBytes(), jobId);
+        void awaitQuietly() {
+            if (!Thread.currentThread().isInterrupted()) {
+                try {
+                    acquireAll();
+                } catch (IllegalStateException e) {
+                    log.warn("Stopped waiting for messages in flight: {}", e.getMessage());
+                }
             }
+        }
 
+        private void acquireAll() {
+            try {
+                semaphore.acquire(permits);
+                semaphore.release(permits);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for messages in flight", e);
+            }
         }
-        sendMessageToAsb(serviceBusSenderClient, transactionContext, elinkmessageBatch, jobId);
-    }
 
-    private void sendMessageToAsb(ServiceBusSenderClient serviceBusSenderClient,
-                                  ServiceBusTransactionContext transactionContext,
-                                  ServiceBusMessageBatch messageBatch,
-                                  String jobId) {
-        if (messageBatch.getCount() > 0) {
-            serviceBusSenderClient.sendMessages(messageBatch, transactionContext);
-            log.info("{}:: Sent a batch of messages to the topic: {} ::Job id::{}", loggingComponentName, topic, jobId);
+        private void throwIfFailed() {
+            Throwable sendFailure = failure.get();
+            if (sendFailure != null) {
+                throw new IllegalStateException("Sending a message to the topic failed", sendFailure);
+            }
         }
     }
 }
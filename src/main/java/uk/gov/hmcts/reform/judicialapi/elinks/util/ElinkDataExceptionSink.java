@@ -0,0 +1,135 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.judicialapi.elinks.domain.ElinkDataExceptionRecords;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.INSERT_DATA_EXCEPTION_RECORD;
+
+/**
+ * Buffers the validation failures of a load and writes them to dataload_exception_records in JDBC batches,
+ * instead of one transaction per failure as {@link ElinkDataExceptionHelper} does. Identical (key, field,
+ * description) failures are recorded once per run. The buffer and the recorded failures live in the {@link Run}
+ * of each load, so a manual load overlapping the scheduled one neither flushes nor forgets the other's records.
+ * Callers flush at page boundaries and must call {@link #finishRun(Run)} when the load ends, successfully or
+ * not.
+ */
+@Slf4j
+@Component
+public class ElinkDataExceptionSink {
+
+    private static final ParameterizedPreparedStatementSetter<ElinkDataExceptionRecords> SETTER = (ps, audit) -> {
+        ps.setString(1, audit.getSchedulerName());
+        ps.setTimestamp(2, toTimestamp(audit.getSchedulerStartTime()));
+        ps.setString(3, audit.getTableName());
+        ps.setString(4, audit.getKey());
+        ps.setString(5, audit.getFieldInError());
+        ps.setString(6, audit.getErrorDescription());
+        ps.setTimestamp(7, toTimestamp(audit.getUpdatedTimeStamp()));
+        ps.setString(8, audit.getRowId());
+    };
+
+    @Value("${loggingComponentName}")
+    private String loggingComponentName;
+
+    @Value("${elinks.exceptions.flushSize:500}")
+    private int flushSize;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    public void auditException(Run run, String schedulerName, LocalDateTime schedulerStartTime,
+                               String key, String fieldInError, String errorDescription,
+                               String tableName, String personalCode) {
+        ElinkDataExceptionRecords audit = new ElinkDataExceptionRecords();
+        audit.setSchedulerName(schedulerName);
+        audit.setSchedulerStartTime(schedulerStartTime);
+        audit.setKey(key);
+        audit.setFieldInError(fieldInError);
+        audit.setErrorDescription(errorDescription);
+        audit.setTableName(tableName);
+        audit.setUpdatedTimeStamp(LocalDateTime.now());
+        audit.setRowId(personalCode);
+        boolean full;
+        synchronized (run) {
+            if (!run.recorded.add(Arrays.asList(key, fieldInError, errorDescription))) {
+                return;
+            }
+            run.buffer.add(audit);
+            full = run.buffer.size() >= flushSize;
+        }
+        if (full) {
+            flush(run);
+        }
+    }
+
+    /**
+     * Writes every buffered record. When the batch is rejected the records are retried one by one, so a
+     * single bad row does not lose the others.
+     */
+    public void flush(Run run) {
+        List<ElinkDataExceptionRecords> records;
+        synchronized (run) {
+            if (run.buffer.isEmpty()) {
+                return;
+            }
+            records = new ArrayList<>(run.buffer);
+            run.buffer.clear();
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_DATA_EXCEPTION_RECORD, records, records.size(), SETTER);
+        } catch (DataAccessException batchFailure) {
+            log.warn("{}:: exception record batch failed, writing {} records individually: {}",
+                loggingComponentName, records.size(), batchFailure.getMessage());
+            records.forEach(this::insert);
+        }
+    }
+
+    public void finishRun(Run run) {
+        flush(run);
+    }
+
+    private void insert(ElinkDataExceptionRecords audit) {
+        try {
+            jdbcTemplate.update(INSERT_DATA_EXCEPTION_RECORD, ps -> SETTER.setValues(ps, audit));
+        } catch (DataAccessException e) {
+            log.error("{}:: Failure error Message {} in auditException {}",
+                loggingComponentName, e.getMessage(), audit.getKey());
+        }
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime dateTime) {
+        return dateTime == null ? null : Timestamp.valueOf(dateTime);
+    }
+
+    /**
+     * Failures of one load that are buffered or already recorded.
+     */
+    public static class Run {
+
+        @Getter
+        private final LocalDateTime schedulerStartTime;
+
+        private final List<ElinkDataExceptionRecords> buffer = new ArrayList<>();
+
+        private final Set<List<String>> recorded = new HashSet<>();
+
+        public Run(LocalDateTime schedulerStartTime) {
+            this.schedulerStartTime = schedulerStartTime;
+        }
+    }
+}
@@ -46,4 +46,24 @@ public class ElinkDataIngestionSchedularAudit {
 
     }
 
+    /**
+     * Records how far a run has got: the watermark it loads from, its page size and the last page whose rows
+     * are committed.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void auditCheckpoint(LocalDateTime schedulerStartTime, String updatedSince, Integer perPage,
+                                Integer lastCommittedPage) {
+        try {
+            ElinkDataSchedularAudit audit = elinkSchedularAuditRepository.findBySchedulerStartTime(schedulerStartTime);
+            audit.setUpdatedSince(updatedSince);
+            audit.setPerPage(perPage);
+            audit.setLastCommittedPage(lastCommittedPage);
+
+            elinkSchedularAuditRepository.save(audit);
+        } catch (Exception e) {
+            log.error("{}:: Failure error Message {} in auditCheckpoint {}  ",
+                loggingComponentName, e.getMessage(), schedulerStartTime);
+        }
+    }
+
 }
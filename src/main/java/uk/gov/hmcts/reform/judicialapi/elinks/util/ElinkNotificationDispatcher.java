@@ -0,0 +1,238 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.hmcts.reform.judicialapi.elinks.configuration.ElinkEmailConfiguration;
+import uk.gov.hmcts.reform.judicialapi.elinks.domain.ElinkDataExceptionRecords;
+import uk.gov.hmcts.reform.judicialapi.elinks.service.IEmailService;
+import uk.gov.hmcts.reform.judicialapi.elinks.service.dto.Email;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.APPOINTMENTID;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.BASE_LOCATION_ID;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.CONTENT_TYPE_HTML;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.DATE_PATTERN;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.LOCATION;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.USER_PROFILE;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.SELECT_DATA_EXCEPTION_RECORDS_FOR_REPORT;
+
+/**
+ * Sends the support notifications of the eLinks jobs from a queue with its own thread, so rendering templates and
+ * calling the mail provider never delay a job or hold its database connection. The queue is bounded; a
+ * notification that does not fit is logged and dropped rather than blocking the job.
+ */
+@Slf4j
+@Component
+public class ElinkNotificationDispatcher {
+
+    // field in error of the exception records -> mail type of the report listing them
+    private static final Map<String, String> REPORT_MAIL_TYPES = reportMailTypes();
+
+    @Value("${loggingComponentName}")
+    private String loggingComponentName;
+
+    @Value("${elinks.notification.queueCapacity:100}")
+    private int queueCapacity;
+
+    @Value("${elinks.notification.fetchSize:500}")
+    private int fetchSize;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    ElinkEmailConfiguration emailConfiguration;
+
+    @Autowired
+    EmailTemplate emailTemplate;
+
+    @Autowired
+    IEmailService emailService;
+
+    Executor notificationExecutor;
+
+    @PostConstruct
+    void start() {
+        if (notificationExecutor == null) {
+            notificationExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "elinks-notification");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (notificationExecutor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * Queues the email.
+     */
+    public void dispatch(Email email) {
+        submit("email " + email.getSubject(), () -> emailService.sendEmail(email));
+    }
+
+    /**
+     * Queues the reports of the exception records written by the run started at schedulerStartTime, one email per
+     * enabled report type that has records. Inside a transaction the report is queued once it commits, as the
+     * report is read on another connection that would not see the records before then.
+     */
+    public void dispatchExceptionReport(LocalDateTime schedulerStartTime) {
+        Runnable queue = () -> submit("exception report of " + schedulerStartTime,
+            () -> sendExceptionReport(schedulerStartTime));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            queue.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                queue.run();
+            }
+        });
+    }
+
+    void sendExceptionReport(LocalDateTime schedulerStartTime) {
+        Map<String, ElinkEmailConfiguration.MailTypeConfig> configs = new LinkedHashMap<>();
+        REPORT_MAIL_TYPES.forEach((fieldInError, mailType) -> {
+            ElinkEmailConfiguration.MailTypeConfig config = emailConfiguration.getMailTypes().get(mailType);
+            if (config != null && config.isEnabled()) {
+                configs.put(fieldInError, config);
+            }
+        });
+        if (configs.isEmpty()) {
+            return;
+        }
+
+        String reportDate = LocalDate.now().format(DateTimeFormatter.ofPattern(DATE_PATTERN));
+        configs.forEach((fieldInError, config) -> {
+            String body = renderExceptionReport(schedulerStartTime, fieldInError, config.getTemplate());
+            if (body == null) {
+                return;
+            }
+            log.info("{} : send Email", loggingComponentName);
+            emailService.sendEmail(Email.builder()
+                .contentType(CONTENT_TYPE_HTML)
+                .from(config.getFrom())
+                .to(config.getTo())
+                .subject(String.format(config.getSubject(), reportDate))
+                .messageBody(body)
+                .build());
+        });
+    }
+
+    /**
+     * Renders the report of one field in error straight from a cursor over the columns it shows, so only the
+     * rendered body is held rather than every record. Returns null when the run has no such records. The
+     * connection is released before the email is sent.
+     */
+    private String renderExceptionReport(LocalDateTime schedulerStartTime, String fieldInError, String template) {
+        // Postgres only honours the fetch size inside a transaction
+        return transactionTemplate.execute(status -> jdbcTemplate.query(con -> {
+            PreparedStatement statement = con.prepareStatement(SELECT_DATA_EXCEPTION_RECORDS_FOR_REPORT);
+            statement.setFetchSize(fetchSize);
+            statement.setTimestamp(1, Timestamp.valueOf(schedulerStartTime));
+            statement.setArray(2, con.createArrayOf("text", new Object[] {fieldInError}));
+            return statement;
+        }, (ResultSetExtractor<String>) rs -> rs.next()
+            ? emailTemplate.getEmailBody(template, Map.of("resultsRequest", new ExceptionRecordIterator(rs)))
+            : null));
+    }
+
+    private void submit(String description, Runnable notification) {
+        try {
+            notificationExecutor.execute(() -> {
+                try {
+                    notification.run();
+                } catch (Exception ex) {
+                    log.error("{}:: Sending {} failed: {}", loggingComponentName, description, ex.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            log.error("{}:: Notification queue is full, dropping {}", loggingComponentName, description);
+        }
+    }
+
+    /**
+     * The rows of a cursor already on its first row, read one record at a time as the template lists them.
+     */
+    private static class ExceptionRecordIterator implements Iterator<ElinkDataExceptionRecords> {
+
+        private final ResultSet rs;
+
+        private boolean onRow = true;
+
+        ExceptionRecordIterator(ResultSet rs) {
+            this.rs = rs;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return onRow;
+        }
+
+        @Override
+        public ElinkDataExceptionRecords next() {
+            if (!onRow) {
+                throw new NoSuchElementException();
+            }
+            try {
+                ElinkDataExceptionRecords record = new ElinkDataExceptionRecords();
+                record.setKey(rs.getString("key"));
+                record.setFieldInError(rs.getString("field_in_error"));
+                record.setErrorDescription(rs.getString("error_description"));
+                record.setTableName(rs.getString("table_name"));
+                record.setRowId(rs.getString("row_id"));
+                onRow = rs.next();
+                return record;
+            } catch (SQLException ex) {
+                throw new UncategorizedSQLException("exception report", SELECT_DATA_EXCEPTION_RECORDS_FOR_REPORT, ex);
+            }
+        }
+    }
+
+    private static Map<String, String> reportMailTypes() {
+        Map<String, String> mailTypes = new LinkedHashMap<>();
+        mailTypes.put(BASE_LOCATION_ID, "baselocation");
+        mailTypes.put(LOCATION, "location");
+        mailTypes.put(APPOINTMENTID, "appointment");
+        mailTypes.put(USER_PROFILE, "userprofile");
+        return mailTypes;
+    }
+}
@@ -0,0 +1,104 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import uk.gov.hmcts.reform.judicialapi.elinks.domain.BaseLocation;
+import uk.gov.hmcts.reform.judicialapi.elinks.response.BaseLocationResponse;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.LOCATIONAPI;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.SELECT_PAYLOAD_HASH;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.UPSERT_BASE_LOCATIONS;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.UPSERT_PAYLOAD_HASH;
+
+/**
+ * Loads the eLinks base location list, replacing the repository saveAll that read and wrote every location.
+ * A payload identical to the last one loaded is skipped; otherwise one INSERT ... ON CONFLICT statement writes
+ * the locations that are new or differ from the stored rows.
+ */
+@Slf4j
+@Component
+public class ElinksBaseLocationWriter {
+
+    private static final String TEXT_TYPE = "text";
+
+    @Value("${loggingComponentName}")
+    private String loggingComponentName;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    /**
+     * Writes the base locations of the payload and records its hash.
+     *
+     * @param baseLocations the base locations downloaded from eLinks
+     * @return the number of locations inserted or changed, 0 when the payload is the one last loaded
+     */
+    @Transactional("transactionManager")
+    public int load(List<BaseLocationResponse> baseLocations) {
+        String payloadHash = ElinksContentHash.ofPayload(baseLocations);
+        if (payloadHash != null && payloadHash.equals(storedPayloadHash())) {
+            log.info("{} : base location payload unchanged since the last load, nothing written",
+                loggingComponentName);
+            return 0;
+        }
+
+        // the last entry for an id wins, as it did with saveAll
+        Map<String, BaseLocation> locations = new LinkedHashMap<>();
+        baseLocations.stream()
+            .map(BaseLocationResponse::toBaseLocationEntity)
+            .forEach(location -> locations.put(location.getBaseLocationId(), location));
+
+        long persistStarted = System.nanoTime();
+        int changed = locations.isEmpty() ? 0
+            : jdbcTemplate.update(con -> prepareUpsert(con, locations.values()));
+        ElinksMetrics.recordSince(ElinksMetrics.PERSIST, LOCATIONAPI, persistStarted);
+        ElinksMetrics.countRows(LOCATIONAPI, "upserted", changed);
+        if (payloadHash != null) {
+            jdbcTemplate.update(UPSERT_PAYLOAD_HASH, LOCATIONAPI, payloadHash);
+        }
+        log.info("{} : {} of {} base locations inserted or changed", loggingComponentName, changed,
+            locations.size());
+        return changed;
+    }
+
+    private String storedPayloadHash() {
+        try {
+            return jdbcTemplate.queryForObject(SELECT_PAYLOAD_HASH, String.class, LOCATIONAPI);
+        } catch (EmptyResultDataAccessException e) {
+            return null;
+        }
+    }
+
+    private static PreparedStatement prepareUpsert(Connection con, Collection<BaseLocation> locations)
+        throws SQLException {
+        PreparedStatement ps = con.prepareStatement(UPSERT_BASE_LOCATIONS);
+        List<Function<BaseLocation, Object>> columns = List.of(BaseLocation::getBaseLocationId,
+            BaseLocation::getName, BaseLocation::getTypeId, BaseLocation::getParentId,
+            BaseLocation::getJurisdictionId, BaseLocation::getStartDate, BaseLocation::getEndDate,
+            BaseLocation::getCreatedAt, BaseLocation::getUpdatedAt);
+        for (int column = 0; column < columns.size(); column++) {
+            Function<BaseLocation, Object> value = columns.get(column);
+            // dates go as ISO text and are cast to timestamp by the statement
+            Object[] values = locations.stream()
+                .map(location -> Objects.toString(value.apply(location), null))
+                .toArray();
+            ps.setArray(column + 1, con.createArrayOf(TEXT_TYPE, values));
+        }
+        return ps;
+    }
+}
@@ -0,0 +1,89 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies keyed updates to judicial_user_profile as one set-based statement per chunk instead of one UPDATE per
+ * key. The statement receives the keys and each value column as arrays, joins them to the table with UNNEST and
+ * returns the key of every row it changed, which tells the caller which keys matched nothing. The keys are sent in
+ * sorted order and the statements lock the profiles in personal code order, so two updates of overlapping judges
+ * wait for each other instead of deadlocking.
+ */
+@Slf4j
+@Component
+public class ElinksBulkUpdater {
+
+    private static final String KEY_TYPE = "text";
+
+    @Value("${loggingComponentName}")
+    private String loggingComponentName;
+
+    @Value("${elinks.bulkUpdate.chunkSize:5000}")
+    private int chunkSize;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    /**
+     * Runs the update for every key.
+     *
+     * @param name        what is being updated, for the log
+     * @param sql         update binding the keys followed by each value column as arrays, returning the key
+     * @param rows        value columns by key; callers keep the last values seen for a key
+     * @param columnTypes SQL element type of each value column
+     * @return the keys that matched no row, in the order given
+     */
+    public Set<String> update(String name, String sql, Map<String, Object[]> rows, String... columnTypes) {
+        List<String> keys = new ArrayList<>(rows.keySet());
+        keys.sort(null);
+        Set<String> matched = new HashSet<>();
+        long persistStarted = System.nanoTime();
+        int size = Math.max(1, chunkSize);
+        for (int from = 0; from < keys.size(); from += size) {
+            List<String> chunk = keys.subList(from, Math.min(keys.size(), from + size));
+            matched.addAll(jdbcTemplate.query(con -> prepare(con, sql, chunk, rows, columnTypes),
+                (rs, rowNum) -> rs.getString(1)));
+        }
+        ElinksMetrics.recordSince(ElinksMetrics.PERSIST, name, persistStarted);
+        Set<String> unmatched = new LinkedHashSet<>(rows.keySet());
+        unmatched.removeAll(matched);
+        ElinksMetrics.countRows(name, "updated", (long) keys.size() - unmatched.size());
+        ElinksMetrics.countRows(name, "unmatched", unmatched.size());
+        log.info("{} : {} updated for {} of {} keys", loggingComponentName, name, keys.size() - unmatched.size(),
+            keys.size());
+        if (!unmatched.isEmpty()) {
+            log.warn("{} : {} keys matched no judicial user profile for {} : {}", loggingComponentName,
+                unmatched.size(), name, unmatched);
+        }
+        return unmatched;
+    }
+
+    private static PreparedStatement prepare(Connection con, String sql, List<String> keys,
+                                             Map<String, Object[]> rows, String... columnTypes)
+        throws SQLException {
+        PreparedStatement ps = con.prepareStatement(sql);
+        ps.setArray(1, con.createArrayOf(KEY_TYPE, keys.toArray()));
+        for (int column = 0; column < columnTypes.length; column++) {
+            Object[] values = new Object[keys.size()];
+            for (int row = 0; row < keys.size(); row++) {
+                values[row] = rows.get(keys.get(row))[column];
+            }
+            ps.setArray(column + 2, con.createArrayOf(columnTypes[column], values));
+        }
+        return ps;
+    }
+}
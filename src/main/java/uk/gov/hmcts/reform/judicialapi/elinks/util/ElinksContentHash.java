@@ -0,0 +1,74 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import uk.gov.hmcts.reform.judicialapi.elinks.controller.request.ResultsRequest;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Stable SHA-256 hashes used to tell whether an eLinks people record would load differently from last time.
+ * The hash covers the mapped fields of the record, written with sorted properties, and the fingerprint of the
+ * reference data it is mapped against. Whole payloads, such as the base location list, are hashed the same way.
+ */
+public final class ElinksContentHash {
+
+    /**
+     * Bump whenever the people mapping changes, so every judge is reloaded once under the new rules.
+     */
+    static final String MAPPING_VERSION = "1";
+
+    private static final ObjectMapper canonicalJson = JsonMapper.builder()
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .build();
+
+    private ElinksContentHash() {
+
+    }
+
+    /**
+     * Hash of a people record, or null when it cannot be serialised, in which case the judge is always loaded.
+     */
+    public static String of(ResultsRequest resultsRequest, String referenceFingerprint) {
+        try {
+            return sha256(List.of(MAPPING_VERSION, String.valueOf(referenceFingerprint),
+                canonicalJson.writeValueAsString(resultsRequest)));
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Hash of a whole eLinks payload, or null when it cannot be serialised, in which case it is always loaded.
+     */
+    public static String ofPayload(Object payload) {
+        try {
+            return sha256(List.of(MAPPING_VERSION, canonicalJson.writeValueAsString(payload)));
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    public static String sha256(Iterable<String> lines) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (String line : lines) {
+            digest.update(line.getBytes(UTF_8));
+            digest.update((byte) '\n');
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,93 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stage level metrics of the eLinks, IDAM and ASB jobs. Meters go to the global registry, which Spring Boot
+ * backs with the Prometheus registry scraped from /prometheus, and stage timers publish percentile histograms
+ * so the slowest stage of a run can be read from the scrape.
+ */
+public final class ElinksMetrics {
+
+    public static final String STAGE_TIMER = "jrd.ingestion.stage";
+
+    public static final String PAYLOAD_SIZE = "jrd.ingestion.payload";
+
+    public static final String ROWS = "jrd.ingestion.rows";
+
+    public static final String THROTTLED = "jrd.ingestion.throttled";
+
+    public static final String FETCH = "fetch";
+
+    public static final String PARSE = "parse";
+
+    public static final String VALIDATE = "validate";
+
+    public static final String PERSIST = "persist";
+
+    public static final String AUDIT = "audit";
+
+    public static final String PUBLISH = "publish";
+
+    public static final String ASB = "asb";
+
+    public static final String ASB_CHANGE_EVENTS = "asbChangeEvents";
+
+    private static final String STAGE_TAG = "stage";
+
+    private static final String API_TAG = "api";
+
+    private static final String OUTCOME_TAG = "outcome";
+
+    private ElinksMetrics() {
+    }
+
+    /**
+     * Records the time since startNanos, taken from {@link System#nanoTime()}, against the stage.
+     */
+    public static void recordSince(String stage, String api, long startNanos) {
+        recordNanos(stage, api, System.nanoTime() - startNanos);
+    }
+
+    public static void recordNanos(String stage, String api, long nanos) {
+        Timer.builder(STAGE_TIMER)
+            .tag(STAGE_TAG, stage)
+            .tag(API_TAG, api)
+            .publishPercentileHistogram()
+            .register(Metrics.globalRegistry)
+            .record(Math.max(0, nanos), TimeUnit.NANOSECONDS);
+    }
+
+    public static void recordPayloadBytes(String api, long bytes) {
+        DistributionSummary.builder(PAYLOAD_SIZE)
+            .baseUnit("bytes")
+            .tag(API_TAG, api)
+            .register(Metrics.globalRegistry)
+            .record(bytes);
+    }
+
+    /**
+     * Counts rows by outcome, for example inserted, deleted or skipped.
+     */
+    public static void countRows(String api, String outcome, long rows) {
+        if (rows > 0) {
+            Counter.builder(ROWS)
+                .tag(API_TAG, api)
+                .tag(OUTCOME_TAG, outcome)
+                .register(Metrics.globalRegistry)
+                .increment(rows);
+        }
+    }
+
+    public static void countThrottled(String api) {
+        Counter.builder(THROTTLED)
+            .tag(API_TAG, api)
+            .register(Metrics.globalRegistry)
+            .increment();
+    }
+}
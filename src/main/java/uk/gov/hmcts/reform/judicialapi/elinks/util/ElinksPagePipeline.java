@@ -0,0 +1,125 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.judicialapi.elinks.exception.ElinksException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.THREAD_INVOCATION_EXCEPTION;
+
+/**
+ * Runs a paged eLinks load as a producer/consumer pipeline. A fetcher thread requests pages ahead of the
+ * caller while the calling thread processes them, so the HTTP latency of page N+1 overlaps the database work
+ * of page N. The bounded queue applies backpressure, keeping at most {@code prefetchPages} pages in memory.
+ */
+@Slf4j
+@Component
+public class ElinksPagePipeline {
+
+    @Value("${elinks.pipeline.prefetchPages:2}")
+    private int prefetchPages;
+
+    /**
+     * Fetches pages from {@code firstPage} until a page reports no more pages, handing each one to
+     * {@code processor} on the calling thread. Anything thrown by the fetcher, errors included, is rethrown on
+     * the calling thread, so transactions and error handling stay where they were.
+     */
+    public <T> void run(int firstPage, PageFetcher<T> fetcher, PageProcessor<T> processor) {
+        BlockingQueue<FetchedPage<T>> queue = new ArrayBlockingQueue<>(prefetchPages);
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable ->
+            new Thread(runnable, "elinks-page-fetcher"));
+        Future<?> producer = executor.submit(() -> fetchPages(firstPage, fetcher, queue));
+        try {
+            FetchedPage<T> fetchedPage;
+            do {
+                fetchedPage = queue.take();
+                if (fetchedPage.getError() instanceof Error error) {
+                    throw error;
+                }
+                if (fetchedPage.getError() != null) {
+                    throw (RuntimeException) fetchedPage.getError();
+                }
+                processor.process(fetchedPage.getPageNumber(), fetchedPage.getBody());
+            } while (!fetchedPage.isLastPage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ElinksException(HttpStatus.NOT_ACCEPTABLE, THREAD_INVOCATION_EXCEPTION,
+                THREAD_INVOCATION_EXCEPTION);
+        } finally {
+            producer.cancel(true);
+            executor.shutdownNow();
+        }
+    }
+
+    private <T> void fetchPages(int firstPage, PageFetcher<T> fetcher, BlockingQueue<FetchedPage<T>> queue) {
+        int pageNumber = firstPage;
+        try {
+            ElinksPage<T> page;
+            do {
+                page = fetcher.fetch(pageNumber);
+                queue.put(new FetchedPage<>(pageNumber, page.getBody(), !page.isMorePages(), null));
+                pageNumber++;
+            } while (page.isMorePages());
+        } catch (InterruptedException e) {
+            log.info("eLinks page fetcher stopped at page {}", pageNumber);
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            // Errors too, as the calling thread waits for a last page and would otherwise never get one
+            try {
+                queue.put(new FetchedPage<>(pageNumber, null, true, e));
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Fetches and parses a single page; throwing aborts the whole load.
+     */
+    @FunctionalInterface
+    public interface PageFetcher<T> {
+        ElinksPage<T> fetch(int pageNumber);
+    }
+
+    /**
+     * Persists a single fetched page on the calling thread.
+     */
+    @FunctionalInterface
+    public interface PageProcessor<T> {
+        void process(int pageNumber, T body);
+    }
+
+    /**
+     * A parsed eLinks page and whether eLinks reported further pages after it.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class ElinksPage<T> {
+
+        private final T body;
+
+        private final boolean morePages;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class FetchedPage<T> {
+
+        private final int pageNumber;
+
+        private final T body;
+
+        private final boolean lastPage;
+
+        private final Throwable error;
+    }
+}
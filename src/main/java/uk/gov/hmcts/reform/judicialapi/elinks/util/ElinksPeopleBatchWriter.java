@@ -0,0 +1,206 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import uk.gov.hmcts.reform.judicialapi.elinks.domain.Appointment;
+import uk.gov.hmcts.reform.judicialapi.elinks.domain.Authorisation;
+import uk.gov.hmcts.reform.judicialapi.elinks.domain.JudicialRoleType;
+import uk.gov.hmcts.reform.judicialapi.elinks.domain.UserProfile;
+
+import java.sql.Array;
+import java.util.ArrayList;
+import java.util.List;
+
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.PEOPLEAPI;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.CLEAR_CONTENT_HASHES;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.DELETE_APPOINTMENTS_BY_PERSONAL_CODES;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.DELETE_AUTHORISATIONS_BY_PERSONAL_CODES;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.DELETE_ROLES_BY_PERSONAL_CODES;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.INSERT_APPOINTMENT;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.INSERT_AUTHORISATION;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.INSERT_ROLE;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.RECORD_CHANGE_EVENTS;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.RECORD_PROFILE_CHANGES;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.UPSERT_USER_PROFILE;
+
+/**
+ * Writes a whole page of eLinks people in one transaction using JDBC batches, replacing the
+ * row by row repository saves. Any failure rolls the page back so the caller can replay it person by person.
+ */
+@Slf4j
+@Component
+public class ElinksPeopleBatchWriter {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Value("${elinks.people.writeBatchSize:1000}")
+    private int writeBatchSize;
+
+    /**
+     * Replaces the profiles, appointments, authorisations and roles of every person on the page, queues
+     * their personal codes for the next ASB publish and writes a change event for each of them.
+     *
+     * @param people the validated people of one page
+     * @return the authorisations that were skipped because their appointment is not loaded
+     */
+    @Transactional("transactionManager")
+    public List<Authorisation> writePage(List<PersonRecord> people) {
+        if (people.isEmpty()) {
+            return List.of();
+        }
+        List<String> personalCodes = new ArrayList<>();
+        List<UserProfile> profiles = new ArrayList<>();
+        List<Appointment> appointments = new ArrayList<>();
+        List<Authorisation> authorisations = new ArrayList<>();
+        List<JudicialRoleType> roles = new ArrayList<>();
+        for (PersonRecord person : people) {
+            personalCodes.add(person.getUserProfile().getPersonalCode());
+            profiles.add(person.getUserProfile());
+            appointments.addAll(person.getAppointments());
+            authorisations.addAll(person.getAuthorisations());
+            roles.addAll(person.getRoles());
+        }
+
+        int deleted = updateByPersonalCodes(DELETE_AUTHORISATIONS_BY_PERSONAL_CODES, personalCodes)
+            + updateByPersonalCodes(DELETE_APPOINTMENTS_BY_PERSONAL_CODES, personalCodes)
+            + updateByPersonalCodes(DELETE_ROLES_BY_PERSONAL_CODES, personalCodes);
+
+        updateByPersonalCodes(RECORD_CHANGE_EVENTS, personalCodes);
+        upsertProfiles(profiles);
+        insertAppointments(appointments);
+        List<Authorisation> skipped = insertAuthorisations(authorisations);
+        insertRoles(roles);
+        // unchanged judges were dropped by their content hash, so everyone on the page has changed
+        updateByPersonalCodes(RECORD_PROFILE_CHANGES, personalCodes);
+        if (!skipped.isEmpty()) {
+            // a judge with a skipped authorisation was not fully loaded, so must not be skipped as unchanged
+            updateByPersonalCodes(CLEAR_CONTENT_HASHES,
+                skipped.stream().map(Authorisation::getPersonalCode).distinct().toList());
+        }
+
+        log.info("eLinks people page written: {} profiles, {} appointments, {} authorisations, {} roles",
+                profiles.size(), appointments.size(), authorisations.size() - skipped.size(), roles.size());
+        ElinksMetrics.countRows(PEOPLEAPI, "deleted", deleted);
+        ElinksMetrics.countRows(PEOPLEAPI, "inserted", (long) profiles.size() + appointments.size()
+            + authorisations.size() - skipped.size() + roles.size());
+        ElinksMetrics.countRows(PEOPLEAPI, "skipped", skipped.size());
+        return skipped;
+    }
+
+    private int updateByPersonalCodes(String sql, List<String> personalCodes) {
+        return jdbcTemplate.update(sql, ps -> {
+            Array codes = ps.getConnection().createArrayOf("varchar", personalCodes.toArray());
+            ps.setArray(1, codes);
+        });
+    }
+
+    private void upsertProfiles(List<UserProfile> profiles) {
+        jdbcTemplate.batchUpdate(UPSERT_USER_PROFILE, profiles, writeBatchSize, (ps, profile) -> {
+            ps.setString(1, profile.getPersonalCode());
+            ps.setString(2, profile.getKnownAs());
+            ps.setString(3, profile.getSurname());
+            ps.setString(4, profile.getFullName());
+            ps.setString(5, profile.getPostNominals());
+            ps.setString(6, profile.getEjudiciaryEmailId());
+            ps.setObject(7, profile.getLastWorkingDate());
+            ps.setObject(8, profile.getActiveFlag());
+            ps.setObject(9, profile.getCreatedDate());
+            ps.setObject(10, profile.getLastLoadedDate());
+            ps.setString(11, profile.getObjectId());
+            ps.setString(12, profile.getSidamId());
+            ps.setString(13, profile.getInitials());
+            ps.setString(14, profile.getTitle());
+            ps.setObject(15, profile.getRetirementDate());
+            ps.setObject(16, profile.getDeletedFlag());
+            ps.setObject(17, profile.getDeletedOn());
+            ps.setString(18, profile.getContentHash());
+        });
+    }
+
+    private void insertAppointments(List<Appointment> appointments) {
+        jdbcTemplate.batchUpdate(INSERT_APPOINTMENT, appointments, writeBatchSize, (ps, appointment) -> {
+            ps.setString(1, appointment.getPersonalCode());
+            ps.setString(2, appointment.getBaseLocationId());
+            ps.setString(3, appointment.getRegionId());
+            ps.setObject(4, appointment.getIsPrincipleAppointment());
+            ps.setObject(5, appointment.getStartDate());
+            ps.setObject(6, appointment.getEndDate());
+            ps.setObject(7, appointment.getCreatedDate());
+            ps.setObject(8, appointment.getLastLoadedDate());
+            ps.setString(9, appointment.getEpimmsId());
+            ps.setString(10, appointment.getAppointmentMapping());
+            ps.setString(11, appointment.getAppointmentType());
+            ps.setString(12, appointment.getType());
+            ps.setString(13, appointment.getAppointmentId());
+            ps.setString(14, appointment.getRoleNameId());
+            ps.setString(15, appointment.getContractTypeId());
+            ps.setString(16, appointment.getLocation());
+            ps.setString(17, appointment.getJoBaseLocationId());
+        });
+    }
+
+    private List<Authorisation> insertAuthorisations(List<Authorisation> authorisations) {
+        int[][] updateCounts = jdbcTemplate.batchUpdate(INSERT_AUTHORISATION, authorisations, writeBatchSize,
+            (ps, authorisation) -> {
+                ps.setString(1, authorisation.getPersonalCode());
+                ps.setString(2, authorisation.getJurisdiction());
+                ps.setObject(3, authorisation.getStartDate());
+                ps.setObject(4, authorisation.getEndDate());
+                ps.setObject(5, authorisation.getCreatedDate());
+                ps.setObject(6, authorisation.getLastUpdated());
+                ps.setString(7, authorisation.getLowerLevel());
+                ps.setString(8, authorisation.getTicketCode());
+                ps.setString(9, authorisation.getAppointmentId());
+                ps.setString(10, authorisation.getAuthorisationId());
+                ps.setString(11, authorisation.getJurisdictionId());
+                ps.setString(12, authorisation.getAppointmentId());
+            });
+
+        List<Authorisation> skipped = new ArrayList<>();
+        int index = 0;
+        for (int[] batch : updateCounts) {
+            for (int count : batch) {
+                if (count == 0) {
+                    skipped.add(authorisations.get(index));
+                }
+                index++;
+            }
+        }
+        return skipped;
+    }
+
+    private void insertRoles(List<JudicialRoleType> roles) {
+        jdbcTemplate.batchUpdate(INSERT_ROLE, roles, writeBatchSize, (ps, role) -> {
+            ps.setString(1, role.getPersonalCode());
+            ps.setString(2, role.getTitle());
+            ps.setObject(3, role.getStartDate());
+            ps.setObject(4, role.getEndDate());
+            ps.setString(5, role.getJurisdictionRoleId());
+        });
+    }
+
+    /**
+     * Everything loaded for one person on an eLinks people page.
+     */
+    @Getter
+    @Builder
+    @AllArgsConstructor
+    public static class PersonRecord {
+
+        private final UserProfile userProfile;
+
+        private final List<Appointment> appointments;
+
+        private final List<Authorisation> authorisations;
+
+        private final List<JudicialRoleType> roles;
+    }
+}
@@ -0,0 +1,67 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import uk.gov.hmcts.reform.judicialapi.elinks.controller.request.PaginationRequest;
+import uk.gov.hmcts.reform.judicialapi.elinks.controller.request.ResultsRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Decodes an eLinks people page straight from the response bytes. Each entry of {@code results} is bound and
+ * handed to the caller on its own, so only one person's request tree is held at a time however large the page.
+ */
+public final class ElinksPeopleStreamReader {
+
+    private static final ObjectMapper json = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final String PAGINATION = "pagination";
+
+    private static final String RESULTS = "results";
+
+    private ElinksPeopleStreamReader() {
+
+    }
+
+    /**
+     * Reads a people page, passing every person to {@code personConsumer} in page order. The body must be JSON,
+     * which Jackson reads as UTF-8 unless the bytes say otherwise.
+     *
+     * @return the page pagination, or null when the page has no pagination or no results array
+     */
+    public static PaginationRequest read(InputStream body, Consumer<ResultsRequest> personConsumer)
+        throws IOException {
+        PaginationRequest pagination = null;
+        boolean resultsPresent = false;
+        try (JsonParser parser = json.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (PAGINATION.equals(field) && value == JsonToken.START_OBJECT) {
+                    pagination = parser.readValueAs(PaginationRequest.class);
+                } else if (RESULTS.equals(field) && value == JsonToken.START_ARRAY) {
+                    resultsPresent = true;
+                    JsonToken element;
+                    while ((element = parser.nextToken()) != JsonToken.END_ARRAY && element != null) {
+                        if (element == JsonToken.START_OBJECT) {
+                            personConsumer.accept(parser.readValueAs(ResultsRequest.class));
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return resultsPresent ? pagination : null;
+    }
+}
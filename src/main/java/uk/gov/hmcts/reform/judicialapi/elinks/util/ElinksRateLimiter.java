@@ -0,0 +1,275 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import feign.Response;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import uk.gov.hmcts.reform.judicialapi.elinks.exception.ElinksException;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.THREAD_INVOCATION_EXCEPTION;
+
+/**
+ * Paces every call made to eLinks. One token bucket is shared by the people, leavers, deleted and location
+ * loads so that together they stay inside the eLinks quota. The refill rate follows the X-RateLimit headers
+ * eLinks returns, and a 429 holds back every caller for the Retry-After period, or an exponentially growing
+ * backoff when eLinks does not send one, before the request is retried.
+ */
+@Slf4j
+@Component
+public class ElinksRateLimiter {
+
+    static final String RETRY_AFTER = "Retry-After";
+
+    static final String RATE_LIMIT_REMAINING = "X-RateLimit-Remaining";
+
+    static final String RATE_LIMIT_RESET = "X-RateLimit-Reset";
+
+    private static final double MIN_REQUESTS_PER_SECOND = 0.05;
+
+    private static final long EPOCH_SECONDS_THRESHOLD = 1_000_000_000L;
+
+    @Value("${elinks.rateLimit.requestsPerSecond:1}")
+    private double requestsPerSecond;
+
+    @Value("${elinks.rateLimit.maxRequestsPerSecond:5}")
+    private double maxRequestsPerSecond;
+
+    @Value("${elinks.rateLimit.burst:1}")
+    private int burst;
+
+    @Value("${elinks.people.threadRetriggerPauseTime:1000}")
+    private long initialBackoffMillis;
+
+    @Value("${elinks.rateLimit.maxBackoffMillis:60000}")
+    private long maxBackoffMillis;
+
+    @Value("${elinks.rateLimit.maxRetries:6}")
+    private int maxRetries;
+
+    private double currentRate;
+
+    private double availablePermits;
+
+    private long lastRefillNanos;
+
+    private long blockedUntilMillis;
+
+    /**
+     * Starts collecting throughput figures for a load of the given eLinks API. Each load gets its own figures,
+     * so a manual load overlapping the scheduled one does not add to or end the other's.
+     */
+    public RunStats startRun(String api) {
+        return new RunStats(api);
+    }
+
+    /**
+     * Logs and returns the throughput figures collected since {@link #startRun(String)}.
+     */
+    public RunStats finishRun(RunStats stats) {
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - stats.startNanos);
+        long requests = stats.getRequests();
+        log.info("eLinks {} run: {} requests ({} throttled) in {} ms, {} ms waiting on the rate limiter, "
+                + "{} ms average call latency, {} requests/min", stats.api, requests, stats.getThrottled(),
+            elapsedMillis, stats.getWaitedMillis(), requests == 0 ? 0 : stats.getCallMillis() / requests,
+            elapsedMillis == 0 ? 0 : requests * 60_000 / elapsedMillis);
+        return stats;
+    }
+
+    /**
+     * Makes an eLinks call once a permit is available, retrying it while eLinks answers 429 and the retry
+     * limit has not been reached. The last response is returned either way, so callers keep their own
+     * handling of error statuses.
+     */
+    public Response execute(RunStats stats, Supplier<Response> call) {
+        String api = stats.api;
+        int attempt = 0;
+        while (true) {
+            stats.waitedMillis.addAndGet(acquire());
+            long callStarted = System.nanoTime();
+            Response response = call.get();
+            long callNanos = System.nanoTime() - callStarted;
+            stats.callMillis.addAndGet(TimeUnit.NANOSECONDS.toMillis(callNanos));
+            stats.requests.incrementAndGet();
+            ElinksMetrics.recordNanos(ElinksMetrics.FETCH, api, callNanos);
+            if (response.status() != HttpStatus.TOO_MANY_REQUESTS.value()) {
+                adjustRate(response);
+                return response;
+            }
+            stats.throttled.incrementAndGet();
+            ElinksMetrics.countThrottled(api);
+            long backoffMillis = throttle(response, attempt);
+            if (attempt >= maxRetries) {
+                log.warn("eLinks {} still throttled after {} retries", api, maxRetries);
+                return response;
+            }
+            log.info("eLinks {} throttled, retrying in {} ms", api, backoffMillis);
+            response.close();
+            attempt++;
+        }
+    }
+
+    private long acquire() {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            waitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, blockedUntilMillis - System.currentTimeMillis()));
+            if (requestsPerSecond > 0) {
+                refill(now);
+                availablePermits -= 1;
+                if (availablePermits < 0) {
+                    waitNanos = Math.max(waitNanos, (long) (-availablePermits / currentRate * 1e9));
+                }
+            }
+        }
+        pause(waitNanos);
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos);
+    }
+
+    private void refill(long now) {
+        if (currentRate <= 0) {
+            currentRate = requestsPerSecond;
+            availablePermits = Math.max(1, burst);
+            lastRefillNanos = now;
+        }
+        availablePermits = Math.min(Math.max(1, burst),
+            availablePermits + (now - lastRefillNanos) / 1e9 * currentRate);
+        lastRefillNanos = now;
+    }
+
+    private synchronized long throttle(Response response, int attempt) {
+        long backoffMillis = retryAfterMillis(response).orElseGet(() ->
+            Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt, 20)));
+        blockUntil(System.currentTimeMillis() + backoffMillis);
+        if (currentRate > 0) {
+            currentRate = Math.max(MIN_REQUESTS_PER_SECOND, currentRate / 2);
+        }
+        return backoffMillis;
+    }
+
+    private synchronized void adjustRate(Response response) {
+        if (requestsPerSecond <= 0 || currentRate <= 0) {
+            return;
+        }
+        Optional<Long> remaining = longHeader(response, RATE_LIMIT_REMAINING);
+        Optional<Long> secondsUntilReset = longHeader(response, RATE_LIMIT_RESET).map(this::secondsUntilReset);
+        if (remaining.isEmpty() || secondsUntilReset.isEmpty()) {
+            currentRate = Math.min(requestsPerSecond, currentRate * 2);
+            return;
+        }
+        if (remaining.get() == 0) {
+            blockUntil(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(secondsUntilReset.get()));
+            return;
+        }
+        double headerRate = (double) remaining.get() / Math.max(1, secondsUntilReset.get());
+        currentRate = Math.min(maxRequestsPerSecond, Math.max(MIN_REQUESTS_PER_SECOND, headerRate));
+    }
+
+    private void blockUntil(long epochMillis) {
+        blockedUntilMillis = Math.max(blockedUntilMillis, epochMillis);
+    }
+
+    private long secondsUntilReset(long reset) {
+        if (reset > EPOCH_SECONDS_THRESHOLD) {
+            return Math.max(0, reset - System.currentTimeMillis() / 1000);
+        }
+        return Math.max(0, reset);
+    }
+
+    private Optional<Long> retryAfterMillis(Response response) {
+        Optional<String> retryAfter = header(response, RETRY_AFTER);
+        if (retryAfter.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.get())));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime retryAt = ZonedDateTime.parse(retryAfter.get(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Optional.of(Math.max(0, retryAt.toInstant().toEpochMilli() - System.currentTimeMillis()));
+            } catch (DateTimeParseException ex) {
+                log.warn("Ignoring unparseable eLinks Retry-After header {}", retryAfter.get());
+                return Optional.empty();
+            }
+        }
+    }
+
+    private Optional<Long> longHeader(Response response, String name) {
+        try {
+            return header(response, name).map(Long::parseLong);
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    private Optional<String> header(Response response, String name) {
+        Map<String, Collection<String>> headers = response.headers();
+        if (headers == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(headers.get(name))
+            .flatMap(values -> values.stream().findFirst())
+            .map(String::trim);
+    }
+
+    private static void pause(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ElinksException(HttpStatus.NOT_ACCEPTABLE, THREAD_INVOCATION_EXCEPTION,
+                THREAD_INVOCATION_EXCEPTION);
+        }
+    }
+
+    /**
+     * Request, throttling and waiting totals for one run of an eLinks load.
+     */
+    public static class RunStats {
+
+        private final String api;
+
+        private final long startNanos = System.nanoTime();
+
+        private final AtomicLong requests = new AtomicLong();
+
+        private final AtomicLong throttled = new AtomicLong();
+
+        private final AtomicLong waitedMillis = new AtomicLong();
+
+        private final AtomicLong callMillis = new AtomicLong();
+
+        RunStats(String api) {
+            this.api = api;
+        }
+
+        public long getRequests() {
+            return requests.get();
+        }
+
+        public long getThrottled() {
+            return throttled.get();
+        }
+
+        public long getWaitedMillis() {
+            return waitedMillis.get();
+        }
+
+        public long getCallMillis() {
+            return callMillis.get();
+        }
+    }
+}
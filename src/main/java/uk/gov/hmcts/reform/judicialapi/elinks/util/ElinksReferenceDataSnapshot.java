@@ -0,0 +1,145 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.SELECT_BASE_LOCATION_PARENT_IDS;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.SELECT_JRD_REGION_IDS;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.SELECT_LOCATION_EPIMMS_IDS;
+
+/**
+ * In-memory copy of the reference tables the people load maps appointments against: base location parents,
+ * eLinks region to LRD region, and judicial base location to ePIMMS id. The tables hold a few thousand rows,
+ * so they are read once per run instead of once or twice per appointment. The lookups answer exactly as the
+ * repository queries they replace, including failing when a key maps to more than one value.
+ */
+@Slf4j
+@Component
+public class ElinksReferenceDataSnapshot {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Reloads every lookup from the database; called at the start of a people run and after base locations
+     * are loaded. Readers switch to the new lookups in one step.
+     */
+    public synchronized void refresh() {
+        Snapshot loaded = new Snapshot(load(SELECT_BASE_LOCATION_PARENT_IDS), load(SELECT_JRD_REGION_IDS),
+            load(SELECT_LOCATION_EPIMMS_IDS));
+        snapshot = loaded;
+        log.info("eLinks reference data loaded: {} base locations, {} regions, {} location mappings",
+            loaded.parentIds.size(), loaded.regionIds.size(), loaded.epimmsIds.size());
+    }
+
+    public String fetchParentId(String baseLocationId) {
+        return current().parentIds.get(baseLocationId);
+    }
+
+    public String fetchRegionId(String jrdRegion) {
+        return current().regionIds.get(jrdRegion);
+    }
+
+    public String fetchEpimmsId(String judicialBaseLocationId) {
+        return current().epimmsIds.get(judicialBaseLocationId);
+    }
+
+    /**
+     * Hash of every lookup, which changes whenever a judge could map differently.
+     */
+    public String fingerprint() {
+        return current().fingerprint;
+    }
+
+    private Snapshot current() {
+        if (snapshot == null) {
+            refresh();
+        }
+        return snapshot;
+    }
+
+    private Lookup load(String sql) {
+        Map<String, String> values = new HashMap<>();
+        Set<String> ambiguousKeys = new HashSet<>();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            String key = rs.getString(1);
+            String value = rs.getString(2);
+            if (key == null) {
+                return;
+            }
+            if (values.containsKey(key)) {
+                ambiguousKeys.add(key);
+            }
+            values.put(key, value);
+        });
+        return new Lookup(values, ambiguousKeys);
+    }
+
+    private static class Snapshot {
+
+        private final Lookup parentIds;
+
+        private final Lookup regionIds;
+
+        private final Lookup epimmsIds;
+
+        private final String fingerprint;
+
+        Snapshot(Lookup parentIds, Lookup regionIds, Lookup epimmsIds) {
+            this.parentIds = parentIds;
+            this.regionIds = regionIds;
+            this.epimmsIds = epimmsIds;
+            List<String> lines = new ArrayList<>();
+            parentIds.describe("parent", lines);
+            regionIds.describe("region", lines);
+            epimmsIds.describe("epimms", lines);
+            this.fingerprint = ElinksContentHash.sha256(lines);
+        }
+    }
+
+    private static class Lookup {
+
+        private final Map<String, String> values;
+
+        private final Set<String> ambiguousKeys;
+
+        Lookup(Map<String, String> values, Set<String> ambiguousKeys) {
+            this.values = Collections.unmodifiableMap(values);
+            this.ambiguousKeys = Set.copyOf(ambiguousKeys);
+        }
+
+        String get(String key) {
+            if (key == null) {
+                return null;
+            }
+            if (ambiguousKeys.contains(key)) {
+                throw new IncorrectResultSizeDataAccessException(1);
+            }
+            return values.get(key);
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        void describe(String name, List<String> lines) {
+            new TreeMap<>(values).forEach((key, value) -> lines.add(name + ':' + key + '='
+                + (ambiguousKeys.contains(key) ? "*" : value)));
+        }
+    }
+}
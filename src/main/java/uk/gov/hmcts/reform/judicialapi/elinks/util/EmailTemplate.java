@@ -12,7 +12,9 @@ import uk.gov.hmcts.reform.judicialapi.elinks.configuration.ElinkEmailConfigurat
 import uk.gov.hmcts.reform.judicialapi.elinks.service.exception.EmailException;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Component
@@ -26,11 +28,17 @@ public class EmailTemplate {
     @Autowired
     ElinkEmailConfiguration emailConfiguration;
 
+    // templates are parsed once; a Template is safe to process from several threads
+    private final Map<String, Template> templates = new ConcurrentHashMap<>();
+
     public String getEmailBody(String template, Map<String, Object> model) {
         String emailBody = "";
         try {
-            Template t = freemarkerConfig.getTemplate(template);
+            Template t = templates.computeIfAbsent(template, this::loadTemplate);
             emailBody = FreeMarkerTemplateUtils.processTemplateIntoString(t, model);
+        } catch (UncheckedIOException ex) {
+            log.info("Exception while processing email template!", ex);
+            throw new EmailException(ex.getCause().getMessage(), ex.getCause());
         } catch (IOException | TemplateException ex) {
             log.info("Exception while processing email template!", ex);
             throw new EmailException(ex.getMessage(), ex);
@@ -38,6 +46,14 @@ public class EmailTemplate {
         return emailBody;
     }
 
+    private Template loadTemplate(String template) {
+        try {
+            return freemarkerConfig.getTemplate(template);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
     public ElinkEmailConfiguration.MailTypeConfig getMailTypeConfig(Map<String, Object> model, String emailConfig) {
         ElinkEmailConfiguration.MailTypeConfig mailConfig = emailConfiguration.getMailTypes().get(emailConfig);
         mailConfig.setModel(model);
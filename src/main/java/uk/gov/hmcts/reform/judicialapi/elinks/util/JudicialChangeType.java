@@ -0,0 +1,18 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+/**
+ * What happened to a judge, as carried by the change events in the outbox.
+ */
+public enum JudicialChangeType {
+
+    CREATED,
+
+    // the profile, appointments, authorisations or roles of an existing judge were reloaded
+    APPOINTMENT_CHANGED,
+
+    LEFT,
+
+    DELETED,
+
+    SIDAM_ID_CHANGED
+}
@@ -0,0 +1,49 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps object ids to the personal code that holds them so the people load can spot an object id claimed by a
+ * different judge with a single hash probe. An object id held by more than one personal code is remembered as
+ * shared, which makes it a duplicate for every caller. Safe for use from several threads.
+ */
+public class ObjectIdIndex {
+
+    private final Map<String, String> personalCodeByObjectId = new HashMap<>();
+
+    private final Set<String> sharedObjectIds = new HashSet<>();
+
+    public synchronized void put(String objectId, String personalCode) {
+        if (objectId == null || objectId.isEmpty()) {
+            return;
+        }
+        String existing = personalCodeByObjectId.putIfAbsent(objectId, personalCode);
+        if (existing != null && !existing.equals(personalCode)) {
+            sharedObjectIds.add(objectId);
+        }
+    }
+
+    public synchronized boolean contains(String objectId) {
+        return personalCodeByObjectId.containsKey(objectId);
+    }
+
+    /**
+     * Whether the object id belongs to a personal code other than the given one.
+     */
+    public synchronized boolean isHeldByAnother(String objectId, String personalCode) {
+        String holder = personalCodeByObjectId.get(objectId);
+        return holder != null && (sharedObjectIds.contains(objectId) || !holder.equals(personalCode));
+    }
+
+    public synchronized int size() {
+        return personalCodeByObjectId.size();
+    }
+
+    public synchronized void clear() {
+        personalCodeByObjectId.clear();
+        sharedObjectIds.clear();
+    }
+}
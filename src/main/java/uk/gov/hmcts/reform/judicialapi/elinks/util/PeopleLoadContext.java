@@ -0,0 +1,71 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import lombok.Getter;
+import uk.gov.hmcts.reform.judicialapi.elinks.domain.UserProfile;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * State of one people load: what has been loaded so far, what was stored before the run and whether anything
+ * was rejected. Each run gets its own context, so overlapping runs do not share state, and every member is safe
+ * to use from the mapping and writer threads of the run.
+ */
+public class PeopleLoadContext {
+
+    @Getter
+    private final LocalDateTime schedulerStartTime;
+
+    @Getter
+    private final ElinkDataExceptionSink.Run exceptionRecords;
+
+    @Getter
+    private final ObjectIdIndex storedObjectIds = new ObjectIdIndex();
+
+    @Getter
+    private final Map<String, String> storedContentHashes = new ConcurrentHashMap<>();
+
+    @Getter
+    private final AtomicInteger peopleReceived = new AtomicInteger();
+
+    @Getter
+    private final AtomicInteger peopleUnchanged = new AtomicInteger();
+
+    private final Set<String> loadedPersonalCodes = Collections.synchronizedSet(new HashSet<>());
+
+    private final ObjectIdIndex loadedObjectIds = new ObjectIdIndex();
+
+    private final AtomicBoolean partialSuccess = new AtomicBoolean();
+
+    public PeopleLoadContext(LocalDateTime schedulerStartTime) {
+        this.schedulerStartTime = schedulerStartTime;
+        this.exceptionRecords = new ElinkDataExceptionSink.Run(schedulerStartTime);
+    }
+
+    public void profileLoaded(UserProfile userProfile) {
+        loadedPersonalCodes.add(userProfile.getPersonalCode());
+        loadedObjectIds.put(userProfile.getObjectId(), userProfile.getPersonalCode());
+    }
+
+    public boolean isProfileLoaded(String personalCode) {
+        return loadedPersonalCodes.contains(personalCode);
+    }
+
+    public boolean isObjectIdLoaded(String objectId) {
+        return loadedObjectIds.contains(objectId);
+    }
+
+    public void markPartialSuccess() {
+        partialSuccess.set(true);
+    }
+
+    public boolean isPartialSuccess() {
+        return partialSuccess.get();
+    }
+}
@@ -104,6 +104,12 @@ public class RefDataElinksConstants {
     public static final String USERPROFILEEMAILID = "Personal Code : "
         + " is not having any email id";
 
+    public static final String PERSONALCODENOTAVAILABLE = "Personal Code : "
+        + "is not available in judicial_user_profile table";
+
+    public static final String OBJECTIDNOTAVAILABLE = "Object ID : "
+        + "is not available in judicial_user_profile table";
+
     public static final String FAIL_LOAD = "is failed to load";
 
     public static final String APPOINTMENTIDFAILURE = APP_ID
@@ -6,7 +6,176 @@ public class SqlConstants {
 
     }
 
-    public static final String SELECT_IDM_JOB_STATUS_SQL = "SELECT MAX(job_end_time) FROM"
+    public static final String SELECT_IDAM_SEARCH_WATERMARK_SQL = "SELECT MAX(job_start_time) FROM"
             + " dbjudicialdata.dataload_schedular_job WHERE publishing_status IN ('SUCCESS')";
 
+    public static final String SELECT_OBJECT_IDS_WITHOUT_SIDAM_ID = "SELECT DISTINCT object_id FROM"
+            + " dbjudicialdata.judicial_user_profile WHERE sidam_id IS NULL AND object_id IS NOT NULL"
+            + " AND object_id <> ''";
+
+    public static final String DELETE_AUTHORISATIONS_BY_PERSONAL_CODES = "DELETE FROM"
+            + " dbjudicialdata.judicial_office_authorisation WHERE personal_code = ANY (?)";
+
+    public static final String DELETE_APPOINTMENTS_BY_PERSONAL_CODES = "DELETE FROM"
+            + " dbjudicialdata.judicial_office_appointment WHERE personal_code = ANY (?)";
+
+    public static final String DELETE_ROLES_BY_PERSONAL_CODES = "DELETE FROM"
+            + " dbjudicialdata.judicial_additional_roles WHERE personal_code = ANY (?)";
+
+    public static final String UPSERT_USER_PROFILE = "INSERT INTO dbjudicialdata.judicial_user_profile"
+            + " (personal_code, known_as, surname, full_name, post_nominals, ejudiciary_email, last_working_date,"
+            + " active_flag, created_date, last_loaded_date, object_id, sidam_id, initials, title, retirement_date,"
+            + " deleted_flag, date_of_deletion, content_hash)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"
+            + " ON CONFLICT (personal_code) DO UPDATE SET known_as = EXCLUDED.known_as,"
+            + " surname = EXCLUDED.surname, full_name = EXCLUDED.full_name,"
+            + " post_nominals = EXCLUDED.post_nominals, ejudiciary_email = EXCLUDED.ejudiciary_email,"
+            + " last_working_date = EXCLUDED.last_working_date, active_flag = EXCLUDED.active_flag,"
+            + " created_date = EXCLUDED.created_date, last_loaded_date = EXCLUDED.last_loaded_date,"
+            + " object_id = EXCLUDED.object_id, sidam_id = EXCLUDED.sidam_id, initials = EXCLUDED.initials,"
+            + " title = EXCLUDED.title, retirement_date = EXCLUDED.retirement_date,"
+            + " deleted_flag = EXCLUDED.deleted_flag, date_of_deletion = EXCLUDED.date_of_deletion,"
+            + " content_hash = EXCLUDED.content_hash";
+
+    public static final String CLEAR_CONTENT_HASHES = "UPDATE dbjudicialdata.judicial_user_profile"
+            + " SET content_hash = NULL WHERE personal_code = ANY(?)";
+
+    // Personal codes queued for the next ASB publish; a code queued again keeps a single row with the latest time
+    private static final String RECORD_PROFILE_CHANGES_INTO = "INSERT INTO dbjudicialdata.judicial_profile_change"
+            + " (personal_code) ";
+
+    private static final String ON_PROFILE_CHANGE_CONFLICT = " ON CONFLICT (personal_code)"
+            + " DO UPDATE SET changed_time = EXCLUDED.changed_time";
+
+    public static final String RECORD_PROFILE_CHANGES = RECORD_PROFILE_CHANGES_INTO
+            + "SELECT DISTINCT code FROM UNNEST(?) AS code" + ON_PROFILE_CHANGE_CONFLICT;
+
+    public static final String RECORD_PROFILE_CHANGE = RECORD_PROFILE_CHANGES_INTO + "VALUES (?)"
+            + ON_PROFILE_CHANGE_CONFLICT;
+
+    // Change events go to the outbox in the transaction of the change; the drainer ships them to the event topic.
+    // Each keeps the sidam id the judge had, as the upsert of the people load clears it until the IDAM stage runs
+    private static final String RECORD_CHANGE_EVENTS_INTO = "INSERT INTO dbjudicialdata.judicial_change_event"
+            + " (personal_code, sidam_id, change_type) ";
+
+    // Runs before the page is upserted, so judges without a profile yet are the created ones
+    public static final String RECORD_CHANGE_EVENTS = RECORD_CHANGE_EVENTS_INTO
+            + "SELECT codes.code, jup.sidam_id, CASE WHEN jup.personal_code IS NOT NULL THEN 'APPOINTMENT_CHANGED'"
+            + " ELSE 'CREATED' END FROM (SELECT DISTINCT code FROM UNNEST(?) AS code) codes"
+            + " LEFT JOIN dbjudicialdata.judicial_user_profile jup ON jup.personal_code = codes.code";
+
+    public static final String RECORD_CHANGE_EVENT = RECORD_CHANGE_EVENTS_INTO + "VALUES (?, ?, ?)";
+
+    // Bulk updates bind their keys and values as arrays and return the key of every row they changed
+    // Each first locks its profiles in personal code order, so leavers, deleted and SIDAM id updates of the same
+    // judges queue behind each other rather than deadlock. The change CTEs read the profiles as they were locked,
+    // before the update, so only values that differ are queued and raise an event
+    public static final String BULK_UPDATE_LEAVERS = "WITH v AS (SELECT * FROM"
+            + " UNNEST(?::text[], ?::text[], ?::boolean[]) AS v(personal_code, left_on, active_flag)),"
+            + " locked AS (SELECT jup.personal_code, jup.sidam_id, jup.last_working_date, jup.active_flag"
+            + " FROM dbjudicialdata.judicial_user_profile jup JOIN v ON jup.personal_code = v.personal_code"
+            + " ORDER BY jup.personal_code FOR UPDATE OF jup),"
+            + " changed AS (" + RECORD_PROFILE_CHANGES_INTO + "SELECT l.personal_code FROM locked l JOIN v"
+            + " ON l.personal_code = v.personal_code WHERE l.last_working_date IS DISTINCT FROM v.left_on::date"
+            + " OR l.active_flag IS DISTINCT FROM v.active_flag ORDER BY l.personal_code"
+            + ON_PROFILE_CHANGE_CONFLICT + " RETURNING personal_code),"
+            + " events AS (" + RECORD_CHANGE_EVENTS_INTO + "SELECT l.personal_code, l.sidam_id, 'LEFT'"
+            + " FROM changed JOIN locked l USING (personal_code))"
+            + " UPDATE dbjudicialdata.judicial_user_profile jup"
+            + " SET last_working_date = v.left_on::date, active_flag = v.active_flag,"
+            + " last_loaded_date = NOW() AT TIME ZONE 'utc', content_hash = NULL"
+            + " FROM locked l JOIN v ON v.personal_code = l.personal_code WHERE jup.personal_code = l.personal_code"
+            + " RETURNING jup.personal_code";
+
+    public static final String BULK_UPDATE_DELETED = "WITH v AS (SELECT * FROM"
+            + " UNNEST(?::text[], ?::text[], ?::boolean[]) AS v(personal_code, deleted_on, deleted_flag)),"
+            + " locked AS (SELECT jup.personal_code, jup.sidam_id, jup.date_of_deletion, jup.deleted_flag"
+            + " FROM dbjudicialdata.judicial_user_profile jup JOIN v ON jup.personal_code = v.personal_code"
+            + " ORDER BY jup.personal_code FOR UPDATE OF jup),"
+            + " changed AS (" + RECORD_PROFILE_CHANGES_INTO + "SELECT l.personal_code FROM locked l JOIN v"
+            + " ON l.personal_code = v.personal_code WHERE l.date_of_deletion IS DISTINCT FROM v.deleted_on::date"
+            + " OR l.deleted_flag IS DISTINCT FROM v.deleted_flag ORDER BY l.personal_code"
+            + ON_PROFILE_CHANGE_CONFLICT + " RETURNING personal_code),"
+            + " events AS (" + RECORD_CHANGE_EVENTS_INTO + "SELECT l.personal_code, l.sidam_id, 'DELETED'"
+            + " FROM changed JOIN locked l USING (personal_code))"
+            + " UPDATE dbjudicialdata.judicial_user_profile jup"
+            + " SET date_of_deletion = v.deleted_on::date, deleted_flag = v.deleted_flag, content_hash = NULL"
+            + " FROM locked l JOIN v ON v.personal_code = l.personal_code WHERE jup.personal_code = l.personal_code"
+            + " RETURNING jup.personal_code";
+
+    public static final String BULK_UPDATE_SIDAM_IDS = "WITH v AS (SELECT * FROM"
+            + " UNNEST(?::text[], ?::text[]) AS v(object_id, sidam_id)),"
+            + " locked AS (SELECT jup.personal_code, jup.object_id, jup.sidam_id"
+            + " FROM dbjudicialdata.judicial_user_profile jup JOIN v ON jup.object_id = v.object_id"
+            + " WHERE jup.sidam_id IS NULL OR jup.sidam_id <> ' ' ORDER BY jup.personal_code FOR UPDATE OF jup),"
+            + " changed AS (" + RECORD_PROFILE_CHANGES_INTO + "SELECT l.personal_code FROM locked l JOIN v"
+            + " ON l.object_id = v.object_id WHERE l.sidam_id IS DISTINCT FROM v.sidam_id ORDER BY l.personal_code"
+            + ON_PROFILE_CHANGE_CONFLICT + " RETURNING personal_code),"
+            + " events AS (" + RECORD_CHANGE_EVENTS_INTO + "SELECT l.personal_code, v.sidam_id, 'SIDAM_ID_CHANGED'"
+            + " FROM changed JOIN locked l USING (personal_code) JOIN v ON v.object_id = l.object_id)"
+            + " UPDATE dbjudicialdata.judicial_user_profile jup SET sidam_id = v.sidam_id"
+            + " FROM locked l JOIN v ON v.object_id = l.object_id WHERE jup.personal_code = l.personal_code"
+            + " RETURNING jup.object_id";
+
+    public static final String INSERT_APPOINTMENT = "INSERT INTO dbjudicialdata.judicial_office_appointment"
+            + " (personal_code, base_location_id, hmcts_region_id, is_prinicple_appointment, start_date, end_date,"
+            + " created_date, last_loaded_date, epimms_id, appointment, appointment_type, type, appointment_id,"
+            + " role_name_id, contract_type_id, location, jo_base_location_id)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Authorisations whose appointment is not loaded are skipped (update count 0) rather than failing the batch
+    public static final String INSERT_AUTHORISATION = "INSERT INTO dbjudicialdata.judicial_office_authorisation"
+            + " (personal_code, jurisdiction, start_date, end_date, created_date, last_updated, lower_level,"
+            + " ticket_code, appointment_id, authorisation_id, jurisdiction_id)"
+            + " SELECT ?, ?, CAST(? AS DATE), CAST(? AS DATE), CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP), ?, ?, ?,"
+            + " ?, ? WHERE EXISTS (SELECT 1 FROM"
+            + " dbjudicialdata.judicial_office_appointment WHERE appointment_id = ?)";
+
+    public static final String INSERT_ROLE = "INSERT INTO dbjudicialdata.judicial_additional_roles"
+            + " (personal_code, title, start_date, end_date, jurisdiction_role_id)"
+            + " VALUES (?, ?, ?, ?, ?)";
+
+    public static final String INSERT_DATA_EXCEPTION_RECORD = "INSERT INTO dbjudicialdata.dataload_exception_records"
+            + " (scheduler_name, scheduler_start_time, table_name, \"key\", field_in_error, error_description,"
+            + " updated_timestamp, row_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    public static final String SELECT_DATA_EXCEPTION_RECORDS_FOR_REPORT = "SELECT \"key\", field_in_error,"
+            + " error_description, table_name, row_id FROM dbjudicialdata.dataload_exception_records"
+            + " WHERE scheduler_start_time = ? AND field_in_error = ANY(?) ORDER BY id";
+
+    // Only locations that are new or differ from the stored row are written
+    public static final String UPSERT_BASE_LOCATIONS = "INSERT INTO dbjudicialdata.location_type"
+            + " (base_location_id, name, type_id, parent_id, jurisdiction_id, start_date, end_date, created_at,"
+            + " updated_at) SELECT id, name, type_id, parent_id, jurisdiction_id, start_date::timestamp,"
+            + " end_date::timestamp, created_at::timestamp, updated_at::timestamp"
+            + " FROM UNNEST(?::text[], ?::text[], ?::text[], ?::text[], ?::text[], ?::text[], ?::text[], ?::text[],"
+            + " ?::text[]) AS v(id, name, type_id, parent_id, jurisdiction_id, start_date, end_date, created_at,"
+            + " updated_at)"
+            + " ON CONFLICT (base_location_id) DO UPDATE SET name = EXCLUDED.name, type_id = EXCLUDED.type_id,"
+            + " parent_id = EXCLUDED.parent_id, jurisdiction_id = EXCLUDED.jurisdiction_id,"
+            + " start_date = EXCLUDED.start_date, end_date = EXCLUDED.end_date, created_at = EXCLUDED.created_at,"
+            + " updated_at = EXCLUDED.updated_at"
+            + " WHERE (location_type.name, location_type.type_id, location_type.parent_id,"
+            + " location_type.jurisdiction_id, location_type.start_date, location_type.end_date,"
+            + " location_type.created_at, location_type.updated_at)"
+            + " IS DISTINCT FROM (EXCLUDED.name, EXCLUDED.type_id, EXCLUDED.parent_id, EXCLUDED.jurisdiction_id,"
+            + " EXCLUDED.start_date, EXCLUDED.end_date, EXCLUDED.created_at, EXCLUDED.updated_at)";
+
+    public static final String SELECT_PAYLOAD_HASH = "SELECT payload_hash FROM dbjudicialdata.elinks_payload_hash"
+            + " WHERE api_name = ?";
+
+    public static final String UPSERT_PAYLOAD_HASH = "INSERT INTO dbjudicialdata.elinks_payload_hash"
+            + " (api_name, payload_hash, updated_time) VALUES (?, ?, NOW() AT TIME ZONE 'utc')"
+            + " ON CONFLICT (api_name) DO UPDATE SET payload_hash = EXCLUDED.payload_hash,"
+            + " updated_time = EXCLUDED.updated_time";
+
+    public static final String SELECT_BASE_LOCATION_PARENT_IDS = "SELECT base_location_id, parent_id FROM"
+            + " dbjudicialdata.location_type";
+
+    public static final String SELECT_JRD_REGION_IDS = "SELECT DISTINCT jrd_region, region_id FROM"
+            + " dbjudicialdata.jrd_lrd_region_mapping";
+
+    public static final String SELECT_LOCATION_EPIMMS_IDS = "SELECT DISTINCT judicial_base_location_id, epimms_id"
+            + " FROM dbjudicialdata.judicial_location_mapping";
+
 }
@@ -15,6 +15,40 @@ public class SqlContants {
     public static final String GET_DISTINCT_SIDAM_ID = "SELECT DISTINCT sidam_id FROM "
             + "dbjudicialdata.judicial_user_profile WHERE sidam_id IS NOT NULL";
 
+    public static final String COUNT_DISTINCT_SIDAM_ID = "SELECT COUNT(DISTINCT sidam_id) FROM "
+            + "dbjudicialdata.judicial_user_profile WHERE sidam_id IS NOT NULL";
+
+    // The changes a publish sends and then deletes, copied once so later changes are left alone
+    public static final String CAPTURE_PROFILE_CHANGES = "CREATE TEMP TABLE published_profile_change "
+            + "ON COMMIT DROP AS SELECT personal_code, changed_time FROM dbjudicialdata.judicial_profile_change";
+
+    public static final String GET_CHANGED_SIDAM_ID = "SELECT DISTINCT jup.sidam_id FROM "
+            + "dbjudicialdata.judicial_user_profile jup JOIN published_profile_change ppc "
+            + "ON ppc.personal_code = jup.personal_code WHERE jup.sidam_id IS NOT NULL";
+
+    public static final String COUNT_CHANGED_SIDAM_ID = "SELECT COUNT(DISTINCT jup.sidam_id) FROM "
+            + "dbjudicialdata.judicial_user_profile jup JOIN dbjudicialdata.judicial_profile_change jpc "
+            + "ON jpc.personal_code = jup.personal_code WHERE jup.sidam_id IS NOT NULL";
+
+    // Only the captured changes go; one recorded again since has a later changed_time and stays queued
+    public static final String DELETE_PUBLISHED_PROFILE_CHANGES = "DELETE FROM "
+            + "dbjudicialdata.judicial_profile_change jpc USING published_profile_change ppc "
+            + "WHERE jpc.personal_code = ppc.personal_code AND jpc.changed_time = ppc.changed_time";
+
+    // Oldest events first; rows another drainer holds are skipped rather than waited on. The sidam id recorded with
+    // the event is sent, or the profile's when the judge had none then, as events written before it was recorded
+    public static final String CLAIM_CHANGE_EVENTS = "SELECT jce.id, jce.personal_code, "
+            + "COALESCE(jce.sidam_id, jup.sidam_id) AS sidam_id, "
+            + "jce.change_type, jce.created_time FROM dbjudicialdata.judicial_change_event jce "
+            + "LEFT JOIN dbjudicialdata.judicial_user_profile jup ON jup.personal_code = jce.personal_code "
+            + "WHERE jce.attempts < ? ORDER BY jce.id LIMIT ? FOR UPDATE OF jce SKIP LOCKED";
+
+    public static final String DELETE_CHANGE_EVENTS = "DELETE FROM dbjudicialdata.judicial_change_event "
+            + "WHERE id = ANY(?)";
+
+    public static final String INCREMENT_CHANGE_EVENT_ATTEMPTS = "UPDATE dbjudicialdata.judicial_change_event "
+            + "SET attempts = attempts + 1 WHERE id = ANY(?)";
+
     public static final String UPDATE_JOB_SQL = "UPDATE dbjudicialdata.dataload_schedular_job "
             + "SET job_end_time = NOW() AT TIME ZONE 'utc', publishing_status = ? WHERE id =?";
 }
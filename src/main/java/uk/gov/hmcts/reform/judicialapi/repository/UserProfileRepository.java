@@ -1,7 +1,9 @@
 package uk.gov.hmcts.reform.judicialapi.repository;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -11,11 +13,20 @@ import uk.gov.hmcts.reform.judicialapi.domain.UserProfile;
 import java.util.List;
 import java.util.Set;
 
+import static uk.gov.hmcts.reform.judicialapi.configuration.RefreshTotalsCacheConfiguration.REFRESH_TOTALS;
+import static uk.gov.hmcts.reform.judicialapi.configuration.RefreshTotalsCacheConfiguration.REFRESH_TOTALS_KEY;
+
 @Repository
 public interface UserProfileRepository extends JpaRepository<UserProfile, String> {
 
+    // seek condition of the cursor mode of the refresh queries, the profiles after the last one of the previous page
+    String AFTER_PAGE_TOKEN = "and (per.objectId > :lastObjectId "
+            + "or (per.objectId = :lastObjectId and per.perId > :lastPerId)) ";
+
     Page<UserProfile> findBySidamIdIn(List<String> sidamIds, Pageable pageable);
 
+    // the names are matched as lower(column) like '%...%', the expressions of the trigram indexes on the profile
+    // names, so the search reads the profiles whose names match rather than the whole table
     @Query(value = "select distinct new uk.gov.hmcts.reform.judicialapi.controller.response.UserSearchResponse"
                   + "(per.postNominals,per.knownAs,per.surname,per.fullName"
                    + ",per.ejudiciaryEmailId,per.sidamId,per.personalCode) "
@@ -39,63 +50,174 @@ public interface UserProfileRepository extends JpaRepository<UserProfile, String
     List<UserSearchResponse> findBySearchString(String searchString, String serviceCode, String locationCode,
                                          List<String> ticketCode, List<String> searchServiceCode);
 
-    @Query(value = "select distinct per "
+    // The refresh queries read a slice of the ids only, without counting, grouped by the primary key rather than
+    // distinct so the slice can be sorted by any column of the profile. The profiles of a slice are then loaded with
+    // findAllById, and their appointments, authorisations and roles each come in one subselect for the whole slice.
+    // The totals are counted separately and cached per filter.
+    @Query(value = "select per.perId "
             + "from judicial_user_profile per "
-            + "LEFT JOIN FETCH judicial_office_appointment appt "
+            + "LEFT JOIN judicial_office_appointment appt "
             + "on per.perId = appt.perId "
-            + "LEFT JOIN FETCH judicial_office_authorisation auth "
+            + "LEFT JOIN judicial_office_authorisation auth "
+            + "on per.perId = auth.perId "
+            + "where (per.objectId != '' and per.objectId is not null) "
+            + "and ((appt.endDate >= CURRENT_DATE or appt.endDate is null) "
+            + "or (auth.endDate >= CURRENT_DATE or auth.endDate is null)) "
+            + "and (per.objectId IN :objectIds) "
+            + "group by per.perId")
+    Slice<String> fetchPerIdsByObjectIds(List<String> objectIds, Pageable pageable);
+
+    @Cacheable(value = REFRESH_TOTALS, keyGenerator = REFRESH_TOTALS_KEY)
+    @Query(value = "select count(distinct per.perId) "
+            + "from judicial_user_profile per "
+            + "LEFT JOIN judicial_office_appointment appt "
+            + "on per.perId = appt.perId "
+            + "LEFT JOIN judicial_office_authorisation auth "
             + "on per.perId = auth.perId "
-            + "LEFT JOIN FETCH judicial_role_type jrt "
-            + "ON per.perId = jrt.perId "
             + "where (per.objectId != '' and per.objectId is not null) "
             + "and ((appt.endDate >= CURRENT_DATE or appt.endDate is null) "
             + "or (auth.endDate >= CURRENT_DATE or auth.endDate is null)) "
             + "and (per.objectId IN :objectIds)")
-    Page<UserProfile> fetchUserProfileByObjectIds(List<String> objectIds, Pageable pageable);
+    long countPerIdsByObjectIds(List<String> objectIds);
 
-    @Query(value = "select distinct per "
+    @Query(value = "select per.perId "
             + "from judicial_user_profile per "
-            + "LEFT JOIN FETCH judicial_office_appointment appt "
+            + "LEFT JOIN judicial_office_appointment appt "
             + "on per.perId = appt.perId "
-            + "LEFT JOIN FETCH judicial_office_authorisation auth "
+            + "LEFT JOIN judicial_office_authorisation auth "
+            + "on per.perId = auth.perId "
+            + "where (per.objectId != '' and per.objectId is not null) "
+            + "and ((appt.endDate >= CURRENT_DATE or appt.endDate is null) "
+            + "or (auth.endDate >= CURRENT_DATE or auth.endDate is null)) "
+            + "and (appt.serviceCode IN :ccdServiceCode or auth.ticketCode IN :ticketCode ) "
+            + "group by per.perId")
+    Slice<String> fetchPerIdsByServiceNames(Set<String> ccdServiceCode, List<String> ticketCode, Pageable pageable);
+
+    @Cacheable(value = REFRESH_TOTALS, keyGenerator = REFRESH_TOTALS_KEY)
+    @Query(value = "select count(distinct per.perId) "
+            + "from judicial_user_profile per "
+            + "LEFT JOIN judicial_office_appointment appt "
+            + "on per.perId = appt.perId "
+            + "LEFT JOIN judicial_office_authorisation auth "
             + "on per.perId = auth.perId "
-            + "LEFT JOIN FETCH judicial_role_type jrt "
-            + "ON per.perId = jrt.perId "
             + "where (per.objectId != '' and per.objectId is not null) "
             + "and ((appt.endDate >= CURRENT_DATE or appt.endDate is null) "
             + "or (auth.endDate >= CURRENT_DATE or auth.endDate is null)) "
             + "and (appt.serviceCode IN :ccdServiceCode or auth.ticketCode IN :ticketCode )")
-    Page<UserProfile> fetchUserProfileByServiceNames(Set<String> ccdServiceCode,
-                                                     List<String> ticketCode, Pageable pageable);
+    long countPerIdsByServiceNames(Set<String> ccdServiceCode, List<String> ticketCode);
 
-    @Query(value = "select distinct per "
+    @Query(value = "select per.perId "
             + "from judicial_user_profile per "
-            + "LEFT JOIN FETCH judicial_office_appointment appt "
+            + "LEFT JOIN judicial_office_appointment appt "
             + "on per.perId = appt.perId "
-            + "LEFT JOIN FETCH judicial_office_authorisation auth "
+            + "LEFT JOIN judicial_office_authorisation auth "
+            + "on per.perId = auth.perId "
+            + "where (per.objectId != '' and per.objectId is not null) "
+            + "and ((appt.endDate >= CURRENT_DATE or appt.endDate is null) "
+            + "or (auth.endDate >= CURRENT_DATE or auth.endDate is null)) "
+            + "and (per.sidamId IN :sidamIds) "
+            + "group by per.perId")
+    Slice<String> fetchPerIdsBySidamIds(List<String> sidamIds, Pageable pageable);
+
+    @Cacheable(value = REFRESH_TOTALS, keyGenerator = REFRESH_TOTALS_KEY)
+    @Query(value = "select count(distinct per.perId) "
+            + "from judicial_user_profile per "
+            + "LEFT JOIN judicial_office_appointment appt "
+            + "on per.perId = appt.perId "
+            + "LEFT JOIN judicial_office_authorisation auth "
             + "on per.perId = auth.perId "
-            + "LEFT JOIN FETCH judicial_role_type jrt "
-            + "ON per.perId = jrt.perId "
             + "where (per.objectId != '' and per.objectId is not null) "
             + "and ((appt.endDate >= CURRENT_DATE or appt.endDate is null) "
             + "or (auth.endDate >= CURRENT_DATE or auth.endDate is null)) "
             + "and (per.sidamId IN :sidamIds)")
-    Page<UserProfile> fetchUserProfileBySidamIds(List<String> sidamIds, Pageable pageable);
+    long countPerIdsBySidamIds(List<String> sidamIds);
 
-    @Query(value = "select distinct per "
+    @Query(value = "select per.perId "
             + "from judicial_user_profile per "
-            + "LEFT JOIN FETCH judicial_office_appointment appt "
+            + "LEFT JOIN judicial_office_appointment appt "
             + "on per.perId = appt.perId "
-            + "LEFT JOIN FETCH judicial_office_authorisation auth "
+            + "LEFT JOIN judicial_office_authorisation auth "
+            + "on per.perId = auth.perId "
+            + "where (per.objectId != '' and per.objectId is not null) "
+            + "and ((appt.endDate >= CURRENT_DATE or appt.endDate is null) "
+            + "or (auth.endDate >= CURRENT_DATE or auth.endDate is null)) "
+            + "and (per.personalCode IN :personalCodes) "
+            + "group by per.perId")
+    Slice<String> fetchPerIdsByPersonalCodes(List<String> personalCodes, Pageable pageable);
+
+    @Cacheable(value = REFRESH_TOTALS, keyGenerator = REFRESH_TOTALS_KEY)
+    @Query(value = "select count(distinct per.perId) "
+            + "from judicial_user_profile per "
+            + "LEFT JOIN judicial_office_appointment appt "
+            + "on per.perId = appt.perId "
+            + "LEFT JOIN judicial_office_authorisation auth "
             + "on per.perId = auth.perId "
-            + "LEFT JOIN FETCH judicial_role_type jrt "
-            + "ON per.perId = jrt.perId "
             + "where (per.objectId != '' and per.objectId is not null) "
             + "and ((appt.endDate >= CURRENT_DATE or appt.endDate is null) "
             + "or (auth.endDate >= CURRENT_DATE or auth.endDate is null)) "
             + "and (per.personalCode IN :personalCodes)")
-    Page<UserProfile> fetchUserProfileByPersonalCodes(List<String> personalCodes, Pageable pageable);
+    long countPerIdsByPersonalCodes(List<String> personalCodes);
+
+
+    @Query(value = "select per.perId "
+            + "from judicial_user_profile per "
+            + "LEFT JOIN judicial_office_appointment appt "
+            + "on per.perId = appt.perId "
+            + "LEFT JOIN judicial_office_authorisation auth "
+            + "on per.perId = auth.perId "
+            + "where (per.objectId != '' and per.objectId is not null) "
+            + "and ((appt.endDate >= CURRENT_DATE or appt.endDate is null) "
+            + "or (auth.endDate >= CURRENT_DATE or auth.endDate is null)) "
+            + "and (per.objectId IN :objectIds) "
+            + AFTER_PAGE_TOKEN
+            + "group by per.perId")
+    Slice<String> fetchPerIdsByObjectIdsAfter(List<String> objectIds,
+                                             String lastObjectId, String lastPerId, Pageable pageable);
 
+    @Query(value = "select per.perId "
+            + "from judicial_user_profile per "
+            + "LEFT JOIN judicial_office_appointment appt "
+            + "on per.perId = appt.perId "
+            + "LEFT JOIN judicial_office_authorisation auth "
+            + "on per.perId = auth.perId "
+            + "where (per.objectId != '' and per.objectId is not null) "
+            + "and ((appt.endDate >= CURRENT_DATE or appt.endDate is null) "
+            + "or (auth.endDate >= CURRENT_DATE or auth.endDate is null)) "
+            + "and (appt.serviceCode IN :ccdServiceCode or auth.ticketCode IN :ticketCode ) "
+            + AFTER_PAGE_TOKEN
+            + "group by per.perId")
+    Slice<String> fetchPerIdsByServiceNamesAfter(Set<String> ccdServiceCode, List<String> ticketCode,
+                                                String lastObjectId, String lastPerId, Pageable pageable);
+
+    @Query(value = "select per.perId "
+            + "from judicial_user_profile per "
+            + "LEFT JOIN judicial_office_appointment appt "
+            + "on per.perId = appt.perId "
+            + "LEFT JOIN judicial_office_authorisation auth "
+            + "on per.perId = auth.perId "
+            + "where (per.objectId != '' and per.objectId is not null) "
+            + "and ((appt.endDate >= CURRENT_DATE or appt.endDate is null) "
+            + "or (auth.endDate >= CURRENT_DATE or auth.endDate is null)) "
+            + "and (per.sidamId IN :sidamIds) "
+            + AFTER_PAGE_TOKEN
+            + "group by per.perId")
+    Slice<String> fetchPerIdsBySidamIdsAfter(List<String> sidamIds,
+                                            String lastObjectId, String lastPerId, Pageable pageable);
+
+    @Query(value = "select per.perId "
+            + "from judicial_user_profile per "
+            + "LEFT JOIN judicial_office_appointment appt "
+            + "on per.perId = appt.perId "
+            + "LEFT JOIN judicial_office_authorisation auth "
+            + "on per.perId = auth.perId "
+            + "where (per.objectId != '' and per.objectId is not null) "
+            + "and ((appt.endDate >= CURRENT_DATE or appt.endDate is null) "
+            + "or (auth.endDate >= CURRENT_DATE or auth.endDate is null)) "
+            + "and (per.personalCode IN :personalCodes) "
+            + AFTER_PAGE_TOKEN
+            + "group by per.perId")
+    Slice<String> fetchPerIdsByPersonalCodesAfter(List<String> personalCodes,
+                                                 String lastObjectId, String lastPerId, Pageable pageable);
 
     @Query(value = "select distinct per "
             + "from judicial_user_profile per "
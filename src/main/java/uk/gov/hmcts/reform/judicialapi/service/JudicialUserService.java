@@ -13,6 +13,19 @@ public interface JudicialUserService {
 
     ResponseEntity<Object> retrieveUserProfile(UserSearchRequest userSearchRequest);
 
+    default ResponseEntity<Object> refreshUserProfile(RefreshRoleRequest refreshRoleRequest, Integer pageSize,
+                                                      Integer pageNumber, String sortDirection, String sortColumn) {
+        return refreshUserProfile(refreshRoleRequest, pageSize, pageNumber, sortDirection, sortColumn, null, null);
+    }
+
+    /**
+     * Refreshes the user profiles of a page. A non null pageToken selects the cursor mode: the page follows the
+     * profile the token was issued for, in (objectId, perId) order, and the token of the next page is returned
+     * in the next_page_token header instead of the total_records header. Outside the cursor mode the
+     * total_records header comes from a cached count unless includeTotal is false, in which case only a has_next
+     * header is returned and nothing is counted.
+     */
     ResponseEntity<Object> refreshUserProfile(RefreshRoleRequest refreshRoleRequest, Integer pageSize,
-                                              Integer pageNumber, String sortDirection, String sortColumn);
+                                              Integer pageNumber, String sortDirection, String sortColumn,
+                                              String pageToken, Boolean includeTotal);
 }
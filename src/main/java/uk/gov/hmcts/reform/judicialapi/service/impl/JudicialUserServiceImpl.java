@@ -6,8 +6,11 @@ import org.apache.commons.lang.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -35,6 +38,7 @@ import uk.gov.hmcts.reform.judicialapi.repository.ServiceCodeMappingRepository;
 import uk.gov.hmcts.reform.judicialapi.repository.UserProfileRepository;
 import uk.gov.hmcts.reform.judicialapi.service.JudicialUserService;
 import uk.gov.hmcts.reform.judicialapi.util.JsonFeignResponseUtil;
+import uk.gov.hmcts.reform.judicialapi.util.PageToken;
 import uk.gov.hmcts.reform.judicialapi.util.RefDataConstants;
 import uk.gov.hmcts.reform.judicialapi.util.RequestUtils;
 import uk.gov.hmcts.reform.judicialapi.validator.RefreshUserValidator;
@@ -43,7 +47,10 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
 import static java.util.Objects.nonNull;
@@ -132,42 +139,59 @@ public class JudicialUserServiceImpl implements JudicialUserService {
     @Override
     @SuppressWarnings("unchecked")
     public ResponseEntity<Object> refreshUserProfile(RefreshRoleRequest refreshRoleRequest, Integer pageSize,
-                                                     Integer pageNumber, String sortDirection, String sortColumn) {
+                                                     Integer pageNumber, String sortDirection, String sortColumn,
+                                                     String pageToken, Boolean includeTotal) {
 
         log.info("{} : starting refreshUserProfile ", loggingComponentName);
         refreshUserValidator.shouldContainOnlyOneInputParameter(refreshRoleRequest);
         var pageRequest = RequestUtils.validateAndBuildPaginationObject(pageSize, pageNumber,
                 sortDirection, sortColumn, refreshDefaultPageSize, refreshDefaultSortColumn,
                 UserProfile.class);
+        // a page token, even a blank one, selects the cursor mode, which pages in (objectId, perId) order
+        var cursor = pageToken == null ? null : PageToken.decode(pageToken);
+        if (cursor != null) {
+            pageRequest = PageToken.pageRequest(pageRequest.getPageSize(), "perId");
+        }
+        // the cursor mode never counts, and in the offset mode the total can be left out to skip the count
+        var withTotal = cursor == null && !Boolean.FALSE.equals(includeTotal);
 
-        return getRefreshUserProfileBasedOnParam(refreshRoleRequest, pageRequest);
+        return getRefreshUserProfileBasedOnParam(refreshRoleRequest, pageRequest, cursor, withTotal);
 
     }
 
     private ResponseEntity<Object> getRefreshUserProfileBasedOnParam(RefreshRoleRequest refreshRoleRequest,
-                                                                     PageRequest pageRequest) {
+                                                                     PageRequest pageRequest, PageToken cursor,
+                                                                     boolean withTotal) {
         log.info("{} : starting getRefreshUserProfile Based On Param ", loggingComponentName);
         if (refreshUserValidator.isStringNotEmptyOrNotNull(refreshRoleRequest.getCcdServiceNames())) {
-            return refreshUserProfileBasedOnCcdServiceNames(refreshRoleRequest.getCcdServiceNames(), pageRequest);
+            return refreshUserProfileBasedOnCcdServiceNames(refreshRoleRequest.getCcdServiceNames(), pageRequest,
+                    cursor, withTotal);
         } else if (refreshUserValidator.isListNotEmptyOrNotNull(refreshRoleRequest.getSidamIds())) {
             return refreshUserProfileBasedOnSidamIds(
-                    refreshUserValidator.removeEmptyOrNullFromList(refreshRoleRequest.getSidamIds()), pageRequest);
+                    refreshUserValidator.removeEmptyOrNullFromList(refreshRoleRequest.getSidamIds()), pageRequest,
+                    cursor, withTotal);
         } else if (refreshUserValidator.isListNotEmptyOrNotNull(refreshRoleRequest.getObjectIds())) {
             return refreshUserProfileBasedOnObjectIds(
-                    refreshUserValidator.removeEmptyOrNullFromList(refreshRoleRequest.getObjectIds()), pageRequest);
+                    refreshUserValidator.removeEmptyOrNullFromList(refreshRoleRequest.getObjectIds()), pageRequest,
+                    cursor, withTotal);
         } else if (refreshUserValidator.isListNotEmptyOrNotNull(refreshRoleRequest.getPersonalCodes())) {
             return refreshUserProfileBasedOnPersonalCodes(refreshUserValidator.removeEmptyOrNullFromList(
-                    refreshRoleRequest.getPersonalCodes()), pageRequest);
+                    refreshRoleRequest.getPersonalCodes()), pageRequest, cursor, withTotal);
         }
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
     @SuppressWarnings("unchecked")
     private ResponseEntity<Object> refreshUserProfileBasedOnObjectIds(List<String> objectIds,
-                                                                      PageRequest pageRequest) {
+                                                                      PageRequest pageRequest,
+                                                                      PageToken cursor,
+                                                                      boolean withTotal) {
         log.info("{} : starting refreshUserProfile BasedOn ObjectIds ", loggingComponentName);
-        var userProfilePage = userProfileRepository.fetchUserProfileByObjectIds(
-                objectIds, pageRequest);
+        var userProfilePage = loadUserProfiles(cursor == null
+                ? userProfileRepository.fetchPerIdsByObjectIds(objectIds, pageRequest)
+                : userProfileRepository.fetchPerIdsByObjectIdsAfter(objectIds, cursor.getObjectId(),
+                        cursor.getId(), pageRequest),
+                withTotal ? () -> userProfileRepository.countPerIdsByObjectIds(objectIds) : null);
 
 
         if (userProfilePage == null || userProfilePage.isEmpty()) {
@@ -176,39 +200,72 @@ public class JudicialUserServiceImpl implements JudicialUserService {
             throw new ResourceNotFoundException(RefDataConstants.NO_DATA_FOUND);
         }
 
-        return getRefreshRoleResponseEntity(userProfilePage, objectIds, "objectIds");
+        return getRefreshRoleResponseEntity(userProfilePage, objectIds, "objectIds", cursor != null);
     }
 
     @SuppressWarnings("unchecked")
     private ResponseEntity<Object> refreshUserProfileBasedOnSidamIds(List<String> sidamIds,
-                                                                     PageRequest pageRequest) {
+                                                                     PageRequest pageRequest,
+                                                                     PageToken cursor,
+                                                                     boolean withTotal) {
         log.info("{} : starting refreshUserProfile BasedOn SidamIds ", loggingComponentName);
-        var userProfilePage = userProfileRepository.fetchUserProfileBySidamIds(
-                sidamIds, pageRequest);
+        var userProfilePage = loadUserProfiles(cursor == null
+                ? userProfileRepository.fetchPerIdsBySidamIds(sidamIds, pageRequest)
+                : userProfileRepository.fetchPerIdsBySidamIdsAfter(sidamIds, cursor.getObjectId(),
+                        cursor.getId(), pageRequest),
+                withTotal ? () -> userProfileRepository.countPerIdsBySidamIds(sidamIds) : null);
         if (userProfilePage == null || userProfilePage.isEmpty()) {
             log.error("{}:: No data found in JRD for the sidamIds {}",
                     loggingComponentName, sidamIds);
             throw new ResourceNotFoundException(RefDataConstants.NO_DATA_FOUND);
         }
-        return getRefreshRoleResponseEntity(userProfilePage, sidamIds, "sidamIds");
+        return getRefreshRoleResponseEntity(userProfilePage, sidamIds, "sidamIds", cursor != null);
     }
 
     @SuppressWarnings("unchecked")
     private ResponseEntity<Object> refreshUserProfileBasedOnPersonalCodes(List<String> personalCodes,
-                                                                          PageRequest pageRequest) {
+                                                                          PageRequest pageRequest,
+                                                                          PageToken cursor,
+                                                                          boolean withTotal) {
         log.info("{} : starting refreshUserProfile BasedOn personalCodes ", loggingComponentName);
-        var userProfilePage = userProfileRepository.fetchUserProfileByPersonalCodes(
-                personalCodes, pageRequest);
+        var userProfilePage = loadUserProfiles(cursor == null
+                ? userProfileRepository.fetchPerIdsByPersonalCodes(personalCodes, pageRequest)
+                : userProfileRepository.fetchPerIdsByPersonalCodesAfter(personalCodes, cursor.getObjectId(),
+                        cursor.getId(), pageRequest),
+                withTotal ? () -> userProfileRepository.countPerIdsByPersonalCodes(personalCodes) : null);
         if (userProfilePage == null || userProfilePage.isEmpty()) {
             log.error("{}:: No data found in JRD for the personalCodes {}",
                     loggingComponentName, personalCodes);
             throw new ResourceNotFoundException(RefDataConstants.NO_DATA_FOUND);
         }
-        return getRefreshRoleResponseEntity(userProfilePage, personalCodes, "personalCodes");
+        return getRefreshRoleResponseEntity(userProfilePage, personalCodes, "personalCodes", cursor != null);
+    }
+
+    /**
+     * Loads the profiles of a slice of ids in the order of the slice. With a total, which comes from the cached
+     * count of the filter, they are returned as a page, otherwise as a slice that only knows if more follow.
+     */
+    private Slice<UserProfile> loadUserProfiles(Slice<String> perIdPage, LongSupplier total) {
+        if (perIdPage == null || perIdPage.isEmpty()) {
+            return Page.empty();
+        }
+        var userProfiles = userProfileRepository.findAllById(perIdPage.getContent())
+                .stream()
+                .collect(Collectors.toMap(UserProfile::getPerId, Function.identity()));
+        var pageContent = perIdPage.getContent()
+                .stream()
+                .map(userProfiles::get)
+                .filter(Objects::nonNull)
+                .toList();
+        if (total != null) {
+            return new PageImpl<>(pageContent, perIdPage.getPageable(), total.getAsLong());
+        }
+        return new SliceImpl<>(pageContent, perIdPage.getPageable(), perIdPage.hasNext());
     }
 
-    private ResponseEntity<Object> getRefreshRoleResponseEntity(Page<UserProfile> userProfilePage,
-                                                                Object collection, String collectionName) {
+    private ResponseEntity<Object> getRefreshRoleResponseEntity(Slice<UserProfile> userProfilePage,
+                                                                Object collection, String collectionName,
+                                                                boolean cursorMode) {
         log.info("{} : starting getRefresh Role Response Entity ", loggingComponentName);
         var userProfileList = new ArrayList<UserProfileRefreshResponse>();
 
@@ -248,16 +305,25 @@ public class JudicialUserServiceImpl implements JudicialUserService {
 
         log.info("{}:: Successfully fetched the User Profile details to refresh role assignment "
                 + "for " + collectionName + " {}", loggingComponentName, collection);
-        return ResponseEntity
-                .ok()
-                .header("total_records", String.valueOf(userProfilePage.getTotalElements()))
-                .body(refreshResponse);
+        var response = ResponseEntity.ok();
+        if (userProfilePage instanceof Page<UserProfile> page) {
+            response.header("total_records", String.valueOf(page.getTotalElements()));
+        } else {
+            response.header("has_next", String.valueOf(userProfilePage.hasNext()));
+        }
+        if (cursorMode && userProfilePage.hasNext()) {
+            var last = userProfilePage.getContent().get(userProfilePage.getNumberOfElements() - 1);
+            response.header("next_page_token", PageToken.encode(last.getObjectId(), last.getPerId()));
+        }
+        return response.body(refreshResponse);
 
     }
 
     @SuppressWarnings("unchecked")
     private ResponseEntity<Object> refreshUserProfileBasedOnCcdServiceNames(String ccdServiceNames,
-                                                                            PageRequest pageRequest) {
+                                                                            PageRequest pageRequest,
+                                                                            PageToken cursor,
+                                                                            boolean withTotal) {
         log.info("{} : starting refreshUserProfile BasedOn CcdServiceNames ", loggingComponentName);
         var lrdOrgInfoServiceResponse =
                 locationReferenceDataFeignClient.getLocationRefServiceMapping(ccdServiceNames);
@@ -281,11 +347,16 @@ public class JudicialUserServiceImpl implements JudicialUserService {
                                         LrdOrgInfoServiceResponse::getCcdServiceName));
                 log.info("ccdServiceNameToCodeMapping keySet {}", ccdServiceNameToCodeMapping.keySet());
 
-                var ticketCode = fetchTicketCodeFromServiceCode(ccdServiceNameToCodeMapping.keySet());
+                var serviceCodes = ccdServiceNameToCodeMapping.keySet();
+                var ticketCode = fetchTicketCodeFromServiceCode(serviceCodes);
                 log.info("ticketCode {}", ticketCode);
 
-                var userProfilePage = userProfileRepository.fetchUserProfileByServiceNames(
-                        ccdServiceNameToCodeMapping.keySet(), ticketCode, pageRequest);
+                var userProfilePage = loadUserProfiles(cursor == null
+                        ? userProfileRepository.fetchPerIdsByServiceNames(serviceCodes, ticketCode, pageRequest)
+                        : userProfileRepository.fetchPerIdsByServiceNamesAfter(serviceCodes, ticketCode,
+                                cursor.getObjectId(), cursor.getId(), pageRequest),
+                        withTotal ? () -> userProfileRepository.countPerIdsByServiceNames(serviceCodes, ticketCode)
+                                : null);
 
                 if (userProfilePage == null || userProfilePage.isEmpty()) {
                     log.error("{}:: No data found in JRD for the ccdServiceNames {}",
@@ -293,7 +364,8 @@ public class JudicialUserServiceImpl implements JudicialUserService {
                     throw new ResourceNotFoundException(RefDataConstants.NO_DATA_FOUND);
                 }
 
-                return getRefreshRoleResponseEntity(userProfilePage, ccdServiceNames, "ccdServiceNames");
+                return getRefreshRoleResponseEntity(userProfilePage, ccdServiceNames, "ccdServiceNames",
+                        cursor != null);
             }
         }
 
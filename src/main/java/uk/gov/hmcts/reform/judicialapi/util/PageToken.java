@@ -0,0 +1,63 @@
+package uk.gov.hmcts.reform.judicialapi.util;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import uk.gov.hmcts.reform.judicialapi.controller.advice.InvalidRequestException;
+
+import java.util.Base64;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static uk.gov.hmcts.reform.judicialapi.util.RefDataConstants.INVALID_FIELD;
+import static uk.gov.hmcts.reform.judicialapi.util.RefDataConstants.PAGE_TOKEN;
+
+/**
+ * Continuation token of the cursor mode of the refresh endpoints. It holds the objectId and id of the last profile
+ * of the previous page, and the next page is read from the profiles after them in (objectId, id) order, so the cost
+ * of a page does not grow with its depth and profiles added or removed meanwhile do not shift the pages.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PageToken {
+
+    private static final String SEPARATOR = "\n";
+
+    // every profile returned by the refresh queries has a non empty objectId, so the first page seeks after ""
+    private static final PageToken FIRST_PAGE = new PageToken("", "");
+
+    private final String objectId;
+
+    private final String id;
+
+    /**
+     * Decodes the token sent by the client. A blank token asks for the first page.
+     */
+    public static PageToken decode(String pageToken) {
+        if (StringUtils.isBlank(pageToken)) {
+            return FIRST_PAGE;
+        }
+        try {
+            var key = new String(Base64.getUrlDecoder().decode(pageToken.trim()), UTF_8).split(SEPARATOR, -1);
+            if (key.length == 2 && StringUtils.isNoneEmpty(key[0], key[1])) {
+                return new PageToken(key[0], key[1]);
+            }
+        } catch (IllegalArgumentException ex) {
+            // not base64, reported below like any other malformed token
+        }
+        throw new InvalidRequestException(String.format(INVALID_FIELD, PAGE_TOKEN));
+    }
+
+    public static String encode(String objectId, String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((objectId + SEPARATOR + id).getBytes(UTF_8));
+    }
+
+    /**
+     * Request of the ids of a page, in the (objectId, id) order the token seeks in.
+     */
+    public static PageRequest pageRequest(int pageSize, String idColumn) {
+        return PageRequest.of(0, pageSize, Sort.by(Sort.Direction.ASC, "objectId", idColumn));
+    }
+}
@@ -23,6 +23,7 @@ public class RefDataConstants {
     public static final String PAGE_SIZE = "Page Size";
     public static final String SORT_DIRECTION = "Sort Direction";
     public static final String SORT_COLUMN = "Sort Column";
+    public static final String PAGE_TOKEN = "Page Token";
 
 
 
@@ -0,0 +1,7 @@
+--Create dbjudicialdata.judicial_profile_change
+--Personal codes whose judicial data changed since their SIDAM ids were last published to the topic
+CREATE TABLE IF NOT EXISTS dbjudicialdata.judicial_profile_change(
+  personal_code varchar(32) NOT NULL,
+  changed_time timestamp NOT NULL DEFAULT now(),
+  CONSTRAINT judicial_profile_change_pk PRIMARY KEY (personal_code)
+);
@@ -0,0 +1,8 @@
+--Create dbjudicialdata.elinks_payload_hash
+--Hash of the last payload loaded from an eLinks API, so an identical download can be skipped
+CREATE TABLE IF NOT EXISTS dbjudicialdata.elinks_payload_hash(
+  api_name varchar(64) NOT NULL,
+  payload_hash varchar(64) NOT NULL,
+  updated_time timestamp NOT NULL,
+  CONSTRAINT elinks_payload_hash_pk PRIMARY KEY (api_name)
+);
@@ -0,0 +1,25 @@
+--Trigram indexes on the lower cased names the user search matches with like '%...%', so the search reads the
+--profiles whose names contain the search string instead of scanning every profile
+--The pg_trgm extension needs more than the application user's privileges, so it is created on each server before
+--deploying (see the README) and the migration only checks for it
+DO $$
+BEGIN
+  IF NOT EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm') THEN
+    RAISE EXCEPTION 'pg_trgm is not installed in this database; create it before deploying, see the README';
+  END IF;
+END
+$$;
+
+CREATE INDEX IF NOT EXISTS judicial_user_profile_known_as_trgm_idx
+  ON dbjudicialdata.judicial_user_profile USING gin (lower(known_as) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS judicial_user_profile_surname_trgm_idx
+  ON dbjudicialdata.judicial_user_profile USING gin (lower(surname) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS judicial_user_profile_full_name_trgm_idx
+  ON dbjudicialdata.judicial_user_profile USING gin (lower(full_name) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS judicial_user_profile_known_as_trgm_idx
+  ON dbjuddata.judicial_user_profile USING gin (lower(known_as) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS judicial_user_profile_surname_trgm_idx
+  ON dbjuddata.judicial_user_profile USING gin (lower(surname) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS judicial_user_profile_full_name_trgm_idx
+  ON dbjuddata.judicial_user_profile USING gin (lower(full_name) gin_trgm_ops);
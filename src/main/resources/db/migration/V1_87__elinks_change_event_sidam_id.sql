@@ -0,0 +1,3 @@
+--The sidam id of the judge when the change event was recorded, as the people load clears the profile's sidam id
+--until the IDAM stage of the run sets it again
+ALTER TABLE dbjudicialdata.judicial_change_event ADD COLUMN IF NOT EXISTS sidam_id varchar(64);
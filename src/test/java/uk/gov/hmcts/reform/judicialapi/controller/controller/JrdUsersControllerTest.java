@@ -84,7 +84,7 @@ class JrdUsersControllerTest {
     @Test
     void shouldRefreshUserProfile() {
         responseEntity = ResponseEntity.ok().body(null);
-        when(judicialUserServiceMock.refreshUserProfile(any(),any(),any(),any(), any()))
+        when(judicialUserServiceMock.refreshUserProfile(any(), any(), any(), any(), any(), any(), any()))
                 .thenReturn(responseEntity);
 
         PageRequest pageRequest = RequestUtils.validateAndBuildPaginationObject(1, 0,
@@ -94,12 +94,12 @@ class JrdUsersControllerTest {
         RefreshRoleRequest refreshRoleRequest = new RefreshRoleRequest("cmc", null, null,null);
         ResponseEntity<?> actual = jrdUsersController
                 .refreshUserProfile(refreshRoleRequest, 1, 0,
-                        "ASC", "objectId");
+                        "ASC", "objectId", null, null);
 
         assertNotNull(actual);
         verify(judicialUserServiceMock, times(1))
                 .refreshUserProfile(refreshRoleRequest, 1, 0,
-                        "ASC", "objectId");
+                        "ASC", "objectId", null, null);
     }
 
 }
@@ -18,6 +18,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import uk.gov.hmcts.reform.judicialapi.controller.advice.ErrorResponse;
@@ -41,6 +43,7 @@ import uk.gov.hmcts.reform.judicialapi.repository.RegionMappingRepository;
 import uk.gov.hmcts.reform.judicialapi.repository.ServiceCodeMappingRepository;
 import uk.gov.hmcts.reform.judicialapi.repository.UserProfileRepository;
 import uk.gov.hmcts.reform.judicialapi.service.impl.JudicialUserServiceImpl;
+import uk.gov.hmcts.reform.judicialapi.util.PageToken;
 import uk.gov.hmcts.reform.judicialapi.util.RequestUtils;
 import uk.gov.hmcts.reform.judicialapi.validator.RefreshUserValidator;
 
@@ -61,6 +64,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -291,8 +295,9 @@ class JudicialUserServiceImplTest {
         when(serviceCodeMappingRepository.findAllServiceCodeMapping())
                 .thenReturn(List.of(serviceCodeMappingOne,serviceCodeMappingTwo));
         when(regionMappingRepository.findAllRegionMappingData()).thenReturn(List.of(regionMapping));
-        when(userProfileRepository.fetchUserProfileBySidamIds(List.of("test", "test"), pageRequest))
-                .thenReturn(page);
+        var perIdPage = stubUserProfilesOf(page);
+        when(userProfileRepository.fetchPerIdsBySidamIds(List.of("test", "test"), pageRequest))
+                .thenReturn(perIdPage);
         var refreshRoleRequest = new RefreshRoleRequest("",
                 null, Arrays.asList("test", "test"),null);
         var responseEntity = judicialUserService.refreshUserProfile(refreshRoleRequest, 1,
@@ -301,6 +306,78 @@ class JudicialUserServiceImplTest {
         assertEquals(200, responseEntity.getStatusCodeValue());
     }
 
+    @Test
+    void test_refreshUserProfile_CursorModeReturnsTheTokenOfTheNextPage() {
+        var userProfile = buildUserProfile();
+        var pageToken = PageToken.encode("objectId0", "0");
+        var pageRequest = PageToken.pageRequest(1, "perId");
+        var regionMapping = RegionMapping
+                .builder()
+                .regionId("1")
+                .region("National")
+                .jrdRegionId("1")
+                .jrdRegion("National")
+                .build();
+
+        when(serviceCodeMappingRepository.findAllServiceCodeMapping()).thenReturn(List.of());
+        when(regionMappingRepository.findAllRegionMappingData()).thenReturn(List.of(regionMapping));
+        when(userProfileRepository.fetchPerIdsBySidamIdsAfter(List.of("test"), "objectId0", "0", pageRequest))
+                .thenReturn(new SliceImpl<>(List.of("1"), pageRequest, true));
+        when(userProfileRepository.findAllById(List.of("1"))).thenReturn(List.of(userProfile));
+        var refreshRoleRequest = new RefreshRoleRequest("", null, List.of("test"), null);
+
+        var responseEntity = judicialUserService.refreshUserProfile(refreshRoleRequest, 1,
+                0, "ASC", "objectId", pageToken, null);
+
+        assertEquals(200, responseEntity.getStatusCodeValue());
+        assertEquals(PageToken.encode(userProfile.getObjectId(), "1"),
+                responseEntity.getHeaders().getFirst("next_page_token"));
+        assertNull(responseEntity.getHeaders().getFirst("total_records"));
+        verify(userProfileRepository, never()).countPerIdsBySidamIds(any());
+    }
+
+    @Test
+    void test_refreshUserProfile_TotalRecordsComeFromTheCount() {
+        var userProfile = buildUserProfile();
+        var pageRequest = getPageRequest();
+
+        when(serviceCodeMappingRepository.findAllServiceCodeMapping()).thenReturn(List.of());
+        when(regionMappingRepository.findAllRegionMappingData()).thenReturn(List.of());
+        when(userProfileRepository.fetchPerIdsBySidamIds(List.of("test"), pageRequest))
+                .thenReturn(new SliceImpl<>(List.of("1"), pageRequest, true));
+        when(userProfileRepository.countPerIdsBySidamIds(List.of("test"))).thenReturn(42L);
+        when(userProfileRepository.findAllById(List.of("1"))).thenReturn(List.of(userProfile));
+        var refreshRoleRequest = new RefreshRoleRequest("", null, List.of("test"), null);
+
+        var responseEntity = judicialUserService.refreshUserProfile(refreshRoleRequest, 1,
+                0, "ASC", "objectId");
+
+        assertEquals(200, responseEntity.getStatusCodeValue());
+        assertEquals("42", responseEntity.getHeaders().getFirst("total_records"));
+        assertNull(responseEntity.getHeaders().getFirst("has_next"));
+    }
+
+    @Test
+    void test_refreshUserProfile_WithoutTotalReturnsHasNext() {
+        var userProfile = buildUserProfile();
+        var pageRequest = getPageRequest();
+
+        when(serviceCodeMappingRepository.findAllServiceCodeMapping()).thenReturn(List.of());
+        when(regionMappingRepository.findAllRegionMappingData()).thenReturn(List.of());
+        when(userProfileRepository.fetchPerIdsBySidamIds(List.of("test"), pageRequest))
+                .thenReturn(new SliceImpl<>(List.of("1"), pageRequest, false));
+        when(userProfileRepository.findAllById(List.of("1"))).thenReturn(List.of(userProfile));
+        var refreshRoleRequest = new RefreshRoleRequest("", null, List.of("test"), null);
+
+        var responseEntity = judicialUserService.refreshUserProfile(refreshRoleRequest, 1,
+                0, "ASC", "objectId", null, false);
+
+        assertEquals(200, responseEntity.getStatusCodeValue());
+        assertEquals("false", responseEntity.getHeaders().getFirst("has_next"));
+        assertNull(responseEntity.getHeaders().getFirst("total_records"));
+        verify(userProfileRepository, never()).countPerIdsBySidamIds(any());
+    }
+
     @DisplayName("Refresh Userprofile based on IAC objectId")
     @Test
     void test_refreshUserProfile_BasedOnObjectIds_200() {
@@ -329,8 +406,9 @@ class JudicialUserServiceImplTest {
         when(serviceCodeMappingRepository.findAllServiceCodeMapping()).thenReturn(List.of(serviceCodeMappingOne,
                 serviceCodeMappingTwo));
         when(regionMappingRepository.findAllRegionMappingData()).thenReturn(List.of(regionMapping));
-        when(userProfileRepository.fetchUserProfileByObjectIds(List.of("test", "test"), pageRequest))
-                .thenReturn(page);
+        var perIdPage = stubUserProfilesOf(page);
+        when(userProfileRepository.fetchPerIdsByObjectIds(List.of("test", "test"), pageRequest))
+                .thenReturn(perIdPage);
         var refreshRoleRequest = new RefreshRoleRequest("",
                 Arrays.asList("test", "test"), null,null);
         var responseEntity = judicialUserService.refreshUserProfile(refreshRoleRequest, 1,
@@ -364,8 +442,9 @@ class JudicialUserServiceImplTest {
                 .build();
         when(serviceCodeMappingRepository.findAllServiceCodeMapping()).thenReturn(List.of(serviceCodeMappingOne));
         when(regionMappingRepository.findAllRegionMappingData()).thenReturn(List.of(regionMapping));
-        when(userProfileRepository.fetchUserProfileByObjectIds(List.of("test", "test"), pageRequest))
-                .thenReturn(page);
+        var perIdPage = stubUserProfilesOf(page);
+        when(userProfileRepository.fetchPerIdsByObjectIds(List.of("test", "test"), pageRequest))
+                .thenReturn(perIdPage);
         var refreshRoleRequest = new RefreshRoleRequest("",
                 Arrays.asList("test", "test"), null,null);
 
@@ -402,8 +481,9 @@ class JudicialUserServiceImplTest {
                 .build();
         when(serviceCodeMappingRepository.findAllServiceCodeMapping()).thenReturn(List.of(serviceCodeMappingOne));
         when(regionMappingRepository.findAllRegionMappingData()).thenReturn(List.of(regionMapping));
-        when(userProfileRepository.fetchUserProfileByObjectIds(List.of("test", "test"), pageRequest))
-                .thenReturn(page);
+        var perIdPage = stubUserProfilesOf(page);
+        when(userProfileRepository.fetchPerIdsByObjectIds(List.of("test", "test"), pageRequest))
+                .thenReturn(perIdPage);
         var refreshRoleRequest = new RefreshRoleRequest("",
                 Arrays.asList("test", "test"), null,null);
 
@@ -462,8 +542,9 @@ class JudicialUserServiceImplTest {
         when(serviceCodeMappingRepository.findAllServiceCodeMapping()).thenReturn(List.of(serviceCodeMapping));
         when(regionMappingRepository.findAllRegionMappingData()).thenReturn(List.of(regionMapping));
 
-        when(userProfileRepository.fetchUserProfileByPersonalCodes(List.of("Emp", "Emp"), pageRequest))
-                .thenReturn(page);
+        var perIdPage = stubUserProfilesOf(page);
+        when(userProfileRepository.fetchPerIdsByPersonalCodes(List.of("Emp", "Emp"), pageRequest))
+                .thenReturn(perIdPage);
         var refreshRoleRequest = new RefreshRoleRequest("",
                 null, null, Arrays.asList("Emp", "Emp", null));
         var responseEntity = judicialUserService.refreshUserProfile(refreshRoleRequest, 1,
@@ -502,7 +583,7 @@ class JudicialUserServiceImplTest {
 
         var pageRequest = getPageRequest();
         var page = new PageImpl<>(Collections.singletonList(userProfile));
-        when(userProfileRepository.fetchUserProfileByPersonalCodes(List.of("Emp", "Emp"), pageRequest))
+        when(userProfileRepository.fetchPerIdsByPersonalCodes(List.of("Emp", "Emp"), pageRequest))
                 .thenReturn(null);
         var refreshRoleRequest = new RefreshRoleRequest("",
                 null, null, Arrays.asList("Emp", "Emp"));
@@ -530,8 +611,9 @@ class JudicialUserServiceImplTest {
         var page = new PageImpl<>(Collections.singletonList(userProfile));
 
         when(serviceCodeMappingRepository.fetchTicketCodeFromServiceCode(Set.of("BFA1"))).thenReturn(List.of("386"));
-        when(userProfileRepository.fetchUserProfileByServiceNames(Set.of("BFA1"), List.of("386"), pageRequest))
-                .thenReturn(page);
+        var perIdPage = stubUserProfilesOf(page);
+        when(userProfileRepository.fetchPerIdsByServiceNames(Set.of("BFA1"), List.of("386"), pageRequest))
+                .thenReturn(perIdPage);
         var refreshRoleRequest = new RefreshRoleRequest("cmc",
                 null, null,null);
         var responseEntity = judicialUserService.refreshUserProfile(refreshRoleRequest, 1,
@@ -572,8 +654,9 @@ class JudicialUserServiceImplTest {
         var pageRequest = getPageRequest();
 
         var page = new PageImpl<UserProfile>(Collections.emptyList());
-        when(userProfileRepository.fetchUserProfileByServiceNames(Set.of("BFA1"), List.of("386"), pageRequest))
-                .thenReturn(page);
+        var perIdPage = stubUserProfilesOf(page);
+        when(userProfileRepository.fetchPerIdsByServiceNames(Set.of("BFA1"), List.of("386"), pageRequest))
+                .thenReturn(perIdPage);
         when(serviceCodeMappingRepository.fetchTicketCodeFromServiceCode(Set.of("BFA1"))).thenReturn(List.of("386"));
         var refreshRoleRequest = new RefreshRoleRequest("cmc",
                 null, null,null);
@@ -1013,4 +1096,11 @@ class JudicialUserServiceImplTest {
 
     }
 
+    private Slice<String> stubUserProfilesOf(PageImpl<UserProfile> page) {
+        var ids = page.getContent().stream().map(UserProfile::getPerId).toList();
+        if (!ids.isEmpty()) {
+            when(userProfileRepository.findAllById(ids)).thenReturn(page.getContent());
+        }
+        return new SliceImpl<>(ids);
+    }
 }
@@ -1,6 +1,7 @@
 package uk.gov.hmcts.reform.judicialapi.controller.util;
 
 import freemarker.template.Configuration;
+import freemarker.template.Template;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -21,6 +22,8 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.util.ReflectionTestUtils.setField;
 
@@ -62,6 +65,17 @@ public class EmailTemplateTest {
                 () -> emailTemplate.getEmailBody("lower-level-auth.ftl", model));
     }
 
+    @Test
+    void getEmailBody_should_parse_template_once() throws Exception {
+        when(freemarkerConfig.getTemplate("lower-level-auth.ftl")).thenReturn(mock(Template.class));
+        Map<String, Object> model = getModel();
+
+        emailTemplate.getEmailBody("lower-level-auth.ftl", model);
+        emailTemplate.getEmailBody("lower-level-auth.ftl", model);
+
+        verify(freemarkerConfig, times(1)).getTemplate("lower-level-auth.ftl");
+    }
+
     @NotNull
     private Map<String, Object> getModel() {
         List<Authorisation> newLowerLevelAuths = List.of(new Authorisation());
@@ -0,0 +1,48 @@
+package uk.gov.hmcts.reform.judicialapi.controller.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import uk.gov.hmcts.reform.judicialapi.controller.advice.InvalidRequestException;
+import uk.gov.hmcts.reform.judicialapi.util.PageToken;
+
+import java.util.Base64;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PageTokenTest {
+
+    @Test
+    void testEncodedTokenDecodesToTheSameKey() {
+        var pageToken = PageToken.decode(PageToken.encode("5f8b26ba-0c8b-4192-874b-58b2f1a5e3e2", "41929"));
+
+        assertEquals("5f8b26ba-0c8b-4192-874b-58b2f1a5e3e2", pageToken.getObjectId());
+        assertEquals("41929", pageToken.getId());
+    }
+
+    @Test
+    void testBlankTokenSeeksFromTheFirstProfile() {
+        var pageToken = PageToken.decode(" ");
+
+        assertEquals("", pageToken.getObjectId());
+        assertEquals("", pageToken.getId());
+    }
+
+    @Test
+    void testInvalidRequestExceptionForMalformedToken() {
+        var withoutId = Base64.getUrlEncoder().encodeToString("objectId".getBytes(UTF_8));
+
+        Assertions.assertThrows(InvalidRequestException.class, () -> PageToken.decode("not base64!"));
+        Assertions.assertThrows(InvalidRequestException.class, () -> PageToken.decode(withoutId));
+    }
+
+    @Test
+    void testPageRequestOrdersByObjectIdThenId() {
+        var pageRequest = PageToken.pageRequest(10, "personalCode");
+
+        assertEquals(0, pageRequest.getPageNumber());
+        assertEquals(10, pageRequest.getPageSize());
+        assertEquals(Sort.by(Sort.Direction.ASC, "objectId", "personalCode"), pageRequest.getSort());
+    }
+}
@@ -13,17 +13,16 @@ import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkBaseLocationWrapperR
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkDeletedWrapperResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkLeaversWrapperResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkPeopleWrapperResponse;
-import uk.gov.hmcts.reform.judicialapi.elinks.response.IdamResponse;
+import uk.gov.hmcts.reform.judicialapi.elinks.response.IdamSyncSummaryResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.SchedulerJobStatusResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.service.PublishSidamIdService;
 import uk.gov.hmcts.reform.judicialapi.elinks.service.impl.ELinksServiceImpl;
 import uk.gov.hmcts.reform.judicialapi.elinks.service.impl.ElinksPeopleServiceImpl;
 import uk.gov.hmcts.reform.judicialapi.elinks.service.impl.IdamElasticSearchServiceImpl;
 
-import java.util.HashSet;
-import java.util.Set;
-
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.DELETEDSUCCESS;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.LEAVERSSUCCESS;
@@ -90,9 +89,9 @@ class ElinksControllerTest {
                 HttpStatus.OK
         );
 
-        when(elinksPeopleServiceImpl.updatePeople()).thenReturn(responseEntity);
+        when(elinksPeopleServiceImpl.updatePeople(false)).thenReturn(responseEntity);
 
-        ResponseEntity<ElinkPeopleWrapperResponse> actual = eLinksController.loadPeople();
+        ResponseEntity<ElinkPeopleWrapperResponse> actual = eLinksController.loadPeople(false);
         assertThat(actual).isNotNull();
         assertThat(actual.getStatusCodeValue()).isEqualTo(HttpStatus.OK.value());
         assertThat(actual.getBody().getMessage()).hasToString(PEOPLE_DATA_LOAD_SUCCESS);
@@ -102,14 +101,27 @@ class ElinksControllerTest {
     @Test
     void test_idam_elastic_search_success() {
 
-        Set<IdamResponse> idamResponseSet = new HashSet<>();
-        idamResponseSet.add(new IdamResponse());
-        ResponseEntity<Object> response = ResponseEntity.status(HttpStatus.OK).body(idamResponseSet);
+        ResponseEntity<IdamSyncSummaryResponse> response = ResponseEntity.status(HttpStatus.OK)
+            .body(IdamSyncSummaryResponse.builder().pages(1).usersSeen(1).sidamIdsUpdated(1).build());
         when(idamElasticSearchService.getIdamElasticSearchSyncFeed()).thenReturn(response);
 
-        ResponseEntity<Object> actual = eLinksController.idamElasticSearch();
+        ResponseEntity<IdamSyncSummaryResponse> actual = eLinksController.idamElasticSearch(false);
         assertThat(actual).isNotNull();
         assertThat(actual.getStatusCodeValue()).isEqualTo(HttpStatus.OK.value());
+        assertThat(actual.getBody().getSidamIdsUpdated()).isEqualTo(1);
+
+    }
+
+    @Test
+    void test_idam_missing_sidam_id_search_success() {
+
+        ResponseEntity<IdamSyncSummaryResponse> response = ResponseEntity.status(HttpStatus.OK)
+            .body(IdamSyncSummaryResponse.builder().build());
+        when(idamElasticSearchService.getIdamMissingSidamIdSyncFeed()).thenReturn(response);
+
+        ResponseEntity<IdamSyncSummaryResponse> actual = eLinksController.idamElasticSearch(true);
+        assertThat(actual.getStatusCodeValue()).isEqualTo(HttpStatus.OK.value());
+        verify(idamElasticSearchService, never()).getIdamElasticSearchSyncFeed();
 
     }
 
@@ -180,9 +192,9 @@ class ElinksControllerTest {
             HttpStatus.OK
         );
 
-        when(publishSidamIdService.publishSidamIdToAsb()).thenReturn(responseEntity);
+        when(publishSidamIdService.publishSidamIdToAsb(false)).thenReturn(responseEntity);
 
-        ResponseEntity<SchedulerJobStatusResponse> actual = eLinksController.publishSidamIdToAsb();
+        ResponseEntity<SchedulerJobStatusResponse> actual = eLinksController.publishSidamIdToAsb(false);
         assertThat(actual).isNotNull();
         assertThat(actual.getStatusCodeValue()).isEqualTo(HttpStatus.OK.value());
         assertThat(actual.getBody().getJobStatus()).isEqualTo("success");
@@ -52,7 +52,7 @@ public class JrdElinkControllertest {
     @Test
     void shouldRefreshUserProfile() {
         responseEntity = ResponseEntity.ok().body(null);
-        when(elinkUserService.refreshUserProfile(any(), any(), any(), any(), any()))
+        when(elinkUserService.refreshUserProfile(any(), any(), any(), any(), any(), any(), any()))
                 .thenReturn(responseEntity);
 
         PageRequest pageRequest = RequestUtils.validateAndBuildPaginationObject(1, 0,
@@ -62,12 +62,12 @@ public class JrdElinkControllertest {
         RefreshRoleRequest refreshRoleRequest = new RefreshRoleRequest("cmc", null, null, null);
         ResponseEntity<?> actual = jrdElinkController
                 .refreshUserProfile(refreshRoleRequest, 1, 0,
-                        "ASC", "objectId");
+                        "ASC", "objectId", null, null);
 
         assertNotNull(actual);
         verify(elinkUserService, times(1))
                 .refreshUserProfile(refreshRoleRequest, 1, 0,
-                        "ASC", "objectId");
+                        "ASC", "objectId", null, null);
 
     }
 }
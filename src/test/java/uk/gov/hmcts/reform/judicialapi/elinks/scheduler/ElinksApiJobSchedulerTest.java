@@ -2,22 +2,43 @@ package uk.gov.hmcts.reform.judicialapi.elinks.scheduler;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.util.ReflectionTestUtils;
-import org.springframework.web.client.RestTemplate;
 import uk.gov.hmcts.reform.judicialapi.elinks.domain.DataloadSchedulerJob;
+import uk.gov.hmcts.reform.judicialapi.elinks.service.ELinksService;
+import uk.gov.hmcts.reform.judicialapi.elinks.service.ElinksPeopleService;
+import uk.gov.hmcts.reform.judicialapi.elinks.service.IdamElasticSearchService;
+import uk.gov.hmcts.reform.judicialapi.elinks.service.PublishSidamIdService;
 import uk.gov.hmcts.reform.judicialapi.elinks.util.DataloadSchedulerJobAudit;
 import uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static java.time.LocalDateTime.now;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.DELETEDAPI;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.IDAMSEARCH;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.LEAVERSAPI;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.LOCATIONAPI;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.PEOPLEAPI;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.PUBLISHASB;
 
 @ExtendWith(MockitoExtension.class)
 class ElinksApiJobSchedulerTest {
@@ -27,7 +48,22 @@ class ElinksApiJobSchedulerTest {
     private DataloadSchedulerJobAudit dataloadSchedulerJobAudit;
 
     @Mock
-    private RestTemplate restTemplate;
+    private ElinksJobStageExecutor elinksJobStageExecutor;
+
+    @Mock
+    private ELinksService eLinksService;
+
+    @Mock
+    private ElinksPeopleService elinksPeopleService;
+
+    @Mock
+    private IdamElasticSearchService idamElasticSearchService;
+
+    @Mock
+    private PublishSidamIdService publishSidamIdService;
+
+    @Captor
+    private ArgumentCaptor<List<ElinksJobStage>> stagesCaptor;
 
     @InjectMocks
     @Spy
@@ -38,10 +74,6 @@ class ElinksApiJobSchedulerTest {
     @Test
     void test_load_elinks_job() {
 
-        ReflectionTestUtils.setField(elinksApiJobScheduler, "eLinksWrapperBaseUrl",
-                "http://localhost:8093");
-
-
         DataloadSchedulerJob audit = new DataloadSchedulerJob();
         LocalDateTime jobStartTime = now();
 
@@ -57,11 +89,59 @@ class ElinksApiJobSchedulerTest {
         assertThat(elinksApiJobScheduler).isNotNull();
 
         verify(elinksApiJobScheduler, times(1)).loadElinksJob();
-        verify(elinksApiJobScheduler, times(0)).retrieveLocationDetails();
-        verify(elinksApiJobScheduler, times(0)). retrievePeopleDetails();
-        verify(elinksApiJobScheduler, times(0)). retrieveLeaversDetails();
-        verify(elinksApiJobScheduler, times(0)). retrieveDeletedDetails();
-        verify(elinksApiJobScheduler, times(0)).  retrieveIdamElasticSearchDetails();
+        verify(elinksApiJobScheduler, times(0)).loadElinksData();
+        verify(elinksJobStageExecutor, times(0)).run(any());
+
+    }
+
+    @Test
+    void test_load_elinks_data_runs_stage_graph() {
+
+        ReflectionTestUtils.setField(elinksApiJobScheduler, "stageMaxAttempts", 2);
+
+        elinksApiJobScheduler.loadElinksData();
+
+        verify(elinksJobStageExecutor, times(1)).run(stagesCaptor.capture());
+        Map<String, List<String>> dependencies = stagesCaptor.getValue().stream()
+            .collect(Collectors.toMap(ElinksJobStage::getName, ElinksJobStage::getDependsOn));
+        assertThat(dependencies).isEqualTo(Map.of(
+            LOCATIONAPI, List.of(),
+            PEOPLEAPI, List.of(LOCATIONAPI),
+            LEAVERSAPI, List.of(PEOPLEAPI),
+            DELETEDAPI, List.of(LEAVERSAPI),
+            IDAMSEARCH, List.of(LEAVERSAPI, DELETEDAPI),
+            PUBLISHASB, List.of(IDAMSEARCH)));
+        assertThat(stagesCaptor.getValue()).filteredOn(stage -> PUBLISHASB.equals(stage.getName()))
+            .extracting(ElinksJobStage::getMaxAttempts).containsExactly(1);
+    }
+
+    @Test
+    void test_idam_stage_looks_up_missing_sidam_ids_after_window_sync() {
+
+        ReflectionTestUtils.setField(elinksApiJobScheduler, "missingSidamIdLookup", true);
+        when(idamElasticSearchService.getIdamElasticSearchSyncFeed()).thenReturn(ResponseEntity.ok().build());
+        when(idamElasticSearchService.getIdamMissingSidamIdSyncFeed()).thenReturn(ResponseEntity.ok().build());
+
+        ElinksJobStage idamStage = elinksApiJobScheduler.elinksJobStages().stream()
+            .filter(stage -> IDAMSEARCH.equals(stage.getName())).findFirst().orElseThrow();
+
+        assertThat(idamStage.getAction().get().getStatusCodeValue()).isEqualTo(200);
+        InOrder inOrder = inOrder(idamElasticSearchService);
+        inOrder.verify(idamElasticSearchService).getIdamElasticSearchSyncFeed();
+        inOrder.verify(idamElasticSearchService).getIdamMissingSidamIdSyncFeed();
+    }
+
+    @Test
+    void test_idam_stage_skips_missing_sidam_id_lookup_when_window_sync_fails() {
+
+        ReflectionTestUtils.setField(elinksApiJobScheduler, "missingSidamIdLookup", true);
+        when(idamElasticSearchService.getIdamElasticSearchSyncFeed())
+            .thenReturn(ResponseEntity.status(HttpStatus.FORBIDDEN).build());
+
+        ElinksJobStage idamStage = elinksApiJobScheduler.elinksJobStages().stream()
+            .filter(stage -> IDAMSEARCH.equals(stage.getName())).findFirst().orElseThrow();
 
+        assertThat(idamStage.getAction().get().getStatusCodeValue()).isEqualTo(403);
+        verify(idamElasticSearchService, never()).getIdamMissingSidamIdSyncFeed();
     }
 }
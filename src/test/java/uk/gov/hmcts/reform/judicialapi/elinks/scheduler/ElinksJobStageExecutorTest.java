@@ -0,0 +1,139 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.scheduler;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkDataIngestionSchedularAudit;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants;
+import uk.gov.hmcts.reform.judicialapi.service.FeatureToggleService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ElinksJobStageExecutorTest {
+
+    @InjectMocks
+    ElinksJobStageExecutor elinksJobStageExecutor;
+
+    @Mock
+    FeatureToggleService featureToggleService;
+
+    @Mock
+    ElinkDataIngestionSchedularAudit elinkDataIngestionSchedularAudit;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(elinksJobStageExecutor, "stageRetryPauseTime", 0L);
+    }
+
+    @Test
+    void dependentStagesWaitAndIndependentStagesOverlap() {
+        List<String> started = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        Supplier<ResponseEntity<?>> parallel = () -> {
+            bothRunning.countDown();
+            try {
+                return bothRunning.await(5, TimeUnit.SECONDS) ? ok()
+                    : ResponseEntity.internalServerError().build();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            }
+        };
+
+        Map<String, Boolean> results = elinksJobStageExecutor.run(List.of(
+            stage("location", List.of(), recording(started, "location", ElinksJobStageExecutorTest::ok)),
+            stage("leavers", List.of("location"), recording(started, "leavers", parallel)),
+            stage("deleted", List.of("location"), recording(started, "deleted", parallel)),
+            stage("idam", List.of("leavers", "deleted"), recording(started, "idam", ElinksJobStageExecutorTest::ok))));
+
+        assertThat(results).containsOnlyKeys("location", "leavers", "deleted", "idam").doesNotContainValue(false);
+        assertThat(started.get(0)).isEqualTo("location");
+        assertThat(started.get(3)).isEqualTo("idam");
+    }
+
+    @Test
+    void failedStageIsRetriedThenAuditedWithoutStoppingLaterStages() {
+        AtomicInteger attempts = new AtomicInteger();
+        ElinksJobStage people = ElinksJobStage.builder().name("People").maxAttempts(2)
+            .action(() -> {
+                attempts.incrementAndGet();
+                throw new IllegalStateException("eLinks unavailable");
+            }).build();
+
+        Map<String, Boolean> results = elinksJobStageExecutor.run(List.of(people,
+            stage("Leavers", List.of("People"), ElinksJobStageExecutorTest::ok)));
+
+        assertThat(results).containsEntry("People", false).containsEntry("Leavers", true);
+        assertThat(attempts).hasValue(2);
+        verify(elinkDataIngestionSchedularAudit, times(1)).auditSchedulerStatus(any(), any(), any(),
+            eq(RefDataElinksConstants.JobStatus.FAILED.getStatus()), eq("People"));
+    }
+
+    @Test
+    void stageBehindUnreleasedFlagIsSkipped() {
+        AtomicInteger attempts = new AtomicInteger();
+        when(featureToggleService.getLaunchDarklyMap())
+            .thenReturn(Map.of("ElinksController.loadPeople", "jrd-elinks-load-people"));
+        when(featureToggleService.isFlagEnabled("jrd-elinks-load-people")).thenReturn(false);
+        ElinksJobStage people = ElinksJobStage.builder().name("People")
+            .featureFlagKey("ElinksController.loadPeople").action(() -> {
+                attempts.incrementAndGet();
+                return ResponseEntity.ok().build();
+            }).build();
+
+        Map<String, Boolean> results = elinksJobStageExecutor.run(List.of(people));
+
+        assertThat(results).containsEntry("People", false);
+        assertThat(attempts).hasValue(0);
+    }
+
+    @Test
+    void stageWhoseFlagCannotBeReadIsReportedAsFailedWithoutStoppingLaterStages() {
+        when(featureToggleService.getLaunchDarklyMap())
+            .thenThrow(new IllegalStateException("LaunchDarkly unavailable"))
+            .thenReturn(Collections.emptyMap());
+        ElinksJobStage people = ElinksJobStage.builder().name("People")
+            .featureFlagKey("ElinksController.loadPeople").action(ElinksJobStageExecutorTest::ok).build();
+
+        Map<String, Boolean> results = elinksJobStageExecutor.run(List.of(people,
+            stage("Leavers", List.of("People"), ElinksJobStageExecutorTest::ok)));
+
+        assertThat(results).containsEntry("People", false).containsEntry("Leavers", true);
+    }
+
+    private static ResponseEntity<?> ok() {
+        return ResponseEntity.ok().build();
+    }
+
+    private ElinksJobStage stage(String name, List<String> dependsOn, Supplier<ResponseEntity<?>> action) {
+        return ElinksJobStage.builder().name(name).dependsOn(dependsOn).action(action).build();
+    }
+
+    private Supplier<ResponseEntity<?>> recording(List<String> started, String name,
+                                                  Supplier<ResponseEntity<?>> action) {
+        return () -> {
+            started.add(name);
+            return action.get();
+        };
+    }
+}
@@ -18,14 +18,15 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import uk.gov.hmcts.reform.judicialapi.elinks.exception.ElinksException;
 import uk.gov.hmcts.reform.judicialapi.elinks.feign.ElinksFeignClient;
-import uk.gov.hmcts.reform.judicialapi.elinks.repository.BaseLocationRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.repository.LocationRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.BaseLocationResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkBaseLocationResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkBaseLocationWrapperResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkDataIngestionSchedularAudit;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksBaseLocationWriter;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksRateLimiter;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksReferenceDataSnapshot;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import static java.nio.charset.Charset.defaultCharset;
@@ -33,6 +34,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -51,7 +53,7 @@ import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants
 class ELinksBaseLocationServiceImplTest {
 
     @Mock
-    BaseLocationRepository baseLocationRepository;
+    ElinksBaseLocationWriter elinksBaseLocationWriter;
 
     @Mock
     LocationRepository locationRepository;
@@ -62,6 +64,12 @@ class ELinksBaseLocationServiceImplTest {
     @Spy
     private ElinkDataIngestionSchedularAudit elinkDataIngestionSchedularAudit;
 
+    @Spy
+    private ElinksRateLimiter elinksRateLimiter;
+
+    @Mock
+    private ElinksReferenceDataSnapshot elinksReferenceDataSnapshot;
+
     @InjectMocks
     private ELinksServiceImpl eLinksServiceImpl;
 
@@ -83,7 +91,7 @@ class ELinksBaseLocationServiceImplTest {
         when(elinksFeignClient.getLocationDetails()).thenReturn(Response.builder()
                 .request(mock(Request.class)).body(body, defaultCharset()).status(HttpStatus.OK.value()).build());
 
-        when(baseLocationRepository.saveAll(anyList())).thenReturn(new ArrayList<>());
+        when(elinksBaseLocationWriter.load(anyList())).thenReturn(baseLocations.size());
 
         ResponseEntity<ElinkBaseLocationWrapperResponse> responseEntity = eLinksServiceImpl.retrieveLocation();
 
@@ -92,7 +100,26 @@ class ELinksBaseLocationServiceImplTest {
         assertThat(responseEntity.getBody().getMessage()).contains(BASE_LOCATION_DATA_LOAD_SUCCESS);
         verify(elinkDataIngestionSchedularAudit,times(2))
             .auditSchedulerStatus(any(),any(),any(),any(),any());
+        verify(elinksReferenceDataSnapshot, times(1)).refresh();
+
+    }
+
+    @Test
+    void elinksService_load_location_should_not_refresh_reference_data_when_nothing_changed()
+            throws JsonProcessingException {
 
+        ElinkBaseLocationResponse elinkBaseLocationResponse = new ElinkBaseLocationResponse();
+        elinkBaseLocationResponse.setResults(getBaseLocationResponseData());
+        String body = new ObjectMapper().writeValueAsString(elinkBaseLocationResponse);
+
+        when(elinksFeignClient.getLocationDetails()).thenReturn(Response.builder()
+                .request(mock(Request.class)).body(body, defaultCharset()).status(HttpStatus.OK.value()).build());
+        when(elinksBaseLocationWriter.load(anyList())).thenReturn(0);
+
+        ResponseEntity<ElinkBaseLocationWrapperResponse> responseEntity = eLinksServiceImpl.retrieveLocation();
+
+        assertThat(responseEntity.getBody().getMessage()).contains(BASE_LOCATION_DATA_LOAD_SUCCESS);
+        verify(elinksReferenceDataSnapshot, never()).refresh();
     }
 
 
@@ -117,7 +144,7 @@ class ELinksBaseLocationServiceImplTest {
                 .request(mock(Request.class)).body(body, defaultCharset()).status(HttpStatus.OK.value()).build());
 
 
-        when(baseLocationRepository.saveAll(anyList())).thenThrow(dataAccessException);
+        when(elinksBaseLocationWriter.load(anyList())).thenThrow(dataAccessException);
         ElinksException thrown = Assertions.assertThrows(ElinksException.class, () -> {
             ResponseEntity<ElinkBaseLocationWrapperResponse> responseEntity = eLinksServiceImpl.retrieveLocation();
         });
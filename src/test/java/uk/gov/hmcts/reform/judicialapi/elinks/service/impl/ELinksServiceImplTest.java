@@ -19,14 +19,15 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import uk.gov.hmcts.reform.judicialapi.elinks.exception.ElinksException;
 import uk.gov.hmcts.reform.judicialapi.elinks.feign.ElinksFeignClient;
-import uk.gov.hmcts.reform.judicialapi.elinks.repository.BaseLocationRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.repository.LocationRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.BaseLocationResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkBaseLocationResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkBaseLocationWrapperResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkDataIngestionSchedularAudit;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksBaseLocationWriter;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksRateLimiter;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksReferenceDataSnapshot;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import static java.nio.charset.Charset.defaultCharset;
@@ -49,7 +50,7 @@ import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants
 class ELinksServiceImplTest {
 
     @Mock
-    BaseLocationRepository baseLocationRepository;
+    ElinksBaseLocationWriter elinksBaseLocationWriter;
 
     @Mock
     LocationRepository locationRepository;
@@ -60,6 +61,12 @@ class ELinksServiceImplTest {
     @Spy
     private ElinkDataIngestionSchedularAudit elinkDataIngestionSchedularAudit;
 
+    @Spy
+    private ElinksRateLimiter elinksRateLimiter;
+
+    @Mock
+    private ElinksReferenceDataSnapshot elinksReferenceDataSnapshot;
+
     @InjectMocks
     private ELinksServiceImpl eLinksServiceImpl;
 
@@ -81,7 +88,7 @@ class ELinksServiceImplTest {
         when(elinksFeignClient.getLocationDetails()).thenReturn(Response.builder()
                 .request(mock(Request.class)).body(body, defaultCharset()).status(HttpStatus.OK.value()).build());
 
-        when(baseLocationRepository.saveAll(anyList())).thenReturn(new ArrayList<>());
+        when(elinksBaseLocationWriter.load(anyList())).thenReturn(baseLocationResponses.size());
 
         ResponseEntity<ElinkBaseLocationWrapperResponse> responseEntity = eLinksServiceImpl.retrieveLocation();
 
@@ -112,7 +119,7 @@ class ELinksServiceImplTest {
         when(elinksFeignClient.getLocationDetails()).thenReturn(Response.builder()
                 .request(mock(Request.class)).body(body, defaultCharset()).status(HttpStatus.OK.value()).build());
 
-        when(baseLocationRepository.saveAll(anyList())).thenThrow(dataAccessException);
+        when(elinksBaseLocationWriter.load(anyList())).thenThrow(dataAccessException);
         ElinksException thrown = Assertions.assertThrows(ElinksException.class, () -> {
             ResponseEntity<ElinkBaseLocationWrapperResponse> responseEntity = eLinksServiceImpl.retrieveLocation();
         });
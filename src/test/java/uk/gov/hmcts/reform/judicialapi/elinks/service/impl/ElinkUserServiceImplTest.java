@@ -15,6 +15,8 @@ import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import uk.gov.hmcts.reform.judicialapi.controller.advice.ErrorResponse;
 import uk.gov.hmcts.reform.judicialapi.controller.advice.InvalidRequestException;
@@ -40,6 +42,7 @@ import uk.gov.hmcts.reform.judicialapi.elinks.response.UserSearchResponseWrapper
 import uk.gov.hmcts.reform.judicialapi.elinks.util.RequestUtils;
 import uk.gov.hmcts.reform.judicialapi.elinks.validator.ElinksRefreshUserValidator;
 import uk.gov.hmcts.reform.judicialapi.feign.LocationReferenceDataFeignClient;
+import uk.gov.hmcts.reform.judicialapi.util.PageToken;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -57,6 +60,7 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -303,8 +307,9 @@ class ElinkUserServiceImplTest {
 
         when(serviceCodeMappingRepository.findAllServiceCodeMapping())
                 .thenReturn(List.of(serviceCodeMappingOne,serviceCodeMappingTwo));
-        when(profileRepository.fetchUserProfileBySidamIds(List.of("test", "test"), pageRequest))
-                .thenReturn(page);
+        var personalCodePage = stubUserProfilesOf(page);
+        when(profileRepository.fetchPersonalCodesBySidamIds(List.of("test", "test"), pageRequest))
+                .thenReturn(personalCodePage);
         var refreshRoleRequest = new uk.gov.hmcts.reform.judicialapi.elinks.controller.request.RefreshRoleRequest("",
                 null, Arrays.asList("test", "test"),null);
         var responseEntity = elinkUserService.refreshUserProfile(refreshRoleRequest, 1,
@@ -313,6 +318,95 @@ class ElinkUserServiceImplTest {
         assertEquals(200, responseEntity.getStatusCodeValue());
     }
 
+    @Test
+    void test_elinksRefreshUserProfile_LoadsOnlyTheProfilesOfThePage() {
+        var userProfile = buildUserProfile();
+        var pageRequest = getElinksPageRequest();
+
+        when(serviceCodeMappingRepository.findAllServiceCodeMapping()).thenReturn(List.of());
+        when(profileRepository.fetchPersonalCodesBySidamIds(List.of("test"), pageRequest))
+                .thenReturn(new SliceImpl<>(List.of("Emp"), pageRequest, true));
+        when(profileRepository.countPersonalCodesBySidamIds(List.of("test"))).thenReturn(3L);
+        when(profileRepository.findAllById(List.of("Emp"))).thenReturn(List.of(userProfile));
+        var refreshRoleRequest = new RefreshRoleRequest("", null, List.of("test"), null);
+
+        var responseEntity = elinkUserService.refreshUserProfile(refreshRoleRequest, 1,
+                0, "ASC", "objectId");
+
+        assertEquals(200, responseEntity.getStatusCodeValue());
+        assertEquals("3", responseEntity.getHeaders().getFirst("total_records"));
+        verify(profileRepository, times(1)).findAllById(List.of("Emp"));
+    }
+
+    @Test
+    void test_elinksRefreshUserProfile_WithoutTotalReturnsHasNextAndDoesNotCount() {
+        var userProfile = buildUserProfile();
+        var pageRequest = getElinksPageRequest();
+
+        when(serviceCodeMappingRepository.findAllServiceCodeMapping()).thenReturn(List.of());
+        when(profileRepository.fetchPersonalCodesBySidamIds(List.of("test"), pageRequest))
+                .thenReturn(new SliceImpl<>(List.of("Emp"), pageRequest, true));
+        when(profileRepository.findAllById(List.of("Emp"))).thenReturn(List.of(userProfile));
+        var refreshRoleRequest = new RefreshRoleRequest("", null, List.of("test"), null);
+
+        var responseEntity = elinkUserService.refreshUserProfile(refreshRoleRequest, 1,
+                0, "ASC", "objectId", null, false);
+
+        assertEquals(200, responseEntity.getStatusCodeValue());
+        assertEquals("true", responseEntity.getHeaders().getFirst("has_next"));
+        assertNull(responseEntity.getHeaders().getFirst("total_records"));
+        assertNull(responseEntity.getHeaders().getFirst("next_page_token"));
+        verify(profileRepository, never()).countPersonalCodesBySidamIds(any());
+    }
+
+    @Test
+    void test_elinksRefreshUserProfile_CursorModeReturnsTheTokenOfTheNextPage() {
+        var userProfile = buildUserProfileIac();
+        var pageRequest = PageToken.pageRequest(1, "personalCode");
+
+        when(serviceCodeMappingRepository.findAllServiceCodeMapping()).thenReturn(List.of());
+        when(profileRepository.fetchPersonalCodesBySidamIdsAfter(List.of("test"), "", "", pageRequest))
+                .thenReturn(new SliceImpl<>(List.of("Emp"), pageRequest, true));
+        when(profileRepository.findAllById(List.of("Emp"))).thenReturn(List.of(userProfile));
+        var refreshRoleRequest = new RefreshRoleRequest("", null, List.of("test"), null);
+
+        var responseEntity = elinkUserService.refreshUserProfile(refreshRoleRequest, 1,
+                0, "ASC", "objectId", "", null);
+
+        assertEquals(200, responseEntity.getStatusCodeValue());
+        assertEquals(PageToken.encode(userProfile.getObjectId(), "Emp"),
+                responseEntity.getHeaders().getFirst("next_page_token"));
+        assertNull(responseEntity.getHeaders().getFirst("total_records"));
+        verify(profileRepository, never()).countPersonalCodesBySidamIds(any());
+    }
+
+    @Test
+    void test_elinksRefreshUserProfile_CursorModeLastPageHasNoToken() {
+        var userProfile = buildUserProfileIac();
+        var pageToken = PageToken.encode("asd12345", "Emp0");
+        var pageRequest = PageToken.pageRequest(1, "personalCode");
+
+        when(serviceCodeMappingRepository.findAllServiceCodeMapping()).thenReturn(List.of());
+        when(profileRepository.fetchPersonalCodesByObjectIdsAfter(List.of("test"), "asd12345", "Emp0", pageRequest))
+                .thenReturn(new SliceImpl<>(List.of("Emp"), pageRequest, false));
+        when(profileRepository.findAllById(List.of("Emp"))).thenReturn(List.of(userProfile));
+        var refreshRoleRequest = new RefreshRoleRequest("", List.of("test"), null, null);
+
+        var responseEntity = elinkUserService.refreshUserProfile(refreshRoleRequest, 1,
+                0, "ASC", "objectId", pageToken, null);
+
+        assertEquals(200, responseEntity.getStatusCodeValue());
+        assertNull(responseEntity.getHeaders().getFirst("next_page_token"));
+    }
+
+    @Test
+    void test_elinksRefreshUserProfile_CursorModeRejectsMalformedToken() {
+        var refreshRoleRequest = new RefreshRoleRequest("", null, List.of("test"), null);
+
+        Assertions.assertThrows(InvalidRequestException.class, () ->
+                elinkUserService.refreshUserProfile(refreshRoleRequest, 1, 0, "ASC", "objectId", "%%%", null));
+    }
+
 
     @DisplayName("Refresh ElinksUserprofile based on IAC objectId")
     @Test
@@ -334,8 +428,9 @@ class ElinkUserServiceImplTest {
 
         when(serviceCodeMappingRepository.findAllServiceCodeMapping())
                 .thenReturn(List.of(serviceCodeMappingOne,serviceCodeMappingTwo));
-        when(profileRepository.fetchUserProfileByObjectIds(List.of("test", "test"), pageRequest))
-                .thenReturn(page);
+        var personalCodePage = stubUserProfilesOf(page);
+        when(profileRepository.fetchPersonalCodesByObjectIds(List.of("test", "test"), pageRequest))
+                .thenReturn(personalCodePage);
         var refreshRoleRequest = new uk.gov.hmcts.reform.judicialapi.elinks.controller.request.RefreshRoleRequest("",
                 Arrays.asList("test", "test"), null,null);
         var responseEntity = elinkUserService.refreshUserProfile(refreshRoleRequest, 1,
@@ -363,8 +458,9 @@ class ElinkUserServiceImplTest {
 
 
         when(serviceCodeMappingRepository.findAllServiceCodeMapping()).thenReturn(List.of(serviceCodeMappingOne));
-        when(profileRepository.fetchUserProfileByObjectIds(List.of("test", "test"), pageRequest))
-                .thenReturn(page);
+        var personalCodePage = stubUserProfilesOf(page);
+        when(profileRepository.fetchPersonalCodesByObjectIds(List.of("test", "test"), pageRequest))
+                .thenReturn(personalCodePage);
         var refreshRoleRequest = new uk.gov.hmcts.reform.judicialapi.elinks.controller.request.RefreshRoleRequest("",
                 Arrays.asList("test", "test"), null,null);
 
@@ -409,8 +505,9 @@ class ElinkUserServiceImplTest {
 
         when(serviceCodeMappingRepository.findAllServiceCodeMapping()).thenReturn(List.of(serviceCodeMapping));
 
-        when(profileRepository.fetchUserProfileByPersonalCodes(List.of("Emp", "Emp"), pageRequest))
-                .thenReturn(page);
+        var personalCodePage = stubUserProfilesOf(page);
+        when(profileRepository.fetchPersonalCodesByPersonalCodes(List.of("Emp", "Emp"), pageRequest))
+                .thenReturn(personalCodePage);
         var refreshRoleRequest = new uk.gov.hmcts.reform.judicialapi.elinks.controller.request.RefreshRoleRequest("",
                 null, null, Arrays.asList("Emp", "Emp", null));
         var responseEntity = elinkUserService.refreshUserProfile(refreshRoleRequest, 1,
@@ -455,7 +552,7 @@ class ElinkUserServiceImplTest {
 
         var pageRequest = getElinksPageRequest();
         var page = new PageImpl<>(Collections.singletonList(userProfile));
-        when(profileRepository.fetchUserProfileByPersonalCodes(List.of("Emp", "Emp"), pageRequest))
+        when(profileRepository.fetchPersonalCodesByPersonalCodes(List.of("Emp", "Emp"), pageRequest))
                 .thenReturn(null);
         var refreshRoleRequest = new RefreshRoleRequest("",
                 null, null, Arrays.asList("Emp", "Emp"));
@@ -484,8 +581,9 @@ class ElinkUserServiceImplTest {
         var page = new PageImpl<>(Collections.singletonList(userProfile));
 
         when(serviceCodeMappingRepository.fetchTicketCodeFromServiceCode(Set.of("BFA1"))).thenReturn(List.of("386"));
-        when(profileRepository.fetchUserProfileByServiceNames(Set.of("BFA1"), List.of("386"), pageRequest))
-                .thenReturn(page);
+        var personalCodePage = stubUserProfilesOf(page);
+        when(profileRepository.fetchPersonalCodesByServiceNames(Set.of("BFA1"), List.of("386"), pageRequest))
+                .thenReturn(personalCodePage);
         var refreshRoleRequest = new RefreshRoleRequest("cmc",
                 null, null,null);
         var responseEntity = elinkUserService.refreshUserProfile(refreshRoleRequest, 1,
@@ -526,8 +624,9 @@ class ElinkUserServiceImplTest {
         var pageRequest = getElinksPageRequest();
 
         var page = new PageImpl<uk.gov.hmcts.reform.judicialapi.elinks.domain.UserProfile>(Collections.emptyList());
-        when(profileRepository.fetchUserProfileByServiceNames(Set.of("BFA1"), List.of("386"), pageRequest))
-                .thenReturn(page);
+        var personalCodePage = stubUserProfilesOf(page);
+        when(profileRepository.fetchPersonalCodesByServiceNames(Set.of("BFA1"), List.of("386"), pageRequest))
+                .thenReturn(personalCodePage);
         when(serviceCodeMappingRepository.fetchTicketCodeFromServiceCode(Set.of("BFA1"))).thenReturn(List.of("386"));
         var refreshRoleRequest = new uk.gov.hmcts.reform.judicialapi.elinks.controller.request.RefreshRoleRequest("cmc",
                 null, null,null);
@@ -993,5 +1092,11 @@ class ElinkUserServiceImplTest {
 
     }
 
-
+    private Slice<String> stubUserProfilesOf(PageImpl<UserProfile> page) {
+        var ids = page.getContent().stream().map(UserProfile::getPersonalCode).toList();
+        if (!ids.isEmpty()) {
+            when(profileRepository.findAllById(ids)).thenReturn(page.getContent());
+        }
+        return new SliceImpl<>(ids);
+    }
 }
@@ -10,13 +10,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
 import org.springframework.dao.DataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.util.ReflectionTestUtils;
 import uk.gov.hmcts.reform.judicialapi.elinks.controller.request.LeaversRequest;
 import uk.gov.hmcts.reform.judicialapi.elinks.controller.request.LeaversResultsRequest;
@@ -27,20 +28,31 @@ import uk.gov.hmcts.reform.judicialapi.elinks.repository.DataloadSchedularAuditR
 import uk.gov.hmcts.reform.judicialapi.elinks.repository.ProfileRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkLeaversWrapperResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.util.CommonUtil;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkDataExceptionSink;
 import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkDataIngestionSchedularAudit;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkNotificationDispatcher;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksBulkUpdater;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksPagePipeline;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksRateLimiter;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 import static java.nio.charset.Charset.defaultCharset;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static uk.gov.hmcts.reform.judicialapi.configuration.RefreshTotalsCacheConfiguration.REFRESH_TOTALS;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.AUDIT_DATA_ERROR;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.ELINKS_ACCESS_ERROR;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.ELINKS_ERROR_RESPONSE_BAD_REQUEST;
@@ -48,7 +60,12 @@ import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.ELINKS_ERROR_RESPONSE_NOT_FOUND;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.ELINKS_ERROR_RESPONSE_TOO_MANY_REQUESTS;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.ELINKS_ERROR_RESPONSE_UNAUTHORIZED;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.JUDICIAL_REF_DATA_ELINKS;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.LEAVERSAPI;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.LEAVERSSUCCESS;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.PERSONALCODENOTAVAILABLE;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.USER_PROFILE;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.BULK_UPDATE_LEAVERS;
 
 @ExtendWith(MockitoExtension.class)
 class ElinksLeaversServiceImplTest {
@@ -66,6 +83,15 @@ class ElinksLeaversServiceImplTest {
     private ElinkDataIngestionSchedularAudit elinkDataIngestionSchedularAudit;
 
 
+    @Spy
+    private ElinksPagePipeline elinksPagePipeline;
+
+    @Spy
+    private ElinksRateLimiter elinksRateLimiter;
+
+    @Mock
+    CacheManager cacheManager;
+
     @InjectMocks
     private ELinksServiceImpl elinksServiceImpl;
 
@@ -79,7 +105,11 @@ class ElinksLeaversServiceImplTest {
 
     private LeaversRequest elinksApiResponseSecondHit;
 
-    JdbcTemplate jdbcTemplate =  mock(JdbcTemplate.class);
+    ElinksBulkUpdater elinksBulkUpdater =  mock(ElinksBulkUpdater.class);
+
+    ElinkDataExceptionSink elinkDataExceptionSink = mock(ElinkDataExceptionSink.class);
+
+    ElinkNotificationDispatcher elinkNotificationDispatcher = mock(ElinkNotificationDispatcher.class);
 
     @Spy
     CommonUtil commonUtil;
@@ -87,8 +117,7 @@ class ElinksLeaversServiceImplTest {
     @BeforeEach
     void setUP() {
 
-        ReflectionTestUtils.setField(elinksServiceImpl, "threadPauseTime",
-                "2000");
+        ReflectionTestUtils.setField(elinksPagePipeline, "prefetchPages", 2);
         ReflectionTestUtils.setField(elinksServiceImpl, "lastUpdated",
                 "Thu Jan 01 00:00:00 GMT 2015");
         ReflectionTestUtils.setField(elinksServiceImpl, "page",
@@ -138,10 +167,37 @@ class ElinksLeaversServiceImplTest {
         ResponseEntity<ElinkLeaversWrapperResponse> response = elinksServiceImpl.retrieveLeavers();
         assertTrue(response.getStatusCode().is2xxSuccessful());
         assertThat(response.getBody().getMessage()).isEqualTo(LEAVERSSUCCESS);
+        // the refresh totals are counted again after the run
+        verify(cacheManager).getCache(REFRESH_TOTALS);
 
         verify(elinksFeignClient, times(2)).getLeaversDetails(any(), any(), any());
         verify(elinkDataIngestionSchedularAudit,times(2))
             .auditSchedulerStatus(any(),any(),any(),any(),any());
+        verify(elinksBulkUpdater, times(2)).update(eq(LEAVERSAPI), eq(BULK_UPDATE_LEAVERS),
+            argThat(rows -> rows.size() == 1
+                && Arrays.equals(rows.get("1234"), new Object[] {"2022-12-20", false})), eq("text"), eq("boolean"));
+        verify(elinkDataExceptionSink).finishRun(any());
+        verify(elinkNotificationDispatcher, never()).dispatchExceptionReport(any());
+    }
+
+    @Test
+    void loadLeaversRecordsPersonalCodesMatchingNoProfile() throws JsonProcessingException {
+        String body = new ObjectMapper().writeValueAsString(elinksApiResponseSecondHit);
+        when(dataloadSchedularAuditRepository.findLatestSchedularEndTimeForLeavers()).thenReturn(null);
+        when(elinksFeignClient.getLeaversDetails(any(), any(), any())).thenReturn(Response.builder()
+                .request(mock(Request.class)).body(body, defaultCharset()).status(200).build());
+        when(elinksBulkUpdater.update(eq(LEAVERSAPI), eq(BULK_UPDATE_LEAVERS), any(), eq("text"), eq("boolean")))
+            .thenReturn(Set.of("1234"));
+
+        ResponseEntity<ElinkLeaversWrapperResponse> response = elinksServiceImpl.retrieveLeavers();
+
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+        verify(elinkDataExceptionSink).auditException(any(), eq(JUDICIAL_REF_DATA_ELINKS), any(), eq("1234"),
+            eq(USER_PROFILE), eq(PERSONALCODENOTAVAILABLE), eq(USER_PROFILE), eq("1234"));
+        verify(elinkDataExceptionSink).finishRun(any());
+        verify(elinkDataIngestionSchedularAudit).auditSchedulerStatus(eq(JUDICIAL_REF_DATA_ELINKS), any(), any(),
+            eq(RefDataElinksConstants.JobStatus.PARTIAL_SUCCESS.getStatus()), eq(LEAVERSAPI));
+        verify(elinkNotificationDispatcher).dispatchExceptionReport(any());
     }
 
     @Test
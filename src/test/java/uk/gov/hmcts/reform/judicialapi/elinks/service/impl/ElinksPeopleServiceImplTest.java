@@ -9,17 +9,21 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
 import org.springframework.dao.DataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.util.ReflectionTestUtils;
-import uk.gov.hmcts.reform.judicialapi.elinks.configuration.ElinkEmailConfiguration;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 import uk.gov.hmcts.reform.judicialapi.elinks.controller.request.AppointmentsRequest;
 import uk.gov.hmcts.reform.judicialapi.elinks.controller.request.AuthorisationsRequest;
 import uk.gov.hmcts.reform.judicialapi.elinks.controller.request.PaginationRequest;
@@ -35,34 +39,46 @@ import uk.gov.hmcts.reform.judicialapi.elinks.exception.ElinksException;
 import uk.gov.hmcts.reform.judicialapi.elinks.feign.ElinksFeignClient;
 import uk.gov.hmcts.reform.judicialapi.elinks.repository.AppointmentsRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.repository.AuthorisationsRepository;
-import uk.gov.hmcts.reform.judicialapi.elinks.repository.BaseLocationRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.repository.DataloadSchedularAuditRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.repository.ElinkDataExceptionRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.repository.ElinkSchedularAuditRepository;
-import uk.gov.hmcts.reform.judicialapi.elinks.repository.JrdRegionMappingRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.repository.JudicialRoleTypeRepository;
-import uk.gov.hmcts.reform.judicialapi.elinks.repository.LocationMapppingRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.repository.LocationRepository;
 import uk.gov.hmcts.reform.judicialapi.elinks.repository.ProfileRepository;
+import uk.gov.hmcts.reform.judicialapi.elinks.repository.ProfileRepository.ObjectIdPersonalCode;
+import uk.gov.hmcts.reform.judicialapi.elinks.repository.ProfileRepository.PersonalCodeContentHash;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.ElinkPeopleWrapperResponse;
-import uk.gov.hmcts.reform.judicialapi.elinks.service.IEmailService;
 import uk.gov.hmcts.reform.judicialapi.elinks.util.CommonUtil;
-import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkDataExceptionHelper;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkDataExceptionSink;
 import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkDataIngestionSchedularAudit;
-import uk.gov.hmcts.reform.judicialapi.elinks.util.EmailTemplate;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkNotificationDispatcher;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksContentHash;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksPagePipeline;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksPeopleBatchWriter;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksPeopleBatchWriter.PersonRecord;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksRateLimiter;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksReferenceDataSnapshot;
 import uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 import static java.nio.charset.Charset.defaultCharset;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -75,6 +91,8 @@ import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.ELINKS_ERROR_RESPONSE_UNAUTHORIZED;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.PEOPLEAPI;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.PEOPLE_DATA_LOAD_SUCCESS;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.RECORD_CHANGE_EVENT;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.RECORD_PROFILE_CHANGE;
 
 @ExtendWith(MockitoExtension.class)
 class ElinksPeopleServiceImplTest {
@@ -82,9 +100,6 @@ class ElinksPeopleServiceImplTest {
     @Spy
     ElinksFeignClient elinksFeignClient;
 
-    @Spy
-    private BaseLocationRepository baseLocationRepository;
-
     @Spy
     private AppointmentsRepository appointmentsRepository;
 
@@ -97,24 +112,12 @@ class ElinksPeopleServiceImplTest {
     @Spy
     private JudicialRoleTypeRepository judicialRoleTypeRepository;
 
-    @Spy
-    private LocationMapppingRepository locationMapppingRepository;
-
-    final ElinkEmailConfiguration emailConfiguration = mock(ElinkEmailConfiguration.class);
-
-    final ElinkEmailConfiguration.MailTypeConfig config = mock(ElinkEmailConfiguration.MailTypeConfig.class);
-
-    final IEmailService emailService = spy(IEmailService.class);
-
     final ElinksPeopleServiceImpl elinksPeopleService = mock(ElinksPeopleServiceImpl.class);
 
 
     @Spy
     private LocationRepository locationRepository;
 
-    @Spy
-    private JrdRegionMappingRepository regionMappingRepository;
-
     @Spy
     private DataloadSchedularAuditRepository dataloadSchedularAuditRepository;
 
@@ -122,7 +125,10 @@ class ElinksPeopleServiceImplTest {
     private ElinkDataIngestionSchedularAudit elinkDataIngestionSchedularAudit;
 
     @Mock
-    ElinkDataExceptionHelper elinkDataExceptionHelper;
+    ElinkDataExceptionSink elinkDataExceptionSink;
+
+    @Mock
+    ElinkNotificationDispatcher elinkNotificationDispatcher;
 
     @Mock
     private ElinkDataExceptionRepository elinkDataExceptionRepository;
@@ -130,12 +136,30 @@ class ElinksPeopleServiceImplTest {
     @Spy
     private ElinkSchedularAuditRepository elinkSchedularAuditRepository;
 
+    @Spy
+    private ElinksPagePipeline elinksPagePipeline;
+
+    @Spy
+    private ElinksRateLimiter elinksRateLimiter;
+
+    @Mock
+    private ElinksReferenceDataSnapshot elinksReferenceDataSnapshot;
+
+    @Mock
+    CacheManager cacheManager;
+
     @InjectMocks
     private ElinksPeopleServiceImpl elinksPeopleServiceImpl;
 
     @Mock
     private ElinksPeopleDeleteServiceimpl elinksPeopleDeleteServiceimpl;
 
+    @Mock
+    private ElinksPeopleBatchWriter elinksPeopleBatchWriter;
+
+    @Captor
+    private ArgumentCaptor<List<PersonRecord>> peopleCaptor;
+
     private ResultsRequest result1;
 
     private ResultsRequest result2;
@@ -160,25 +184,29 @@ class ElinksPeopleServiceImplTest {
 
     JdbcTemplate jdbcTemplate =  mock(JdbcTemplate.class);
 
+    TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
     @Spy
     CommonUtil commonUtil;
 
-    final EmailTemplate emailTemplate = mock(EmailTemplate.class);
-    ElinkEmailConfiguration.MailTypeConfig mailConfig = mock(ElinkEmailConfiguration.MailTypeConfig.class);
 
 
 
     @BeforeEach
     void setUP() {
 
-        ReflectionTestUtils.setField(elinksPeopleServiceImpl, "threadPauseTime",
-                "2000");
-        ReflectionTestUtils.setField(elinksPeopleServiceImpl, "threadRetriggerPauseTime",
-            "1000");
+        ReflectionTestUtils.setField(elinksPagePipeline, "prefetchPages", 2);
+        ReflectionTestUtils.setField(elinksRateLimiter, "maxRetries", 1);
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
         ReflectionTestUtils.setField(elinksPeopleServiceImpl, "lastUpdated",
                 "Thu Jan 01 00:00:00 GMT 2015");
         ReflectionTestUtils.setField(elinksPeopleServiceImpl, "page",
                 "1");
+        ReflectionTestUtils.setField(elinksPeopleServiceImpl, "perPage",
+                "50");
 
         pagination = PaginationRequest.builder()
                 .results(1)
@@ -281,8 +309,8 @@ class ElinksPeopleServiceImplTest {
 
         when(elinkSchedularAuditRepository.save(any())).thenReturn(schedularAudit);
         when(elinkDataExceptionRepository.save(any())).thenReturn(record);
-        when(regionMappingRepository.fetchRegionIdfromRegion(any())).thenReturn("1");
-        when(baseLocationRepository.fetchParentId(any())).thenReturn("1234");
+        when(elinksReferenceDataSnapshot.fetchRegionId(any())).thenReturn("1");
+        when(elinksReferenceDataSnapshot.fetchParentId(any())).thenReturn("1234");
 
         BaseLocation location = new BaseLocation();
         location.setBaseLocationId("Baselocid");
@@ -311,7 +339,8 @@ class ElinksPeopleServiceImplTest {
         verify(elinkDataIngestionSchedularAudit,times(2))
             .auditSchedulerStatus(any(),any(),any(),any(),any());
         verify(elinkDataExceptionRepository, times(1)).save(any());
-        verify(elinksPeopleDeleteServiceimpl,times(2)).deleteAuth(any());
+        verify(elinksPeopleBatchWriter, times(1)).writePage(any());
+        assertThat(writtenPeople().size()).isEqualTo(2);
     }
 
     @Test
@@ -338,8 +367,8 @@ class ElinksPeopleServiceImplTest {
 
         when(elinkSchedularAuditRepository.save(any())).thenReturn(schedularAudit);
         when(elinkDataExceptionRepository.save(any())).thenReturn(record);
-        when(regionMappingRepository.fetchRegionIdfromRegion(any())).thenReturn("1");
-        when(baseLocationRepository.fetchParentId(any())).thenReturn("1234");
+        when(elinksReferenceDataSnapshot.fetchRegionId(any())).thenReturn("1");
+        when(elinksReferenceDataSnapshot.fetchParentId(any())).thenReturn("1234");
 
         BaseLocation location = new BaseLocation();
         location.setBaseLocationId("Baselocid");
@@ -378,15 +407,15 @@ class ElinksPeopleServiceImplTest {
         LocalDateTime dateTime = LocalDateTime.now();
         when(dataloadSchedularAuditRepository.findLatestSchedularEndTime()).thenReturn(dateTime);
 
-        when(regionMappingRepository.fetchRegionIdfromRegion(any())).thenReturn("1");
+        when(elinksReferenceDataSnapshot.fetchRegionId(any())).thenReturn("1");
         LocationMapping locationMapping = LocationMapping.builder()
             .serviceCode("BHA1")
             .epimmsId("1234").build();
         BaseLocation location = new BaseLocation();
         location.setBaseLocationId("12345");
         location.setName("ABC");
-        when(locationMapppingRepository.fetchEpimmsIdfromLocationId(any())).thenReturn("2344");
-        when(baseLocationRepository.fetchParentId(any())).thenReturn("1234");
+        when(elinksReferenceDataSnapshot.fetchEpimmsId(any())).thenReturn("2344");
+        when(elinksReferenceDataSnapshot.fetchParentId(any())).thenReturn("1234");
         ObjectMapper mapper = new ObjectMapper();
         String body = mapper.writeValueAsString(elinksApiResponseFirstHit);
         String body2 = mapper.writeValueAsString(elinksApiResponseSecondHit);
@@ -403,13 +432,16 @@ class ElinksPeopleServiceImplTest {
 
         verify(elinksFeignClient, times(2)).getPeopleDetails(any(), any(), any(),
                 Boolean.parseBoolean(any()));
-        verify(profileRepository, times(2)).save(any());
-        verify(baseLocationRepository, times(4)).fetchParentId(any());
-        verify(appointmentsRepository, times(4)).save(any());
-        verify(judicialRoleTypeRepository, atLeastOnce()).save(any());
-        verify(authorisationsRepository, atLeastOnce()).save(any());
-        verify(elinkDataExceptionHelper,times(2))
-            .auditException(any(),any(),any(),any(),any(),any(),any());
+        List<PersonRecord> people = writtenPeople();
+        assertThat(people.size()).isEqualTo(2);
+        verify(elinksReferenceDataSnapshot, times(4)).fetchParentId(any());
+        assertThat(appointmentCount(people)).isEqualTo(4);
+        assertThat(roleCount(people)).isEqualTo(4);
+        assertThat(authorisationCount(people)).isEqualTo(4);
+        verify(profileRepository, times(0)).save(any());
+        verify(appointmentsRepository, times(0)).save(any());
+        verify(elinkDataExceptionSink,times(2))
+            .auditException(any(),any(),any(),any(),any(),any(),any(),any());
     }
 
     @Test
@@ -436,15 +468,15 @@ class ElinksPeopleServiceImplTest {
             .build();
         when(dataloadSchedularAuditRepository.findLatestSchedularEndTime()).thenReturn(dateTime);
 
-        when(regionMappingRepository.fetchRegionIdfromRegion(any())).thenReturn("1");
+        when(elinksReferenceDataSnapshot.fetchRegionId(any())).thenReturn("1");
         LocationMapping locationMapping = LocationMapping.builder()
             .serviceCode("BHA1")
             .epimmsId("1234").build();
         BaseLocation location = new BaseLocation();
         location.setBaseLocationId("12345");
         location.setName("ABC");
-        when(locationMapppingRepository.fetchEpimmsIdfromLocationId(any())).thenReturn("2344");
-        when(baseLocationRepository.fetchParentId(any())).thenReturn("1234");
+        when(elinksReferenceDataSnapshot.fetchEpimmsId(any())).thenReturn("2344");
+        when(elinksReferenceDataSnapshot.fetchParentId(any())).thenReturn("1234");
         ObjectMapper mapper = new ObjectMapper();
         String body = mapper.writeValueAsString(peopleRequest);
 
@@ -458,10 +490,11 @@ class ElinksPeopleServiceImplTest {
 
         verify(elinksFeignClient, times(1)).getPeopleDetails(any(), any(), any(),
             Boolean.parseBoolean(any()));
-        verify(profileRepository, times(1)).save(any());
-        verify(baseLocationRepository, times(2)).fetchParentId(any());
-        verify(appointmentsRepository, times(1)).save(any());
-        verify(authorisationsRepository, times(1)).save(any());
+        List<PersonRecord> people = writtenPeople();
+        assertThat(people.size()).isEqualTo(1);
+        verify(elinksReferenceDataSnapshot, times(2)).fetchParentId(any());
+        assertThat(appointmentCount(people)).isEqualTo(1);
+        assertThat(authorisationCount(people)).isEqualTo(1);
     }
 
     @Test
@@ -470,15 +503,15 @@ class ElinksPeopleServiceImplTest {
         LocalDateTime dateTime = LocalDateTime.now();
         when(dataloadSchedularAuditRepository.findLatestSchedularEndTime()).thenReturn(dateTime);
 
-        when(regionMappingRepository.fetchRegionIdfromRegion(any())).thenReturn("1");
+        when(elinksReferenceDataSnapshot.fetchRegionId(any())).thenReturn("1");
         LocationMapping locationMapping = LocationMapping.builder()
             .serviceCode("BHA1")
             .epimmsId("1234").build();
         BaseLocation location = new BaseLocation();
         location.setBaseLocationId("12345");
         location.setName("ABC");
-        when(locationMapppingRepository.fetchEpimmsIdfromLocationId(any())).thenReturn("2344");
-        when(baseLocationRepository.fetchParentId(any())).thenReturn("1234");
+        when(elinksReferenceDataSnapshot.fetchEpimmsId(any())).thenReturn("2344");
+        when(elinksReferenceDataSnapshot.fetchParentId(any())).thenReturn("1234");
         ObjectMapper mapper = new ObjectMapper();
         String body = mapper.writeValueAsString(elinksApiResponseThirdHit);
 
@@ -492,13 +525,14 @@ class ElinksPeopleServiceImplTest {
 
         verify(elinksFeignClient, times(1)).getPeopleDetails(any(), any(), any(),
             Boolean.parseBoolean(any()));
-        verify(profileRepository, times(1)).save(any());
-
-        verify(appointmentsRepository, times(2)).save(any());
-        verify(judicialRoleTypeRepository, atLeastOnce()).save(any());
-        verify(authorisationsRepository, atLeastOnce()).save(any());
-        verify(elinkDataExceptionHelper,times(1))
-            .auditException(any(),any(),any(),any(),any(),any(),any());
+        List<PersonRecord> people = writtenPeople();
+        assertThat(people.size()).isEqualTo(1);
+
+        assertThat(appointmentCount(people)).isEqualTo(2);
+        assertThat(roleCount(people)).isEqualTo(2);
+        assertThat(authorisationCount(people)).isEqualTo(2);
+        verify(elinkDataExceptionSink,times(1))
+            .auditException(any(),any(),any(),any(),any(),any(),any(),any());
     }
 
     @Test
@@ -510,10 +544,10 @@ class ElinksPeopleServiceImplTest {
         LocationMapping locationMapping = LocationMapping.builder()
             .serviceCode("BHA1")
             .epimmsId("1234").build();
-        when(regionMappingRepository.fetchRegionIdfromRegion(any())).thenReturn("1");
-        when(baseLocationRepository.fetchParentId(any())).thenReturn("1234");
+        when(elinksReferenceDataSnapshot.fetchRegionId(any())).thenReturn("1");
+        when(elinksReferenceDataSnapshot.fetchParentId(any())).thenReturn("1234");
         ObjectMapper mapper = new ObjectMapper();
-        when(locationMapppingRepository.fetchEpimmsIdfromLocationId(any())).thenReturn("234");
+        when(elinksReferenceDataSnapshot.fetchEpimmsId(any())).thenReturn("234");
         String body = mapper.writeValueAsString(elinksApiResponseFirstHit);
         String body2 = mapper.writeValueAsString(elinksApiResponseSecondHit);
 
@@ -530,11 +564,12 @@ class ElinksPeopleServiceImplTest {
 
         verify(elinksFeignClient, times(2)).getPeopleDetails(any(), any(), any(),
                 Boolean.parseBoolean(any()));
-        verify(profileRepository, times(2)).save(any());
+        List<PersonRecord> people = writtenPeople();
+        assertThat(people.size()).isEqualTo(2);
 
-        verify(appointmentsRepository, atLeastOnce()).save(any());
+        assertThat(appointmentCount(people)).isPositive();
 
-        verify(authorisationsRepository, atLeastOnce()).save(any());
+        assertThat(authorisationCount(people)).isPositive();
 
 
     }
@@ -548,10 +583,10 @@ class ElinksPeopleServiceImplTest {
         LocationMapping locationMapping = LocationMapping.builder()
             .serviceCode("BHA1")
             .epimmsId("1234").build();
-        when(regionMappingRepository.fetchRegionIdfromRegion(any())).thenReturn("1");
-        when(baseLocationRepository.fetchParentId(any())).thenReturn("1234");
+        when(elinksReferenceDataSnapshot.fetchRegionId(any())).thenReturn("1");
+        when(elinksReferenceDataSnapshot.fetchParentId(any())).thenReturn("1234");
         ObjectMapper mapper = new ObjectMapper();
-        when(locationMapppingRepository.fetchEpimmsIdfromLocationId(any())).thenReturn("234");
+        when(elinksReferenceDataSnapshot.fetchEpimmsId(any())).thenReturn("234");
         String body = mapper.writeValueAsString(elinksApiResponseFirstHit);
         String body2 = mapper.writeValueAsString(elinksApiResponseFourthHit);
 
@@ -568,22 +603,24 @@ class ElinksPeopleServiceImplTest {
 
         verify(elinksFeignClient, times(2)).getPeopleDetails(any(), any(), any(),
             Boolean.parseBoolean(any()));
-        verify(profileRepository, times(2)).save(any());
+        List<PersonRecord> people = writtenPeople();
+        assertThat(people.size()).isEqualTo(2);
 
-        verify(appointmentsRepository, atLeastOnce()).save(any());
+        assertThat(appointmentCount(people)).isPositive();
 
-        verify(authorisationsRepository, atLeastOnce()).save(any());
-        verify(elinkDataExceptionHelper,times(1))
-            .auditException(any(),any(),any(),any(),any(),any(),any());
+        assertThat(authorisationCount(people)).isPositive();
+        verify(elinkDataExceptionSink,times(1))
+            .auditException(any(),any(),any(),any(),any(),any(),any(),any());
 
     }
 
     @Test
     void loadPeopleWithDuplicateObjectIdInDb() throws JsonProcessingException {
 
-        UserProfile userProfile = UserProfile.builder()
-            .personalCode("12222").objectId("objectId1").ejudiciaryEmailId("email@justice").build();
-        when(profileRepository.findAll()).thenReturn(List.of(userProfile));
+        ObjectIdPersonalCode storedProfile = mock(ObjectIdPersonalCode.class);
+        when(storedProfile.getObjectId()).thenReturn("objectId1");
+        when(storedProfile.getPersonalCode()).thenReturn("12222");
+        when(profileRepository.fetchObjectIdPersonalCodes()).thenReturn(List.of(storedProfile));
         when(dataloadSchedularAuditRepository.findLatestSchedularEndTime()).thenReturn(null);
         BaseLocation location = new BaseLocation();
         location.setBaseLocationId("12345");
@@ -591,10 +628,10 @@ class ElinksPeopleServiceImplTest {
         LocationMapping locationMapping = LocationMapping.builder()
             .serviceCode("BHA1")
             .epimmsId("1234").build();
-        when(regionMappingRepository.fetchRegionIdfromRegion(any())).thenReturn("1");
-        when(baseLocationRepository.fetchParentId(any())).thenReturn("1234");
+        when(elinksReferenceDataSnapshot.fetchRegionId(any())).thenReturn("1");
+        when(elinksReferenceDataSnapshot.fetchParentId(any())).thenReturn("1234");
         ObjectMapper mapper = new ObjectMapper();
-        when(locationMapppingRepository.fetchEpimmsIdfromLocationId(any())).thenReturn("234");
+        when(elinksReferenceDataSnapshot.fetchEpimmsId(any())).thenReturn("234");
         String body = mapper.writeValueAsString(elinksApiResponseSecondHit);
 
         when(elinksFeignClient.getPeopleDetails(any(), any(), any(),
@@ -608,16 +645,119 @@ class ElinksPeopleServiceImplTest {
 
         verify(elinksFeignClient, times(1)).getPeopleDetails(any(), any(), any(),
             Boolean.parseBoolean(any()));
-        verify(profileRepository, times(1)).save(any());
+        List<PersonRecord> people = writtenPeople();
+        assertThat(people.size()).isEqualTo(1);
 
-        verify(appointmentsRepository, atLeastOnce()).save(any());
+        assertThat(appointmentCount(people)).isPositive();
 
-        verify(authorisationsRepository, atLeastOnce()).save(any());
-        verify(elinkDataExceptionHelper,times(1))
-            .auditException(any(),any(),any(),any(),any(),any(),any());
+        assertThat(authorisationCount(people)).isPositive();
+        verify(elinkDataExceptionSink,times(1))
+            .auditException(any(),any(),any(),any(),any(),any(),any(),any());
 
     }
 
+    @Test
+    void loadPeopleWritesPagePartitionsInParallel() throws JsonProcessingException {
+
+        ReflectionTestUtils.setField(elinksPeopleServiceImpl, "writerThreads", 4);
+        when(dataloadSchedularAuditRepository.findLatestSchedularEndTime()).thenReturn(null);
+        when(elinksReferenceDataSnapshot.fetchRegionId(any())).thenReturn("1");
+        when(elinksReferenceDataSnapshot.fetchParentId(any())).thenReturn("1234");
+        when(elinksReferenceDataSnapshot.fetchEpimmsId(any())).thenReturn("234");
+        ObjectMapper mapper = new ObjectMapper();
+        String body = mapper.writeValueAsString(elinksApiResponseSecondHit);
+
+        when(elinksFeignClient.getPeopleDetails(any(), any(), any(),
+            Boolean.parseBoolean(any()))).thenReturn(Response.builder()
+                .request(mock(Request.class)).body(body, defaultCharset()).status(200).build());
+
+        ResponseEntity<ElinkPeopleWrapperResponse> response = elinksPeopleServiceImpl.updatePeople();
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+
+        verify(elinksPeopleBatchWriter, times(2)).writePage(peopleCaptor.capture());
+        assertThat(peopleCaptor.getAllValues()).allSatisfy(partition -> assertThat(partition).hasSize(1));
+        assertThat(peopleCaptor.getAllValues().stream().flatMap(List::stream)
+            .map(person -> person.getUserProfile().getPersonalCode()))
+            .containsExactlyInAnyOrder("1234", "12345");
+    }
+
+    @Test
+    void loadPeopleSkipsJudgeUnchangedSinceLastLoad() throws JsonProcessingException {
+
+        ReflectionTestUtils.setField(elinksPeopleServiceImpl, "skipUnchanged", true);
+        PersonalCodeContentHash storedHash = mock(PersonalCodeContentHash.class);
+        when(storedHash.getPersonalCode()).thenReturn("1234");
+        when(storedHash.getContentHash()).thenReturn(ElinksContentHash.of(result1, null));
+        when(profileRepository.fetchContentHashes()).thenReturn(List.of(storedHash));
+        when(dataloadSchedularAuditRepository.findLatestSchedularEndTime()).thenReturn(null);
+        when(elinksReferenceDataSnapshot.fetchRegionId(any())).thenReturn("1");
+        when(elinksReferenceDataSnapshot.fetchParentId(any())).thenReturn("1234");
+        when(elinksReferenceDataSnapshot.fetchEpimmsId(any())).thenReturn("234");
+        ObjectMapper mapper = new ObjectMapper();
+        String body = mapper.writeValueAsString(elinksApiResponseSecondHit);
+
+        when(elinksFeignClient.getPeopleDetails(any(), any(), any(),
+            Boolean.parseBoolean(any()))).thenReturn(Response.builder()
+                .request(mock(Request.class)).body(body, defaultCharset()).status(200).build());
+
+        ResponseEntity<ElinkPeopleWrapperResponse> response = elinksPeopleServiceImpl.updatePeople();
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+
+        List<PersonRecord> people = writtenPeople();
+        assertThat(people).extracting(person -> person.getUserProfile().getPersonalCode())
+            .containsExactly("12345");
+    }
+
+    @Test
+    void loadPeopleResumesFailedRunAfterItsLastCommittedPage() throws JsonProcessingException {
+
+        ElinkDataSchedularAudit failedRun = new ElinkDataSchedularAudit();
+        failedRun.setStatus(RefDataElinksConstants.JobStatus.FAILED.getStatus());
+        failedRun.setUpdatedSince("2023-01-01");
+        failedRun.setPerPage(50);
+        failedRun.setLastCommittedPage(2);
+        when(dataloadSchedularAuditRepository.findLatestPeopleRunBefore(any())).thenReturn(failedRun);
+        when(elinksReferenceDataSnapshot.fetchRegionId(any())).thenReturn("1");
+        when(elinksReferenceDataSnapshot.fetchParentId(any())).thenReturn("1234");
+        when(elinksReferenceDataSnapshot.fetchEpimmsId(any())).thenReturn("234");
+        ObjectMapper mapper = new ObjectMapper();
+        String body = mapper.writeValueAsString(elinksApiResponseSecondHit);
+
+        when(elinksFeignClient.getPeopleDetails(any(), any(), any(),
+            Boolean.parseBoolean(any()))).thenReturn(Response.builder()
+                .request(mock(Request.class)).body(body, defaultCharset()).status(200).build());
+
+        ResponseEntity<ElinkPeopleWrapperResponse> response = elinksPeopleServiceImpl.updatePeople();
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+
+        verify(elinksFeignClient, times(1)).getPeopleDetails(eq("2023-01-01"), eq("50"), eq("3"), anyBoolean());
+        verify(dataloadSchedularAuditRepository, never()).findLatestSchedularEndTime();
+        verify(elinkDataIngestionSchedularAudit, times(1)).auditCheckpoint(any(), eq("2023-01-01"), eq(50), eq(2));
+        verify(elinkDataIngestionSchedularAudit, times(1)).auditCheckpoint(any(), eq("2023-01-01"), eq(50), eq(3));
+    }
+
+    @Test
+    void loadPeopleRestartIgnoresCheckpoint() throws JsonProcessingException {
+
+        when(dataloadSchedularAuditRepository.findLatestSchedularEndTime()).thenReturn(null);
+        when(elinksReferenceDataSnapshot.fetchRegionId(any())).thenReturn("1");
+        when(elinksReferenceDataSnapshot.fetchParentId(any())).thenReturn("1234");
+        when(elinksReferenceDataSnapshot.fetchEpimmsId(any())).thenReturn("234");
+        ObjectMapper mapper = new ObjectMapper();
+        String body = mapper.writeValueAsString(elinksApiResponseSecondHit);
+
+        when(elinksFeignClient.getPeopleDetails(any(), any(), any(),
+            Boolean.parseBoolean(any()))).thenReturn(Response.builder()
+                .request(mock(Request.class)).body(body, defaultCharset()).status(200).build());
+
+        ResponseEntity<ElinkPeopleWrapperResponse> response = elinksPeopleServiceImpl.updatePeople(true);
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+
+        verify(dataloadSchedularAuditRepository, never()).findLatestPeopleRunBefore(any());
+        verify(elinksFeignClient, times(1)).getPeopleDetails(any(), eq("50"), eq("1"), anyBoolean());
+        verify(elinkDataIngestionSchedularAudit, times(1)).auditCheckpoint(any(), any(), eq(50), eq(1));
+    }
+
     @Test
     void loadPeopleWithPartialSuccess() throws JsonProcessingException {
 
@@ -628,8 +768,8 @@ class ElinksPeopleServiceImplTest {
         LocationMapping locationMapping = LocationMapping.builder()
             .serviceCode("BHA1")
             .epimmsId("1234").build();
-        when(regionMappingRepository.fetchRegionIdfromRegion(any())).thenReturn(null);
-        when(baseLocationRepository.fetchParentId(any())).thenReturn("1234");
+        when(elinksReferenceDataSnapshot.fetchRegionId(any())).thenReturn(null);
+        when(elinksReferenceDataSnapshot.fetchParentId(any())).thenReturn("1234");
         ObjectMapper mapper = new ObjectMapper();
         String body = mapper.writeValueAsString(elinksApiResponseFirstHit);
         String body2 = mapper.writeValueAsString(elinksApiResponseSecondHit);
@@ -639,7 +779,6 @@ class ElinksPeopleServiceImplTest {
                 .request(mock(Request.class)).body(body, defaultCharset()).status(200).build())
             .thenReturn(Response.builder().request(mock(Request.class))
                 .body(body2, defaultCharset()).status(200).build());
-        when(emailConfiguration.getMailTypes()).thenReturn(Map.of("key", config));
 
         ResponseEntity<ElinkPeopleWrapperResponse> response = elinksPeopleServiceImpl.updatePeople();
         assertTrue(response.getStatusCode().is2xxSuccessful());
@@ -648,11 +787,12 @@ class ElinksPeopleServiceImplTest {
 
         verify(elinksFeignClient, times(2)).getPeopleDetails(any(), any(), any(),
             Boolean.parseBoolean(any()));
-        verify(profileRepository, times(2)).save(any());
+        List<PersonRecord> people = writtenPeople();
+        assertThat(people.size()).isEqualTo(2);
 
-        verify(authorisationsRepository, atLeastOnce()).save(any());
-        verify(elinkDataExceptionHelper,times(6))
-            .auditException(any(),any(),any(),any(),any(),any(),any());
+        assertThat(authorisationCount(people)).isPositive();
+        verify(elinkDataExceptionSink,times(6))
+            .auditException(any(),any(),any(),any(),any(),any(),any(),any());
 
     }
 
@@ -663,8 +803,8 @@ class ElinksPeopleServiceImplTest {
         BaseLocation location = new BaseLocation();
         location.setBaseLocationId("12345");
         location.setName("ABC");
-        when(regionMappingRepository.fetchRegionIdfromRegion(any())).thenReturn("1");
-        when(baseLocationRepository.fetchParentId(any())).thenReturn("1234");
+        when(elinksReferenceDataSnapshot.fetchRegionId(any())).thenReturn("1");
+        when(elinksReferenceDataSnapshot.fetchParentId(any())).thenReturn("1234");
         ObjectMapper mapper = new ObjectMapper();
         AppointmentsRequest appointmentsRequestNew = AppointmentsRequest.builder()
             .baseLocationId("baselocId").circuit("circuit").location("location")
@@ -689,11 +829,12 @@ class ElinksPeopleServiceImplTest {
 
         verify(elinksFeignClient, times(1)).getPeopleDetails(any(), any(), any(),
             Boolean.parseBoolean(any()));
-        verify(profileRepository, times(2)).save(any());
+        List<PersonRecord> people = writtenPeople();
+        assertThat(people.size()).isEqualTo(2);
 
-        verify(authorisationsRepository, atLeastOnce()).save(any());
-        verify(elinkDataExceptionHelper,times(1))
-            .auditException(any(),any(),any(),any(),any(),any(),any());
+        assertThat(authorisationCount(people)).isPositive();
+        verify(elinkDataExceptionSink,times(1))
+            .auditException(any(),any(),any(),any(),any(),any(),any(),any());
 
     }
 
@@ -809,10 +950,11 @@ class ElinksPeopleServiceImplTest {
                 .request(mock(Request.class)).body(body, defaultCharset()).status(200).build());
 
         DataAccessException dataAccessException = mock(DataAccessException.class);
+        when(elinksPeopleBatchWriter.writePage(any())).thenThrow(dataAccessException);
         when(profileRepository.save(any())).thenThrow(dataAccessException);
 
         ResponseEntity<ElinkPeopleWrapperResponse> responseEntity = elinksPeopleServiceImpl.updatePeople();
-        verify(elinkDataExceptionHelper,atLeastOnce()).auditException(any(),any(),any(),any(),any(),any(),any());
+        verify(elinkDataExceptionSink,atLeastOnce()).auditException(any(),any(),any(),any(),any(),any(),any(),any());
 
     }
 
@@ -829,12 +971,13 @@ class ElinksPeopleServiceImplTest {
             .results(1)
             .pages(1).currentPage(1).resultsPerPage(3).morePages(false).build();
         elinksApiResponseFirstHit.setPagination(paginationNew);
-        when(regionMappingRepository.fetchRegionIdfromRegion(any())).thenReturn("1");
+        when(elinksReferenceDataSnapshot.fetchRegionId(any())).thenReturn("1");
         String body = mapper.writeValueAsString(elinksApiResponseFirstHit);
-        when(locationMapppingRepository.fetchEpimmsIdfromLocationId(any())).thenReturn("234");
+        when(elinksReferenceDataSnapshot.fetchEpimmsId(any())).thenReturn("234");
         when(dataloadSchedularAuditRepository.findLatestSchedularEndTime()).thenReturn(LocalDateTime.now());
 
         DataAccessException dataAccessException = mock(DataAccessException.class);
+        when(elinksPeopleBatchWriter.writePage(any())).thenThrow(dataAccessException);
         when(appointmentsRepository.save(any())).thenThrow(dataAccessException);
         when(elinksFeignClient.getPeopleDetails(any(), any(), any(),
                 Boolean.parseBoolean(any()))).thenReturn(Response.builder()
@@ -842,13 +985,17 @@ class ElinksPeopleServiceImplTest {
 
 
         ResponseEntity<ElinkPeopleWrapperResponse> responseEntity = elinksPeopleServiceImpl.updatePeople();
-        verify(elinkDataExceptionHelper,times(4))
-            .auditException(any(),any(),any(),any(),any(),any(),any());
+        verify(elinkDataExceptionSink,times(4))
+            .auditException(any(),any(),any(),any(),any(),any(),any(),any());
+        // the profiles were saved, so their judges are still queued for publishing
+        verify(transactionTemplate, atLeastOnce()).executeWithoutResult(any());
+        verify(jdbcTemplate, atLeastOnce()).update(eq(RECORD_PROFILE_CHANGE), anyString());
+        verify(jdbcTemplate, atLeastOnce()).update(eq(RECORD_CHANGE_EVENT), anyString(), isNull(), eq("CREATED"));
     }
 
     @Test
-    void load_people_should_return_elinksException_when_updating_RoleDb()
-        throws JsonProcessingException {
+    void savingPeopleIndividuallyRecordsTheSidamIdTheyHadBeforeTheSave()
+            throws JsonProcessingException {
 
         LocationMapping locationMapping = LocationMapping.builder()
             .serviceCode("BHA1")
@@ -858,145 +1005,85 @@ class ElinksPeopleServiceImplTest {
             .results(1)
             .pages(1).currentPage(1).resultsPerPage(3).morePages(false).build();
         elinksApiResponseFirstHit.setPagination(paginationNew);
-        when(regionMappingRepository.fetchRegionIdfromRegion(any())).thenReturn("1");
+        when(elinksReferenceDataSnapshot.fetchRegionId(any())).thenReturn("1");
         String body = mapper.writeValueAsString(elinksApiResponseFirstHit);
-        when(locationMapppingRepository.fetchEpimmsIdfromLocationId(any())).thenReturn("234");
+        when(elinksReferenceDataSnapshot.fetchEpimmsId(any())).thenReturn("234");
         when(dataloadSchedularAuditRepository.findLatestSchedularEndTime()).thenReturn(LocalDateTime.now());
 
+        UserProfile stored = new UserProfile();
+        stored.setSidamId("sidam-1");
+        when(profileRepository.findById(any())).thenReturn(Optional.of(stored));
         DataAccessException dataAccessException = mock(DataAccessException.class);
-        when(judicialRoleTypeRepository.save(any())).thenThrow(dataAccessException);
+        when(elinksPeopleBatchWriter.writePage(any())).thenThrow(dataAccessException);
+        when(appointmentsRepository.save(any())).thenThrow(dataAccessException);
         when(elinksFeignClient.getPeopleDetails(any(), any(), any(),
-            Boolean.parseBoolean(any()))).thenReturn(Response.builder()
-            .request(mock(Request.class)).body(body, defaultCharset()).status(200).build());
+                Boolean.parseBoolean(any()))).thenReturn(Response.builder()
+                .request(mock(Request.class)).body(body, defaultCharset()).status(200).build());
 
 
-        ResponseEntity<ElinkPeopleWrapperResponse> responseEntity = elinksPeopleServiceImpl.updatePeople();
-        verify(elinkDataExceptionHelper,times(6))
-            .auditException(any(),any(),any(),any(),any(),any(),any());
+        elinksPeopleServiceImpl.updatePeople();
+
+        verify(jdbcTemplate, atLeastOnce()).update(eq(RECORD_CHANGE_EVENT), anyString(), eq("sidam-1"),
+            eq("APPOINTMENT_CHANGED"));
     }
 
     @Test
-    void load_people_should_return_elinksException_when_updating_authorisationsDb()
-            throws JsonProcessingException {
+    void load_people_should_return_elinksException_when_updating_RoleDb()
+        throws JsonProcessingException {
 
-        //ElinksPeopleServiceImpl elinksPeopleServiceImplSpy = spy(elinksPeopleServiceImpl);
+        LocationMapping locationMapping = LocationMapping.builder()
+            .serviceCode("BHA1")
+            .epimmsId("1234").build();
+        ObjectMapper mapper = new ObjectMapper();
         PaginationRequest paginationNew = PaginationRequest.builder()
             .results(1)
             .pages(1).currentPage(1).resultsPerPage(3).morePages(false).build();
-
         elinksApiResponseFirstHit.setPagination(paginationNew);
-        when(regionMappingRepository.fetchRegionIdfromRegion(any())).thenReturn("1");
-        when(locationMapppingRepository.fetchEpimmsIdfromLocationId(any())).thenReturn("234");
-        ObjectMapper mapper = new ObjectMapper();
+        when(elinksReferenceDataSnapshot.fetchRegionId(any())).thenReturn("1");
         String body = mapper.writeValueAsString(elinksApiResponseFirstHit);
-        DataAccessException dataAccessException = mock(DataAccessException.class);
-        when(authorisationsRepository.save(any())).thenThrow(dataAccessException);
+        when(elinksReferenceDataSnapshot.fetchEpimmsId(any())).thenReturn("234");
         when(dataloadSchedularAuditRepository.findLatestSchedularEndTime()).thenReturn(LocalDateTime.now());
 
-        when(emailTemplate.getMailTypeConfig(any(), any())).thenReturn(mailConfig);
-        when(emailConfiguration.getMailTypes()).thenReturn(Map.of("appointment", config,
-                RefDataElinksConstants.BASE_LOCATION, config,"TEST1",config));
-        when(config.isEnabled()).thenReturn(true);
-        when(config.getBody()).thenReturn("email sample body");
-        when(config.getSubject()).thenReturn("email sample subject");
-        when(config.getTemplate()).thenReturn("email sample template");
-        when(mailConfig.isEnabled()).thenReturn(true);
-        when(mailConfig.getBody()).thenReturn("email body");
-        when(mailConfig.getSubject()).thenReturn("email subject");
+        DataAccessException dataAccessException = mock(DataAccessException.class);
+        when(elinksPeopleBatchWriter.writePage(any())).thenThrow(dataAccessException);
+        when(judicialRoleTypeRepository.save(any())).thenThrow(dataAccessException);
         when(elinksFeignClient.getPeopleDetails(any(), any(), any(),
-                Boolean.parseBoolean(any()))).thenReturn(Response.builder()
-                .request(mock(Request.class)).body(body, defaultCharset()).status(200).build());
+            Boolean.parseBoolean(any()))).thenReturn(Response.builder()
+            .request(mock(Request.class)).body(body, defaultCharset()).status(200).build());
 
-        ElinkDataExceptionRecords exceptionRecords1 = new ElinkDataExceptionRecords();
-        exceptionRecords1.setId(1L);
-        exceptionRecords1.setKey("key");
-        exceptionRecords1.setRowId("rowId");
-        exceptionRecords1.setSchedulerName("schedularName");
-        exceptionRecords1.setErrorDescription("errorDescr");
-        exceptionRecords1.setTableName("tableName");
-        exceptionRecords1.setFieldInError(RefDataElinksConstants.APPOINTMENTID);
-        exceptionRecords1.setSchedulerStartTime(LocalDateTime.now());
-        exceptionRecords1.setUpdatedTimeStamp(LocalDateTime.now());
-        ElinkDataExceptionRecords exceptionRecords2 = new ElinkDataExceptionRecords();
-        exceptionRecords2.setId(2L);
-        exceptionRecords2.setKey("key1");
-        exceptionRecords2.setRowId("rowId1");
-        exceptionRecords2.setSchedulerName("schedularName1");
-        exceptionRecords2.setErrorDescription("errorDescr1");
-        exceptionRecords2.setTableName("tableName1");
-        exceptionRecords2.setFieldInError(RefDataElinksConstants.APPOINTMENTID);
-        exceptionRecords2.setSchedulerStartTime(LocalDateTime.now());
-        exceptionRecords2.setUpdatedTimeStamp(LocalDateTime.now());
-        List<ElinkDataExceptionRecords> exceptionRecords = Arrays.asList(exceptionRecords1,exceptionRecords2);
-
-        when(elinkDataExceptionRepository.findBySchedulerStartTime(any())).thenReturn(exceptionRecords);
 
         ResponseEntity<ElinkPeopleWrapperResponse> responseEntity = elinksPeopleServiceImpl.updatePeople();
-        verify(elinkDataExceptionHelper,times(6))
-            .auditException(any(),any(),any(),any(),any(),any(),any());
-        verify(emailService, atLeastOnce()).sendEmail(any());
+        verify(elinkDataExceptionSink,times(6))
+            .auditException(any(),any(),any(),any(),any(),any(),any(),any());
     }
 
     @Test
-    void verify_send_email_negative_scenario_when_updating_authorisationsDb()
+    void load_people_should_return_elinksException_when_updating_authorisationsDb()
             throws JsonProcessingException {
 
         //ElinksPeopleServiceImpl elinksPeopleServiceImplSpy = spy(elinksPeopleServiceImpl);
         PaginationRequest paginationNew = PaginationRequest.builder()
-                .results(1)
-                .pages(1).currentPage(1).resultsPerPage(3).morePages(false).build();
+            .results(1)
+            .pages(1).currentPage(1).resultsPerPage(3).morePages(false).build();
 
         elinksApiResponseFirstHit.setPagination(paginationNew);
-        when(regionMappingRepository.fetchRegionIdfromRegion(any())).thenReturn("1");
-        when(locationMapppingRepository.fetchEpimmsIdfromLocationId(any())).thenReturn("234");
+        when(elinksReferenceDataSnapshot.fetchRegionId(any())).thenReturn("1");
+        when(elinksReferenceDataSnapshot.fetchEpimmsId(any())).thenReturn("234");
         ObjectMapper mapper = new ObjectMapper();
         String body = mapper.writeValueAsString(elinksApiResponseFirstHit);
         DataAccessException dataAccessException = mock(DataAccessException.class);
+        when(elinksPeopleBatchWriter.writePage(any())).thenThrow(dataAccessException);
         when(authorisationsRepository.save(any())).thenThrow(dataAccessException);
         when(dataloadSchedularAuditRepository.findLatestSchedularEndTime()).thenReturn(LocalDateTime.now());
 
-        when(emailTemplate.getMailTypeConfig(any(), any())).thenReturn(mailConfig);
-        when(emailConfiguration.getMailTypes()).thenReturn(Map.of("appointment", config,
-                RefDataElinksConstants.BASE_LOCATION, config,"TEST1",config));
-        when(config.isEnabled()).thenReturn(false);
-        when(config.getBody()).thenReturn("email sample body");
-        when(config.getSubject()).thenReturn("email sample subject");
-        when(config.getTemplate()).thenReturn("email sample template");
-        when(mailConfig.isEnabled()).thenReturn(true);
-        when(mailConfig.getBody()).thenReturn("email body");
-        when(mailConfig.getSubject()).thenReturn("email subject");
         when(elinksFeignClient.getPeopleDetails(any(), any(), any(),
                 Boolean.parseBoolean(any()))).thenReturn(Response.builder()
                 .request(mock(Request.class)).body(body, defaultCharset()).status(200).build());
 
-        ElinkDataExceptionRecords exceptionRecords1 = new ElinkDataExceptionRecords();
-        exceptionRecords1.setId(1L);
-        exceptionRecords1.setKey("key");
-        exceptionRecords1.setRowId("rowId");
-        exceptionRecords1.setSchedulerName("schedularName");
-        exceptionRecords1.setErrorDescription("errorDescr");
-        exceptionRecords1.setTableName("tableName");
-        exceptionRecords1.setFieldInError(RefDataElinksConstants.APPOINTMENTID);
-        exceptionRecords1.setSchedulerStartTime(LocalDateTime.now());
-        exceptionRecords1.setUpdatedTimeStamp(LocalDateTime.now());
-        ElinkDataExceptionRecords exceptionRecords2 = new ElinkDataExceptionRecords();
-        exceptionRecords2.setId(2L);
-        exceptionRecords2.setKey("key1");
-        exceptionRecords2.setRowId("rowId1");
-        exceptionRecords2.setSchedulerName("schedularName1");
-        exceptionRecords2.setErrorDescription("errorDescr1");
-        exceptionRecords2.setTableName("tableName1");
-        exceptionRecords2.setFieldInError(RefDataElinksConstants.APPOINTMENTID);
-        exceptionRecords2.setSchedulerStartTime(LocalDateTime.now());
-        exceptionRecords2.setUpdatedTimeStamp(LocalDateTime.now());
-        List<ElinkDataExceptionRecords> exceptionRecords = Arrays.asList(exceptionRecords1,exceptionRecords2);
-
-        when(elinkDataExceptionRepository.findBySchedulerStartTime(any())).thenReturn(exceptionRecords);
-
         ResponseEntity<ElinkPeopleWrapperResponse> responseEntity = elinksPeopleServiceImpl.updatePeople();
-        verify(elinkDataExceptionHelper,times(6))
-                .auditException(any(),any(),any(),any(),any(),any(),any());
-        verify(emailService, times(0)).sendEmail(any());
+        verify(elinkDataExceptionSink,times(6))
+            .auditException(any(),any(),any(),any(),any(),any(),any(),any());
+        verify(elinkNotificationDispatcher, times(1)).dispatchExceptionReport(any());
     }
 
     @Test
@@ -1008,56 +1095,23 @@ class ElinksPeopleServiceImplTest {
                 .pages(1).currentPage(1).resultsPerPage(3).morePages(false).build();
 
         elinksApiResponseFirstHit.setPagination(paginationNew);
-        when(regionMappingRepository.fetchRegionIdfromRegion(any())).thenReturn("1");
-        when(locationMapppingRepository.fetchEpimmsIdfromLocationId(any())).thenReturn("234");
+        when(elinksReferenceDataSnapshot.fetchRegionId(any())).thenReturn("1");
+        when(elinksReferenceDataSnapshot.fetchEpimmsId(any())).thenReturn("234");
         ObjectMapper mapper = new ObjectMapper();
         String body = mapper.writeValueAsString(elinksApiResponseFirstHit);
         DataAccessException dataAccessException = mock(DataAccessException.class);
+        when(elinksPeopleBatchWriter.writePage(any())).thenThrow(dataAccessException);
         when(authorisationsRepository.save(any())).thenThrow(dataAccessException);
         when(dataloadSchedularAuditRepository.findLatestSchedularEndTime()).thenReturn(LocalDateTime.now());
 
-        when(emailTemplate.getMailTypeConfig(any(), any())).thenReturn(mailConfig);
-        when(emailConfiguration.getMailTypes()).thenReturn(Map.of(RefDataElinksConstants.LOCATION, config,
-                RefDataElinksConstants.BASE_LOCATION, config,"TEST1",config));
-        when(config.isEnabled()).thenReturn(true);
-        when(config.getBody()).thenReturn("email sample body");
-        when(config.getSubject()).thenReturn("email sample subject");
-        when(config.getTemplate()).thenReturn("email sample template");
-        when(mailConfig.isEnabled()).thenReturn(true);
-        when(mailConfig.getBody()).thenReturn("email body");
-        when(mailConfig.getSubject()).thenReturn("email subject");
         when(elinksFeignClient.getPeopleDetails(any(), any(), any(),
                 Boolean.parseBoolean(any()))).thenReturn(Response.builder()
                 .request(mock(Request.class)).body(body, defaultCharset()).status(200).build());
 
-        ElinkDataExceptionRecords exceptionRecords1 = new ElinkDataExceptionRecords();
-        exceptionRecords1.setId(1L);
-        exceptionRecords1.setKey("key");
-        exceptionRecords1.setRowId("rowId");
-        exceptionRecords1.setSchedulerName("schedularName");
-        exceptionRecords1.setErrorDescription("errorDescr");
-        exceptionRecords1.setTableName("tableName");
-        exceptionRecords1.setFieldInError(RefDataElinksConstants.BASE_LOCATION_ID);
-        exceptionRecords1.setSchedulerStartTime(LocalDateTime.now());
-        exceptionRecords1.setUpdatedTimeStamp(LocalDateTime.now());
-        ElinkDataExceptionRecords exceptionRecords2 = new ElinkDataExceptionRecords();
-        exceptionRecords2.setId(2L);
-        exceptionRecords2.setKey("key1");
-        exceptionRecords2.setRowId("rowId1");
-        exceptionRecords2.setSchedulerName("schedularName1");
-        exceptionRecords2.setErrorDescription("errorDescr1");
-        exceptionRecords2.setTableName("tableName1");
-        exceptionRecords2.setFieldInError(RefDataElinksConstants.LOCATION);
-        exceptionRecords2.setSchedulerStartTime(LocalDateTime.now());
-        exceptionRecords2.setUpdatedTimeStamp(LocalDateTime.now());
-        List<ElinkDataExceptionRecords> exceptionRecords = Arrays.asList(exceptionRecords1,exceptionRecords2);
-
-        when(elinkDataExceptionRepository.findBySchedulerStartTime(any())).thenReturn(exceptionRecords);
-
         ResponseEntity<ElinkPeopleWrapperResponse> responseEntity = elinksPeopleServiceImpl.updatePeople();
-        verify(elinkDataExceptionHelper,times(6))
-                .auditException(any(),any(),any(),any(),any(),any(),any());
-        verify(emailService, atLeastOnce()).sendEmail(any());
+        verify(elinkDataExceptionSink,times(6))
+                .auditException(any(),any(),any(),any(),any(),any(),any(),any());
+        verify(elinkNotificationDispatcher, times(1)).dispatchExceptionReport(any());
     }
 
     @Test
@@ -1069,56 +1123,23 @@ class ElinksPeopleServiceImplTest {
             .pages(1).currentPage(1).resultsPerPage(3).morePages(false).build();
 
         elinksApiResponseFirstHit.setPagination(paginationNew);
-        when(regionMappingRepository.fetchRegionIdfromRegion(any())).thenReturn("1");
-        when(locationMapppingRepository.fetchEpimmsIdfromLocationId(any())).thenReturn("234");
+        when(elinksReferenceDataSnapshot.fetchRegionId(any())).thenReturn("1");
+        when(elinksReferenceDataSnapshot.fetchEpimmsId(any())).thenReturn("234");
         ObjectMapper mapper = new ObjectMapper();
         String body = mapper.writeValueAsString(elinksApiResponseFirstHit);
         DataAccessException dataAccessException = mock(DataAccessException.class);
+        when(elinksPeopleBatchWriter.writePage(any())).thenThrow(dataAccessException);
         when(authorisationsRepository.save(any())).thenThrow(dataAccessException);
         when(dataloadSchedularAuditRepository.findLatestSchedularEndTime()).thenReturn(LocalDateTime.now());
 
-        when(emailTemplate.getMailTypeConfig(any(), any())).thenReturn(mailConfig);
-        when(emailConfiguration.getMailTypes()).thenReturn(Map.of("userprofile", config,
-            RefDataElinksConstants.USER_PROFILE, config,"TEST1",config));
-        when(config.isEnabled()).thenReturn(true);
-        when(config.getBody()).thenReturn("email sample body");
-        when(config.getSubject()).thenReturn("email sample subject");
-        when(config.getTemplate()).thenReturn("email sample template");
-        when(mailConfig.isEnabled()).thenReturn(true);
-        when(mailConfig.getBody()).thenReturn("email body");
-        when(mailConfig.getSubject()).thenReturn("email subject");
         when(elinksFeignClient.getPeopleDetails(any(), any(), any(),
             Boolean.parseBoolean(any()))).thenReturn(Response.builder()
             .request(mock(Request.class)).body(body, defaultCharset()).status(200).build());
 
-        ElinkDataExceptionRecords exceptionRecords1 = new ElinkDataExceptionRecords();
-        exceptionRecords1.setId(1L);
-        exceptionRecords1.setKey("key");
-        exceptionRecords1.setRowId("rowId");
-        exceptionRecords1.setSchedulerName("schedularName");
-        exceptionRecords1.setErrorDescription("errorDescr");
-        exceptionRecords1.setTableName("tableName");
-        exceptionRecords1.setFieldInError(RefDataElinksConstants.USER_PROFILE);
-        exceptionRecords1.setSchedulerStartTime(LocalDateTime.now());
-        exceptionRecords1.setUpdatedTimeStamp(LocalDateTime.now());
-        ElinkDataExceptionRecords exceptionRecords2 = new ElinkDataExceptionRecords();
-        exceptionRecords2.setId(2L);
-        exceptionRecords2.setKey("key1");
-        exceptionRecords2.setRowId("rowId1");
-        exceptionRecords2.setSchedulerName("schedularName1");
-        exceptionRecords2.setErrorDescription("errorDescr1");
-        exceptionRecords2.setTableName("tableName1");
-        exceptionRecords2.setFieldInError(RefDataElinksConstants.USER_PROFILE);
-        exceptionRecords2.setSchedulerStartTime(LocalDateTime.now());
-        exceptionRecords2.setUpdatedTimeStamp(LocalDateTime.now());
-        List<ElinkDataExceptionRecords> exceptionRecords = Arrays.asList(exceptionRecords1,exceptionRecords2);
-
-        when(elinkDataExceptionRepository.findBySchedulerStartTime(any())).thenReturn(exceptionRecords);
-
         ResponseEntity<ElinkPeopleWrapperResponse> responseEntity = elinksPeopleServiceImpl.updatePeople();
-        verify(elinkDataExceptionHelper,times(6))
-            .auditException(any(),any(),any(),any(),any(),any(),any());
-        verify(emailService, atLeastOnce()).sendEmail(any());
+        verify(elinkDataExceptionSink,times(6))
+            .auditException(any(),any(),any(),any(),any(),any(),any(),any());
+        verify(elinkNotificationDispatcher, times(1)).dispatchExceptionReport(any());
     }
 
 
@@ -1135,9 +1156,9 @@ class ElinksPeopleServiceImplTest {
             .serviceCode("BHA1")
             .epimmsId("1234").build();
         elinksApiResponseFirstHit.setPagination(paginationNew);
-        when(regionMappingRepository.fetchRegionIdfromRegion(any())).thenReturn("1");
+        when(elinksReferenceDataSnapshot.fetchRegionId(any())).thenReturn("1");
         String body = mapper.writeValueAsString(elinksApiResponseFirstHit);
-        when(locationMapppingRepository.fetchEpimmsIdfromLocationId(any())).thenReturn("234");
+        when(elinksReferenceDataSnapshot.fetchEpimmsId(any())).thenReturn("234");
         when(dataloadSchedularAuditRepository.findLatestSchedularEndTime()).thenReturn(LocalDateTime.now());
 
         when(elinksFeignClient.getPeopleDetails(any(), any(), any(),
@@ -1145,7 +1166,7 @@ class ElinksPeopleServiceImplTest {
             .request(mock(Request.class)).body(body, defaultCharset()).status(200).build());
 
         ResponseEntity<ElinkPeopleWrapperResponse> responseEntity = elinksPeopleServiceImpl.updatePeople();
-        verify(elinkDataExceptionHelper,atLeastOnce()).auditException(any(),any(),any(),any(),any(),any(),any());
+        verify(elinkDataExceptionSink,atLeastOnce()).auditException(any(),any(),any(),any(),any(),any(),any(),any());
     }
 
     @Test
@@ -1223,5 +1244,20 @@ class ElinksPeopleServiceImplTest {
 
     }
 
+    private List<PersonRecord> writtenPeople() {
+        verify(elinksPeopleBatchWriter, atLeastOnce()).writePage(peopleCaptor.capture());
+        return peopleCaptor.getAllValues().stream().flatMap(List::stream).toList();
+    }
+
+    private int appointmentCount(List<PersonRecord> people) {
+        return people.stream().mapToInt(person -> person.getAppointments().size()).sum();
+    }
 
-}
\ No newline at end of file
+    private int authorisationCount(List<PersonRecord> people) {
+        return people.stream().mapToInt(person -> person.getAuthorisations().size()).sum();
+    }
+
+    private int roleCount(List<PersonRecord> people) {
+        return people.stream().mapToInt(person -> person.getRoles().size()).sum();
+    }
+}
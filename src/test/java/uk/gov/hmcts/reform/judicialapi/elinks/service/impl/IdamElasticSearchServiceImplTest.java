@@ -10,7 +10,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.ResponseEntity;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
@@ -19,6 +21,10 @@ import uk.gov.hmcts.reform.judicialapi.elinks.exception.ElinksException;
 import uk.gov.hmcts.reform.judicialapi.elinks.feign.IdamFeignClient;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.IdamOpenIdTokenResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.IdamResponse;
+import uk.gov.hmcts.reform.judicialapi.elinks.response.IdamSyncSummaryResponse;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkDataExceptionSink;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkNotificationDispatcher;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksBulkUpdater;
 
 import java.nio.charset.Charset;
 import java.sql.Timestamp;
@@ -27,7 +33,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -38,12 +43,21 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.util.ReflectionTestUtils.invokeMethod;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.IDAMSEARCH;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.JUDICIAL_REF_DATA_ELINKS;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.OBJECTIDNOTAVAILABLE;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.USER_PROFILE;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.BULK_UPDATE_SIDAM_IDS;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.SELECT_OBJECT_IDS_WITHOUT_SIDAM_ID;
 
 @ExtendWith(MockitoExtension.class)
 @SuppressWarnings("unchecked")
@@ -52,9 +66,15 @@ class IdamElasticSearchServiceImplTest {
     private final IdamFeignClient idamClientMock = spy(IdamFeignClient.class);
     private final IdamTokenConfigProperties tokenConfigProperties = new IdamTokenConfigProperties();
     private final IdamOpenIdTokenResponse openIdTokenResponseMock = mock(IdamOpenIdTokenResponse.class);
+    @Mock
+    CacheManager cacheManager;
+
     @InjectMocks
     private IdamElasticSearchServiceImpl idamElasticSearchServiceImpl;
     JdbcTemplate jdbcTemplate =  mock(JdbcTemplate.class);
+    ElinksBulkUpdater elinksBulkUpdater =  mock(ElinksBulkUpdater.class);
+    ElinkDataExceptionSink elinkDataExceptionSink = mock(ElinkDataExceptionSink.class);
+    ElinkNotificationDispatcher elinkNotificationDispatcher = mock(ElinkNotificationDispatcher.class);
 
     public static final String CLIENT_AUTHORIZATION =
             "eyjfddsfsdfsdfdj03903.dffkljfke932rjf032j02f3--fskfljdskls-fdkldskll";
@@ -75,7 +95,13 @@ class IdamElasticSearchServiceImplTest {
         tokenConfigProperties.setUrl(url);
         idamElasticSearchServiceImpl.props = tokenConfigProperties;
         idamElasticSearchServiceImpl.recordsPerPage = 1;
+        idamElasticSearchServiceImpl.pageParallelism = 2;
+        idamElasticSearchServiceImpl.tokenLifetimeSeconds = 3600;
+        idamElasticSearchServiceImpl.tokenRefreshMarginSeconds = 300;
         idamElasticSearchServiceImpl.idamSearchQuery = "(roles:judiciary) AND lastModified:>now-%sh";
+        idamElasticSearchServiceImpl.idamSearchWatermarkQuery = "(roles:judiciary) AND lastModified:>%s";
+        idamElasticSearchServiceImpl.idamSsoIdQuery = "(roles:judiciary) AND ssoid:(%s)";
+        idamElasticSearchServiceImpl.ssoIdBatchSize = 2;
     }
 
     @Test
@@ -101,6 +127,7 @@ class IdamElasticSearchServiceImplTest {
 
         List<IdamResponse> users = new ArrayList<>();
         users.add(createUser("some@some.com"));
+        users.get(0).setSsoId("ssoId");
         ObjectMapper mapper = new ObjectMapper();
         String body = mapper.writeValueAsString(users);
 
@@ -113,13 +140,98 @@ class IdamElasticSearchServiceImplTest {
                         Request.Body.empty(), null)).headers(map).body(body, Charset.defaultCharset())
                 .status(200).build();
         when(idamClientMock.getUserFeed(anyString(), any())).thenReturn(response);
-        ResponseEntity<Object> useResponses = idamElasticSearchServiceImpl.getIdamElasticSearchSyncFeed();
+        ResponseEntity<IdamSyncSummaryResponse> useResponses =
+            idamElasticSearchServiceImpl.getIdamElasticSearchSyncFeed();
         assertThat(response).isNotNull();
-        Set<IdamResponse>  idamResponse = (HashSet<IdamResponse>) useResponses.getBody();
-        idamResponse.forEach(useResponse -> {
-            assertThat(useResponse.getEmail()).isEqualTo("some@some.com");
-        });
-        verify(idamClientMock, times(1)).getUserFeed(anyString(), any());
+        assertThat(useResponses.getBody()).extracting(IdamSyncSummaryResponse::getPages,
+            IdamSyncSummaryResponse::getUsersSeen, IdamSyncSummaryResponse::getSidamIdsUpdated,
+            IdamSyncSummaryResponse::getUnmatchedObjectIds).containsExactly(5, 5, 5, 0);
+        verify(idamClientMock, times(5)).getUserFeed(anyString(), any());
+        verify(idamClientMock, times(1)).getOpenIdToken(any());
+        verify(elinksBulkUpdater, times(5)).update(eq(IDAMSEARCH), eq(BULK_UPDATE_SIDAM_IDS),
+            argThat(rows -> rows.size() == 1 && rows.containsKey("ssoId")), eq("text"));
+    }
+
+    @Test
+    void testSyncFeedCountsObjectIdsMatchingNoProfile() throws JsonProcessingException {
+        idamElasticSearchServiceImpl.recordsPerPage = 5;
+        when(openIdTokenResponseMock.getAccessToken()).thenReturn(CLIENT_AUTHORIZATION);
+        when(idamClientMock.getOpenIdToken(any())).thenReturn(openIdTokenResponseMock);
+        IdamResponse user = createUser("some@some.com");
+        user.setSsoId("unknownObjectId");
+        when(idamClientMock.getUserFeed(anyString(), any())).thenReturn(userFeedResponse(200, user));
+        when(elinksBulkUpdater.update(eq(IDAMSEARCH), eq(BULK_UPDATE_SIDAM_IDS), any(), eq("text")))
+            .thenReturn(Set.of("unknownObjectId"));
+
+        IdamSyncSummaryResponse summary = idamElasticSearchServiceImpl.getIdamElasticSearchSyncFeed().getBody();
+
+        assertThat(summary.getUsersSeen()).isEqualTo(1);
+        assertThat(summary.getSidamIdsUpdated()).isZero();
+        assertThat(summary.getUnmatchedObjectIds()).isEqualTo(1);
+        verify(elinkDataExceptionSink).auditException(any(), eq(JUDICIAL_REF_DATA_ELINKS), any(),
+            eq("unknownObjectId"), eq(USER_PROFILE), eq(OBJECTIDNOTAVAILABLE), eq(USER_PROFILE),
+            eq("unknownObjectId"));
+        verify(elinkDataExceptionSink).finishRun(any());
+        verify(elinkNotificationDispatcher).dispatchExceptionReport(any());
+    }
+
+    @Test
+    void testSyncFeedKeepsTokenShorterLivedThanTheRefreshMargin() throws JsonProcessingException {
+        when(openIdTokenResponseMock.getAccessToken()).thenReturn(CLIENT_AUTHORIZATION);
+        when(openIdTokenResponseMock.getExpiresIn()).thenReturn(120L);
+        when(idamClientMock.getOpenIdToken(any())).thenReturn(openIdTokenResponseMock);
+        when(idamClientMock.getUserFeed(anyString(), any()))
+            .thenAnswer(invocation -> userFeedResponse(200, createUser("some@some.com")));
+
+        idamElasticSearchServiceImpl.getIdamElasticSearchSyncFeed();
+
+        verify(idamClientMock, times(5)).getUserFeed(anyString(), any());
+        verify(idamClientMock, times(1)).getOpenIdToken(any());
+        verify(elinkNotificationDispatcher, never()).dispatchExceptionReport(any());
+    }
+
+    @Test
+    void testSyncFeedRefreshesRevokedToken() throws JsonProcessingException {
+        idamElasticSearchServiceImpl.recordsPerPage = 5;
+        when(openIdTokenResponseMock.getAccessToken()).thenReturn(CLIENT_AUTHORIZATION);
+        when(idamClientMock.getOpenIdToken(any())).thenReturn(openIdTokenResponseMock);
+
+        Response unauthorised = userFeedResponse(401, createUser("some@some.com"));
+        Response response = userFeedResponse(200, createUser("some@some.com"));
+        when(idamClientMock.getUserFeed(anyString(), any())).thenReturn(unauthorised, response);
+
+        ResponseEntity<IdamSyncSummaryResponse> useResponses =
+            idamElasticSearchServiceImpl.getIdamElasticSearchSyncFeed();
+
+        assertThat(useResponses.getStatusCodeValue()).isEqualTo(200);
+        verify(idamClientMock, times(2)).getOpenIdToken(any());
+        verify(idamClientMock, times(2)).getUserFeed(anyString(), any());
+    }
+
+    @Test
+    void testSyncFeedFailsWhenLaterPageFails() throws JsonProcessingException {
+        when(openIdTokenResponseMock.getAccessToken()).thenReturn(CLIENT_AUTHORIZATION);
+        when(idamClientMock.getOpenIdToken(any())).thenReturn(openIdTokenResponseMock);
+
+        Response response = userFeedResponse(200, createUser("some@some.com"));
+        Response failure = userFeedResponse(500, createUser("other@some.com"));
+        when(idamClientMock.getUserFeed(anyString(), any())).thenAnswer(invocation ->
+            "3".equals(((Map<String, String>) invocation.getArgument(1)).get("page")) ? failure : response);
+
+        ElinksException exception = assertThrows(ElinksException.class,
+            () -> idamElasticSearchServiceImpl.getIdamElasticSearchSyncFeed());
+
+        assertThat(exception.getStatus().value()).isEqualTo(500);
+        verify(idamClientMock, times(1)).getOpenIdToken(any());
+    }
+
+    private Response userFeedResponse(int status, IdamResponse user) throws JsonProcessingException {
+        String body = new ObjectMapper().writeValueAsString(List.of(user));
+        Map<String, Collection<String>> headers = new HashMap<>();
+        headers.put("X-Total-Count", List.of("5"));
+        return Response.builder().request(Request.create(Request.HttpMethod.GET, "", new HashMap<>(),
+                Request.Body.empty(), null)).headers(headers).body(body, Charset.defaultCharset())
+            .status(status).build();
     }
 
     @Test
@@ -200,17 +312,58 @@ class IdamElasticSearchServiceImplTest {
     @Test
     void testElasticSearchQuery() {
 
-        List<Timestamp> resultSet = new ArrayList<>(Collections.singleton(java.sql.Timestamp.valueOf(
-                LocalDateTime.now().minusDays(1))));
+        Timestamp watermark = Timestamp.valueOf(LocalDateTime.now().minusDays(1));
+        List<Timestamp> resultSet = new ArrayList<>(Collections.singleton(watermark));
         when(jdbcTemplate.query(anyString(),any(RowMapper.class))).thenReturn(resultSet);
-        Long hours = invokeMethod(idamElasticSearchServiceImpl, "idamElasticSearchQueryHours");
-        Assert.assertEquals(Long.valueOf(25), hours);
+        String query = invokeMethod(idamElasticSearchServiceImpl, "idamElasticSearchQuery");
+        Assert.assertEquals("(roles:judiciary) AND lastModified:>" + watermark.getTime(), query);
     }
 
     @Test
     void testElasticSearchQueryMaxIsNull() {
         when(jdbcTemplate.query(anyString(),any(RowMapper.class))).thenReturn(null);
-        Long computeHours = invokeMethod(idamElasticSearchServiceImpl, "idamElasticSearchQueryHours");
-        Assert.assertEquals(Long.valueOf(72),computeHours);
+        String query = invokeMethod(idamElasticSearchServiceImpl, "idamElasticSearchQuery");
+        Assert.assertEquals("(roles:judiciary) AND lastModified:>now-72h",query);
+    }
+
+    @Test
+    void testMissingSidamIdSyncLooksUpObjectIdsInBatches() throws JsonProcessingException {
+        when(openIdTokenResponseMock.getAccessToken()).thenReturn(CLIENT_AUTHORIZATION);
+        when(idamClientMock.getOpenIdToken(any())).thenReturn(openIdTokenResponseMock);
+        when(jdbcTemplate.queryForList(SELECT_OBJECT_IDS_WITHOUT_SIDAM_ID, String.class))
+            .thenReturn(List.of("objectId1", "objectId2", "objectId3"));
+        IdamResponse user = createUser("some@some.com");
+        user.setSsoId("objectId1");
+        Response response = Response.builder().request(Request.create(Request.HttpMethod.GET, "", new HashMap<>(),
+                Request.Body.empty(), null)).body(new ObjectMapper().writeValueAsString(List.of(user)),
+                Charset.defaultCharset()).status(200).build();
+        List<String> queries = new ArrayList<>();
+        when(idamClientMock.getUserFeed(anyString(), any())).thenAnswer(invocation -> {
+            queries.add(((Map<String, String>) invocation.getArgument(1)).get("query"));
+            return response;
+        });
+
+        ResponseEntity<IdamSyncSummaryResponse> useResponses =
+            idamElasticSearchServiceImpl.getIdamMissingSidamIdSyncFeed();
+
+        assertThat(useResponses.getStatusCodeValue()).isEqualTo(200);
+        assertThat(useResponses.getBody().getPages()).isEqualTo(2);
+        assertThat(useResponses.getBody().getSidamIdsUpdated()).isEqualTo(2);
+        assertThat(queries).containsExactly(
+            "(roles:judiciary) AND ssoid:(\"objectId1\" OR \"objectId2\")",
+            "(roles:judiciary) AND ssoid:(\"objectId3\")");
+        verify(elinksBulkUpdater, times(2)).update(eq(IDAMSEARCH), eq(BULK_UPDATE_SIDAM_IDS),
+            argThat(rows -> rows.containsKey("objectId1")), eq("text"));
+    }
+
+    @Test
+    void testMissingSidamIdSyncWithNothingMissing() {
+        when(jdbcTemplate.queryForList(SELECT_OBJECT_IDS_WITHOUT_SIDAM_ID, String.class)).thenReturn(List.of());
+
+        ResponseEntity<IdamSyncSummaryResponse> useResponses =
+            idamElasticSearchServiceImpl.getIdamMissingSidamIdSyncFeed();
+
+        assertThat(useResponses.getStatusCodeValue()).isEqualTo(200);
+        verify(idamClientMock, times(0)).getUserFeed(anyString(), any());
     }
 }
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -13,12 +14,20 @@ import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 import uk.gov.hmcts.reform.judicialapi.elinks.configuration.ElinkEmailConfiguration;
 import uk.gov.hmcts.reform.judicialapi.elinks.response.SchedulerJobStatusResponse;
 import uk.gov.hmcts.reform.judicialapi.elinks.service.dto.Email;
 import uk.gov.hmcts.reform.judicialapi.elinks.servicebus.ElinkTopicPublisher;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinkNotificationDispatcher;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -29,14 +38,23 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.JobStatus.FAILED;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.JobStatus.IN_PROGRESS;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.JobStatus.SUCCESS;
-import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataConstants.ROW_MAPPER;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlContants.CAPTURE_PROFILE_CHANGES;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlContants.COUNT_CHANGED_SIDAM_ID;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlContants.COUNT_DISTINCT_SIDAM_ID;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlContants.DELETE_PUBLISHED_PROFILE_CHANGES;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlContants.GET_CHANGED_SIDAM_ID;
 import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlContants.GET_DISTINCT_SIDAM_ID;
 
 
@@ -54,7 +72,10 @@ class PublishSidamIdServiceImplTest {
     ElinkTopicPublisher elinkTopicPublisher;
 
     @Mock
-    EmailServiceImpl emailService;
+    ElinkNotificationDispatcher elinkNotificationDispatcher;
+
+    @Mock
+    TransactionTemplate transactionTemplate;
 
     List<String> sidamIds = new ArrayList<>();
 
@@ -72,23 +93,47 @@ class PublishSidamIdServiceImplTest {
 
         when(jdbcTemplate.queryForObject(anyString(), any(RowMapper.class)))
                 .thenReturn(Pair.of("2", IN_PROGRESS.getStatus()));
+        Connection connection = streamSidamIds();
 
         ResponseEntity<SchedulerJobStatusResponse> response = publishSidamIdService.publishSidamIdToAsb();
         SchedulerJobStatusResponse res = response.getBody();
 
         assertEquals("2",res.getId());
+        assertEquals(1, res.getSidamIdsCount());
         assertEquals("IN_PROGRESS", res.getJobStatus());
         assertEquals(HttpStatus.OK.value(),res.getStatusCode());
+        InOrder inOrder = inOrder(jdbcTemplate, connection);
+        inOrder.verify(jdbcTemplate).execute(CAPTURE_PROFILE_CHANGES);
+        inOrder.verify(connection).prepareStatement(GET_CHANGED_SIDAM_ID);
+        inOrder.verify(jdbcTemplate).update(DELETE_PUBLISHED_PROFILE_CHANGES);
+        verify(jdbcTemplate, times(1)).update(DELETE_PUBLISHED_PROFILE_CHANGES);
         verify(jdbcTemplate, times(1)).update(anyString(), any(), anyInt());
 
     }
 
+    @SneakyThrows
+    @Test
+    @DisplayName("Full republish publishes every sidam id and clears the queued changes")
+    void should_publish_all_sidam_ids_when_full_republish() {
+
+        when(jdbcTemplate.queryForObject(anyString(), any(RowMapper.class)))
+                .thenReturn(Pair.of("2", IN_PROGRESS.getStatus()));
+        Connection connection = streamSidamIds();
+
+        ResponseEntity<SchedulerJobStatusResponse> response = publishSidamIdService.publishSidamIdToAsb(true);
+
+        assertEquals(1, response.getBody().getSidamIdsCount());
+        verify(connection).prepareStatement(GET_DISTINCT_SIDAM_ID);
+        verify(jdbcTemplate).execute(CAPTURE_PROFILE_CHANGES);
+        verify(jdbcTemplate, times(1)).update(DELETE_PUBLISHED_PROFILE_CHANGES);
+    }
+
     @SneakyThrows
     @Test
     @DisplayName("Should retry when job status is_failed")
     void should_retry_when_job_status_is_failed() {
 
-        when(jdbcTemplate.query(GET_DISTINCT_SIDAM_ID, ROW_MAPPER)).thenReturn(sidamIds);
+        when(jdbcTemplate.queryForObject(COUNT_CHANGED_SIDAM_ID, Integer.class)).thenReturn(sidamIds.size());
         when(jdbcTemplate.queryForObject(anyString(), any(RowMapper.class)))
                 .thenReturn(Pair.of("1", FAILED.getStatus()));
 
@@ -99,6 +144,7 @@ class PublishSidamIdServiceImplTest {
         assertEquals("1",res.getId());
         assertEquals(HttpStatus.OK.value(),res.getStatusCode());
         assertEquals(sidamIds.size(),res.getSidamIdsCount());
+        verify(elinkTopicPublisher, times(0)).publishIds(any(), anyString());
 
     }
 
@@ -110,9 +156,9 @@ class PublishSidamIdServiceImplTest {
         List<String> sidamIds = new ArrayList<>();
         when(jdbcTemplate.queryForObject(anyString(), any(RowMapper.class)))
                 .thenReturn(Pair.of("2", SUCCESS.getStatus()));
-        when(jdbcTemplate.query(GET_DISTINCT_SIDAM_ID, ROW_MAPPER)).thenReturn(sidamIds);
+        when(jdbcTemplate.queryForObject(COUNT_DISTINCT_SIDAM_ID, Integer.class)).thenReturn(0);
 
-        ResponseEntity<SchedulerJobStatusResponse> response = publishSidamIdService.publishSidamIdToAsb();
+        ResponseEntity<SchedulerJobStatusResponse> response = publishSidamIdService.publishSidamIdToAsb(true);
         SchedulerJobStatusResponse res = response.getBody();
 
 
@@ -131,7 +177,7 @@ class PublishSidamIdServiceImplTest {
         when(jdbcTemplate.queryForObject(anyString(), any(RowMapper.class)))
                 .thenThrow(new EmptyResultDataAccessException(1));
         publishSidamIdService.publishSidamIdToAsb();
-        verify(elinkTopicPublisher, times(0)).sendMessage(any(), anyString());
+        verify(elinkTopicPublisher, times(0)).publishIds(any(), anyString());
         verify(jdbcTemplate, times(1)).update(anyString(), any(), anyInt());
     }
 
@@ -141,7 +187,8 @@ class PublishSidamIdServiceImplTest {
     @DisplayName("Negative Scenario: should throw exception when email is not enabled")
     void should_throw_exception_when_email_is_enabled() {
 
-        doThrow(new RuntimeException("Some Exception")).when(elinkTopicPublisher).sendMessage(sidamIds,"1");
+        runInTransaction();
+        doThrow(new RuntimeException("Some Exception")).when(elinkTopicPublisher).publishIds(any(), eq("1"));
         ElinkEmailConfiguration.MailTypeConfig mailTypeConfig = new ElinkEmailConfiguration.MailTypeConfig();
         mailTypeConfig.setEnabled(true);
         mailTypeConfig.setSubject("%s :: Publishing of JRD messages to ASB failed");
@@ -153,9 +200,10 @@ class PublishSidamIdServiceImplTest {
         publishSidamIdService.emailConfiguration = emailConfiguration;
 
         assertThrows(Exception.class,
-                () -> publishSidamIdService.publishMessage(IN_PROGRESS.getStatus(), sidamIds, "1"));
-        verify(emailService, times(1)).sendEmail(any(Email.class));
-        verify(elinkTopicPublisher, times(1)).sendMessage(any(), anyString());
+                () -> publishSidamIdService.publishMessage("1", false));
+        verify(jdbcTemplate, never()).update(DELETE_PUBLISHED_PROFILE_CHANGES);
+        verify(elinkNotificationDispatcher, times(1)).dispatch(any(Email.class));
+        verify(elinkTopicPublisher, times(1)).publishIds(any(), anyString());
         verify(jdbcTemplate, times(1)).update(anyString(), any(), anyInt());
     }
 
@@ -164,7 +212,8 @@ class PublishSidamIdServiceImplTest {
     @DisplayName("Negative Scenario: should throw exception when email is not enabled")
     void should_throw_exception_when_email_is_not_enabled() {
 
-        doThrow(new RuntimeException("Some Exception")).when(elinkTopicPublisher).sendMessage(sidamIds,"1");
+        runInTransaction();
+        doThrow(new RuntimeException("Some Exception")).when(elinkTopicPublisher).publishIds(any(), eq("1"));
         ElinkEmailConfiguration.MailTypeConfig mailTypeConfig = new ElinkEmailConfiguration.MailTypeConfig();
         mailTypeConfig.setEnabled(false);
         mailTypeConfig.setSubject("%s :: Publishing of JRD messages to ASB failed");
@@ -176,9 +225,10 @@ class PublishSidamIdServiceImplTest {
         publishSidamIdService.emailConfiguration = emailConfiguration;
 
         assertThrows(Exception.class,
-                () -> publishSidamIdService.publishMessage(IN_PROGRESS.getStatus(), sidamIds, "1"));
-        verify(emailService, times(0)).sendEmail(any(Email.class));
-        verify(elinkTopicPublisher, times(1)).sendMessage(any(), anyString());
+                () -> publishSidamIdService.publishMessage("1", false));
+        verify(jdbcTemplate, never()).update(DELETE_PUBLISHED_PROFILE_CHANGES);
+        verify(elinkNotificationDispatcher, times(0)).dispatch(any(Email.class));
+        verify(elinkTopicPublisher, times(1)).publishIds(any(), anyString());
         verify(jdbcTemplate, times(1)).update(anyString(), any(), anyInt());
     }
 
@@ -186,10 +236,41 @@ class PublishSidamIdServiceImplTest {
     @Test
     @DisplayName("Positive scenario when status is in progress and sidam id is not null")
     void whould_send_messages_when_sidam_id_not_null() {
-        publishSidamIdService.publishMessage(IN_PROGRESS.getStatus(),sidamIds,"2");
+        runInTransaction();
+        when(elinkTopicPublisher.publishIds(any(), eq("2"))).thenReturn(sidamIds.size());
+
+        assertEquals(sidamIds.size(), publishSidamIdService.publishMessage("2", false));
 
-        verify(elinkTopicPublisher).sendMessage(sidamIds,"2");
+        verify(elinkTopicPublisher).publishIds(any(), eq("2"));
         verify(jdbcTemplate, times(1)).update(anyString(), any(), anyInt());
     }
 
-}
\ No newline at end of file
+    private void runInTransaction() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            ((TransactionCallback<Integer>) invocation.getArgument(0)).doInTransaction(null));
+    }
+
+    /**
+     * Streams the first sidam id to the publisher, returning the connection the query is prepared on.
+     */
+    @SneakyThrows
+    private Connection streamSidamIds() {
+        runInTransaction();
+        when(elinkTopicPublisher.publishIds(any(), eq("2"))).thenAnswer(invocation -> {
+            List<String> published = new ArrayList<>();
+            ((ElinkTopicPublisher.IdSource) invocation.getArgument(0)).forEachId(published::add);
+            return published.size();
+        });
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        doAnswer(invocation -> {
+            ((PreparedStatementCreator) invocation.getArgument(0)).createPreparedStatement(connection);
+            RowCallbackHandler handler = invocation.getArgument(1);
+            ResultSet resultSet = mock(ResultSet.class);
+            when(resultSet.getString(1)).thenReturn(sidamIds.get(0));
+            handler.processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        return connection;
+    }
+}
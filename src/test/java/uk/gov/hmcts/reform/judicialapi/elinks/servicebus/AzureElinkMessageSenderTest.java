@@ -0,0 +1,56 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.servicebus;
+
+import com.azure.messaging.servicebus.ServiceBusMessage;
+import com.azure.messaging.servicebus.ServiceBusMessageBatch;
+import com.azure.messaging.servicebus.ServiceBusSenderAsyncClient;
+import com.azure.messaging.servicebus.ServiceBusTransactionContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AzureElinkMessageSenderTest {
+
+    @Mock
+    ServiceBusSenderAsyncClient elinkServiceBusSenderAsyncClient;
+
+    @InjectMocks
+    AzureElinkMessageSender azureElinkMessageSender;
+
+    @Test
+    void maxMessageSizeIsReadOnce() {
+        ServiceBusMessageBatch batch = mock(ServiceBusMessageBatch.class);
+        when(batch.getMaxSizeInBytes()).thenReturn(262_144);
+        when(elinkServiceBusSenderAsyncClient.createMessageBatch()).thenReturn(Mono.just(batch));
+
+        assertThat(azureElinkMessageSender.getMaxMessageSizeInBytes()).isEqualTo(262_144);
+        assertThat(azureElinkMessageSender.getMaxMessageSizeInBytes()).isEqualTo(262_144);
+        verify(elinkServiceBusSenderAsyncClient, times(1)).createMessageBatch();
+    }
+
+    @Test
+    void sendsWithinTheTransaction() {
+        ServiceBusTransactionContext transactionContext = mock(ServiceBusTransactionContext.class);
+        ServiceBusMessage message = new ServiceBusMessage("{\"userIds\":[]}");
+        when(elinkServiceBusSenderAsyncClient.createTransaction()).thenReturn(Mono.just(transactionContext));
+        when(elinkServiceBusSenderAsyncClient.sendMessage(message, transactionContext)).thenReturn(Mono.empty());
+        when(elinkServiceBusSenderAsyncClient.commitTransaction(transactionContext)).thenReturn(Mono.empty());
+
+        ServiceBusTransactionContext created = azureElinkMessageSender.createTransaction();
+        azureElinkMessageSender.sendMessage(message, created).join();
+        azureElinkMessageSender.commitTransaction(created);
+
+        assertThat(created).isSameAs(transactionContext);
+        verify(elinkServiceBusSenderAsyncClient).sendMessage(message, transactionContext);
+        verify(elinkServiceBusSenderAsyncClient).commitTransaction(transactionContext);
+    }
+}
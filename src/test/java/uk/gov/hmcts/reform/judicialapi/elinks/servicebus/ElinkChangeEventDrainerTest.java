@@ -0,0 +1,166 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.servicebus;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.hmcts.reform.judicialapi.elinks.configuration.JudicialChangeEvent;
+import uk.gov.hmcts.reform.judicialapi.elinks.configuration.JudicialChangeEvents;
+
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlContants.CLAIM_CHANGE_EVENTS;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlContants.DELETE_CHANGE_EVENTS;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlContants.INCREMENT_CHANGE_EVENT_ATTEMPTS;
+
+@ExtendWith(MockitoExtension.class)
+@SuppressWarnings("unchecked")
+class ElinkChangeEventDrainerTest {
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Mock
+    TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    ElinkChangeEventDrainer elinkChangeEventDrainer;
+
+    @TempDir
+    Path outbox;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private FileElinkMessageSender sender;
+
+    @BeforeEach
+    void setUp() {
+        sender = new FileElinkMessageSender(outbox.resolve("change-events.jsonl"), 256 * 1024);
+        ReflectionTestUtils.setField(elinkChangeEventDrainer, "changeEventMessageSender", sender);
+        elinkChangeEventDrainer.loggingComponentName = "loggingComponent";
+        elinkChangeEventDrainer.enabled = true;
+        elinkChangeEventDrainer.batchSize = 2;
+        elinkChangeEventDrainer.maxAttempts = 10;
+    }
+
+    @Test
+    void drainsBatchesUntilTheOutboxIsEmpty() {
+        runInTransaction();
+        outboxHolds(List.of(row(1, "CREATED"), row(2, "LEFT")), List.of(row(3, "DELETED")));
+
+        int shipped = elinkChangeEventDrainer.drain();
+
+        assertThat(shipped).isEqualTo(3);
+        List<List<JudicialChangeEvent>> messages = committedMessages();
+        assertThat(messages).hasSize(2);
+        assertThat(messages.get(0)).extracting(JudicialChangeEvent::getDataVersion).containsExactly(1L, 2L);
+        assertThat(messages.get(1)).singleElement().satisfies(event -> {
+            assertThat(event.getPersonalCode()).isEqualTo("P3");
+            assertThat(event.getSidamId()).isEqualTo("sidam-3");
+            assertThat(event.getChangeType()).isEqualTo("DELETED");
+            assertThat(event.getChangedTime()).isEqualTo("2026-10-18T02:00");
+        });
+        verify(jdbcTemplate, times(2)).update(eq(DELETE_CHANGE_EVENTS), any(PreparedStatementSetter.class));
+    }
+
+    @Test
+    void packsEventsIntoMessagesBySize() {
+        elinkChangeEventDrainer.maxMessageSizeBytes = 150;
+        runInTransaction();
+        outboxHolds(List.of(row(1, "CREATED"), row(2, "SIDAM_ID_CHANGED")), List.of());
+
+        elinkChangeEventDrainer.drain();
+
+        assertThat(committedMessages()).hasSize(2).allSatisfy(events -> assertThat(events).hasSize(1));
+    }
+
+    @Test
+    void failedBatchStaysInTheOutbox() {
+        sender.failSends(true);
+        runInTransaction();
+        outboxHolds(List.of(row(1, "CREATED"), row(2, "APPOINTMENT_CHANGED")));
+
+        int shipped = elinkChangeEventDrainer.drain();
+
+        assertThat(shipped).isZero();
+        assertThat(sender.committedBodies()).isEmpty();
+        verify(jdbcTemplate, never()).update(eq(DELETE_CHANGE_EVENTS), any(PreparedStatementSetter.class));
+        verify(jdbcTemplate).update(eq(INCREMENT_CHANGE_EVENT_ATTEMPTS), any(PreparedStatementSetter.class));
+    }
+
+    @Test
+    void disabledDrainerLeavesTheOutboxAlone() {
+        elinkChangeEventDrainer.enabled = false;
+
+        elinkChangeEventDrainer.drainOutbox();
+
+        verifyNoInteractions(jdbcTemplate, transactionTemplate);
+    }
+
+    private void runInTransaction() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            ((TransactionCallback<Integer>) invocation.getArgument(0)).doInTransaction(null));
+    }
+
+    /**
+     * Each claim returns the next batch of rows, mapped by the drainer's row mapper.
+     */
+    @SafeVarargs
+    private void outboxHolds(List<Object[]>... batches) {
+        Iterator<List<Object[]>> claims = List.of(batches).iterator();
+        when(jdbcTemplate.query(eq(CLAIM_CHANGE_EVENTS), any(RowMapper.class), eq(10), eq(2)))
+            .thenAnswer(invocation -> {
+                RowMapper<JudicialChangeEvent> rowMapper = invocation.getArgument(1);
+                List<JudicialChangeEvent> events = new ArrayList<>();
+                for (Object[] row : claims.next()) {
+                    ResultSet resultSet = mock(ResultSet.class);
+                    when(resultSet.getLong("id")).thenReturn((Long) row[0]);
+                    when(resultSet.getString("personal_code")).thenReturn("P" + row[0]);
+                    when(resultSet.getString("sidam_id")).thenReturn("sidam-" + row[0]);
+                    when(resultSet.getString("change_type")).thenReturn((String) row[1]);
+                    when(resultSet.getTimestamp("created_time"))
+                        .thenReturn(Timestamp.valueOf("2026-10-18 02:00:00"));
+                    events.add(rowMapper.mapRow(resultSet, events.size()));
+                }
+                return events;
+            });
+    }
+
+    private static Object[] row(long id, String changeType) {
+        return new Object[] {id, changeType};
+    }
+
+    @SneakyThrows
+    private List<List<JudicialChangeEvent>> committedMessages() {
+        List<List<JudicialChangeEvent>> messages = new ArrayList<>();
+        for (String body : sender.committedBodies()) {
+            messages.add(objectMapper.readValue(body, JudicialChangeEvents.class).getEvents());
+        }
+        return messages;
+    }
+}
@@ -1,123 +1,203 @@
 package uk.gov.hmcts.reform.judicialapi.elinks.servicebus;
 
-import com.azure.messaging.servicebus.ServiceBusMessageBatch;
-import com.azure.messaging.servicebus.ServiceBusSenderClient;
 import com.azure.messaging.servicebus.ServiceBusTransactionContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.hmcts.reform.judicialapi.elinks.configuration.PublishingData;
+import uk.gov.hmcts.reform.judicialapi.elinks.exception.ElinksException;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksMetrics;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 
-import static org.junit.Assert.assertThrows;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
-import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
-import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataConstants.JOB_ID;
 
-@ExtendWith(MockitoExtension.class)
+@Slf4j
 class ElinkTopicPublisherTest {
 
-    private final ServiceBusSenderClient serviceBusSenderClient = mock(ServiceBusSenderClient.class);
+    // {"userIds":[]} plus two quoted UUIDs and a comma
+    private static final long TWO_IDS_PER_MESSAGE = 14 + 38 + 39;
 
-    private final ServiceBusTransactionContext transactionContext = mock(ServiceBusTransactionContext.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
-    private final ServiceBusMessageBatch messageBatch = mock(ServiceBusMessageBatch.class);
+    private final List<String> sidamIdsList = new ArrayList<>();
 
-    List<String> sidamIdsList = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
 
-    @InjectMocks
-    ElinkTopicPublisher elinkTopicPublisher;
+    private ElinkTopicPublisher elinkTopicPublisher;
 
     @BeforeEach
     public void beforeTest() {
-        Map<String, String> options = new HashMap<>();
-        options.put(JOB_ID, "1");
         for (int i = 0; i < 5; i++) {
             sidamIdsList.add(UUID.randomUUID().toString());
         }
-        elinkTopicPublisher.jrdMessageBatchSize = 2;
+        elinkTopicPublisher = new ElinkTopicPublisher();
         elinkTopicPublisher.loggingComponentName = "loggingComponent";
         elinkTopicPublisher.topic = "dummyTopic";
+        elinkTopicPublisher.maxMessagesInFlight = 1;
+        Metrics.addRegistry(meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.removeRegistry(meterRegistry);
+        meterRegistry.close();
     }
 
     @Test
     @DisplayName("Postive scenario for sending message to Azure Sevice Bus")
     void should_send_message_to_Asb() {
-        doReturn(true).when(messageBatch).tryAddMessage(any());
-        doReturn(1).when(messageBatch).getCount();
-        doReturn(messageBatch).when(serviceBusSenderClient).createMessageBatch();
-        when(messageBatch.getCount()).thenReturn(1);
-        elinkTopicPublisher.sendMessage(sidamIdsList, "1");
-        verify(messageBatch, times(3)).tryAddMessage(any());
-        verify(messageBatch).getCount();
-        verify(serviceBusSenderClient).sendMessages((ServiceBusMessageBatch) any(), any());
-        verify(serviceBusSenderClient, times(1)).commitTransaction(any());
+        elinkTopicPublisher.maxMessageSizeBytes = TWO_IDS_PER_MESSAGE;
+        LocalElinkMessageSender sender = useSender(new LocalElinkMessageSender(256 * 1024, 0));
+
+        int published = elinkTopicPublisher.publishIds(sidamIdsList::forEach, "1");
+
+        assertThat(published).isEqualTo(5);
+        assertThat(userIds(sender)).containsExactly(sidamIdsList.subList(0, 2), sidamIdsList.subList(2, 4),
+            sidamIdsList.subList(4, 5));
+        assertThat(sender.getCommits()).isEqualTo(1);
+        assertThat(sender.getRollbacks()).isZero();
     }
 
     @Test
-    @DisplayName("Throw Exception and Rollback Transaction for connection issue while sending message to Azure "
-            + "Sevice Bus")
-    void should_throwException_and_rollbackTranscation_forConnectionIssues() {
-        doReturn(transactionContext).when(serviceBusSenderClient).createTransaction();
-        doThrow(new RuntimeException("Some Exception")).when(serviceBusSenderClient).createMessageBatch();
-        assertThrows(Exception.class, () -> elinkTopicPublisher.sendMessage(sidamIdsList, "1"));
-        verify(serviceBusSenderClient, times(1)).rollbackTransaction(any());
+    @DisplayName("Ids too large for a message are skipped and counted apart from the published ones")
+    void should_count_ids_too_large_for_a_message_as_skipped() {
+        elinkTopicPublisher.maxMessageSizeBytes = TWO_IDS_PER_MESSAGE;
+        LocalElinkMessageSender sender = useSender(new LocalElinkMessageSender(256 * 1024, 0));
+        String tooLarge = "x".repeat((int) TWO_IDS_PER_MESSAGE);
+        List<String> ids = List.of(tooLarge, sidamIdsList.get(0), tooLarge, sidamIdsList.get(1));
+
+        int published = elinkTopicPublisher.publishIds(ids::forEach, "1");
+
+        assertThat(published).isEqualTo(2);
+        assertThat(userIds(sender)).containsExactly(List.of(sidamIdsList.get(0)), List.of(sidamIdsList.get(1)));
+        assertThat(rows("published")).isEqualTo(2);
+        assertThat(rows("skipped")).isEqualTo(2);
     }
 
+    @Test
+    @DisplayName("Message size defaults to the largest message the topic accepts")
+    void should_pack_up_to_topic_max_message_size() {
+        LocalElinkMessageSender sender = useSender(new LocalElinkMessageSender(1024 + TWO_IDS_PER_MESSAGE, 0));
+
+        elinkTopicPublisher.sendMessage(sidamIdsList, "1");
+
+        assertThat(userIds(sender)).hasSize(3).allSatisfy(ids -> assertThat(ids).hasSizeLessThanOrEqualTo(2));
+    }
 
     @Test
-    @DisplayName("Throw NullPointerException when passing transactioncontext as NULL")
-    void should_throw_NullpointerException_when_transactionContext_is_null() {
-        doReturn(null).when(serviceBusSenderClient).createTransaction();
-        doThrow(new RuntimeException("NullpointerException")).when(serviceBusSenderClient).createMessageBatch();
-        assertThrows(Exception.class, () -> elinkTopicPublisher.sendMessage(sidamIdsList, "1"));
+    @DisplayName("Throw Exception and Rollback Transaction when a message cannot be sent")
+    void should_throwException_and_rollbackTranscation_forFailedSend() {
+        elinkTopicPublisher.maxMessageSizeBytes = TWO_IDS_PER_MESSAGE;
+        elinkTopicPublisher.maxMessagesInFlight = 2;
+        LocalElinkMessageSender sender = useSender(new LocalElinkMessageSender(256 * 1024, 5, 2));
+
+        assertThrows(ElinksException.class, () -> elinkTopicPublisher.sendMessage(sidamIdsList, "1"));
 
+        assertThat(sender.getRollbacks()).isEqualTo(1);
+        assertThat(sender.getCommits()).isZero();
+    }
+
+    @Test
+    @DisplayName("Throw Exception and Rollback Transaction when the id source fails")
+    void should_throwException_and_rollbackTranscation_forSourceFailure() {
+        ElinkMessageSender sender = mock(ElinkMessageSender.class);
+        ServiceBusTransactionContext transactionContext = mock(ServiceBusTransactionContext.class);
+        when(sender.createTransaction()).thenReturn(transactionContext);
+        useSender(sender);
+
+        assertThrows(ElinksException.class, () -> elinkTopicPublisher.publishIds(action -> {
+            throw new IllegalStateException("cursor closed");
+        }, "1"));
+
+        verify(sender).rollbackTransaction(transactionContext);
+        verify(sender, never()).commitTransaction(any());
     }
 
     @Test
-    @DisplayName("Throw NullPointerException when passing serviceBusClient as NULL")
-    void should_throw_NullpointerException_when_serviceBusClient_is_null() {
-        when(serviceBusSenderClient.createMessageBatch()).thenReturn(null);
-        doThrow(new RuntimeException("NullpointerException")).when(serviceBusSenderClient).createMessageBatch();
-        assertThrows(Exception.class, () -> elinkTopicPublisher.sendMessage(sidamIdsList, "1"));
-        verify(serviceBusSenderClient, never()).rollbackTransaction(any());
+    @DisplayName("Throw Exception without rollback when no transaction could be created")
+    void should_throwException_when_transaction_cannot_be_created() {
+        ElinkMessageSender sender = mock(ElinkMessageSender.class);
+        doThrow(new RuntimeException("Some Exception")).when(sender).createTransaction();
+        useSender(sender);
 
+        assertThrows(ElinksException.class, () -> elinkTopicPublisher.sendMessage(sidamIdsList, "1"));
+
+        verify(sender, never()).rollbackTransaction(any());
     }
 
     @Test
-    @DisplayName("Large message not able to add in message batch")
-    void not_able_to_add_large_message_in_message_bus() {
-        doReturn(false).when(messageBatch).tryAddMessage(any());
-        doReturn(1).when(messageBatch).getCount();
-        doReturn(messageBatch).when(serviceBusSenderClient).createMessageBatch();
-        when(messageBatch.getCount()).thenReturn(1);
-        elinkTopicPublisher.sendMessage(sidamIdsList, "1");
-        verify(serviceBusSenderClient, times(4))
-                .sendMessages((ServiceBusMessageBatch) any(), any());
+    @DisplayName("Nothing is sent when there are no ids")
+    void not_able_to_send_message_when_there_are_no_ids() {
+        LocalElinkMessageSender sender = useSender(new LocalElinkMessageSender(256 * 1024, 0));
+
+        assertThat(elinkTopicPublisher.publishIds(action -> { }, "1")).isZero();
+
+        assertThat(sender.getBodies()).isEmpty();
+        assertThat(sender.getCommits()).isEqualTo(1);
     }
 
     @Test
-    @DisplayName("Not able to send messsage when message batch is less than zero")
-    void not_able_to_send_message_when_message_batch_count_is_less_than_zero() {
-        doReturn(false).when(messageBatch).tryAddMessage(any());
-        doReturn(0).when(messageBatch).getCount();
-        doReturn(messageBatch).when(serviceBusSenderClient).createMessageBatch();
-        when(messageBatch.getCount()).thenReturn(0);
-        elinkTopicPublisher.sendMessage(sidamIdsList, "1");
-        verify(serviceBusSenderClient, never())
-                .sendMessages((ServiceBusMessageBatch) any(), any());
+    @DisplayName("Messages in flight together publish faster than one at a time")
+    void messages_in_flight_publish_faster_than_one_at_a_time() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            ids.add(UUID.randomUUID().toString());
+        }
+        elinkTopicPublisher.maxMessageSizeBytes = 2_000;
+
+        elinkTopicPublisher.maxMessagesInFlight = 1;
+        LocalElinkMessageSender serial = useSender(new LocalElinkMessageSender(256 * 1024, 2));
+        long serialStarted = System.nanoTime();
+        elinkTopicPublisher.publishIds(ids::forEach, "1");
+        long serialNanos = System.nanoTime() - serialStarted;
+
+        elinkTopicPublisher.maxMessagesInFlight = 8;
+        LocalElinkMessageSender pipelined = useSender(new LocalElinkMessageSender(256 * 1024, 2));
+        long pipelinedStarted = System.nanoTime();
+        elinkTopicPublisher.publishIds(ids::forEach, "1");
+        long pipelinedNanos = System.nanoTime() - pipelinedStarted;
+
+        log.info("{} ids in {} messages: one in flight {} ms, eight in flight {} ms", ids.size(),
+            pipelined.getBodies().size(), serialNanos / 1_000_000, pipelinedNanos / 1_000_000);
+        assertThat(userIds(pipelined).stream().mapToInt(List::size).sum()).isEqualTo(ids.size());
+        assertThat(serial.getMaxInFlight()).isEqualTo(1);
+        assertThat(pipelined.getMaxInFlight()).isLessThanOrEqualTo(8);
+        assertThat(pipelinedNanos).isLessThan(serialNanos);
+    }
+
+    private double rows(String outcome) {
+        return meterRegistry.get(ElinksMetrics.ROWS).tags("api", ElinksMetrics.ASB, "outcome", outcome)
+            .counter().count();
+    }
+
+    private <T extends ElinkMessageSender> T useSender(T sender) {
+        ReflectionTestUtils.setField(elinkTopicPublisher, "elinkMessageSender", sender);
+        return sender;
+    }
+
+    @SneakyThrows
+    private List<List<String>> userIds(LocalElinkMessageSender sender) {
+        List<List<String>> userIds = new ArrayList<>();
+        for (String body : sender.getBodies()) {
+            userIds.add(objectMapper.readValue(body, PublishingData.class).getUserIds());
+        }
+        return userIds;
     }
 }
@@ -0,0 +1,80 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.servicebus;
+
+import com.azure.messaging.servicebus.ServiceBusMessage;
+import com.azure.messaging.servicebus.ServiceBusTransactionContext;
+import lombok.SneakyThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Stand-in for a topic that appends the body of every committed message to a file, one per line. Messages of a
+ * transaction are held until it commits and dropped when it rolls back, as the topic would.
+ */
+class FileElinkMessageSender implements ElinkMessageSender {
+
+    private final Path file;
+
+    private final long maxMessageSizeInBytes;
+
+    private final Map<ServiceBusTransactionContext, List<String>> pending = new IdentityHashMap<>();
+
+    private boolean failSends;
+
+    FileElinkMessageSender(Path file, long maxMessageSizeInBytes) {
+        this.file = file;
+        this.maxMessageSizeInBytes = maxMessageSizeInBytes;
+    }
+
+    void failSends(boolean failSends) {
+        this.failSends = failSends;
+    }
+
+    @Override
+    public long getMaxMessageSizeInBytes() {
+        return maxMessageSizeInBytes;
+    }
+
+    @Override
+    public synchronized ServiceBusTransactionContext createTransaction() {
+        ServiceBusTransactionContext transactionContext = mock(ServiceBusTransactionContext.class);
+        pending.put(transactionContext, new ArrayList<>());
+        return transactionContext;
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> sendMessage(ServiceBusMessage message,
+                                                            ServiceBusTransactionContext transactionContext) {
+        if (failSends) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Topic unavailable"));
+        }
+        pending.get(transactionContext).add(message.getBody().toString());
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    @SneakyThrows
+    public synchronized void commitTransaction(ServiceBusTransactionContext transactionContext) {
+        Files.write(file, pending.remove(transactionContext), StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public synchronized void rollbackTransaction(ServiceBusTransactionContext transactionContext) {
+        pending.remove(transactionContext);
+    }
+
+    @SneakyThrows
+    List<String> committedBodies() {
+        return Files.exists(file) ? Files.readAllLines(file, StandardCharsets.UTF_8) : List.of();
+    }
+}
@@ -0,0 +1,100 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.servicebus;
+
+import com.azure.messaging.servicebus.ServiceBusMessage;
+import com.azure.messaging.servicebus.ServiceBusTransactionContext;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Stand-in for the topic that completes each send after a fixed latency, recording the message bodies and
+ * the most messages it ever held at once. Used to measure the publisher without a Service Bus namespace.
+ */
+class LocalElinkMessageSender implements ElinkMessageSender {
+
+    private final long maxMessageSizeInBytes;
+
+    private final long latencyMillis;
+
+    private final int failingMessage;
+
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private final AtomicInteger sends = new AtomicInteger();
+
+    private final AtomicInteger commits = new AtomicInteger();
+
+    private final AtomicInteger rollbacks = new AtomicInteger();
+
+    LocalElinkMessageSender(long maxMessageSizeInBytes, long latencyMillis) {
+        this(maxMessageSizeInBytes, latencyMillis, 0);
+    }
+
+    /**
+     * A sender whose failingMessage-th send (counting from 1) fails; 0 for none.
+     */
+    LocalElinkMessageSender(long maxMessageSizeInBytes, long latencyMillis, int failingMessage) {
+        this.maxMessageSizeInBytes = maxMessageSizeInBytes;
+        this.latencyMillis = latencyMillis;
+        this.failingMessage = failingMessage;
+    }
+
+    @Override
+    public long getMaxMessageSizeInBytes() {
+        return maxMessageSizeInBytes;
+    }
+
+    @Override
+    public ServiceBusTransactionContext createTransaction() {
+        return mock(ServiceBusTransactionContext.class);
+    }
+
+    @Override
+    public CompletableFuture<Void> sendMessage(ServiceBusMessage message,
+                                               ServiceBusTransactionContext transactionContext) {
+        int send = sends.incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        return CompletableFuture.runAsync(() -> {
+            inFlight.decrementAndGet();
+            if (send == failingMessage) {
+                throw new IllegalStateException("Send " + send + " failed");
+            }
+            bodies.add(message.getBody().toString());
+        }, CompletableFuture.delayedExecutor(latencyMillis, TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public void commitTransaction(ServiceBusTransactionContext transactionContext) {
+        commits.incrementAndGet();
+    }
+
+    @Override
+    public void rollbackTransaction(ServiceBusTransactionContext transactionContext) {
+        rollbacks.incrementAndGet();
+    }
+
+    List<String> getBodies() {
+        return bodies;
+    }
+
+    int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    int getCommits() {
+        return commits.get();
+    }
+
+    int getRollbacks() {
+        return rollbacks.get();
+    }
+}
@@ -0,0 +1,159 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.hmcts.reform.judicialapi.elinks.domain.ElinkDataExceptionRecords;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.JUDICIAL_REF_DATA_ELINKS;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.INSERT_DATA_EXCEPTION_RECORD;
+
+@ExtendWith(MockitoExtension.class)
+class ElinkDataExceptionSinkTest {
+
+    @InjectMocks
+    ElinkDataExceptionSink elinkDataExceptionSink;
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Captor
+    ArgumentCaptor<List<ElinkDataExceptionRecords>> recordsCaptor;
+
+    private final LocalDateTime schedulerStartTime = LocalDateTime.now();
+
+    private final ElinkDataExceptionSink.Run run = new ElinkDataExceptionSink.Run(schedulerStartTime);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(elinkDataExceptionSink, "flushSize", 3);
+    }
+
+    @Test
+    void buffersUntilFlushAndWritesOneBatch() {
+        audit("1234", "Location");
+        audit("5678", "Location");
+
+        verifyNoInteractions(jdbcTemplate);
+
+        elinkDataExceptionSink.flush(run);
+
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(INSERT_DATA_EXCEPTION_RECORD), recordsCaptor.capture(),
+            eq(2), any());
+        assertThat(recordsCaptor.getValue()).extracting(ElinkDataExceptionRecords::getKey)
+            .containsExactly("1234", "5678");
+    }
+
+    @Test
+    void recordsIdenticalFailureOncePerRun() {
+        audit("1234", "Location");
+        audit("1234", "Location");
+        audit("1234", "BaseLocation");
+        elinkDataExceptionSink.finishRun(run);
+
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(INSERT_DATA_EXCEPTION_RECORD), recordsCaptor.capture(),
+            anyInt(), any());
+        assertThat(recordsCaptor.getValue()).hasSize(2);
+
+        ElinkDataExceptionSink.Run nextRun = new ElinkDataExceptionSink.Run(LocalDateTime.now());
+        audit(nextRun, "1234", "Location");
+        elinkDataExceptionSink.finishRun(nextRun);
+
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(INSERT_DATA_EXCEPTION_RECORD), recordsCaptor.capture(),
+            anyInt(), any());
+    }
+
+    @Test
+    void flushesWhenBufferIsFull() {
+        audit("1", "Location");
+        audit("2", "Location");
+        audit("3", "Location");
+
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(INSERT_DATA_EXCEPTION_RECORD), recordsCaptor.capture(),
+            eq(3), any());
+    }
+
+    @Test
+    void writesRecordsIndividuallyWhenBatchFails() {
+        when(jdbcTemplate.batchUpdate(eq(INSERT_DATA_EXCEPTION_RECORD), any(), anyInt(), any()))
+            .thenThrow(new DataIntegrityViolationException("value too long"));
+        when(jdbcTemplate.update(eq(INSERT_DATA_EXCEPTION_RECORD), any(PreparedStatementSetter.class)))
+            .thenThrow(new DataIntegrityViolationException("value too long"))
+            .thenReturn(1);
+
+        audit("1", "Location");
+        audit("2", "Location");
+        elinkDataExceptionSink.finishRun(run);
+
+        verify(jdbcTemplate, times(2)).update(eq(INSERT_DATA_EXCEPTION_RECORD), any(PreparedStatementSetter.class));
+    }
+
+    @Test
+    void overlappingRunsKeepTheirOwnBuffers() {
+        ElinkDataExceptionSink.Run manualRun = new ElinkDataExceptionSink.Run(schedulerStartTime.plusMinutes(1));
+        audit("1", "Location");
+        audit(manualRun, "2", "Location");
+
+        elinkDataExceptionSink.finishRun(manualRun);
+
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(INSERT_DATA_EXCEPTION_RECORD), recordsCaptor.capture(),
+            eq(1), any());
+        assertThat(recordsCaptor.getValue()).extracting(ElinkDataExceptionRecords::getKey).containsExactly("2");
+
+        audit("2", "Location");
+        audit(manualRun, "2", "Location");
+        elinkDataExceptionSink.finishRun(run);
+        elinkDataExceptionSink.finishRun(manualRun);
+
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(INSERT_DATA_EXCEPTION_RECORD), recordsCaptor.capture(),
+            anyInt(), any());
+        assertThat(recordsCaptor.getValue()).extracting(ElinkDataExceptionRecords::getKey)
+            .containsExactly("1", "2");
+    }
+
+    // each run keeps its own recorded failures, so an overlapping run does not swallow the other's records
+    @Test
+    void recordsIdenticalFailureOfEachOverlappingRun() {
+        ElinkDataExceptionSink.Run manualRun = new ElinkDataExceptionSink.Run(schedulerStartTime.plusSeconds(5));
+        audit("1234", "Location");
+        audit(manualRun, "1234", "Location");
+        audit("1234", "Location");
+
+        elinkDataExceptionSink.finishRun(run);
+        elinkDataExceptionSink.finishRun(manualRun);
+
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(INSERT_DATA_EXCEPTION_RECORD), recordsCaptor.capture(),
+            eq(1), any());
+        assertThat(recordsCaptor.getAllValues()).allSatisfy(records ->
+            assertThat(records).extracting(ElinkDataExceptionRecords::getKey).containsExactly("1234"));
+    }
+
+    private void audit(String key, String fieldInError) {
+        audit(run, key, fieldInError);
+    }
+
+    private void audit(ElinkDataExceptionSink.Run run, String key, String fieldInError) {
+        elinkDataExceptionSink.auditException(run, JUDICIAL_REF_DATA_ELINKS, schedulerStartTime, key,
+            fieldInError, "not found", "judicial_office_appointment", key);
+    }
+}
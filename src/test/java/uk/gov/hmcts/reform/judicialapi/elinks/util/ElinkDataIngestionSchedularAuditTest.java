@@ -1,6 +1,7 @@
 package uk.gov.hmcts.reform.judicialapi.elinks.util;
 
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.InjectMocks;
@@ -11,6 +12,7 @@ import uk.gov.hmcts.reform.judicialapi.elinks.repository.ElinkSchedularAuditRepo
 
 import java.time.LocalDateTime;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -97,5 +99,20 @@ class ElinkDataIngestionSchedularAuditTest {
 
     }
 
+    @Test
+    void testSaveCheckpointOnRunAudit() {
+        ElinkDataSchedularAudit schedularAudit = new ElinkDataSchedularAudit();
+        schedularAudit.setId(1);
+        schedularAudit.setApiName("People");
+        LocalDateTime schedulerStartTime = LocalDateTime.now();
+
+        when(elinkSchedularAuditRepository.findBySchedulerStartTime(schedulerStartTime)).thenReturn(schedularAudit);
+        elinkDataIngestionSchedularAudit.auditCheckpoint(schedulerStartTime, "2023-01-01", 50, 7);
+
+        assertThat(schedularAudit.getUpdatedSince()).isEqualTo("2023-01-01");
+        assertThat(schedularAudit.getPerPage()).isEqualTo(50);
+        assertThat(schedularAudit.getLastCommittedPage()).isEqualTo(7);
+        verify(elinkSchedularAuditRepository, times(1)).save(schedularAudit);
+    }
 
 }
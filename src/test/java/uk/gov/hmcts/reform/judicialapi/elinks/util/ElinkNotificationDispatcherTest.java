@@ -0,0 +1,173 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.hmcts.reform.judicialapi.elinks.configuration.ElinkEmailConfiguration;
+import uk.gov.hmcts.reform.judicialapi.elinks.domain.ElinkDataExceptionRecords;
+import uk.gov.hmcts.reform.judicialapi.elinks.service.IEmailService;
+import uk.gov.hmcts.reform.judicialapi.elinks.service.dto.Email;
+
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.APPOINTMENTID;
+
+@ExtendWith(MockitoExtension.class)
+@SuppressWarnings("unchecked")
+class ElinkNotificationDispatcherTest {
+
+    @InjectMocks
+    ElinkNotificationDispatcher elinkNotificationDispatcher;
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Mock
+    TransactionTemplate transactionTemplate;
+
+    @Mock
+    ElinkEmailConfiguration emailConfiguration;
+
+    @Mock
+    EmailTemplate emailTemplate;
+
+    @Mock
+    IEmailService emailService;
+
+    @BeforeEach
+    void setUp() {
+        elinkNotificationDispatcher.notificationExecutor = Runnable::run;
+        ReflectionTestUtils.setField(elinkNotificationDispatcher, "loggingComponentName", "loggingComponent");
+    }
+
+    @Test
+    void sendsOneReportPerEnabledMailTypeWithRecords() throws Exception {
+        when(emailConfiguration.getMailTypes()).thenReturn(Map.of(
+            "appointment", mailType(true, "simple-template-appointmentId.ftl"),
+            "location", mailType(false, "simple-template-locationId.ftl")));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<String>>getArgument(0).doInTransaction(null));
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getString("key")).thenReturn("app1", "app2");
+        when(resultSet.getString("field_in_error")).thenReturn(APPOINTMENTID);
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class)))
+            .thenAnswer(invocation -> invocation.<ResultSetExtractor<String>>getArgument(1).extractData(resultSet));
+        List<String> listed = new ArrayList<>();
+        when(emailTemplate.getEmailBody(eq("simple-template-appointmentId.ftl"), anyMap())).thenAnswer(invocation -> {
+            ((Iterator<ElinkDataExceptionRecords>) invocation.<Map<String, Object>>getArgument(1)
+                .get("resultsRequest")).forEachRemaining(record -> listed.add(record.getKey()));
+            return "body";
+        });
+
+        elinkNotificationDispatcher.dispatchExceptionReport(LocalDateTime.now());
+
+        verify(jdbcTemplate, times(1)).query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class));
+        assertThat(listed).containsExactly("app1", "app2");
+        ArgumentCaptor<Email> email = ArgumentCaptor.forClass(Email.class);
+        verify(emailService, times(1)).sendEmail(email.capture());
+        assertThat(email.getValue().getMessageBody()).isEqualTo("body");
+        assertThat(email.getValue().getSubject()).startsWith("Exceptions on ");
+    }
+
+    @Test
+    void reportIsNotSentWhenTheRunHasNoRecords() throws Exception {
+        when(emailConfiguration.getMailTypes()).thenReturn(Map.of(
+            "appointment", mailType(true, "simple-template-appointmentId.ftl")));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<String>>getArgument(0).doInTransaction(null));
+        ResultSet resultSet = mock(ResultSet.class);
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class)))
+            .thenAnswer(invocation -> invocation.<ResultSetExtractor<String>>getArgument(1).extractData(resultSet));
+
+        elinkNotificationDispatcher.dispatchExceptionReport(LocalDateTime.now());
+
+        verifyNoInteractions(emailTemplate, emailService);
+    }
+
+    @Test
+    void reportIsNotQueriedWhenNoMailTypeIsEnabled() {
+        when(emailConfiguration.getMailTypes()).thenReturn(Map.of(
+            "appointment", mailType(false, "simple-template-appointmentId.ftl")));
+
+        elinkNotificationDispatcher.dispatchExceptionReport(LocalDateTime.now());
+
+        verifyNoInteractions(jdbcTemplate, transactionTemplate, emailService);
+    }
+
+    @Test
+    void failingMailProviderDoesNotReachTheCaller() {
+        when(emailService.sendEmail(any())).thenThrow(new IllegalStateException("mail provider down"));
+
+        assertThatCode(() -> elinkNotificationDispatcher.dispatch(email())).doesNotThrowAnyException();
+    }
+
+    @Test
+    void notificationIsDroppedWhenTheQueueIsFull() {
+        elinkNotificationDispatcher.notificationExecutor = runnable -> {
+            throw new RejectedExecutionException("queue full");
+        };
+
+        assertThatCode(() -> elinkNotificationDispatcher.dispatch(email())).doesNotThrowAnyException();
+        verifyNoInteractions(emailService);
+    }
+
+    @Test
+    void notificationIsSentOffTheCallingThread() throws Exception {
+        elinkNotificationDispatcher.notificationExecutor = null;
+        elinkNotificationDispatcher.start();
+        CompletableFuture<String> sendingThread = new CompletableFuture<>();
+        when(emailService.sendEmail(any())).thenAnswer(invocation -> {
+            sendingThread.complete(Thread.currentThread().getName());
+            return 202;
+        });
+
+        elinkNotificationDispatcher.dispatch(email());
+
+        assertThat(sendingThread.get(5, TimeUnit.SECONDS)).isEqualTo("elinks-notification");
+        elinkNotificationDispatcher.stop();
+    }
+
+    private static ElinkEmailConfiguration.MailTypeConfig mailType(boolean enabled, String template) {
+        ElinkEmailConfiguration.MailTypeConfig mailType = new ElinkEmailConfiguration.MailTypeConfig();
+        mailType.setEnabled(enabled);
+        mailType.setFrom("test@test.com");
+        mailType.setTo(List.of("test@test.com"));
+        mailType.setSubject("Exceptions on %s");
+        mailType.setTemplate(template);
+        return mailType;
+    }
+
+    private static Email email() {
+        return Email.builder().from("test@test.com").to(List.of("test@test.com")).subject("subject")
+            .messageBody("body").contentType("text/plain").build();
+    }
+}
@@ -0,0 +1,108 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import uk.gov.hmcts.reform.judicialapi.elinks.response.BaseLocationResponse;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.LOCATIONAPI;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.SELECT_PAYLOAD_HASH;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.UPSERT_BASE_LOCATIONS;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.UPSERT_PAYLOAD_HASH;
+
+@ExtendWith(MockitoExtension.class)
+class ElinksBaseLocationWriterTest {
+
+    @InjectMocks
+    ElinksBaseLocationWriter elinksBaseLocationWriter;
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void unchangedPayloadIsNotWritten() {
+        List<BaseLocationResponse> baseLocations = List.of(baseLocation("1", "Aberconwy"));
+        when(jdbcTemplate.queryForObject(SELECT_PAYLOAD_HASH, String.class, LOCATIONAPI))
+            .thenReturn(ElinksContentHash.ofPayload(baseLocations));
+
+        int changed = elinksBaseLocationWriter.load(baseLocations);
+
+        assertThat(changed).isZero();
+        verify(jdbcTemplate, never()).update(any(PreparedStatementCreator.class));
+        verify(jdbcTemplate, never()).update(eq(UPSERT_PAYLOAD_HASH), any(Object[].class));
+    }
+
+    @Test
+    void changedPayloadIsUpsertedInOneStatement() throws Exception {
+        List<BaseLocationResponse> baseLocations = List.of(baseLocation("1", "Aberconwy"),
+            baseLocation("2", "Aldridge and Brownhills"), baseLocation("1", "Aberconwy and Colwyn"));
+        when(jdbcTemplate.queryForObject(SELECT_PAYLOAD_HASH, String.class, LOCATIONAPI))
+            .thenReturn("previous");
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class))).thenReturn(1);
+
+        int changed = elinksBaseLocationWriter.load(baseLocations);
+
+        assertThat(changed).isEqualTo(1);
+        ArgumentCaptor<PreparedStatementCreator> upsert = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+        verify(jdbcTemplate, times(1)).update(upsert.capture());
+        verify(jdbcTemplate, times(1)).update(UPSERT_PAYLOAD_HASH, LOCATIONAPI,
+            ElinksContentHash.ofPayload(baseLocations));
+
+        Connection connection = mock(Connection.class);
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(UPSERT_BASE_LOCATIONS)).thenReturn(preparedStatement);
+        ArgumentCaptor<Object[]> columns = ArgumentCaptor.forClass(Object[].class);
+        when(connection.createArrayOf(eq("text"), columns.capture())).thenReturn(mock(Array.class));
+
+        upsert.getValue().createPreparedStatement(connection);
+
+        verify(preparedStatement, times(9)).setArray(anyInt(), any(Array.class));
+        assertThat(columns.getAllValues().get(0)).containsExactly("1", "2");
+        assertThat(columns.getAllValues().get(1)).containsExactly("Aberconwy and Colwyn", "Aldridge and Brownhills");
+    }
+
+    @Test
+    void firstLoadWithoutStoredHashIsWritten() {
+        List<BaseLocationResponse> baseLocations = List.of(baseLocation("1", "Aberconwy"));
+        when(jdbcTemplate.queryForObject(SELECT_PAYLOAD_HASH, String.class, LOCATIONAPI))
+            .thenThrow(new EmptyResultDataAccessException(1));
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class))).thenReturn(1);
+
+        int changed = elinksBaseLocationWriter.load(baseLocations);
+
+        assertThat(changed).isEqualTo(1);
+        verify(jdbcTemplate, times(1)).update(eq(UPSERT_PAYLOAD_HASH), eq(LOCATIONAPI), anyString());
+    }
+
+    private static BaseLocationResponse baseLocation(String id, String name) {
+        BaseLocationResponse baseLocation = new BaseLocationResponse();
+        baseLocation.setId(id);
+        baseLocation.setName(name);
+        baseLocation.setTypeId("28");
+        baseLocation.setParentId("1722");
+        baseLocation.setCreatedAt("2023-04-12T16:42:35Z");
+        baseLocation.setUpdatedAt("2023-04-12T16:42:35Z");
+        return baseLocation;
+    }
+}
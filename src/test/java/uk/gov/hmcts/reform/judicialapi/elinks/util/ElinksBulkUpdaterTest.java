@@ -0,0 +1,104 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.BULK_UPDATE_LEAVERS;
+
+@ExtendWith(MockitoExtension.class)
+class ElinksBulkUpdaterTest {
+
+    @InjectMocks
+    ElinksBulkUpdater elinksBulkUpdater;
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updatesEachChunkWithOneStatementAndReportsUnmatchedKeys() throws Exception {
+        ReflectionTestUtils.setField(elinksBulkUpdater, "chunkSize", 2);
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(BULK_UPDATE_LEAVERS)).thenReturn(mock(PreparedStatement.class));
+        List<String> arrays = new ArrayList<>();
+        when(connection.createArrayOf(anyString(), any())).thenAnswer(invocation -> {
+            arrays.add(invocation.getArgument(0) + Arrays.toString((Object[]) invocation.getRawArguments()[1]));
+            return mock(Array.class);
+        });
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class))).thenAnswer(invocation -> {
+            invocation.<PreparedStatementCreator>getArgument(0).createPreparedStatement(connection);
+            return List.of("1234", "5678");
+        });
+        Map<String, Object[]> rows = new LinkedHashMap<>();
+        rows.put("1234", new Object[] {"2022-12-20", false});
+        rows.put("5678", new Object[] {"2022-12-21", false});
+        rows.put("9999", new Object[] {null, true});
+
+        Set<String> unmatched = elinksBulkUpdater.update("Leavers", BULK_UPDATE_LEAVERS, rows, "text", "boolean");
+
+        assertThat(unmatched).containsExactly("9999");
+        verify(jdbcTemplate, times(2)).query(any(PreparedStatementCreator.class), any(RowMapper.class));
+        assertThat(arrays).containsExactly("text[1234, 5678]", "text[2022-12-20, 2022-12-21]",
+            "boolean[false, false]", "text[9999]", "text[null]", "boolean[true]");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendsTheKeysInSortedOrderAndReportsUnmatchedKeysInTheOrderGiven() throws Exception {
+        ReflectionTestUtils.setField(elinksBulkUpdater, "chunkSize", 2);
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(BULK_UPDATE_LEAVERS)).thenReturn(mock(PreparedStatement.class));
+        List<String> arrays = new ArrayList<>();
+        when(connection.createArrayOf(anyString(), any())).thenAnswer(invocation -> {
+            arrays.add(invocation.getArgument(0) + Arrays.toString((Object[]) invocation.getRawArguments()[1]));
+            return mock(Array.class);
+        });
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class))).thenAnswer(invocation -> {
+            invocation.<PreparedStatementCreator>getArgument(0).createPreparedStatement(connection);
+            return List.of("5678");
+        });
+        Map<String, Object[]> rows = new LinkedHashMap<>();
+        rows.put("9999", new Object[] {null, true});
+        rows.put("5678", new Object[] {"2022-12-21", false});
+        rows.put("1234", new Object[] {"2022-12-20", false});
+
+        Set<String> unmatched = elinksBulkUpdater.update("Leavers", BULK_UPDATE_LEAVERS, rows, "text", "boolean");
+
+        assertThat(unmatched).containsExactly("9999", "1234");
+        assertThat(arrays).containsExactly("text[1234, 5678]", "text[2022-12-20, 2022-12-21]",
+            "boolean[false, false]", "text[9999]", "text[null]", "boolean[true]");
+    }
+
+    @Test
+    void emptyUpdateRunsNoStatement() {
+        Set<String> unmatched = elinksBulkUpdater.update("Leavers", BULK_UPDATE_LEAVERS, Map.of(), "text",
+            "boolean");
+
+        assertThat(unmatched).isEmpty();
+        verify(jdbcTemplate, times(0)).query(any(PreparedStatementCreator.class), any(RowMapper.class));
+    }
+}
@@ -0,0 +1,35 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.reform.judicialapi.elinks.controller.request.AppointmentsRequest;
+import uk.gov.hmcts.reform.judicialapi.elinks.controller.request.ResultsRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ElinksContentHashTest {
+
+    @Test
+    void sameRecordHashesTheSame() {
+        String hash = ElinksContentHash.of(judge("surname"), "fingerprint");
+
+        assertThat(hash).hasSize(64).isEqualTo(ElinksContentHash.of(judge("surname"), "fingerprint"));
+    }
+
+    @Test
+    void changedRecordOrReferenceDataHashesDifferently() {
+        String hash = ElinksContentHash.of(judge("surname"), "fingerprint");
+
+        assertThat(ElinksContentHash.of(judge("other"), "fingerprint")).isNotEqualTo(hash);
+        assertThat(ElinksContentHash.of(judge("surname"), "changed")).isNotEqualTo(hash);
+        assertThat(ElinksContentHash.of(judge("surname"), null)).isNotEqualTo(hash);
+    }
+
+    private ResultsRequest judge(String surname) {
+        return ResultsRequest.builder().personalCode("1234").surname(surname).objectId("objectId1")
+            .appointmentsRequests(List.of(AppointmentsRequest.builder().appointmentId("app1")
+                .baseLocationId("1029").build()))
+            .build();
+    }
+}
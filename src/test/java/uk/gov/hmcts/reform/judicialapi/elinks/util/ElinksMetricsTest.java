@@ -0,0 +1,68 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ElinksMetricsTest {
+
+    private static final String API = "metricsTest";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        Metrics.addRegistry(meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.removeRegistry(meterRegistry);
+        meterRegistry.close();
+    }
+
+    @Test
+    void stageTimesAreRecordedPerStageAndApi() {
+        ElinksMetrics.recordNanos(ElinksMetrics.FETCH, API, TimeUnit.MILLISECONDS.toNanos(40));
+        ElinksMetrics.recordNanos(ElinksMetrics.FETCH, API, TimeUnit.MILLISECONDS.toNanos(60));
+        ElinksMetrics.recordSince(ElinksMetrics.PERSIST, API, System.nanoTime());
+
+        Timer fetch = meterRegistry.get(ElinksMetrics.STAGE_TIMER)
+            .tags("stage", ElinksMetrics.FETCH, "api", API).timer();
+        assertThat(fetch.count()).isEqualTo(2);
+        assertThat(fetch.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(100);
+        assertThat(meterRegistry.get(ElinksMetrics.STAGE_TIMER)
+            .tags("stage", ElinksMetrics.PERSIST, "api", API).timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void rowsAreCountedByOutcomeAndEmptyCountsAreIgnored() {
+        ElinksMetrics.countRows(API, "inserted", 12);
+        ElinksMetrics.countRows(API, "inserted", 3);
+        ElinksMetrics.countRows(API, "deleted", 0);
+
+        assertThat(meterRegistry.get(ElinksMetrics.ROWS).tags("api", API, "outcome", "inserted")
+            .counter().count()).isEqualTo(15);
+        assertThat(meterRegistry.find(ElinksMetrics.ROWS).tags("api", API, "outcome", "deleted").counter())
+            .isNull();
+    }
+
+    @Test
+    void payloadSizeAndThrottlingAreRecorded() {
+        ElinksMetrics.recordPayloadBytes(API, 2048);
+        ElinksMetrics.countThrottled(API);
+        ElinksMetrics.countThrottled(API);
+
+        assertThat(meterRegistry.get(ElinksMetrics.PAYLOAD_SIZE).tags("api", API).summary().totalAmount())
+            .isEqualTo(2048);
+        assertThat(meterRegistry.get(ElinksMetrics.THROTTLED).tags("api", API).counter().count())
+            .isEqualTo(2);
+    }
+}
@@ -0,0 +1,95 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.hmcts.reform.judicialapi.elinks.exception.ElinksException;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksPagePipeline.ElinksPage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.DATA_UPDATE_ERROR;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.ELINKS_ACCESS_ERROR;
+
+class ElinksPagePipelineTest {
+
+    private final ElinksPagePipeline elinksPagePipeline = new ElinksPagePipeline();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(elinksPagePipeline, "prefetchPages", 1);
+    }
+
+    @Test
+    void processesEveryPageInOrder() {
+        List<String> processed = new ArrayList<>();
+
+        elinksPagePipeline.run(1,
+            pageNumber -> new ElinksPage<>("page" + pageNumber, pageNumber < 4),
+            (pageNumber, body) -> processed.add(pageNumber + ":" + body));
+
+        assertThat(processed).containsExactly("1:page1", "2:page2", "3:page3", "4:page4");
+    }
+
+    @Test
+    void rethrowsFetcherExceptionOnCallingThread() {
+        List<Integer> processed = new ArrayList<>();
+
+        ElinksException thrown = assertThrows(ElinksException.class, () -> elinksPagePipeline.<Integer>run(1,
+            pageNumber -> {
+                if (pageNumber == 3) {
+                    throw new ElinksException(HttpStatus.FORBIDDEN, ELINKS_ACCESS_ERROR, ELINKS_ACCESS_ERROR);
+                }
+                return new ElinksPage<>(pageNumber, true);
+            },
+            (pageNumber, body) -> processed.add(body)));
+
+        assertThat(thrown.getStatus()).isEqualTo(HttpStatus.FORBIDDEN);
+        assertThat(processed).containsExactly(1, 2);
+    }
+
+    @Test
+    void rethrowsFetcherErrorOnCallingThread() {
+        List<Integer> processed = new ArrayList<>();
+
+        StackOverflowError thrown = assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+            assertThrows(StackOverflowError.class, () -> elinksPagePipeline.<Integer>run(1,
+                pageNumber -> {
+                    if (pageNumber == 2) {
+                        throw new StackOverflowError("page 2");
+                    }
+                    return new ElinksPage<>(pageNumber, true);
+                },
+                (pageNumber, body) -> processed.add(body))));
+
+        assertThat(thrown).hasMessage("page 2");
+        assertThat(processed).containsExactly(1);
+    }
+
+    @Test
+    void stopsFetchingWhenProcessorFails() throws InterruptedException {
+        AtomicInteger fetched = new AtomicInteger();
+
+        ElinksException thrown = assertThrows(ElinksException.class, () -> elinksPagePipeline.<Integer>run(1,
+            pageNumber -> {
+                fetched.incrementAndGet();
+                return new ElinksPage<>(pageNumber, true);
+            },
+            (pageNumber, body) -> {
+                throw new ElinksException(HttpStatus.NOT_ACCEPTABLE, DATA_UPDATE_ERROR, DATA_UPDATE_ERROR);
+            }));
+
+        assertThat(thrown.getStatus()).isEqualTo(HttpStatus.NOT_ACCEPTABLE);
+        Thread.sleep(100);
+        int fetchedAfterFailure = fetched.get();
+        Thread.sleep(100);
+        assertThat(fetched.get()).isEqualTo(fetchedAfterFailure);
+    }
+}
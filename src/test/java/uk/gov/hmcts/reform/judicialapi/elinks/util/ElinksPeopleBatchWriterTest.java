@@ -0,0 +1,123 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.hmcts.reform.judicialapi.elinks.domain.Appointment;
+import uk.gov.hmcts.reform.judicialapi.elinks.domain.Authorisation;
+import uk.gov.hmcts.reform.judicialapi.elinks.domain.JudicialRoleType;
+import uk.gov.hmcts.reform.judicialapi.elinks.domain.UserProfile;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksPeopleBatchWriter.PersonRecord;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.CLEAR_CONTENT_HASHES;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.DELETE_APPOINTMENTS_BY_PERSONAL_CODES;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.DELETE_AUTHORISATIONS_BY_PERSONAL_CODES;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.DELETE_ROLES_BY_PERSONAL_CODES;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.INSERT_APPOINTMENT;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.INSERT_AUTHORISATION;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.INSERT_ROLE;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.RECORD_CHANGE_EVENTS;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.RECORD_PROFILE_CHANGES;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.UPSERT_USER_PROFILE;
+
+@ExtendWith(MockitoExtension.class)
+class ElinksPeopleBatchWriterTest {
+
+    @InjectMocks
+    ElinksPeopleBatchWriter elinksPeopleBatchWriter;
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(elinksPeopleBatchWriter, "writeBatchSize", 1000);
+    }
+
+    @Test
+    void writePageDeletesAndInsertsWholePage() {
+        Authorisation authorisation1 = Authorisation.builder().personalCode("1234")
+            .authorisationId("auth1").appointmentId("app1").build();
+        Authorisation authorisation2 = Authorisation.builder().personalCode("5678")
+            .authorisationId("auth2").appointmentId("app3").build();
+        List<PersonRecord> people = List.of(
+            personRecord("1234", List.of(appointment("1234", "app1")), List.of(authorisation1)),
+            personRecord("5678", List.of(appointment("5678", "app2")), List.of(authorisation2)));
+        lenient().when(jdbcTemplate.batchUpdate(eq(INSERT_AUTHORISATION), any(), anyInt(), any()))
+            .thenReturn(new int[][]{{1, 0}});
+
+        List<Authorisation> skipped = elinksPeopleBatchWriter.writePage(people);
+
+        assertThat(skipped).containsExactly(authorisation2);
+        verify(jdbcTemplate, times(1)).update(eq(DELETE_AUTHORISATIONS_BY_PERSONAL_CODES),
+            any(PreparedStatementSetter.class));
+        verify(jdbcTemplate, times(1)).update(eq(DELETE_APPOINTMENTS_BY_PERSONAL_CODES),
+            any(PreparedStatementSetter.class));
+        verify(jdbcTemplate, times(1)).update(eq(DELETE_ROLES_BY_PERSONAL_CODES),
+            any(PreparedStatementSetter.class));
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(UPSERT_USER_PROFILE), any(), eq(1000), any());
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(INSERT_APPOINTMENT), any(), eq(1000), any());
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(INSERT_ROLE), any(), eq(1000), any());
+        verify(jdbcTemplate, times(1)).update(eq(CLEAR_CONTENT_HASHES), any(PreparedStatementSetter.class));
+        verify(jdbcTemplate, times(1)).update(eq(RECORD_PROFILE_CHANGES), any(PreparedStatementSetter.class));
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).update(eq(RECORD_CHANGE_EVENTS), any(PreparedStatementSetter.class));
+        inOrder.verify(jdbcTemplate).batchUpdate(eq(UPSERT_USER_PROFILE), any(), eq(1000), any());
+    }
+
+    @Test
+    void writePageReturnsNoSkippedAuthorisationsWhenAllInserted() {
+        Authorisation authorisation = Authorisation.builder().personalCode("1234")
+            .authorisationId("auth1").appointmentId("app1").build();
+        lenient().when(jdbcTemplate.batchUpdate(eq(INSERT_AUTHORISATION), any(), anyInt(), any()))
+            .thenReturn(new int[][]{{1}});
+
+        List<Authorisation> skipped = elinksPeopleBatchWriter.writePage(
+            List.of(personRecord("1234", List.of(appointment("1234", "app1")), List.of(authorisation))));
+
+        assertThat(skipped).isEmpty();
+        verify(jdbcTemplate, never()).update(eq(CLEAR_CONTENT_HASHES), any(PreparedStatementSetter.class));
+    }
+
+    @Test
+    void writePageDoesNothingForEmptyPage() {
+        List<Authorisation> skipped = elinksPeopleBatchWriter.writePage(List.of());
+
+        assertThat(skipped).isEmpty();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private PersonRecord personRecord(String personalCode, List<Appointment> appointments,
+                                      List<Authorisation> authorisations) {
+        return PersonRecord.builder()
+            .userProfile(UserProfile.builder().personalCode(personalCode).objectId("objectId" + personalCode)
+                .build())
+            .appointments(appointments)
+            .authorisations(authorisations)
+            .roles(List.of(JudicialRoleType.builder().personalCode(personalCode).title("title").build()))
+            .build();
+    }
+
+    private Appointment appointment(String personalCode, String appointmentId) {
+        return Appointment.builder().personalCode(personalCode).appointmentId(appointmentId).build();
+    }
+}
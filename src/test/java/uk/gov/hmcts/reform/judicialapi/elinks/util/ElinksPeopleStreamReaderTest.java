@@ -0,0 +1,65 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.reform.judicialapi.elinks.controller.request.PaginationRequest;
+import uk.gov.hmcts.reform.judicialapi.elinks.controller.request.ResultsRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ElinksPeopleStreamReaderTest {
+
+    @Test
+    void handsOverEachPersonAndReturnsPagination() throws IOException {
+        List<ResultsRequest> people = new ArrayList<>();
+
+        PaginationRequest pagination = ElinksPeopleStreamReader.read(utf8("{\"pagination\":{\"results\":2,"
+            + "\"pages\":1,\"current_page\":1,\"results_per_page\":50,\"more_pages\":true},\"results\":["
+            + "{\"personal_code\":\"1234\",\"surname\":\"\u00d3 S\u00failleabh\u00e1in\",\"unknown\":{\"a\":[1,2]}},"
+            + "null,{\"personal_code\":\"5678\"}],\"links\":{\"next\":\"page2\"}}"), people::add);
+
+        assertThat(pagination.getMorePages()).isTrue();
+        assertThat(pagination.getResultsPerPage()).isEqualTo(50);
+        assertThat(people).extracting(ResultsRequest::getPersonalCode).containsExactly("1234", "5678");
+        assertThat(people.get(0).getSurname()).isEqualTo("\u00d3 S\u00failleabh\u00e1in");
+    }
+
+    @Test
+    void readsPaginationAfterResults() throws IOException {
+        List<ResultsRequest> people = new ArrayList<>();
+
+        PaginationRequest pagination = ElinksPeopleStreamReader.read(utf8("{\"results\":[{\"personal_code\":"
+            + "\"1234\"}],\"pagination\":{\"more_pages\":false}}"), people::add);
+
+        assertThat(pagination.getMorePages()).isFalse();
+        assertThat(people).hasSize(1);
+    }
+
+    @Test
+    void returnsNullWhenPaginationOrResultsAreMissing() throws IOException {
+        List<ResultsRequest> people = new ArrayList<>();
+
+        assertThat(ElinksPeopleStreamReader.read(utf8("{\"test\":\"test\"}"), people::add)).isNull();
+        assertThat(ElinksPeopleStreamReader.read(utf8("{\"pagination\":{\"more_pages\":false},"
+            + "\"results\":null}"), people::add)).isNull();
+        assertThat(ElinksPeopleStreamReader.read(utf8("{\"results\":[]}"), people::add)).isNull();
+        assertThat(people).isEmpty();
+    }
+
+    @Test
+    void failsOnTruncatedBody() {
+        assertThrows(IOException.class, () -> ElinksPeopleStreamReader.read(
+            utf8("{\"pagination\":{\"more_pages\":false},\"results\":[{\"personal_code\":\"1234\"}"), p -> { }));
+    }
+
+    private InputStream utf8(String body) {
+        return new ByteArrayInputStream(body.getBytes(UTF_8));
+    }
+}
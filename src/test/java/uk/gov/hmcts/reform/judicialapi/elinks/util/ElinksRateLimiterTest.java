@@ -0,0 +1,125 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import uk.gov.hmcts.reform.judicialapi.elinks.util.ElinksRateLimiter.RunStats;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.Charset.defaultCharset;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.DELETEDAPI;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.RefDataElinksConstants.PEOPLEAPI;
+
+class ElinksRateLimiterTest {
+
+    private final ElinksRateLimiter elinksRateLimiter = new ElinksRateLimiter();
+
+    private RunStats run;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(elinksRateLimiter, "requestsPerSecond", 0d);
+        ReflectionTestUtils.setField(elinksRateLimiter, "maxRequestsPerSecond", 5d);
+        ReflectionTestUtils.setField(elinksRateLimiter, "burst", 1);
+        ReflectionTestUtils.setField(elinksRateLimiter, "initialBackoffMillis", 10L);
+        ReflectionTestUtils.setField(elinksRateLimiter, "maxBackoffMillis", 100L);
+        ReflectionTestUtils.setField(elinksRateLimiter, "maxRetries", 2);
+        run = elinksRateLimiter.startRun(PEOPLEAPI);
+    }
+
+    @Test
+    void retriesThrottledRequestUntilItSucceeds() {
+        AtomicInteger calls = new AtomicInteger();
+
+        Response response = elinksRateLimiter.execute(run, () ->
+            calls.incrementAndGet() == 1 ? response(429, Map.of()) : response(200, Map.of()));
+
+        RunStats stats = elinksRateLimiter.finishRun(run);
+        assertThat(response.status()).isEqualTo(200);
+        assertThat(stats.getRequests()).isEqualTo(2);
+        assertThat(stats.getThrottled()).isEqualTo(1);
+        assertThat(stats.getWaitedMillis()).isGreaterThanOrEqualTo(5);
+    }
+
+    @Test
+    void returnsThrottledResponseOnceRetriesAreExhausted() {
+        Response response = elinksRateLimiter.execute(run, () -> response(429, Map.of()));
+
+        RunStats stats = elinksRateLimiter.finishRun(run);
+        assertThat(response.status()).isEqualTo(429);
+        assertThat(stats.getRequests()).isEqualTo(3);
+        assertThat(stats.getThrottled()).isEqualTo(3);
+    }
+
+    @Test
+    void waitsForRetryAfterHeader() {
+        AtomicInteger calls = new AtomicInteger();
+
+        elinksRateLimiter.execute(run, () -> calls.incrementAndGet() == 1
+            ? response(429, Map.of(ElinksRateLimiter.RETRY_AFTER, List.of("1"))) : response(200, Map.of()));
+
+        assertThat(elinksRateLimiter.finishRun(run).getWaitedMillis()).isGreaterThanOrEqualTo(900);
+    }
+
+    @Test
+    void pacesRequestsToConfiguredRate() {
+        ReflectionTestUtils.setField(elinksRateLimiter, "requestsPerSecond", 20d);
+
+        for (int i = 0; i < 3; i++) {
+            elinksRateLimiter.execute(run, () -> response(200, Map.of()));
+        }
+
+        RunStats stats = elinksRateLimiter.finishRun(run);
+        assertThat(stats.getRequests()).isEqualTo(3);
+        assertThat(stats.getWaitedMillis()).isGreaterThanOrEqualTo(80);
+    }
+
+    @Test
+    void blocksUntilResetWhenNoRequestsRemain() {
+        ReflectionTestUtils.setField(elinksRateLimiter, "requestsPerSecond", 5d);
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            elinksRateLimiter.execute(run, () -> calls.incrementAndGet() == 1
+                ? response(200, Map.of(ElinksRateLimiter.RATE_LIMIT_REMAINING, List.of("0"),
+                    ElinksRateLimiter.RATE_LIMIT_RESET, List.of("1")))
+                : response(200, Map.of()));
+        }
+
+        assertThat(elinksRateLimiter.finishRun(run).getWaitedMillis()).isGreaterThanOrEqualTo(900);
+    }
+
+    @Test
+    void keepsTheFiguresOfOverlappingRunsApart() {
+        RunStats deleted = elinksRateLimiter.startRun(DELETEDAPI);
+
+        elinksRateLimiter.execute(run, () -> response(200, Map.of()));
+        elinksRateLimiter.execute(deleted, () -> response(429, Map.of()));
+        elinksRateLimiter.execute(run, () -> response(200, Map.of()));
+        RunStats otherPeopleRun = elinksRateLimiter.startRun(PEOPLEAPI);
+        elinksRateLimiter.execute(otherPeopleRun, () -> response(200, Map.of()));
+
+        assertThat(elinksRateLimiter.finishRun(otherPeopleRun).getRequests()).isEqualTo(1);
+        RunStats stats = elinksRateLimiter.finishRun(run);
+        assertThat(stats.getRequests()).isEqualTo(2);
+        assertThat(stats.getThrottled()).isZero();
+        assertThat(elinksRateLimiter.finishRun(deleted).getThrottled()).isEqualTo(3);
+    }
+
+    private Response response(int status, Map<String, Collection<String>> headers) {
+        return Response.builder()
+            .request(mock(Request.class))
+            .headers(headers)
+            .body("", defaultCharset())
+            .status(status)
+            .build();
+    }
+}
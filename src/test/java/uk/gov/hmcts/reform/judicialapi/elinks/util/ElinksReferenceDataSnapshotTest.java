@@ -0,0 +1,103 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Stubber;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.SELECT_BASE_LOCATION_PARENT_IDS;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.SELECT_JRD_REGION_IDS;
+import static uk.gov.hmcts.reform.judicialapi.elinks.util.SqlConstants.SELECT_LOCATION_EPIMMS_IDS;
+
+@ExtendWith(MockitoExtension.class)
+class ElinksReferenceDataSnapshotTest {
+
+    @InjectMocks
+    ElinksReferenceDataSnapshot elinksReferenceDataSnapshot;
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void lookupsAreServedFromOneLoad() {
+        stubRows(SELECT_BASE_LOCATION_PARENT_IDS, List.of(List.of("1030", "1029")));
+        stubRows(SELECT_JRD_REGION_IDS, List.of(List.of("London", "1")));
+        stubRows(SELECT_LOCATION_EPIMMS_IDS, List.of(List.of("1029", "20262")));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(elinksReferenceDataSnapshot.fetchParentId("1030")).isEqualTo("1029");
+            assertThat(elinksReferenceDataSnapshot.fetchRegionId("London")).isEqualTo("1");
+            assertThat(elinksReferenceDataSnapshot.fetchEpimmsId("1029")).isEqualTo("20262");
+        }
+        assertThat(elinksReferenceDataSnapshot.fetchParentId("unknown")).isNull();
+        assertThat(elinksReferenceDataSnapshot.fetchRegionId(null)).isNull();
+
+        verify(jdbcTemplate, times(3)).query(any(String.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void refreshReplacesLookups() {
+        stubRows(SELECT_BASE_LOCATION_PARENT_IDS, List.of(List.of("1030", "1029")),
+            List.of(List.of("1030", "1031")));
+        stubRows(SELECT_JRD_REGION_IDS, List.of());
+        stubRows(SELECT_LOCATION_EPIMMS_IDS, List.of());
+
+        elinksReferenceDataSnapshot.refresh();
+        assertThat(elinksReferenceDataSnapshot.fetchParentId("1030")).isEqualTo("1029");
+        String fingerprint = elinksReferenceDataSnapshot.fingerprint();
+
+        elinksReferenceDataSnapshot.refresh();
+        assertThat(elinksReferenceDataSnapshot.fetchParentId("1030")).isEqualTo("1031");
+        assertThat(elinksReferenceDataSnapshot.fingerprint()).isNotEqualTo(fingerprint);
+    }
+
+    @Test
+    void keyWithSeveralValuesFailsLikeTheRepositoryQuery() {
+        stubRows(SELECT_BASE_LOCATION_PARENT_IDS, List.of());
+        stubRows(SELECT_JRD_REGION_IDS, List.of());
+        stubRows(SELECT_LOCATION_EPIMMS_IDS, List.of(List.of("1029", "20262"),
+            List.of("1029", "20263"), List.of("1030", "20264")));
+
+        assertThat(elinksReferenceDataSnapshot.fetchEpimmsId("1030")).isEqualTo("20264");
+        assertThrows(IncorrectResultSizeDataAccessException.class,
+            () -> elinksReferenceDataSnapshot.fetchEpimmsId("1029"));
+    }
+
+    @SafeVarargs
+    private void stubRows(String sql, List<List<String>>... loads) {
+        Stubber stubbing = doAnswer(invocation -> feed(invocation.getArgument(1), loads[0]));
+        for (int i = 1; i < loads.length; i++) {
+            List<List<String>> rows = loads[i];
+            stubbing = stubbing.doAnswer(invocation -> feed(invocation.getArgument(1), rows));
+        }
+        stubbing.when(jdbcTemplate).query(eq(sql), any(RowCallbackHandler.class));
+    }
+
+    private Object feed(RowCallbackHandler handler, List<List<String>> rows) throws SQLException {
+        for (List<String> row : rows) {
+            ResultSet resultSet = mock(ResultSet.class);
+            when(resultSet.getString(1)).thenReturn(row.get(0));
+            when(resultSet.getString(2)).thenReturn(row.get(1));
+            handler.processRow(resultSet);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,80 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.reform.judicialapi.elinks.domain.UserProfile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class ObjectIdIndexTest {
+
+    private static final int PROFILES = 50_000;
+
+    private static final int PROBES = 1_000;
+
+    @Test
+    void detectsObjectIdHeldByAnotherPersonalCode() {
+        ObjectIdIndex index = new ObjectIdIndex();
+        index.put("objectId1", "1234");
+        index.put("", "5678");
+        index.put(null, "5678");
+
+        assertThat(index.contains("objectId1")).isTrue();
+        assertThat(index.isHeldByAnother("objectId1", "1234")).isFalse();
+        assertThat(index.isHeldByAnother("objectId1", "5678")).isTrue();
+        assertThat(index.isHeldByAnother("objectId2", "5678")).isFalse();
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void sharedObjectIdIsHeldByAnotherForEveryPersonalCode() {
+        ObjectIdIndex index = new ObjectIdIndex();
+        index.put("objectId1", "1234");
+        index.put("objectId1", "5678");
+
+        assertThat(index.isHeldByAnother("objectId1", "1234")).isTrue();
+        assertThat(index.isHeldByAnother("objectId1", "5678")).isTrue();
+
+        index.clear();
+        assertThat(index.contains("objectId1")).isFalse();
+    }
+
+    @Test
+    void indexAgreesWithScanningFiftyThousandProfiles() {
+        List<UserProfile> profiles = new ArrayList<>(PROFILES);
+        ObjectIdIndex index = new ObjectIdIndex();
+        for (int i = 0; i < PROFILES; i++) {
+            profiles.add(UserProfile.builder().personalCode("pc" + i).objectId("objectId" + i).build());
+            index.put("objectId" + i, "pc" + i);
+        }
+
+        long scanStarted = System.nanoTime();
+        int scanHits = 0;
+        for (int i = 0; i < PROBES; i++) {
+            String objectId = "objectId" + (PROFILES - 1 - i);
+            String personalCode = "new" + i;
+            if (profiles.stream().anyMatch(profile -> objectId.equals(profile.getObjectId())
+                    && !personalCode.equals(profile.getPersonalCode()))) {
+                scanHits++;
+            }
+        }
+        long scanNanos = System.nanoTime() - scanStarted;
+
+        long indexStarted = System.nanoTime();
+        int indexHits = 0;
+        for (int i = 0; i < PROBES; i++) {
+            if (index.isHeldByAnother("objectId" + (PROFILES - 1 - i), "new" + i)) {
+                indexHits++;
+            }
+        }
+        long indexNanos = System.nanoTime() - indexStarted;
+
+        log.info("{} duplicate checks against {} profiles: scan {} ms, index {} ms",
+            PROBES, PROFILES, scanNanos / 1_000_000, indexNanos / 1_000_000);
+        assertThat(indexHits).isEqualTo(scanHits).isEqualTo(PROBES);
+    }
+}
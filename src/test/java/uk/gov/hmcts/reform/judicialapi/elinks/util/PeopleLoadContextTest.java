@@ -0,0 +1,64 @@
+package uk.gov.hmcts.reform.judicialapi.elinks.util;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.hmcts.reform.judicialapi.elinks.domain.UserProfile;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PeopleLoadContextTest {
+
+    @Test
+    void tracksLoadedProfilesAndPartialSuccess() {
+        PeopleLoadContext context = new PeopleLoadContext(LocalDateTime.now());
+        context.profileLoaded(UserProfile.builder().personalCode("1234").objectId("objectId1").build());
+        context.profileLoaded(UserProfile.builder().personalCode(null).objectId("").build());
+
+        assertThat(context.isProfileLoaded("1234")).isTrue();
+        assertThat(context.isProfileLoaded(null)).isTrue();
+        assertThat(context.isProfileLoaded("5678")).isFalse();
+        assertThat(context.isObjectIdLoaded("objectId1")).isTrue();
+        assertThat(context.isPartialSuccess()).isFalse();
+
+        context.markPartialSuccess();
+        assertThat(context.isPartialSuccess()).isTrue();
+    }
+
+    @Test
+    void contextsAreIndependentAndSafeAcrossThreads() throws Exception {
+        PeopleLoadContext context = new PeopleLoadContext(LocalDateTime.now());
+        PeopleLoadContext otherRun = new PeopleLoadContext(LocalDateTime.now());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                int offset = thread * 1000;
+                futures.add(executor.submit(() -> {
+                    for (int i = offset; i < offset + 1000; i++) {
+                        context.profileLoaded(UserProfile.builder().personalCode("pc" + i)
+                            .objectId("objectId" + i).build());
+                        context.getPeopleReceived().incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(context.getPeopleReceived().get()).isEqualTo(4000);
+        assertThat(context.isProfileLoaded("pc3999")).isTrue();
+        assertThat(context.isObjectIdLoaded("objectId0")).isTrue();
+        assertThat(otherRun.isProfileLoaded("pc0")).isFalse();
+        assertThat(otherRun.getExceptionRecords()).isNotSameAs(context.getExceptionRecords());
+        assertThat(otherRun.getPeopleReceived().get()).isZero();
+    }
+}